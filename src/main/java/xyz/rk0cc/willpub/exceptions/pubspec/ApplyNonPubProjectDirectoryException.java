@@ -2,6 +2,7 @@ package xyz.rk0cc.willpub.exceptions.pubspec;
 
 import javax.annotation.Nonnull;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 
 /**
@@ -23,7 +24,7 @@ public class ApplyNonPubProjectDirectoryException extends IOException implements
      */
     public ApplyNonPubProjectDirectoryException(@Nonnull Path appliedPath) {
         super("Applied directory is not a validated pub project file");
-        assert !appliedPath.isAbsolute() || !appliedPath.toFile().isDirectory();
+        assert !appliedPath.isAbsolute() || !Files.isDirectory(appliedPath);
         this.appliedPath = appliedPath;
     }
 
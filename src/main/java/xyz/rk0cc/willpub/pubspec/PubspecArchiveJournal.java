@@ -0,0 +1,442 @@
+package xyz.rk0cc.willpub.pubspec;
+
+import xyz.rk0cc.willpub.pubspec.data.PubspecSnapshot;
+import xyz.rk0cc.willpub.pubspec.parser.PubspecParserEngine;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.*;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only journal which persists every operation of {@link PubspecArchiver} into a memory-mapped segment file.
+ * <br/>
+ * Each record is encoded as:
+ * <pre>
+ * | length (int) | archived at in epoch nanosecond (long) | type (byte) | payload | CRC32 (int) |
+ * </pre>
+ * where <code>length</code> counts from timestamp to payload and CRC32 is computed with the same range.
+ * {@link Type#ARCHIVE} stores {@link PubspecSnapshot} as JSON, {@link Type#UNDO} stores number of removed archives
+ * as an <code>int</code> and {@link Type#CLEAR} has no payload.
+ * <br/>
+ * When a segment is full, all archives remained in {@link PubspecArchiver} are written to a new segment as
+ * {@link Type#ARCHIVE} records and older segment will be deleted. As a result, only the latest segment is needed to
+ * be read when recovering, and its size is bounded by remained archives rather than the entire history.
+ *
+ * @since 2.1.0
+ */
+final class PubspecArchiveJournal implements Closeable {
+    /**
+     * Default size of a segment file.
+     */
+    static final int DEFAULT_SEGMENT_SIZE = 1 << 20;
+
+    private static final String SEGMENT_PREFIX = "archive-", SEGMENT_SUFFIX = ".journal", TEMP_SUFFIX = ".tmp";
+    private static final int HEADER_SIZE = Integer.BYTES, META_SIZE = Long.BYTES + 1, CRC_SIZE = Integer.BYTES;
+
+    private final Path directory;
+    private final PubspecParserEngine engine;
+    private final int segmentSize;
+    private long segmentSequence;
+    private FileChannel channel;
+    private MappedByteBuffer segment;
+
+    /**
+     * Type of journal record.
+     */
+    enum Type {
+        ARCHIVE, UNDO, CLEAR
+    }
+
+    /**
+     * Open or create a journal under given directory.
+     *
+     * @param directory Directory storing segment files.
+     * @param engine {@link PubspecParserEngine} for encoding and decoding {@link PubspecSnapshot}.
+     * @param segmentSize Minimum size of each segment file.
+     *
+     * @throws IOException If unable to open the segment, or the journal is used by another owner.
+     */
+    PubspecArchiveJournal(
+            @Nonnull Path directory,
+            @Nonnull PubspecParserEngine engine,
+            @Nonnegative int segmentSize
+    ) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.engine = engine;
+        this.segmentSize = segmentSize;
+
+        final List<Long> sequences = new ArrayList<>();
+
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path f : (Iterable<Path>) files::iterator) {
+                final String fn = f.getFileName().toString();
+
+                if (fn.startsWith(SEGMENT_PREFIX) && fn.endsWith(SEGMENT_SUFFIX)) {
+                    try {
+                        sequences.add(Long.parseLong(
+                                fn.substring(SEGMENT_PREFIX.length(), fn.length() - SEGMENT_SUFFIX.length())
+                        ));
+                    } catch (NumberFormatException ignored) {
+                    }
+                }
+            }
+        }
+
+        Collections.sort(sequences);
+
+        this.segmentSequence = sequences.isEmpty() ? 0 : sequences.get(sequences.size() - 1);
+
+        // Lock before cleaning up, so that files of another owner will not be touched.
+        mapSegment(segmentSequence, segmentSize);
+
+        try {
+            // Another owner compacted after the segment was found.
+            if (Files.exists(segmentPath(segmentSequence + 1))) throw lockedException();
+
+            // Only the latest segment is valid, older one remained if it is interrupted after compaction.
+            for (int i = 0; i < sequences.size() - 1; i++) Files.deleteIfExists(segmentPath(sequences.get(i)));
+
+            try (Stream<Path> files = Files.list(directory)) {
+                for (Path f : (Iterable<Path>) files::iterator) {
+                    final String fn = f.getFileName().toString();
+
+                    // Incomplete compaction.
+                    if (fn.startsWith(SEGMENT_PREFIX) && fn.endsWith(TEMP_SUFFIX)) Files.deleteIfExists(f);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Resolve a journal directory of a project from an absolute directory which may be shared by multiple projects.
+     *
+     * @param sharedDirectory Absolute directory of journals.
+     * @param projectPath Path of the project.
+     *
+     * @return A subdirectory of <code>sharedDirectory</code> which is named by normalized <code>projectPath</code>.
+     */
+    @Nonnull
+    static Path projectDirectory(@Nonnull Path sharedDirectory, @Nonnull Path projectPath) {
+        return sharedDirectory.resolve(UUID.nameUUIDFromBytes(
+                projectPath.toAbsolutePath().normalize().toString().getBytes(StandardCharsets.UTF_8)
+        ).toString());
+    }
+
+    @Nonnull
+    private IOException lockedException() {
+        return new IOException("Archive journal under " + directory + " is used by another owner");
+    }
+
+    @Nonnull
+    private Path segmentPath(long sequence) {
+        return directory.resolve(SEGMENT_PREFIX + sequence + SEGMENT_SUFFIX);
+    }
+
+    /**
+     * Lock and map a segment file, then find the end of valid records.
+     * <br/>
+     * The lock is held until the channel is closed, so that only one owner can write the journal at the same time.
+     *
+     * @param sequence Sequence of segment.
+     * @param minimumSize Minimum size of mapped region.
+     *
+     * @throws IOException If unable to map the file, or it is locked by another owner.
+     */
+    private void mapSegment(long sequence, @Nonnegative int minimumSize) throws IOException {
+        final FileChannel opened = FileChannel.open(
+                segmentPath(sequence),
+                StandardOpenOption.CREATE,
+                StandardOpenOption.READ,
+                StandardOpenOption.WRITE
+        );
+
+        try {
+            FileLock lock;
+
+            try {
+                lock = opened.tryLock();
+            } catch (OverlappingFileLockException e) {
+                lock = null;
+            }
+
+            if (lock == null) throw lockedException();
+
+            final long mapSize = Math.max(minimumSize, opened.size());
+            final MappedByteBuffer mapped = opened.map(FileChannel.MapMode.READ_WRITE, 0, mapSize);
+
+            mapped.position(validEnd(mapped));
+
+            if (channel != null) channel.close();
+            channel = opened;
+            segment = mapped;
+        } catch (IOException | RuntimeException e) {
+            opened.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Find the end of valid records, and clear any incomplete record after it.
+     *
+     * @param mapped Mapped segment.
+     *
+     * @return Position after the last valid record.
+     */
+    @Nonnegative
+    private static int validEnd(@Nonnull ByteBuffer mapped) {
+        int pos = 0;
+
+        while (true) {
+            final int end = recordEnd(mapped, pos);
+
+            if (end < 0) break;
+
+            pos = end;
+        }
+
+        // Wipe torn record so that it will not be treated as valid after next append.
+        if (pos + HEADER_SIZE <= mapped.limit() && mapped.getInt(pos) != 0) {
+            for (int p = pos; p < mapped.limit(); p++) mapped.put(p, (byte) 0);
+        }
+
+        return pos;
+    }
+
+    /**
+     * Validate a record at given position.
+     *
+     * @param mapped Mapped segment.
+     * @param pos Start position of record.
+     *
+     * @return End position of record, or <code>-1</code> if it is not a valid record.
+     */
+    private static int recordEnd(@Nonnull ByteBuffer mapped, @Nonnegative int pos) {
+        if (pos + HEADER_SIZE > mapped.limit()) return -1;
+
+        final int length = mapped.getInt(pos);
+
+        if (length < META_SIZE || (long) pos + HEADER_SIZE + length + CRC_SIZE > mapped.limit()) return -1;
+
+        final CRC32 crc = new CRC32();
+        crc.update(mapped.slice(pos + HEADER_SIZE, length));
+
+        return (int) crc.getValue() == mapped.getInt(pos + HEADER_SIZE + length)
+                ? pos + HEADER_SIZE + length + CRC_SIZE
+                : -1;
+    }
+
+    /**
+     * Restore archives from current segment.
+     * <br/>
+     * All records are replayed by their header first, so that only archives still remained are decoded.
+     *
+     * @param capacity Maximum number of archives can be stored in {@link PubspecArchiver}.
+     *
+     * @return Remained archives from the earliest one.
+     *
+     * @throws IOException If the archived {@link PubspecSnapshot} can not be decoded.
+     */
+    @Nonnull
+    synchronized List<Map.Entry<ZonedDateTime, PubspecSnapshot>> restore(@Nonnegative int capacity)
+            throws IOException {
+        final int end = segment.position();
+        final Deque<Integer> remained = new ArrayDeque<>(capacity + 1);
+        int pos = 0;
+
+        while (pos < end) {
+            final int length = segment.getInt(pos);
+
+            switch (Type.values()[segment.get(pos + HEADER_SIZE + Long.BYTES)]) {
+                case ARCHIVE -> {
+                    remained.addLast(pos);
+                    if (remained.size() > capacity) remained.removeFirst();
+                }
+                case UNDO -> {
+                    final int count = segment.getInt(pos + HEADER_SIZE + META_SIZE);
+                    for (int c = 0; c < count && remained.size() > 1; c++) remained.removeLast();
+                }
+                case CLEAR -> {
+                    while (remained.size() > 1) remained.removeFirst();
+                }
+            }
+
+            pos += HEADER_SIZE + length + CRC_SIZE;
+        }
+
+        final List<Map.Entry<ZonedDateTime, PubspecSnapshot>> archives = new ArrayList<>(remained.size());
+
+        for (int archivePos : remained) {
+            final int length = segment.getInt(archivePos);
+            final ByteBuffer payload = segment.slice(archivePos + HEADER_SIZE + META_SIZE, length - META_SIZE);
+            final ZonedDateTime archivedAt = ZonedDateTime.ofInstant(
+                    Instant.ofEpochSecond(0, segment.getLong(archivePos + HEADER_SIZE)),
+                    ZoneId.of("UTC")
+            );
+
+            archives.add(new AbstractMap.SimpleImmutableEntry<>(
+                    archivedAt,
+                    PubspecSnapshot.getSnapshotOfCurrentPubspec(
+                            engine.read(StandardCharsets.UTF_8.decode(payload).toString())
+                    )
+            ));
+        }
+
+        return archives;
+    }
+
+    /**
+     * Encode a record.
+     *
+     * @param archivedAt Time of this record.
+     * @param type Type of this record.
+     * @param payload Payload of this record.
+     *
+     * @return Encoded record.
+     */
+    @Nonnull
+    private static ByteBuffer encode(@Nonnull ZonedDateTime archivedAt, @Nonnull Type type, @Nonnull byte[] payload) {
+        final int length = META_SIZE + payload.length;
+        final ByteBuffer record = ByteBuffer.allocate(HEADER_SIZE + length + CRC_SIZE);
+        final Instant instant = archivedAt.toInstant();
+
+        record.putInt(length)
+                .putLong(Math.addExact(Math.multiplyExact(instant.getEpochSecond(), 1_000_000_000L), instant.getNano()))
+                .put((byte) type.ordinal())
+                .put(payload);
+
+        final CRC32 crc = new CRC32();
+        crc.update(record.array(), HEADER_SIZE, length);
+        record.putInt((int) crc.getValue());
+
+        return record.flip();
+    }
+
+    /**
+     * Encode {@link PubspecSnapshot} as the payload of {@link Type#ARCHIVE} record.
+     * <br/>
+     * It does not touch the segment, so that it can be called without holding any lock.
+     *
+     * @param snapshot Archiving snapshot.
+     *
+     * @return Encoded payload.
+     *
+     * @throws IOException If unable to encode the snapshot.
+     */
+    @Nonnull
+    byte[] encodeSnapshot(@Nonnull PubspecSnapshot snapshot) throws IOException {
+        return engine.writeAsString(PubspecSnapshot.getMutableFromSnapshot(snapshot)).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Append an {@link Type#ARCHIVE} record.
+     *
+     * @param archivedAt Archived time.
+     * @param payload Archived snapshot which encoded by {@link #encodeSnapshot(PubspecSnapshot)}.
+     *
+     * @return <code>false</code> if current segment is full, which {@link #compact(List)} should be called instead.
+     */
+    synchronized boolean appendArchive(@Nonnull ZonedDateTime archivedAt, @Nonnull byte[] payload) {
+        return append(encode(archivedAt, Type.ARCHIVE, payload));
+    }
+
+    /**
+     * Append an {@link Type#UNDO} record.
+     *
+     * @param undoAt Time of undo.
+     * @param count Number of removed archives.
+     *
+     * @return <code>false</code> if current segment is full, which {@link #compact(List)} should be called instead.
+     */
+    synchronized boolean appendUndo(@Nonnull ZonedDateTime undoAt, @Nonnegative int count) {
+        return append(encode(undoAt, Type.UNDO, ByteBuffer.allocate(Integer.BYTES).putInt(count).array()));
+    }
+
+    /**
+     * Append a {@link Type#CLEAR} record.
+     *
+     * @param clearAt Time of clear.
+     *
+     * @return <code>false</code> if current segment is full, which {@link #compact(List)} should be called instead.
+     */
+    synchronized boolean appendClear(@Nonnull ZonedDateTime clearAt) {
+        return append(encode(clearAt, Type.CLEAR, new byte[0]));
+    }
+
+    private boolean append(@Nonnull ByteBuffer record) {
+        // Keep a zero length header after the last record as the end mark.
+        if (segment.remaining() < record.remaining() + HEADER_SIZE) return false;
+
+        segment.put(record);
+        return true;
+    }
+
+    /**
+     * Write all remained archives into a new segment, then replace current segment with it.
+     *
+     * @param remained All archives remained in {@link PubspecArchiver} from the earliest one.
+     *
+     * @throws IOException If unable to write new segment.
+     */
+    synchronized void compact(@Nonnull List<Map.Entry<ZonedDateTime, PubspecSnapshot>> remained)
+            throws IOException {
+        final List<ByteBuffer> records = new ArrayList<>(remained.size());
+        long total = HEADER_SIZE;
+
+        for (Map.Entry<ZonedDateTime, PubspecSnapshot> e : remained) {
+            final ByteBuffer record = encode(e.getKey(), Type.ARCHIVE, encodeSnapshot(e.getValue()));
+            records.add(record);
+            total += record.remaining();
+        }
+
+        final long nextSequence = segmentSequence + 1;
+        final Path temp = directory.resolve(SEGMENT_PREFIX + nextSequence + SEGMENT_SUFFIX + TEMP_SUFFIX);
+
+        try (FileChannel tempChannel = FileChannel.open(
+                temp,
+                StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.WRITE
+        )) {
+            for (ByteBuffer record : records) {
+                while (record.hasRemaining()) tempChannel.write(record);
+            }
+            tempChannel.force(true);
+        }
+
+        Files.move(temp, segmentPath(nextSequence), StandardCopyOption.ATOMIC_MOVE);
+
+        final long previousSequence = segmentSequence;
+        mapSegment(nextSequence, (int) Math.min(Integer.MAX_VALUE, Math.max(segmentSize, total * 2)));
+        segmentSequence = nextSequence;
+        Files.deleteIfExists(segmentPath(previousSequence));
+    }
+
+    /**
+     * Flush mapped segment to the storage.
+     */
+    synchronized void force() {
+        segment.force();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        segment.force();
+        channel.close();
+    }
+}
@@ -0,0 +1,26 @@
+package xyz.rk0cc.willpub.pubspec;
+
+import xyz.rk0cc.willpub.pubspec.data.PubspecSnapshot;
+import xyz.rk0cc.willpub.pubspec.data.PubspecSnapshotDelta;
+
+/**
+ * Define how {@link PubspecArchiver} stores each archive.
+ *
+ * @since 2.1.0
+ */
+public enum PubspecArchiveMode {
+    /**
+     * Every archive stores an entire {@link PubspecSnapshot}.
+     * <br/>
+     * It is the fastest way to restore any archive.
+     */
+    SNAPSHOT,
+    /**
+     * Only the earliest archive stores an entire {@link PubspecSnapshot}, and others store a
+     * {@link PubspecSnapshotDelta} from its previous archive.
+     * <br/>
+     * Memory uses of archives grows with the size of the edits rather than the size of <code>pubspec.yaml</code>, but
+     * restoring an archive other than the latest one requires applying all deltas before it.
+     */
+    DELTA
+}
@@ -2,29 +2,73 @@ package xyz.rk0cc.willpub.pubspec;
 
 import xyz.rk0cc.willpub.pubspec.data.Pubspec;
 import xyz.rk0cc.willpub.pubspec.data.PubspecSnapshot;
+import xyz.rk0cc.willpub.pubspec.data.PubspecSnapshotDelta;
 
+import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
 import java.io.Serializable;
+import java.io.UncheckedIOException;
 import java.nio.file.Path;
 import java.time.*;
-import java.util.Stack;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.EmptyStackException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Supplier;
 
 /**
- * Archive and store edited {@link Pubspec} as {@link PubspecSnapshot} up to 10 edited version.
+ * Archive and store edited {@link Pubspec} as {@link PubspecSnapshot} up to {@link #capacity()} edited version.
+ * <br/>
+ * Archives are stored in a fixed size ring buffer, which the earliest archive will be overwritten when it is full.
+ * Every archive is stamped with a non-decreasing UTC time, so that finding archive by time uses binary search.
+ * <br/>
+ * In {@link PubspecArchiveMode#DELTA} mode, only the earliest archive keeps entire {@link PubspecSnapshot} as a
+ * keyframe, and every later archive stores {@link PubspecSnapshotDelta} from its previous archive. The latest
+ * {@link PubspecSnapshot} is kept as well, so that archiving and reading the latest one do not require reconstruction.
+ * <br/>
+ * It is safe to use in multiple threads. Any method which only reads the latest archive does not block others unless
+ * an archive is modifying at the same time.
+ * <br/>
+ * If {@link PubspecManagerOptions#archiveJournalDirectory() journal directory} is applied, every modification is
+ * appended into a journal under that directory and the archives will be restored when next {@link PubspecManager} is
+ * created with the same directory. Journal is written into memory-mapped file which survives when the process
+ * crashed, but it only guaranteed to be written into storage when journal is compacted or
+ * {@link PubspecManager#close() closed}.
  *
  * @since 1.0.0
  */
 public final class PubspecArchiver {
-    private final Stack<PubspecArchiveNode> archives = new Stack<>();
+    /**
+     * Default number of archives can be stored in {@link PubspecArchiver}.
+     *
+     * @since 2.1.0
+     */
+    public static final int DEFAULT_CAPACITY = 10;
+
+    private final StampedLock lock = new StampedLock();
+    private final PubspecArchiveNode[] archives;
+    private final PubspecArchiveMode mode;
     private final Path projectPath;
+    private int head = 0, size = 0;
+    private PubspecSnapshot latest = null;
+    private PubspecArchiveJournal journal = null;
 
     /**
      * Create new archiver under a project path.
      *
      * @param projectPath Current project path from {@link PubspecManager}.
+     * @param capacity Maximum number of archives can be stored.
+     * @param mode How archives are stored.
      */
-    PubspecArchiver(@Nonnull Path projectPath) {
+    PubspecArchiver(@Nonnull Path projectPath, @Nonnegative int capacity, @Nonnull PubspecArchiveMode mode) {
+        assert capacity > 0;
         this.projectPath = projectPath;
+        this.archives = new PubspecArchiveNode[capacity];
+        this.mode = mode;
     }
 
     /**
@@ -36,19 +80,334 @@ public final class PubspecArchiver {
         return projectPath;
     }
 
+    /**
+     * Maximum number of archives can be stored in this archiver.
+     *
+     * @return Capacity of this archiver.
+     *
+     * @since 2.1.0
+     */
+    @Nonnegative
+    public int capacity() {
+        return archives.length;
+    }
+
+    /**
+     * Applied {@link PubspecArchiveMode} of this archiver.
+     *
+     * @return How archives are stored.
+     *
+     * @since 2.1.0
+     */
+    @Nonnull
+    public PubspecArchiveMode mode() {
+        return mode;
+    }
+
+    /**
+     * Number of archives stored currently.
+     *
+     * @return Number of archives.
+     *
+     * @since 2.1.0
+     */
+    @Nonnegative
+    public int size() {
+        return optimisticRead(() -> size);
+    }
+
+    /**
+     * Read fields without blocking if no archive is modifying, or wait for read lock otherwise.
+     * <br/>
+     * The <code>reader</code> may read inconsistent state and will be retried under read lock in that case, so it
+     * must not throw with any state.
+     *
+     * @param reader Read fields of this archiver.
+     * @param <T> Type of read value.
+     *
+     * @return Read value in consistent state.
+     */
+    private <T> T optimisticRead(@Nonnull Supplier<T> reader) {
+        long stamp = lock.tryOptimisticRead();
+        T value = reader.get();
+
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                value = reader.get();
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        return value;
+    }
+
+    /**
+     * Resolve the index of {@link #archives} from the order of archives.
+     *
+     * @param order Order of archive which <code>0</code> is the earliest one.
+     *
+     * @return Index of {@link #archives}.
+     */
+    private int indexOf(@Nonnegative int order) {
+        final int idx = head + order;
+        return idx >= archives.length ? idx - archives.length : idx;
+    }
+
     /**
      * Archive current edited {@link Pubspec} data into the archive.
      * <br/>
-     * If current archive has 10 edit history already, the earliest archive one will be removed when this method
-     * called.
+     * If current archive reached {@link #capacity()} already, the earliest archive one will be removed when this
+     * method called.
      *
      * @param pubspec A {@link Pubspec} which current state of data will be archived.
+     *
+     * @throws UncheckedIOException If journal is attached and unable to be written, which nothing will be archived.
      */
     public void archivePubspec(@Nonnull Pubspec pubspec) {
-        archives.push(new PubspecArchiveNode(PubspecSnapshot.getSnapshotOfCurrentPubspec(pubspec)));
+        final PubspecSnapshot snapshot = PubspecSnapshot.getSnapshotOfCurrentPubspec(pubspec);
+        final ZonedDateTime now = ZonedDateTime.now(ZoneId.of("UTC"));
+
+        // Encode before locking, so that readers are not blocked by serialization.
+        final PubspecArchiveJournal attached = optimisticRead(() -> journal);
+        byte[] payload = attached == null ? null : encodeForJournal(attached, snapshot);
+
+        final long stamp = lock.writeLock();
 
-        while (archives.size() >= 10) // Limited archived object to same memory space.
-            archives.remove(0);
+        try {
+            if (journal != null && payload == null) payload = encodeForJournal(journal, snapshot);
+
+            final ZonedDateTime archivedAt = archivedTimeOf(now);
+            final byte[] record = payload;
+
+            writeJournal(j -> j.appendArchive(archivedAt, record), () -> {
+                final List<Map.Entry<ZonedDateTime, PubspecSnapshot>> remained = remainedArchives();
+
+                if (remained.size() == archives.length) remained.remove(0);
+                remained.add(new AbstractMap.SimpleImmutableEntry<>(archivedAt, snapshot));
+
+                return remained;
+            });
+            archive(archivedAt, snapshot);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Nonnull
+    private static byte[] encodeForJournal(@Nonnull PubspecArchiveJournal journal, @Nonnull PubspecSnapshot snapshot) {
+        try {
+            return journal.encodeSnapshot(snapshot);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Resolve archived time of next archive, which never be earlier than the latest archive even system clock goes
+     * backward.
+     * <br/>
+     * It must be called when holding write lock.
+     *
+     * @param now Current UTC time.
+     *
+     * @return Archived time of next archive.
+     */
+    @Nonnull
+    private ZonedDateTime archivedTimeOf(@Nonnull ZonedDateTime now) {
+        if (size == 0) return now;
+
+        final ZonedDateTime latestAt = archives[indexOf(size - 1)].archivedAtUTC();
+        return latestAt.isAfter(now) ? latestAt : now;
+    }
+
+    /**
+     * Store {@link PubspecSnapshot} as the latest archive.
+     * <br/>
+     * It must be called when holding write lock.
+     *
+     * @param now Current UTC time.
+     * @param snapshot A {@link PubspecSnapshot} to be archived.
+     */
+    private void archive(@Nonnull ZonedDateTime now, @Nonnull PubspecSnapshot snapshot) {
+        final ZonedDateTime archivedAt = archivedTimeOf(now);
+
+        if (size == archives.length) evictEarliest();
+
+        archives[indexOf(size)] = mode == PubspecArchiveMode.DELTA && size > 0
+                ? new PubspecArchiveNode(archivedAt, PubspecSnapshotDelta.between(latest, snapshot))
+                : new PubspecArchiveNode(archivedAt, snapshot);
+        size++;
+        latest = snapshot;
+    }
+
+    /**
+     * Append a record to {@link PubspecArchiveJournal} if attached, or compact it with <code>remainedAfter</code> when
+     * current segment is full.
+     * <br/>
+     * It must be called when holding write lock and <b>before</b> archives modified, so that archives are unchanged
+     * if the journal can not be written.
+     *
+     * @param appender Append a record to the journal.
+     * @param remainedAfter All archives from the earliest one once the modification is applied.
+     *
+     * @throws UncheckedIOException If unable to write the journal.
+     */
+    private void writeJournal(
+            @Nonnull JournalAppender appender,
+            @Nonnull Supplier<List<Map.Entry<ZonedDateTime, PubspecSnapshot>>> remainedAfter
+    ) {
+        if (journal == null) return;
+
+        try {
+            if (!appender.append(journal)) journal.compact(remainedAfter.get());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * List all archives with reconstructed {@link PubspecSnapshot} from the earliest one.
+     * <br/>
+     * It must be called when holding either read or write lock.
+     *
+     * @return All archives.
+     */
+    @Nonnull
+    private List<Map.Entry<ZonedDateTime, PubspecSnapshot>> remainedArchives() {
+        final List<Map.Entry<ZonedDateTime, PubspecSnapshot>> remained = new ArrayList<>(size);
+        PubspecSnapshot snapshot = null;
+
+        for (int o = 0; o < size; o++) {
+            final PubspecArchiveNode node = archives[indexOf(o)];
+            snapshot = node.snapshot() == null ? node.delta().applyTo(snapshot) : node.snapshot();
+            remained.add(new AbstractMap.SimpleImmutableEntry<>(node.archivedAtUTC(), snapshot));
+        }
+
+        return remained;
+    }
+
+    /**
+     * Restore archives from {@link PubspecArchiveJournal}, then append further modifications into it.
+     *
+     * @param journal Opened {@link PubspecArchiveJournal}.
+     *
+     * @throws IOException If unable to read archived {@link PubspecSnapshot} from the journal.
+     */
+    void attachJournal(@Nonnull PubspecArchiveJournal journal) throws IOException {
+        final long stamp = lock.writeLock();
+
+        try {
+            assert this.journal == null && size == 0;
+
+            for (Map.Entry<ZonedDateTime, PubspecSnapshot> e : journal.restore(archives.length))
+                archive(e.getKey(), e.getValue());
+
+            this.journal = journal;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Force and close attached {@link PubspecArchiveJournal}.
+     *
+     * @throws IOException If unable to close the journal.
+     */
+    void closeJournal() throws IOException {
+        final long stamp = lock.writeLock();
+
+        try {
+            if (journal != null) journal.close();
+            journal = null;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Remove the earliest archive, and convert the next archive as keyframe in {@link PubspecArchiveMode#DELTA} mode.
+     * <br/>
+     * It must be called when holding write lock.
+     */
+    private void evictEarliest() {
+        assert size > 0;
+
+        if (size > 1) {
+            final int nextIdx = indexOf(1);
+            final PubspecArchiveNode next = archives[nextIdx];
+
+            if (next.snapshot() == null)
+                archives[nextIdx] = new PubspecArchiveNode(next.archivedAtUTC(), snapshotOf(1));
+        }
+
+        archives[head] = null;
+        head = indexOf(1);
+        size--;
+    }
+
+    /**
+     * Drop latest archives until given number of archives remained.
+     * <br/>
+     * It must be called when holding write lock.
+     *
+     * @param remained Number of archives should be kept.
+     */
+    private void truncate(@Nonnegative int remained) {
+        assert remained > 0;
+        if (remained >= size) return;
+
+        latest = snapshotOf(remained - 1);
+
+        for (int o = remained; o < size; o++) archives[indexOf(o)] = null;
+        size = remained;
+    }
+
+    /**
+     * Drop latest archives until given number of archives remained, and append it into journal.
+     * <br/>
+     * It must be called when holding write lock.
+     *
+     * @param remained Number of archives should be kept.
+     */
+    private void undo(@Nonnegative int remained) {
+        final int removed = size - remained;
+        if (removed <= 0) return;
+
+        writeJournal(
+                j -> j.appendUndo(ZonedDateTime.now(ZoneId.of("UTC")), removed),
+                () -> new ArrayList<>(remainedArchives().subList(0, remained))
+        );
+        truncate(remained);
+    }
+
+    /**
+     * Get or reconstruct {@link PubspecSnapshot} of the archive.
+     * <br/>
+     * It must be called when holding either read or write lock.
+     *
+     * @param order Order of archive which <code>0</code> is the earliest one.
+     *
+     * @return {@link PubspecSnapshot} of that archive.
+     */
+    @Nonnull
+    private PubspecSnapshot snapshotOf(@Nonnegative int order) {
+        assert order < size;
+
+        if (order == size - 1) return latest;
+
+        PubspecSnapshot snapshot = archives[indexOf(order)].snapshot();
+        if (snapshot != null) return snapshot;
+
+        // Find nearest keyframe, which must be existed at the earliest one.
+        int keyframe = order - 1;
+        while (archives[indexOf(keyframe)].snapshot() == null) keyframe--;
+
+        snapshot = archives[indexOf(keyframe)].snapshot();
+        for (int o = keyframe + 1; o <= order; o++) snapshot = archives[indexOf(o)].delta().applyTo(snapshot);
+
+        return snapshot;
     }
 
     /**
@@ -57,9 +416,15 @@ public final class PubspecArchiver {
      * @throws IndexOutOfBoundsException If less or equal than one archive saved in {@link PubspecArchiver}.
      */
     public void undoArchive() {
-        if (archives.size() <= 1)
-            throw new IndexOutOfBoundsException("Undo required two or more pubspec snapshot are archived.");
-        archives.pop();
+        final long stamp = lock.writeLock();
+
+        try {
+            if (size <= 1)
+                throw new IndexOutOfBoundsException("Undo required two or more pubspec snapshot are archived.");
+            undo(size - 1);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
     }
 
     /**
@@ -68,8 +433,38 @@ public final class PubspecArchiver {
      * @param count Number of older version removed.
      */
     public void undoArchive(int count) {
-        for (int r = 0; r < count && archives.size() > 1; r++)
-            archives.pop();
+        if (count <= 0) return;
+
+        final long stamp = lock.writeLock();
+
+        try {
+            if (size > 1) undo(Math.max(1, size - count));
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Find the order of the first archive which archived after given time.
+     * <br/>
+     * It must be called when holding either read or write lock.
+     *
+     * @param time A UTC of {@link ZonedDateTime}.
+     *
+     * @return Order of archive which <code>0</code> is the earliest one, or {@link #size} if no archive archived after
+     *         <code>time</code>.
+     */
+    private int firstArchivedAfter(@Nonnull ZonedDateTime time) {
+        int low = 0, high = size;
+
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+
+            if (archives[indexOf(mid)].archivedAtUTC().isAfter(time)) high = mid;
+            else low = mid + 1;
+        }
+
+        return low;
     }
 
     /**
@@ -79,8 +474,71 @@ public final class PubspecArchiver {
      */
     public void undoArchive(@Nonnull ZonedDateTime untilBefore) {
         assert untilBefore.getZone().getId().equalsIgnoreCase("UTC");
-        while (archives.peek().archivedAtUTC().isAfter(untilBefore) && archives.size() > 1) {
-            archives.pop();
+        final long stamp = lock.writeLock();
+
+        try {
+            if (size > 1) undo(Math.max(1, firstArchivedAfter(untilBefore)));
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Find the latest {@link PubspecSnapshot} which archived at or before given time.
+     *
+     * @param at A UTC of {@link ZonedDateTime} to find the archive.
+     *
+     * @return {@link PubspecSnapshot} at that time, or <code>null</code> if all archives are archived after
+     *         <code>at</code>.
+     *
+     * @since 2.1.0
+     */
+    @Nullable
+    public PubspecSnapshot archivedSnapshotAt(@Nonnull ZonedDateTime at) {
+        assert at.getZone().getId().equalsIgnoreCase("UTC");
+        final long stamp = lock.readLock();
+
+        try {
+            final int order = firstArchivedAfter(at);
+            return order == 0 ? null : snapshotOf(order - 1);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Estimated number of bytes retained by all archives.
+     * <br/>
+     * Data shared among snapshots are counted in every snapshot which holding it. Therefore, it is an upper bound
+     * of actual memory uses.
+     *
+     * @return Estimated bytes.
+     *
+     * @see PubspecSnapshotDelta#estimateRetainedBytes(PubspecSnapshot)
+     * @since 2.1.0
+     */
+    @Nonnegative
+    public long retainedBytes() {
+        final long stamp = lock.readLock();
+
+        try {
+            long bytes = 0;
+
+            for (int o = 0; o < size; o++) {
+                final PubspecArchiveNode node = archives[indexOf(o)];
+                final PubspecSnapshot stored = node.snapshot();
+
+                bytes += stored == null
+                        ? node.delta().retainedBytes()
+                        : PubspecSnapshotDelta.estimateRetainedBytes(stored);
+            }
+
+            if (mode == PubspecArchiveMode.DELTA && size > 1)
+                bytes += PubspecSnapshotDelta.estimateRetainedBytes(latest);
+
+            return bytes;
+        } finally {
+            lock.unlockRead(stamp);
         }
     }
 
@@ -88,9 +546,77 @@ public final class PubspecArchiver {
      * Wipe all {@link #archivePubspec(Pubspec) stored archive} except the latest one.
      */
     public void clearOlderArchive() {
-        PubspecArchiveNode latest = archives.peek();
-        archives.clear();
-        archives.push(latest);
+        final long stamp = lock.writeLock();
+
+        try {
+            if (size == 0) throw new EmptyStackException();
+
+            writeJournal(j -> j.appendClear(ZonedDateTime.now(ZoneId.of("UTC"))), () -> List.of(
+                    new AbstractMap.SimpleImmutableEntry<>(archives[indexOf(size - 1)].archivedAtUTC(), latest)
+            ));
+            clearExceptLatest();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Remove all archives except the latest one.
+     * <br/>
+     * It must be called when holding write lock.
+     */
+    private void clearExceptLatest() {
+        assert size > 0;
+
+        final int latestIdx = indexOf(size - 1);
+        final PubspecArchiveNode latestNode = archives[latestIdx];
+        for (int o = 0; o < size - 1; o++) archives[indexOf(o)] = null;
+
+        archives[latestIdx] = latestNode.snapshot() == null
+                ? new PubspecArchiveNode(latestNode.archivedAtUTC(), latest)
+                : latestNode;
+        head = latestIdx;
+        size = 1;
+    }
+
+    /**
+     * Append a record into {@link PubspecArchiveJournal}.
+     */
+    @FunctionalInterface
+    private interface JournalAppender {
+        /**
+         * Append a record.
+         *
+         * @param journal Attached {@link PubspecArchiveJournal}.
+         *
+         * @return <code>false</code> if current segment is full.
+         *
+         * @throws IOException If unable to write the record.
+         */
+        boolean append(@Nonnull PubspecArchiveJournal journal) throws IOException;
+    }
+
+    /**
+     * Get the latest {@link PubspecArchiveNode} without blocking when no archive is modifying.
+     *
+     * @return The latest {@link PubspecArchiveNode}.
+     *
+     * @throws EmptyStackException If nothing archived.
+     */
+    @Nonnull
+    private PubspecArchiveNode latestNode() {
+        final PubspecArchiveNode latestNode = optimisticRead(() -> {
+            final int currentHead = head, currentSize = size;
+
+            if (currentSize <= 0 || currentSize > archives.length || currentHead < 0 || currentHead >= archives.length)
+                return null;
+
+            return archives[(currentHead + currentSize - 1) % archives.length];
+        });
+
+        if (latestNode == null) throw new EmptyStackException();
+
+        return latestNode;
     }
 
     /**
@@ -100,7 +626,7 @@ public final class PubspecArchiver {
      */
     @Nonnull
     public LocalDateTime recentArchiveAt() {
-        return archives.peek().archivedAt();
+        return latestNode().archivedAt();
     }
 
     /**
@@ -110,38 +636,62 @@ public final class PubspecArchiver {
      */
     @Nonnull
     public ZonedDateTime recentArchiveAtUTC() {
-        return archives.peek().archivedAtUTC();
+        return latestNode().archivedAtUTC();
     }
 
     /**
      * Get the latest version of {@link PubspecSnapshot}.
      *
      * @return Latest {@link #archivePubspec(Pubspec) archived} {@link PubspecSnapshot}.
+     *
+     * @throws EmptyStackException If nothing archived.
      */
     @Nonnull
     PubspecSnapshot recentSnapshot() {
-        return archives.peek().snapshot();
+        final PubspecSnapshot snapshot = optimisticRead(() -> latest);
+
+        if (snapshot == null) throw new EmptyStackException();
+
+        return snapshot;
     }
 }
 
 /**
- * A node contains {@link PubspecSnapshot} when called {@link PubspecArchiver#archivePubspec(Pubspec)} and
- * {@link Stack#push(Object) push this node}.
+ * A node contains {@link PubspecSnapshot} when called {@link PubspecArchiver#archivePubspec(Pubspec)} and store into
+ * the archiver.
  * 
  * @since 1.0.0
  */
 final class PubspecArchiveNode implements Serializable {
     private final ZonedDateTime archivedAt;
     private final PubspecSnapshot snapshot;
+    private final PubspecSnapshotDelta delta;
 
     /**
-     * Create new node of {@link PubspecArchiveNode}.
+     * Create new node of {@link PubspecArchiveNode} which stores entire {@link PubspecSnapshot}.
      *
+     * @param archivedAt UTC time of archiving this node.
      * @param snapshot A {@link PubspecSnapshot} data that going to store.
      */
-    PubspecArchiveNode(@Nonnull PubspecSnapshot snapshot) {
-        this.archivedAt = ZonedDateTime.now(ZoneId.of("UTC"));
+    PubspecArchiveNode(@Nonnull ZonedDateTime archivedAt, @Nonnull PubspecSnapshot snapshot) {
+        assert archivedAt.getZone().getId().equalsIgnoreCase("UTC");
+        this.archivedAt = archivedAt;
         this.snapshot = snapshot;
+        this.delta = null;
+    }
+
+    /**
+     * Create new node of {@link PubspecArchiveNode} which stores {@link PubspecSnapshotDelta} from the previous
+     * archive.
+     *
+     * @param archivedAt UTC time of archiving this node.
+     * @param delta A {@link PubspecSnapshotDelta} which reconstruct this archive from previous archive.
+     */
+    PubspecArchiveNode(@Nonnull ZonedDateTime archivedAt, @Nonnull PubspecSnapshotDelta delta) {
+        assert archivedAt.getZone().getId().equalsIgnoreCase("UTC");
+        this.archivedAt = archivedAt;
+        this.snapshot = null;
+        this.delta = delta;
     }
 
     /**
@@ -167,10 +717,21 @@ final class PubspecArchiveNode implements Serializable {
     /**
      * Snapshot of this node.
      *
-     * @return A {@link PubspecSnapshot} when this node is created.
+     * @return A {@link PubspecSnapshot} when this node is created, or <code>null</code> if this node stores
+     *         {@link #delta()} instead.
      */
-    @Nonnull
+    @Nullable
     PubspecSnapshot snapshot() {
         return snapshot;
     }
+
+    /**
+     * Delta which reconstruct this node from the previous archive.
+     *
+     * @return A {@link PubspecSnapshotDelta}, or <code>null</code> if this node stores entire {@link #snapshot()}.
+     */
+    @Nullable
+    PubspecSnapshotDelta delta() {
+        return delta;
+    }
 }
@@ -0,0 +1,80 @@
+package xyz.rk0cc.willpub.pubspec;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import java.util.Objects;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link Executor Executors} which run asynchronous operations of {@link PubspecManager}.
+ * <br/>
+ * Blocking file operations are run in <code>io</code>, and parsing and serialization are run in <code>cpu</code>, so
+ * that waiting storage never occupies the threads for computing.
+ *
+ * @param io An {@link Executor} for reading and writing files, which should be bounded.
+ * @param cpu An {@link Executor} for parsing and serialization.
+ *
+ * @since 2.1.0
+ */
+public record PubspecAsyncExecutors(@Nonnull Executor io, @Nonnull Executor cpu) {
+    /**
+     * Number of threads of I/O executor in {@link #shared()}.
+     */
+    public static final int DEFAULT_IO_THREADS = 8;
+
+    /**
+     * Validate executors.
+     */
+    public PubspecAsyncExecutors {
+        Objects.requireNonNull(io);
+        Objects.requireNonNull(cpu);
+    }
+
+    /**
+     * Process-wide executors which uses {@link #DEFAULT_IO_THREADS} daemon threads for I/O and
+     * {@link ForkJoinPool#commonPool()} for computing.
+     * <br/>
+     * Idle I/O threads are terminated after 30 seconds.
+     *
+     * @return Shared {@link PubspecAsyncExecutors}.
+     */
+    @Nonnull
+    public static PubspecAsyncExecutors shared() {
+        return SharedHolder.SHARED;
+    }
+
+    /**
+     * Create a bounded {@link ExecutorService} for I/O with daemon threads. It is not required to be shut down.
+     *
+     * @param threads Maximum number of threads.
+     *
+     * @return A new {@link ExecutorService}.
+     */
+    @Nonnull
+    public static ExecutorService newIOExecutor(@Nonnegative int threads) {
+        final AtomicInteger sequence = new AtomicInteger();
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                threads,
+                threads,
+                30,
+                TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                r -> {
+                    final Thread t = new Thread(r, "pubspec-io-" + sequence.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                }
+        );
+        executor.allowCoreThreadTimeOut(true);
+
+        return executor;
+    }
+
+    private static final class SharedHolder {
+        private static final PubspecAsyncExecutors SHARED = new PubspecAsyncExecutors(
+                newIOExecutor(DEFAULT_IO_THREADS),
+                ForkJoinPool.commonPool()
+        );
+    }
+}
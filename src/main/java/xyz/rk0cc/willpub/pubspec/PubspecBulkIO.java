@@ -0,0 +1,215 @@
+package xyz.rk0cc.willpub.pubspec;
+
+import xyz.rk0cc.willpub.pubspec.data.Pubspec;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Call {@link PubspecManager#loadPubspec()} and {@link PubspecManager#savePubspec(Pubspec)} of many
+ * {@link PubspecManager} at once.
+ * <br/>
+ * Every file is handled in a separated task, and at most {@link #concurrency()} files are handled at the same time.
+ * When it runs on Java 21 or newer from the multi-release JAR, each file gets its own virtual thread, so waiting storage
+ * never occupies a platform thread. Otherwise, a bounded pool of platform threads is created for each call.
+ * {@link #threadingMode()} reports which one is used.
+ * <br/>
+ * Failure of a file does not stop the others, and it is reported in {@link Result} instead.
+ *
+ * @since 2.1.0
+ */
+public final class PubspecBulkIO {
+    private final int concurrency;
+
+    /**
+     * Outcome of a single {@link PubspecManager} in a bulk operation.
+     *
+     * @param manager Handled {@link PubspecManager}.
+     * @param value Loaded value, or <code>null</code> if failed or nothing to be returned.
+     * @param cause Thrown exception, or <code>null</code> if succeeded.
+     *
+     * @param <T> Type of loaded value.
+     */
+    public record Result<T>(@Nonnull PubspecManager manager, @Nullable T value, @Nullable Exception cause) {
+        /**
+         * Determine this file is handled without exception.
+         *
+         * @return <code>true</code> if {@link #cause()} is <code>null</code>.
+         */
+        public boolean isSuccess() {
+            return cause == null;
+        }
+    }
+
+    /**
+     * Create bulk operation with {@link #defaultConcurrency() default concurrency}.
+     */
+    public PubspecBulkIO() {
+        this(defaultConcurrency());
+    }
+
+    /**
+     * Create bulk operation with given concurrency.
+     *
+     * @param concurrency Maximum number of files handled at the same time.
+     *
+     * @throws IllegalArgumentException If <code>concurrency</code> is less than 1.
+     */
+    public PubspecBulkIO(@Nonnegative int concurrency) {
+        if (concurrency < 1)
+            throw new IllegalArgumentException("Concurrency must be at least 1, but " + concurrency + " given.");
+
+        this.concurrency = concurrency;
+    }
+
+    /**
+     * Default number of files handled at the same time, which is higher when virtual threads are used.
+     *
+     * @return Default concurrency of current runtime.
+     */
+    @Nonnegative
+    public static int defaultConcurrency() {
+        return PubspecBulkThreads.defaultConcurrency();
+    }
+
+    /**
+     * Kind of threads which handle each file.
+     *
+     * @return <code>virtual</code> if every file is handled in its own virtual thread, or <code>platform</code> if a
+     *         pool of platform threads is used.
+     */
+    @Nonnull
+    public static String threadingMode() {
+        return PubspecBulkThreads.mode();
+    }
+
+    /**
+     * Maximum number of files handled at the same time.
+     *
+     * @return Applied concurrency.
+     */
+    @Nonnegative
+    public int concurrency() {
+        return concurrency;
+    }
+
+    /**
+     * Call {@link PubspecManager#loadPubspec()} of all managers.
+     *
+     * @param managers {@link PubspecManager} to be loaded.
+     *
+     * @return A {@link List} of {@link Result} with loaded {@link Pubspec}, which is the same order of
+     *         <code>managers</code>.
+     *
+     * @throws InterruptedException If interrupted while waiting, which unfinished files will be cancelled.
+     */
+    @Nonnull
+    public List<Result<Pubspec>> loadAll(@Nonnull Collection<? extends PubspecManager> managers)
+            throws InterruptedException {
+        final ArrayList<PubspecManager> ordered = new ArrayList<>(managers);
+
+        return run(ordered, PubspecManager::loadPubspec);
+    }
+
+    /**
+     * Call {@link PubspecManager#savePubspec(Pubspec)} with mapped {@link Pubspec} of all managers.
+     * <br/>
+     * Each {@link Pubspec} is serialized while other files are written, therefore it must not be modified until this
+     * method returned.
+     *
+     * @param pubspecs A {@link Map} of {@link PubspecManager} and {@link Pubspec} to be saved.
+     *
+     * @return A {@link List} of {@link Result}, which is the same order of iterating <code>pubspecs</code>.
+     *
+     * @throws InterruptedException If interrupted while waiting, which unfinished files will be cancelled.
+     */
+    @Nonnull
+    public List<Result<Void>> saveAll(@Nonnull Map<? extends PubspecManager, ? extends Pubspec> pubspecs)
+            throws InterruptedException {
+        final ArrayList<PubspecManager> ordered = new ArrayList<>(pubspecs.size());
+        final IdentityHashMap<PubspecManager, Pubspec> content = new IdentityHashMap<>(pubspecs.size());
+
+        pubspecs.forEach((m, p) -> {
+            ordered.add(m);
+            content.put(m, Objects.requireNonNull(p));
+        });
+
+        return run(ordered, m -> {
+            m.savePubspec(content.get(m));
+            return null;
+        });
+    }
+
+    /**
+     * Apply <code>operation</code> to every manager in separated tasks.
+     *
+     * @param managers Handling {@link PubspecManager}.
+     * @param operation Action of each file.
+     *
+     * @return A {@link List} of {@link Result} in the same order of <code>managers</code>.
+     *
+     * @param <T> Type of returned value.
+     *
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    @Nonnull
+    private <T> List<Result<T>> run(@Nonnull List<PubspecManager> managers, @Nonnull Operation<T> operation)
+            throws InterruptedException {
+        if (managers.isEmpty()) return List.of();
+
+        final Semaphore permits = new Semaphore(concurrency);
+        final ArrayList<Callable<Result<T>>> tasks = new ArrayList<>(managers.size());
+
+        for (PubspecManager m : managers) {
+            Objects.requireNonNull(m);
+            tasks.add(() -> {
+                permits.acquire();
+                try {
+                    return new Result<>(m, operation.apply(m), null);
+                } catch (IOException | RuntimeException e) {
+                    return new Result<>(m, null, e);
+                } finally {
+                    permits.release();
+                }
+            });
+        }
+
+        final ExecutorService executor = PubspecBulkThreads.newExecutor(Math.min(concurrency, managers.size()));
+        final List<Future<Result<T>>> futures;
+
+        try {
+            futures = executor.invokeAll(tasks);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        final ArrayList<Result<T>> results = new ArrayList<>(futures.size());
+
+        for (Future<Result<T>> f : futures) {
+            try {
+                results.add(f.get());
+            } catch (ExecutionException e) {
+                // Only Error or InterruptedException from acquiring permits can be thrown from the task.
+                if (e.getCause() instanceof Error err) throw err;
+                throw (InterruptedException) new InterruptedException().initCause(e.getCause());
+            }
+        }
+
+        return Collections.unmodifiableList(results);
+    }
+
+    /**
+     * An action to a single {@link PubspecManager}.
+     *
+     * @param <T> Type of returned value.
+     */
+    @FunctionalInterface
+    private interface Operation<T> {
+        @Nullable
+        T apply(@Nonnull PubspecManager manager) throws IOException;
+    }
+}
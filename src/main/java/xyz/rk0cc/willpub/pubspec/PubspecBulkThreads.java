@@ -0,0 +1,52 @@
+package xyz.rk0cc.willpub.pubspec;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Threads which run each file of {@link PubspecBulkIO}.
+ * <br/>
+ * This is the fallback for Java 17, which uses a bounded pool of platform threads. A multi-release JAR replaces this
+ * class with <code>META-INF/versions/21</code> that runs every file in its own virtual thread.
+ *
+ * @since 2.1.0
+ */
+final class PubspecBulkThreads {
+    private PubspecBulkThreads() {}
+
+    /**
+     * Name of threading mode for {@link PubspecBulkIO#threadingMode()}.
+     * <br/>
+     * It is a method rather than constant, so that it is not inlined into classes which are not versioned.
+     *
+     * @return <code>platform</code>
+     */
+    @Nonnull
+    static String mode() {
+        return "platform";
+    }
+
+    /**
+     * Default number of files handled at the same time, which is the same size of
+     * {@link PubspecAsyncExecutors#shared() shared} I/O executor.
+     *
+     * @return Default concurrency.
+     */
+    @Nonnegative
+    static int defaultConcurrency() {
+        return PubspecAsyncExecutors.DEFAULT_IO_THREADS;
+    }
+
+    /**
+     * Create an {@link ExecutorService} for a single bulk operation, which will be shut down once finished.
+     *
+     * @param concurrency Maximum number of files handled at the same time.
+     *
+     * @return A new {@link ExecutorService}.
+     */
+    @Nonnull
+    static ExecutorService newExecutor(@Nonnegative int concurrency) {
+        return PubspecAsyncExecutors.newIOExecutor(concurrency);
+    }
+}
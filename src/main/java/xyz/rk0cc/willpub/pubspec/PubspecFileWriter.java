@@ -0,0 +1,137 @@
+package xyz.rk0cc.willpub.pubspec;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Replace a file atomically only if the content is changed.
+ *
+ * @since 2.1.0
+ */
+final class PubspecFileWriter {
+    private PubspecFileWriter() {}
+
+    /**
+     * Write <code>content</code> into <code>target</code> if it is different from current content.
+     * <br/>
+     * The content is written into a temporary file in the same directory first, then moved to <code>target</code>
+     * atomically when it is supported by the {@link FileSystem}. If <code>target</code> is a symbolic link, the linked
+     * file will be replaced instead.
+     *
+     * @param target Written file.
+     * @param content Buffer of new content.
+     * @param length Number of bytes from the beginning of <code>content</code>.
+     * @param sync Applied {@link PubspecSyncPolicy}.
+     *
+     * @return <code>true</code> if the file is written, or <code>false</code> if the content is unchanged.
+     *
+     * @throws IOException If unable to read or write the file.
+     */
+    static boolean writeIfChanged(
+            @Nonnull Path target,
+            @Nonnull byte[] content,
+            @Nonnegative int length,
+            @Nonnull PubspecSyncPolicy sync
+    ) throws IOException {
+        final Path file = Files.isSymbolicLink(target) ? target.toRealPath() : target.toAbsolutePath();
+
+        if (isSameContent(file, content, length)) return false;
+
+        final String suffix = "." + Long.toHexString(ThreadLocalRandom.current().nextLong()) + ".tmp";
+        final Path dir = file.getParent(), temp = dir.resolve("." + file.getFileName() + suffix);
+
+        try {
+            try (FileChannel channel = FileChannel.open(
+                    temp,
+                    StandardOpenOption.CREATE_NEW,
+                    StandardOpenOption.WRITE
+            )) {
+                final ByteBuffer buffer = ByteBuffer.wrap(content, 0, length);
+                while (buffer.hasRemaining()) channel.write(buffer);
+                if (sync != PubspecSyncPolicy.NONE) channel.force(true);
+            }
+
+            copyPermissions(file, temp);
+
+            try {
+                Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException | RuntimeException e) {
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException de) {
+                e.addSuppressed(de);
+            }
+            throw e;
+        }
+
+        if (sync == PubspecSyncPolicy.FILE_AND_DIRECTORY) forceDirectory(dir);
+
+        return true;
+    }
+
+    /**
+     * Compare current content of the file.
+     *
+     * @param file Compared file.
+     * @param content Buffer of new content.
+     * @param length Number of bytes from the beginning of <code>content</code>.
+     *
+     * @return <code>true</code> if the file exists and has exactly the same bytes.
+     *
+     * @throws IOException If unable to read the file.
+     */
+    private static boolean isSameContent(@Nonnull Path file, @Nonnull byte[] content, @Nonnegative int length)
+            throws IOException {
+        try {
+            // Compare size first, so that most of changes are found without reading the file.
+            if (Files.size(file) != length) return false;
+
+            return Arrays.equals(Files.readAllBytes(file), 0, length, content, 0, length);
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Apply POSIX permissions of the replaced file to the temporary file, if the {@link FileSystem} supports it.
+     *
+     * @param file Replaced file.
+     * @param temp Temporary file.
+     *
+     * @throws IOException If unable to read or apply permissions.
+     */
+    private static void copyPermissions(@Nonnull Path file, @Nonnull Path temp) throws IOException {
+        final PosixFileAttributeView view = Files.getFileAttributeView(file, PosixFileAttributeView.class);
+
+        if (view == null || !Files.exists(file)) return;
+
+        try {
+            Files.setPosixFilePermissions(temp, view.readAttributes().permissions());
+        } catch (UnsupportedOperationException ignored) {
+            // The view is provided but permissions are not stored.
+        }
+    }
+
+    /**
+     * Force the directory entries to the storage.
+     *
+     * @param dir Directory of replaced file.
+     */
+    private static void forceDirectory(@Nonnull Path dir) {
+        try (FileChannel channel = FileChannel.open(dir, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException | UnsupportedOperationException ignored) {
+            // Opening a directory is not supported on this platform.
+        }
+    }
+}
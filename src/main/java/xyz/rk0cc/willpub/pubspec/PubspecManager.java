@@ -4,49 +4,169 @@ import xyz.rk0cc.willpub.exceptions.pubspec.ApplyNonPubProjectDirectoryException
 import xyz.rk0cc.willpub.pubspec.data.Pubspec;
 import xyz.rk0cc.willpub.pubspec.data.PubspecSnapshot;
 import xyz.rk0cc.willpub.pubspec.data.dependencies.type.LocalReference;
-import xyz.rk0cc.willpub.pubspec.parser.PubspecYAMLParser;
+import xyz.rk0cc.willpub.pubspec.parser.PubspecParserEngine;
 
+import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
 import java.nio.file.NotDirectoryException;
 import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Manager of single <code>pubspec.yaml</code> with giving project {@link Path}.
  * <br/>
  * Each {@link PubspecManager} representing a single {@link Path} of the Dart project with can not mix uses.
+ * <br/>
+ * It should be {@link #close() closed} if {@link PubspecManagerOptions#archiveJournalDirectory() archive journal} or
+ * {@link PubspecManagerOptions#writeBehind() write-behind saver} is applied.
  *
  * @since 1.0.0
  */
-public class PubspecManager {
+public class PubspecManager implements Closeable {
     private final Path projectPath;
     private final PubspecArchiver archiver;
+    private final PubspecManagerOptions options;
+    private final SaveBuffer saveBuffer = new SaveBuffer();
+    private final LongAdder writtenSaves = new LongAdder(), skippedSaves = new LongAdder();
+    private final AtomicReference<IOException> writeBehindFailure = new AtomicReference<>();
 
     /**
-     * Create new instance of {@link PubspecManager} with given project {@link Path}.
+     * Completed when the last {@link #savePubspecAsync(Pubspec)} is finished, which guarded by {@link #saveBuffer}.
+     */
+    private CompletableFuture<Void> asyncSaveTail = CompletableFuture.completedFuture(null);
+
+    /**
+     * Counters of {@link #savePubspec(Pubspec)}.
+     *
+     * @param writtenCount Number of saves which replaced <code>pubspec.yaml</code>.
+     * @param skippedCount Number of saves which skipped because the content is unchanged.
+     *
+     * @since 2.1.0
+     */
+    public record SaveStatistics(@Nonnegative long writtenCount, @Nonnegative long skippedCount) {}
+
+    /**
+     * Create new instance of {@link PubspecManager} with given project {@link Path} and {@link PubspecManagerOptions}.
      *
      * @param projectPath A {@link Path} of directory which contains <code>pubspec.yaml</code>.
+     * @param options Applied {@link PubspecManagerOptions}.
      *
      * @throws ApplyNonPubProjectDirectoryException If applied <code>projectPath</code> return <code>false</code> for
      *                                              {@link File#isDirectory()} and {@link Path#isAbsolute()}.
+     * @throws IOException If {@link PubspecManagerOptions#archiveJournalDirectory() archive journal} can not be
+     *                     opened or restored, or it is used by another {@link PubspecManager} of the same project.
+     *
+     * @since 2.1.0
      */
-    public PubspecManager(@Nonnull Path projectPath) throws ApplyNonPubProjectDirectoryException {
-        if (!projectPath.isAbsolute() || !projectPath.toFile().isDirectory())
+    public PubspecManager(@Nonnull Path projectPath, @Nonnull PubspecManagerOptions options) throws IOException {
+        this(options, projectPath);
+
+        if (options.archiveJournalDirectory() != null) {
+            final Path journalDirectory = options.archiveJournalDirectory();
+            final PubspecArchiveJournal journal = new PubspecArchiveJournal(
+                    journalDirectory.isAbsolute()
+                            ? PubspecArchiveJournal.projectDirectory(journalDirectory, projectPath)
+                            : projectPath.resolve(journalDirectory),
+                    PubspecParserEngine.json(),
+                    PubspecArchiveJournal.DEFAULT_SEGMENT_SIZE
+            );
+
+            try {
+                archiver.attachJournal(journal);
+            } catch (IOException | RuntimeException e) {
+                // Nobody can close the journal once the constructor failed.
+                try {
+                    journal.close();
+                } catch (IOException ce) {
+                    e.addSuppressed(ce);
+                }
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Validate project {@link Path} and construct {@link PubspecArchiver} without journal.
+     *
+     * @param options Applied {@link PubspecManagerOptions}.
+     * @param projectPath A {@link Path} of directory which contains <code>pubspec.yaml</code>.
+     *
+     * @throws ApplyNonPubProjectDirectoryException If applied <code>projectPath</code> return <code>false</code> for
+     *                                              {@link File#isDirectory()} and {@link Path#isAbsolute()}.
+     */
+    private PubspecManager(@Nonnull PubspecManagerOptions options, @Nonnull Path projectPath)
+            throws ApplyNonPubProjectDirectoryException {
+        if (!projectPath.isAbsolute() || !Files.isDirectory(projectPath))
             throw new ApplyNonPubProjectDirectoryException(projectPath);
 
         this.projectPath = projectPath;
-        this.archiver = new PubspecArchiver(projectPath);
+        this.archiver = new PubspecArchiver(projectPath, options.archiveCapacity(), options.archiveMode());
+        this.options = options;
+    }
+
+    /**
+     * Create new instance of {@link PubspecManager} with given project {@link Path} and {@link PubspecParserEngine}.
+     *
+     * @param projectPath A {@link Path} of directory which contains <code>pubspec.yaml</code>.
+     * @param engine A {@link PubspecParserEngine} uses for loading and saving <code>pubspec.yaml</code>.
+     *
+     * @throws ApplyNonPubProjectDirectoryException If applied <code>projectPath</code> return <code>false</code> for
+     *                                              {@link File#isDirectory()} and {@link Path#isAbsolute()}.
+     *
+     * @since 2.1.0
+     */
+    public PubspecManager(@Nonnull Path projectPath, @Nonnull PubspecParserEngine engine)
+            throws ApplyNonPubProjectDirectoryException {
+        this(PubspecManagerOptions.defaultOptions().modifyEngine(engine), projectPath);
+    }
+
+    /**
+     * Create new instance of {@link PubspecManager} with given project {@link Path}.
+     * <br/>
+     * It uses {@link PubspecParserEngine#yaml() shared YAML engine} for loading and saving <code>pubspec.yaml</code>.
+     *
+     * @param projectPath A {@link Path} of directory which contains <code>pubspec.yaml</code>.
+     *
+     * @throws ApplyNonPubProjectDirectoryException If applied <code>projectPath</code> return <code>false</code> for
+     *                                              {@link File#isDirectory()} and {@link Path#isAbsolute()}.
+     */
+    public PubspecManager(@Nonnull Path projectPath) throws ApplyNonPubProjectDirectoryException {
+        this(PubspecManagerOptions.defaultOptions(), projectPath);
     }
 
     /**
      * Resolve <code>pubspec.yaml</code> as Java object {@link File}.
      *
      * @return A {@link File} of <code>pubspec.yaml</code> which resolve from project path.
+     *
+     * @throws UnsupportedOperationException If project path is not in {@link java.nio.file.FileSystems#getDefault()
+     *                                       default file system}, use {@link #pubspecPath()} instead.
      */
     @Nonnull
     public final File pubspecYAML() {
-        return projectPath.resolve("pubspec.yaml").toFile();
+        return pubspecPath().toFile();
+    }
+
+    /**
+     * Resolve <code>pubspec.yaml</code> as {@link Path} in the same {@link java.nio.file.FileSystem} of project path.
+     *
+     * @return A {@link Path} of <code>pubspec.yaml</code> which resolve from project path.
+     *
+     * @since 2.1.0
+     */
+    @Nonnull
+    public final Path pubspecPath() {
+        return projectPath.resolve("pubspec.yaml");
     }
 
     /**
@@ -60,28 +180,378 @@ public class PubspecManager {
         return archiver;
     }
 
+    /**
+     * Get a {@link PubspecParserEngine} which uses for loading and saving <code>pubspec.yaml</code>.
+     *
+     * @return Applied {@link PubspecParserEngine}.
+     *
+     * @since 2.1.0
+     */
+    @Nonnull
+    public final PubspecParserEngine engine() {
+        return options.engine();
+    }
+
+    /**
+     * Get {@link PubspecManagerOptions} applied when constructing this manager.
+     *
+     * @return Applied {@link PubspecManagerOptions}.
+     *
+     * @since 2.1.0
+     */
+    @Nonnull
+    public final PubspecManagerOptions options() {
+        return options;
+    }
+
     /**
      * Read <code>pubspec.yaml</code> in current directory and convert to {@link Pubspec} for editing in Java.
+     * <br/>
+     * If {@link PubspecManagerOptions#repository() repository} is applied, it creates {@link Pubspec} from cached
+     * {@link PubspecSnapshot} when the file is unchanged.
+     * <br/>
+     * Pending save of this manager from {@link #savePubspecAsync(Pubspec)} or
+     * {@link PubspecManagerOptions#writeBehind() write-behind saver} will be completed before reading.
      *
      * @return {@link Pubspec} context.
      *
-     * @throws IOException If problem encountered during
-     *                     {@link com.fasterxml.jackson.databind.ObjectMapper#readValue(File, Class)}.
+     * @throws IOException If problem encountered during {@link PubspecParserEngine#read(Path)}, or flushing pending
+     *                     save failed.
      */
     @Nonnull
     public final Pubspec loadPubspec() throws IOException {
-        return PubspecYAMLParser.getParser().readValue(pubspecYAML(), Pubspec.class);
+        awaitAsyncSaves();
+        flush();
+
+        return readNow();
+    }
+
+    /**
+     * Read <code>pubspec.yaml</code> asynchronously.
+     * <br/>
+     * The file is read in {@link PubspecAsyncExecutors#io()} and parsed in {@link PubspecAsyncExecutors#cpu()} of
+     * {@link PubspecManagerOptions#asyncExecutors()}. If {@link PubspecManagerOptions#repository() repository} is
+     * applied, it is loaded in {@link PubspecAsyncExecutors#io()} entirely since cached {@link PubspecSnapshot} is
+     * reused without parsing.
+     * <br/>
+     * It is started after all previous {@link #savePubspecAsync(Pubspec)} are finished. Cancelling returned
+     * {@link CompletableFuture} skips reading or parsing if it is not started yet.
+     *
+     * @return A {@link CompletableFuture} of loaded {@link Pubspec}, which completes exceptionally with
+     *         {@link IOException} if unable to read or parse.
+     *
+     * @since 2.1.0
+     */
+    @Nonnull
+    public final CompletableFuture<Pubspec> loadPubspecAsync() {
+        final PubspecAsyncExecutors executors = options.asyncExecutors();
+        final CompletableFuture<Pubspec> result = new CompletableFuture<>();
+        final CompletableFuture<Void> previous;
+
+        synchronized (saveBuffer) {
+            previous = asyncSaveTail;
+        }
+
+        previous.thenRunAsync(() -> {
+            if (result.isDone()) return;
+
+            try {
+                flush();
+
+                if (options.repository() != null) {
+                    result.complete(readNow());
+                    return;
+                }
+
+                final byte[] content = Files.readAllBytes(pubspecPath());
+
+                executors.cpu().execute(() -> {
+                    if (result.isDone()) return;
+
+                    try {
+                        result.complete(options.engine().read(content));
+                    } catch (IOException | RuntimeException e) {
+                        result.completeExceptionally(e);
+                    }
+                });
+            } catch (IOException | RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+        }, executors.io()).exceptionally(e -> {
+            // Rejected by executor.
+            result.completeExceptionally(e);
+            return null;
+        });
+
+        return result;
+    }
+
+    /**
+     * Read <code>pubspec.yaml</code> in current thread.
+     *
+     * @return Loaded {@link Pubspec}.
+     *
+     * @throws IOException If unable to read or parse.
+     */
+    @Nonnull
+    private Pubspec readNow() throws IOException {
+        final PubspecRepository repository = options.repository();
+
+        if (repository == null) return options.engine().read(pubspecPath());
+
+        return PubspecSnapshot.getMutableFromSnapshot(repository.load(pubspecPath(), options.engine()));
     }
 
     /**
      * Write {@link Pubspec} to a file.
+     * <br/>
+     * Since 2.1.0, {@link Pubspec} is serialized into a buffer reused by this manager and compared with current
+     * <code>pubspec.yaml</code> first. The file will not be touched if the content is unchanged. Otherwise, the content
+     * is written into a temporary file and replaced <code>pubspec.yaml</code> atomically, then flushed by
+     * {@link PubspecManagerOptions#syncPolicy()}.
+     * <br/>
+     * If {@link PubspecManagerOptions#writeBehind() write-behind saver} is applied, it only records a
+     * {@link PubspecSnapshot} of <code>pubspec</code> and returns immediately, unless the saver reached its capacity.
+     * The file will be written by the saver later, and any failure is thrown by the next call of this method,
+     * {@link #flush()} or {@link #close()}.
      *
      * @param pubspec A modified {@link Pubspec}
      *
      * @throws IOException If converting {@link Pubspec} to <code>pubspec.yaml</code> failed.
      */
     public final void savePubspec(@Nonnull Pubspec pubspec) throws IOException {
-        PubspecYAMLParser.getParser().writeValue(pubspecYAML(), pubspec);
+        awaitAsyncSaves();
+
+        if (options.writeBehind() == null) writeNow(pubspec);
+        else submitWriteBehind(PubspecSnapshot.getSnapshotOfCurrentPubspec(pubspec));
+    }
+
+    /**
+     * Write {@link Pubspec} to a file asynchronously.
+     * <br/>
+     * A {@link PubspecSnapshot} of <code>pubspec</code> is taken immediately, so that <code>pubspec</code> can be
+     * modified after returned. It is serialized in {@link PubspecAsyncExecutors#cpu()}, then written in
+     * {@link PubspecAsyncExecutors#io()} of {@link PubspecManagerOptions#asyncExecutors()} in the same way of
+     * {@link #savePubspec(Pubspec)}, including {@link PubspecManagerOptions#writeBehind() write-behind saver}.
+     * <br/>
+     * Writes of this manager are performed in the order of calling this method, and {@link #savePubspec(Pubspec)} and
+     * {@link #loadPubspec()} wait all of them. Cancelling returned {@link CompletableFuture} skips writing if it is not
+     * started yet, and the order of other saves is still preserved.
+     *
+     * @param pubspec A modified {@link Pubspec}
+     *
+     * @return A {@link CompletableFuture} which completes when written, or exceptionally with {@link IOException} if
+     *         unable to serialize or write, or {@link RejectedExecutionException} if any executor rejected it.
+     *
+     * @since 2.1.0
+     */
+    @Nonnull
+    public final CompletableFuture<Void> savePubspecAsync(@Nonnull Pubspec pubspec) {
+        final PubspecAsyncExecutors executors = options.asyncExecutors();
+        final PubspecSnapshot snapshot = PubspecSnapshot.getSnapshotOfCurrentPubspec(pubspec);
+        final CompletableFuture<Void> result = new CompletableFuture<>(), finished = new CompletableFuture<>();
+        final CompletableFuture<byte[]> serialized;
+
+        if (options.writeBehind() != null) serialized = CompletableFuture.completedFuture(null);
+        else {
+            CompletableFuture<byte[]> submitted;
+
+            try {
+                submitted = CompletableFuture.supplyAsync(() -> {
+                    if (result.isDone()) return null;
+
+                    try {
+                        return options.engine().writeAsBytes(PubspecSnapshot.getMutableFromSnapshot(snapshot));
+                    } catch (IOException e) {
+                        throw new CompletionException(e);
+                    }
+                }, executors.cpu());
+            } catch (RejectedExecutionException e) {
+                // Still queued after previous saves, so that the order is preserved.
+                submitted = CompletableFuture.failedFuture(e);
+            }
+
+            serialized = submitted;
+        }
+
+        final CompletableFuture<Void> previous;
+
+        synchronized (saveBuffer) {
+            previous = asyncSaveTail;
+            asyncSaveTail = finished;
+        }
+
+        previous.thenCombine(serialized, (ignored, content) -> content).whenCompleteAsync((content, e) -> {
+            try {
+                if (result.isDone()) return;
+
+                if (e != null) {
+                    result.completeExceptionally(e instanceof CompletionException && e.getCause() != null
+                            ? e.getCause()
+                            : e);
+                } else if (options.writeBehind() != null) {
+                    submitWriteBehind(snapshot);
+                    result.complete(null);
+                } else {
+                    synchronized (saveBuffer) {
+                        if (!result.isDone()) writeContent(content, content.length);
+                    }
+                    result.complete(null);
+                }
+            } catch (IOException | RuntimeException ex) {
+                result.completeExceptionally(ex);
+            } finally {
+                finished.complete(null);
+            }
+        }, executors.io()).exceptionally(e -> {
+            // Rejected by executor.
+            result.completeExceptionally(e);
+            finished.complete(null);
+            return null;
+        });
+
+        return result;
+    }
+
+    /**
+     * Wait all {@link #savePubspecAsync(Pubspec)} called before.
+     */
+    private void awaitAsyncSaves() {
+        final CompletableFuture<Void> tail;
+
+        synchronized (saveBuffer) {
+            tail = asyncSaveTail;
+        }
+
+        // It never completes exceptionally.
+        tail.join();
+    }
+
+    /**
+     * Write pending save to <code>pubspec.yaml</code> and wait until it is written, if
+     * {@link PubspecManagerOptions#writeBehind() write-behind saver} is applied.
+     *
+     * @throws IOException If any pending save of this manager failed to be written.
+     *
+     * @since 2.1.0
+     */
+    public final void flush() throws IOException {
+        final PubspecWriteBehindSaver saver = options.writeBehind();
+
+        if (saver != null) {
+            try {
+                saver.flush(this);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while flushing pubspec.yaml");
+            }
+        }
+
+        throwWriteBehindFailure();
+    }
+
+    /**
+     * Serialize {@link Pubspec} and replace <code>pubspec.yaml</code> if changed.
+     *
+     * @param pubspec Written {@link Pubspec}.
+     *
+     * @throws IOException If serializing or writing failed.
+     */
+    private void writeNow(@Nonnull Pubspec pubspec) throws IOException {
+        synchronized (saveBuffer) {
+            saveBuffer.reset();
+            options.engine().write(saveBuffer, pubspec);
+            writeContent(saveBuffer.buffer(), saveBuffer.size());
+        }
+    }
+
+    /**
+     * Replace <code>pubspec.yaml</code> with serialized content if changed. It must be called with holding
+     * {@link #saveBuffer}.
+     *
+     * @param content Buffer of serialized {@link Pubspec}.
+     * @param length Number of bytes from the beginning of <code>content</code>.
+     *
+     * @throws IOException If writing failed.
+     */
+    private void writeContent(@Nonnull byte[] content, @Nonnegative int length) throws IOException {
+        assert Thread.holdsLock(saveBuffer);
+        boolean written = true;
+
+        try {
+            written = PubspecFileWriter.writeIfChanged(pubspecPath(), content, length, options.syncPolicy());
+        } finally {
+            if (written && options.repository() != null) options.repository().invalidate(pubspecPath());
+        }
+
+        (written ? writtenSaves : skippedSaves).increment();
+    }
+
+    /**
+     * Pass the snapshot to {@link PubspecManagerOptions#writeBehind() write-behind saver}.
+     *
+     * @param snapshot Saving {@link PubspecSnapshot}.
+     *
+     * @throws IOException If previous pending save failed, or interrupted while the saver reached its capacity.
+     */
+    private void submitWriteBehind(@Nonnull PubspecSnapshot snapshot) throws IOException {
+        throwWriteBehindFailure();
+
+        try {
+            options.writeBehind().submit(this, snapshot);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting write-behind saver");
+        }
+    }
+
+    /**
+     * Called by {@link PubspecWriteBehindSaver} to write pending snapshot. Anything thrown will be passed to
+     * {@link #writeBehindFailed(Throwable)} by the saver.
+     *
+     * @param snapshot Pending {@link PubspecSnapshot}.
+     *
+     * @throws IOException If unable to write <code>pubspec.yaml</code>.
+     */
+    void writeBehind(@Nonnull PubspecSnapshot snapshot) throws IOException {
+        writeNow(PubspecSnapshot.getMutableFromSnapshot(snapshot));
+    }
+
+    /**
+     * Record failure of {@link #writeBehind(PubspecSnapshot)}, which will be kept until
+     * {@link #throwWriteBehindFailure()}.
+     *
+     * @param cause Anything thrown when writing in background, including {@link Error}.
+     */
+    void writeBehindFailed(@Nonnull Throwable cause) {
+        final IOException failure = cause instanceof IOException ioe
+                ? ioe
+                : new IOException("Unable to write pubspec.yaml in background", cause);
+
+        if (!writeBehindFailure.compareAndSet(null, failure)) writeBehindFailure.get().addSuppressed(failure);
+    }
+
+    /**
+     * Throw and clear failure of pending save.
+     *
+     * @throws IOException Failure of pending save, if any.
+     */
+    private void throwWriteBehindFailure() throws IOException {
+        final IOException failure = writeBehindFailure.getAndSet(null);
+
+        if (failure != null) throw failure;
+    }
+
+    /**
+     * Get counters of {@link #savePubspec(Pubspec)} in this manager.
+     *
+     * @return Current {@link SaveStatistics}.
+     *
+     * @since 2.1.0
+     */
+    @Nonnull
+    public final SaveStatistics saveStatistics() {
+        return new SaveStatistics(writtenSaves.sum(), skippedSaves.sum());
     }
 
     /**
@@ -91,7 +561,14 @@ public class PubspecManager {
      * @throws IOException If converting {@link Pubspec} to <code>pubspec.yaml</code> failed.
      */
     public final void savePubspecFromLatestArchive() throws IOException {
-        savePubspec(PubspecSnapshot.getMutableFromSnapshot(archiver.recentSnapshot()));
+        final PubspecSnapshot latest = archiver.recentSnapshot();
+
+        awaitAsyncSaves();
+
+        // Archived snapshot is immutable already, which can be passed to write-behind saver directly.
+        if (options.writeBehind() == null) writeNow(PubspecSnapshot.getMutableFromSnapshot(latest));
+        else submitWriteBehind(latest);
+
         archiver.clearOlderArchive();
     }
 
@@ -110,4 +587,37 @@ public class PubspecManager {
             throw new AssertionError("The project path is no longer as a directory unexpectedly", e);
         }
     }
+
+    /**
+     * {@link #flush() Flush} pending save, then flush and close
+     * {@link PubspecManagerOptions#archiveJournalDirectory() archive journal} if applied.
+     * <br/>
+     * {@link #archiver()} can be still used after closed, but no further modification will be journaled.
+     *
+     * @throws IOException If unable to write pending save or close the journal.
+     *
+     * @since 2.1.0
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            archiver.closeJournal();
+        }
+    }
+
+    /**
+     * A {@link ByteArrayOutputStream} which exposes its buffer for writing without copying.
+     */
+    private static final class SaveBuffer extends ByteArrayOutputStream {
+        private SaveBuffer() {
+            super(1024);
+        }
+
+        @Nonnull
+        private byte[] buffer() {
+            return buf;
+        }
+    }
 }
@@ -0,0 +1,256 @@
+package xyz.rk0cc.willpub.pubspec;
+
+import xyz.rk0cc.willpub.pubspec.parser.PubspecParserEngine;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.nio.file.Path;
+import java.util.Objects;
+
+/**
+ * Options applied when constructing {@link PubspecManager}.
+ *
+ * @param engine A {@link PubspecParserEngine} uses for loading and saving <code>pubspec.yaml</code>.
+ * @param archiveCapacity Maximum number of archives stored in {@link PubspecArchiver}.
+ * @param archiveMode How {@link PubspecArchiver} stores archives.
+ * @param archiveJournalDirectory A directory which {@link PubspecArchiver} journal is stored, or <code>null</code> if
+ *                                archives are kept in memory only. Relative path will be resolved from project path,
+ *                                and absolute path will be shared by projects with a subdirectory for each project.
+ *                                Only one {@link PubspecManager} of a project can open the journal at the same time.
+ * @param repository A {@link PubspecRepository} which caches loaded <code>pubspec.yaml</code>, or <code>null</code> if
+ *                   the file is parsed in every {@link PubspecManager#loadPubspec()}.
+ * @param syncPolicy How {@link PubspecManager#savePubspec(xyz.rk0cc.willpub.pubspec.data.Pubspec)} flushes written
+ *                   file.
+ * @param writeBehind A {@link PubspecWriteBehindSaver} which writes <code>pubspec.yaml</code> in background, or
+ *                    <code>null</code> if {@link PubspecManager#savePubspec(xyz.rk0cc.willpub.pubspec.data.Pubspec)}
+ *                    writes immediately.
+ * @param asyncExecutors {@link PubspecAsyncExecutors} which runs {@link PubspecManager#loadPubspecAsync()} and
+ *                       {@link PubspecManager#savePubspecAsync(xyz.rk0cc.willpub.pubspec.data.Pubspec)}.
+ *
+ * @since 2.1.0
+ */
+public record PubspecManagerOptions(
+        @Nonnull PubspecParserEngine engine,
+        @Nonnegative int archiveCapacity,
+        @Nonnull PubspecArchiveMode archiveMode,
+        @Nullable Path archiveJournalDirectory,
+        @Nullable PubspecRepository repository,
+        @Nonnull PubspecSyncPolicy syncPolicy,
+        @Nullable PubspecWriteBehindSaver writeBehind,
+        @Nonnull PubspecAsyncExecutors asyncExecutors
+) {
+    /**
+     * Validate options.
+     *
+     * @throws IllegalArgumentException If <code>archiveCapacity</code> is less than 1.
+     */
+    public PubspecManagerOptions {
+        Objects.requireNonNull(engine);
+        Objects.requireNonNull(archiveMode);
+        Objects.requireNonNull(syncPolicy);
+        Objects.requireNonNull(asyncExecutors);
+
+        if (archiveCapacity < 1)
+            throw new IllegalArgumentException(
+                    "Archive capacity must be at least 1, but " + archiveCapacity + " given."
+            );
+    }
+
+    /**
+     * Default options which uses {@link PubspecParserEngine#yaml() shared YAML engine} and stores
+     * {@link PubspecArchiver#DEFAULT_CAPACITY} archives in {@link PubspecArchiveMode#SNAPSHOT} mode without journal and
+     * {@link PubspecRepository}, and saves immediately with {@link PubspecSyncPolicy#NONE}. Asynchronous operations are
+     * run in {@link PubspecAsyncExecutors#shared()}.
+     *
+     * @return Default {@link PubspecManagerOptions}.
+     */
+    @Nonnull
+    public static PubspecManagerOptions defaultOptions() {
+        return new PubspecManagerOptions(
+                PubspecParserEngine.yaml(),
+                PubspecArchiver.DEFAULT_CAPACITY,
+                PubspecArchiveMode.SNAPSHOT,
+                null,
+                null,
+                PubspecSyncPolicy.NONE,
+                null,
+                PubspecAsyncExecutors.shared()
+        );
+    }
+
+    /**
+     * Apply {@link PubspecParserEngine} for loading and saving <code>pubspec.yaml</code>.
+     *
+     * @param engine New {@link PubspecParserEngine}.
+     *
+     * @return A copy of options with given <code>engine</code>.
+     */
+    @Nonnull
+    public PubspecManagerOptions modifyEngine(@Nonnull PubspecParserEngine engine) {
+        return new PubspecManagerOptions(
+                engine,
+                archiveCapacity,
+                archiveMode,
+                archiveJournalDirectory,
+                repository,
+                syncPolicy,
+                writeBehind,
+                asyncExecutors
+        );
+    }
+
+    /**
+     * Define maximum number of archives stored in {@link PubspecArchiver}.
+     *
+     * @param archiveCapacity New capacity of archives.
+     *
+     * @return A copy of options with given <code>archiveCapacity</code>.
+     *
+     * @throws IllegalArgumentException If <code>archiveCapacity</code> is less than 1.
+     */
+    @Nonnull
+    public PubspecManagerOptions modifyArchiveCapacity(@Nonnegative int archiveCapacity) {
+        return new PubspecManagerOptions(
+                engine,
+                archiveCapacity,
+                archiveMode,
+                archiveJournalDirectory,
+                repository,
+                syncPolicy,
+                writeBehind,
+                asyncExecutors
+        );
+    }
+
+    /**
+     * Define how {@link PubspecArchiver} stores archives.
+     *
+     * @param archiveMode New {@link PubspecArchiveMode}.
+     *
+     * @return A copy of options with given <code>archiveMode</code>.
+     */
+    @Nonnull
+    public PubspecManagerOptions modifyArchiveMode(@Nonnull PubspecArchiveMode archiveMode) {
+        return new PubspecManagerOptions(
+                engine,
+                archiveCapacity,
+                archiveMode,
+                archiveJournalDirectory,
+                repository,
+                syncPolicy,
+                writeBehind,
+                asyncExecutors
+        );
+    }
+
+    /**
+     * Apply a directory for storing journal of {@link PubspecArchiver}.
+     *
+     * @param archiveJournalDirectory New directory of journal, relative path will be resolved from project path and
+     *                                absolute path will contain a subdirectory for each project.
+     *                                <code>null</code> if archives are kept in memory only.
+     *
+     * @return A copy of options with given <code>archiveJournalDirectory</code>.
+     */
+    @Nonnull
+    public PubspecManagerOptions modifyArchiveJournalDirectory(@Nullable Path archiveJournalDirectory) {
+        return new PubspecManagerOptions(
+                engine,
+                archiveCapacity,
+                archiveMode,
+                archiveJournalDirectory,
+                repository,
+                syncPolicy,
+                writeBehind,
+                asyncExecutors
+        );
+    }
+
+    /**
+     * Apply {@link PubspecRepository} for caching loaded <code>pubspec.yaml</code>.
+     *
+     * @param repository New {@link PubspecRepository}, or <code>null</code> if the file is parsed in every
+     *                   {@link PubspecManager#loadPubspec()}.
+     *
+     * @return A copy of options with given <code>repository</code>.
+     */
+    @Nonnull
+    public PubspecManagerOptions modifyRepository(@Nullable PubspecRepository repository) {
+        return new PubspecManagerOptions(
+                engine,
+                archiveCapacity,
+                archiveMode,
+                archiveJournalDirectory,
+                repository,
+                syncPolicy,
+                writeBehind,
+                asyncExecutors
+        );
+    }
+
+    /**
+     * Define how written <code>pubspec.yaml</code> is flushed.
+     *
+     * @param syncPolicy New {@link PubspecSyncPolicy}.
+     *
+     * @return A copy of options with given <code>syncPolicy</code>.
+     */
+    @Nonnull
+    public PubspecManagerOptions modifySyncPolicy(@Nonnull PubspecSyncPolicy syncPolicy) {
+        return new PubspecManagerOptions(
+                engine,
+                archiveCapacity,
+                archiveMode,
+                archiveJournalDirectory,
+                repository,
+                syncPolicy,
+                writeBehind,
+                asyncExecutors
+        );
+    }
+
+    /**
+     * Apply {@link PubspecWriteBehindSaver} for writing <code>pubspec.yaml</code> in background.
+     *
+     * @param writeBehind New {@link PubspecWriteBehindSaver}, or <code>null</code> if
+     *                    {@link PubspecManager#savePubspec(xyz.rk0cc.willpub.pubspec.data.Pubspec)} writes immediately.
+     *
+     * @return A copy of options with given <code>writeBehind</code>.
+     */
+    @Nonnull
+    public PubspecManagerOptions modifyWriteBehind(@Nullable PubspecWriteBehindSaver writeBehind) {
+        return new PubspecManagerOptions(
+                engine,
+                archiveCapacity,
+                archiveMode,
+                archiveJournalDirectory,
+                repository,
+                syncPolicy,
+                writeBehind,
+                asyncExecutors
+        );
+    }
+
+    /**
+     * Apply {@link PubspecAsyncExecutors} for running {@link PubspecManager#loadPubspecAsync()} and
+     * {@link PubspecManager#savePubspecAsync(xyz.rk0cc.willpub.pubspec.data.Pubspec)}.
+     *
+     * @param asyncExecutors New {@link PubspecAsyncExecutors}.
+     *
+     * @return A copy of options with given <code>asyncExecutors</code>.
+     */
+    @Nonnull
+    public PubspecManagerOptions modifyAsyncExecutors(@Nonnull PubspecAsyncExecutors asyncExecutors) {
+        return new PubspecManagerOptions(
+                engine,
+                archiveCapacity,
+                archiveMode,
+                archiveJournalDirectory,
+                repository,
+                syncPolicy,
+                writeBehind,
+                asyncExecutors
+        );
+    }
+}
@@ -0,0 +1,296 @@
+package xyz.rk0cc.willpub.pubspec;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import xyz.rk0cc.willpub.pubspec.data.Pubspec;
+import xyz.rk0cc.willpub.pubspec.data.PubspecSnapshot;
+import xyz.rk0cc.willpub.pubspec.parser.PubspecParserEngine;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A cache of parsed <code>pubspec.yaml</code> which can be shared among every {@link PubspecManager} in the process.
+ * <br/>
+ * Each file is cached as {@link PubspecSnapshot} with its modified time, size and content hash. A cached snapshot is
+ * reused only if modified time and size are unchanged. Otherwise, the file will be read again and it is parsed only if
+ * the content hash is changed. Since the modified time may not be changed when the file is written twice in the same
+ * tick, any file modified within {@link #RACY_WINDOW_MILLIS} will be always compared by content hash.
+ * <br/>
+ * Least recently used entries are evicted when the size exceeds the maximum size. Concurrent loads of the same file are
+ * performed once only, and every caller receives the same {@link PubspecSnapshot}.
+ *
+ * @since 2.1.0
+ */
+public final class PubspecRepository {
+    /**
+     * Default maximum number of cached files.
+     */
+    public static final long DEFAULT_MAXIMUM_SIZE = 4096;
+
+    /**
+     * The period of modified time that the file is treated as it may be modified again without changing modified time
+     * and size.
+     */
+    public static final long RACY_WINDOW_MILLIS = 2000;
+
+    private final Cache<Key, Entry> entries;
+    private final ConcurrentHashMap<Key, CompletableFuture<PubspecSnapshot>> loading = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder(),
+            misses = new LongAdder(),
+            revalidations = new LongAdder(),
+            evictions = new LongAdder(),
+            deduplications = new LongAdder();
+
+    /**
+     * Counters of {@link PubspecRepository}.
+     *
+     * @param hitCount Number of loads which reused cached snapshot without reading the file.
+     * @param missCount Number of loads which parsed the file.
+     * @param revalidationCount Number of loads which read the file but reused cached snapshot because the content is
+     *                          unchanged.
+     * @param evictionCount Number of entries evicted by the maximum size.
+     * @param deduplicationCount Number of loads which waited the result from another concurrent load of the same file.
+     */
+    public record Statistics(
+            @Nonnegative long hitCount,
+            @Nonnegative long missCount,
+            @Nonnegative long revalidationCount,
+            @Nonnegative long evictionCount,
+            @Nonnegative long deduplicationCount
+    ) {
+        /**
+         * Ratio of loads which did not parse the file.
+         *
+         * @return Hit rate from <code>0.0</code> to <code>1.0</code>, or <code>1.0</code> if nothing loaded.
+         */
+        public double hitRate() {
+            final long total = hitCount + missCount + revalidationCount;
+            return total == 0 ? 1.0 : (double) (hitCount + revalidationCount) / total;
+        }
+    }
+
+    /**
+     * Create a repository with {@link #DEFAULT_MAXIMUM_SIZE}.
+     */
+    public PubspecRepository() {
+        this(DEFAULT_MAXIMUM_SIZE);
+    }
+
+    /**
+     * Create a repository with given maximum number of cached files.
+     *
+     * @param maximumSize Maximum number of cached files.
+     */
+    public PubspecRepository(@Nonnegative long maximumSize) {
+        this.entries = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .<Key, Entry>removalListener(n -> {
+                    if (n.wasEvicted()) evictions.increment();
+                })
+                .build();
+    }
+
+    /**
+     * A process-wide {@link PubspecRepository} with {@link #DEFAULT_MAXIMUM_SIZE}.
+     *
+     * @return Shared {@link PubspecRepository}.
+     */
+    @Nonnull
+    public static PubspecRepository shared() {
+        return SharedHolder.SHARED;
+    }
+
+    /**
+     * Load a snapshot of <code>pubspec.yaml</code>.
+     *
+     * @param pubspecFile Path of <code>pubspec.yaml</code>.
+     * @param engine A {@link PubspecParserEngine} for parsing the file. Files parsed by different engines are cached
+     *               separately.
+     *
+     * @return Cached or parsed {@link PubspecSnapshot}.
+     *
+     * @throws IOException If unable to read the file, or problem encountered during
+     *                     {@link PubspecParserEngine#read(byte[])}.
+     */
+    @Nonnull
+    public PubspecSnapshot load(@Nonnull Path pubspecFile, @Nonnull PubspecParserEngine engine) throws IOException {
+        final Key key = new Key(pubspecFile.toAbsolutePath().normalize(), engine);
+        final Entry cached = entries.getIfPresent(key);
+
+        if (cached != null && !cached.racy && cached.stamp.equals(FileStamp.of(key.path))) {
+            hits.increment();
+            return cached.snapshot;
+        }
+
+        final CompletableFuture<PubspecSnapshot> loader = new CompletableFuture<>(),
+                inflight = loading.putIfAbsent(key, loader);
+
+        if (inflight != null) {
+            deduplications.increment();
+            return awaitInflight(inflight);
+        }
+
+        try {
+            final PubspecSnapshot snapshot = reload(key, cached);
+            loader.complete(snapshot);
+            return snapshot;
+        } catch (IOException | RuntimeException | Error e) {
+            loader.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(key, loader);
+        }
+    }
+
+    /**
+     * Read the file and reuse cached snapshot if the content is unchanged.
+     *
+     * @param key Key of the file.
+     * @param cached Current entry, or <code>null</code> if not cached.
+     *
+     * @return Loaded {@link PubspecSnapshot}.
+     *
+     * @throws IOException If unable to read or parse the file.
+     */
+    @Nonnull
+    private PubspecSnapshot reload(@Nonnull Key key, @Nullable Entry cached) throws IOException {
+        final FileStamp stamp = FileStamp.of(key.path);
+        final byte[] content = Files.readAllBytes(key.path);
+        final HashCode hash = Hashing.murmur3_128().hashBytes(content);
+        final boolean racy = System.currentTimeMillis() - stamp.lastModified.toMillis() < RACY_WINDOW_MILLIS;
+
+        final PubspecSnapshot snapshot;
+
+        if (cached != null && cached.hash.equals(hash)) {
+            revalidations.increment();
+            snapshot = cached.snapshot;
+        } else {
+            misses.increment();
+            final Pubspec pubspec = key.engine.read(content);
+            snapshot = PubspecSnapshot.getSnapshotOfCurrentPubspec(pubspec);
+        }
+
+        entries.put(key, new Entry(stamp, hash, racy, snapshot));
+        return snapshot;
+    }
+
+    /**
+     * Wait the result of another load of the same file.
+     *
+     * @param inflight Pending result.
+     *
+     * @return Loaded {@link PubspecSnapshot}.
+     *
+     * @throws IOException If another load failed with {@link IOException}.
+     */
+    @Nonnull
+    private static PubspecSnapshot awaitInflight(@Nonnull CompletableFuture<PubspecSnapshot> inflight)
+            throws IOException {
+        try {
+            return inflight.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IOException ioe) throw ioe;
+            else if (e.getCause() instanceof RuntimeException re) throw re;
+            else if (e.getCause() instanceof Error err) throw err;
+            throw new AssertionError("Unexpected exception when loading pubspec", e.getCause());
+        }
+    }
+
+    /**
+     * Drop cached snapshot of the file for every {@link PubspecParserEngine}.
+     *
+     * @param pubspecFile Path of <code>pubspec.yaml</code>.
+     */
+    public void invalidate(@Nonnull Path pubspecFile) {
+        final Path path = pubspecFile.toAbsolutePath().normalize();
+        entries.asMap().keySet().removeIf(k -> k.path.equals(path));
+    }
+
+    /**
+     * Drop all cached snapshots.
+     */
+    public void invalidateAll() {
+        entries.invalidateAll();
+    }
+
+    /**
+     * Number of cached files.
+     *
+     * @return Size of this repository.
+     */
+    @Nonnegative
+    public long size() {
+        return entries.size();
+    }
+
+    /**
+     * Get current {@link Statistics}.
+     *
+     * @return Counters of this repository.
+     */
+    @Nonnull
+    public Statistics statistics() {
+        return new Statistics(
+                hits.sum(),
+                misses.sum(),
+                revalidations.sum(),
+                evictions.sum(),
+                deduplications.sum()
+        );
+    }
+
+    /**
+     * Key of cached entry.
+     *
+     * @param path Absolute and normalized path of <code>pubspec.yaml</code>.
+     * @param engine Applied {@link PubspecParserEngine}, which is compared by identity.
+     */
+    private record Key(@Nonnull Path path, @Nonnull PubspecParserEngine engine) {}
+
+    /**
+     * Attributes of file for determining it is modified.
+     *
+     * @param lastModified Modified time.
+     * @param size File size.
+     * @param fileKey Identifier of the file from file system, or <code>null</code> if unavailable.
+     */
+    private record FileStamp(@Nonnull FileTime lastModified, @Nonnegative long size, @Nullable Object fileKey) {
+        @Nonnull
+        static FileStamp of(@Nonnull Path path) throws IOException {
+            final BasicFileAttributes attrs = Files.readAttributes(path, BasicFileAttributes.class);
+            return new FileStamp(attrs.lastModifiedTime(), attrs.size(), attrs.fileKey());
+        }
+    }
+
+    /**
+     * Cached snapshot with attributes when it is loaded.
+     *
+     * @param stamp Attributes of the file.
+     * @param hash Content hash of the file.
+     * @param racy The file is modified recently which {@link #stamp} can not be trusted.
+     * @param snapshot Parsed {@link PubspecSnapshot}.
+     */
+    private record Entry(
+            @Nonnull FileStamp stamp,
+            @Nonnull HashCode hash,
+            boolean racy,
+            @Nonnull PubspecSnapshot snapshot
+    ) {}
+
+    private static final class SharedHolder {
+        private static final PubspecRepository SHARED = new PubspecRepository();
+    }
+}
@@ -0,0 +1,28 @@
+package xyz.rk0cc.willpub.pubspec;
+
+/**
+ * Define how {@link PubspecManager#savePubspec(xyz.rk0cc.willpub.pubspec.data.Pubspec)} flushes written
+ * <code>pubspec.yaml</code> to the storage.
+ * <br/>
+ * Every policy replaces the file atomically, so that the file is either the old or the new content after a crash. The
+ * policy only decides whether the new content is guaranteed to survive a power loss.
+ *
+ * @since 2.1.0
+ */
+public enum PubspecSyncPolicy {
+    /**
+     * Leave flushing to the operating system.
+     */
+    NONE,
+    /**
+     * Force the content of the new file to the storage before replacing.
+     */
+    FILE,
+    /**
+     * Force the content of the new file before replacing, and force the project directory after replacing so that the
+     * replacement itself is durable.
+     * <br/>
+     * Forcing directory is skipped on the platforms which can not open a directory.
+     */
+    FILE_AND_DIRECTORY
+}
@@ -0,0 +1,353 @@
+package xyz.rk0cc.willpub.pubspec;
+
+import xyz.rk0cc.willpub.pubspec.data.PubspecSnapshot;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import java.io.Closeable;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Write <code>pubspec.yaml</code> in background for {@link PubspecManager} which applied
+ * {@link PubspecManagerOptions#writeBehind()}.
+ * <br/>
+ * Each {@link PubspecManager#savePubspec(xyz.rk0cc.willpub.pubspec.data.Pubspec) save} records a
+ * {@link PubspecSnapshot} and returns immediately. The file will be written once the window is elapsed since the first
+ * pending save of the same file, and every save during the window is coalesced into a single write of the latest
+ * snapshot. Therefore, a file which is saved continuously is still written once per window.
+ * <br/>
+ * All files are written by a single daemon thread in the order of their first pending save, and saves of the same file
+ * are never reordered. At most <code>capacity</code> files can be pending at the same time; saving another file blocks
+ * until one of them is written.
+ * <br/>
+ * A saver can be shared among many {@link PubspecManager}. Pending saves of a manager are written when
+ * {@link PubspecManager#flush()}, {@link PubspecManager#close()} or {@link PubspecManager#loadPubspec()} is called.
+ *
+ * @since 2.1.0
+ */
+public final class PubspecWriteBehindSaver implements Closeable {
+    /**
+     * Default period of coalescing saves of the same file.
+     */
+    public static final Duration DEFAULT_WINDOW = Duration.ofMillis(250);
+
+    /**
+     * Default maximum number of pending files.
+     */
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    private final long windowNanos;
+    private final int capacity;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final LinkedHashMap<Path, PendingSave> pending = new LinkedHashMap<>();
+    private final Thread worker;
+    private final LongAdder submitted = new LongAdder(),
+            coalesced = new LongAdder(),
+            written = new LongAdder(),
+            blocked = new LongAdder();
+
+    /**
+     * Current writing file, which is guarded by {@link #lock}.
+     */
+    private PendingSave inFlight;
+
+    /**
+     * Guarded by {@link #lock}.
+     */
+    private boolean closed;
+
+    /**
+     * Counters of {@link PubspecWriteBehindSaver}.
+     *
+     * @param submittedCount Number of saves.
+     * @param coalescedCount Number of saves which replaced another pending save of the same file.
+     * @param writtenCount Number of performed writes, including unchanged file which is
+     *                     {@link PubspecManager.SaveStatistics#skippedCount() skipped}.
+     * @param blockedCount Number of saves which waited because the capacity is reached.
+     */
+    public record Statistics(
+            @Nonnegative long submittedCount,
+            @Nonnegative long coalescedCount,
+            @Nonnegative long writtenCount,
+            @Nonnegative long blockedCount
+    ) {}
+
+    /**
+     * Create a saver with {@link #DEFAULT_WINDOW} and {@link #DEFAULT_CAPACITY}.
+     */
+    public PubspecWriteBehindSaver() {
+        this(DEFAULT_WINDOW, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Create a saver.
+     *
+     * @param window Period of coalescing saves of the same file.
+     * @param capacity Maximum number of pending files.
+     *
+     * @throws IllegalArgumentException If <code>window</code> is negative or <code>capacity</code> is less than 1.
+     */
+    public PubspecWriteBehindSaver(@Nonnull Duration window, @Nonnegative int capacity) {
+        if (window.isNegative()) throw new IllegalArgumentException("Window must not be negative");
+        else if (capacity < 1)
+            throw new IllegalArgumentException("Capacity must be at least 1, but " + capacity + " given.");
+
+        this.windowNanos = window.toNanos();
+        this.capacity = capacity;
+        this.worker = new Thread(this::writeLoop, "pubspec-write-behind");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /**
+     * Record the latest snapshot of the manager to be written.
+     *
+     * @param manager Saving {@link PubspecManager}.
+     * @param snapshot Saving {@link PubspecSnapshot}.
+     *
+     * @throws InterruptedException If interrupted while waiting capacity.
+     * @throws IllegalStateException If this saver is closed.
+     */
+    void submit(@Nonnull PubspecManager manager, @Nonnull PubspecSnapshot snapshot) throws InterruptedException {
+        final Path key = keyOf(manager);
+
+        lock.lock();
+        try {
+            ensureOpen();
+            submitted.increment();
+
+            PendingSave p = pending.get(key);
+
+            if (p != null) {
+                coalesced.increment();
+                p.manager = manager;
+                p.snapshot = snapshot;
+                return;
+            }
+
+            if (pending.size() >= capacity) {
+                blocked.increment();
+                do {
+                    changed.await();
+                    ensureOpen();
+                } while (pending.size() >= capacity);
+
+                // Another thread may submit the same file while waiting.
+                p = pending.get(key);
+                if (p != null) {
+                    coalesced.increment();
+                    p.manager = manager;
+                    p.snapshot = snapshot;
+                    return;
+                }
+            }
+
+            pending.put(key, new PendingSave(key, manager, snapshot, System.nanoTime() + windowNanos));
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Write pending save of the manager immediately, and wait until it is written.
+     *
+     * @param manager Flushing {@link PubspecManager}.
+     *
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    void flush(@Nonnull PubspecManager manager) throws InterruptedException {
+        final Path key = keyOf(manager);
+
+        lock.lock();
+        try {
+            final PendingSave p = pending.get(key);
+
+            if (p != null) {
+                p.deadline = System.nanoTime();
+                changed.signalAll();
+            }
+
+            while (pending.containsKey(key) || (inFlight != null && inFlight.key.equals(key))) changed.await();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Write all pending saves immediately, and wait until all of them are written.
+     *
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    public void flushAll() throws InterruptedException {
+        lock.lock();
+        try {
+            final long now = System.nanoTime();
+
+            for (PendingSave p : pending.values()) p.deadline = now;
+            changed.signalAll();
+
+            while (!pending.isEmpty() || inFlight != null) changed.await();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Number of pending files.
+     *
+     * @return Size of pending saves.
+     */
+    @Nonnegative
+    public int pendingCount() {
+        lock.lock();
+        try {
+            return pending.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Get current {@link Statistics}.
+     *
+     * @return Counters of this saver.
+     */
+    @Nonnull
+    public Statistics statistics() {
+        return new Statistics(submitted.sum(), coalesced.sum(), written.sum(), blocked.sum());
+    }
+
+    /**
+     * Write all pending saves and stop the background thread. Any further save to this saver throws
+     * {@link IllegalStateException}.
+     * <br/>
+     * Failures of writing are reported by {@link PubspecManager#flush()} of each manager.
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            if (closed) return;
+
+            closed = true;
+            final long now = System.nanoTime();
+            for (PendingSave p : pending.values()) p.deadline = now;
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+
+        boolean interrupted = false;
+
+        while (worker.isAlive()) {
+            try {
+                worker.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+
+        if (interrupted) Thread.currentThread().interrupt();
+    }
+
+    /**
+     * Main loop of {@link #worker}, which exits when closed and all pending saves are written.
+     */
+    private void writeLoop() {
+        lock.lock();
+        try {
+            while (true) {
+                if (pending.isEmpty()) {
+                    if (closed) return;
+
+                    changed.awaitUninterruptibly();
+                    continue;
+                }
+
+                final long now = System.nanoTime();
+                PendingSave due = null;
+                long nearest = Long.MAX_VALUE;
+
+                for (PendingSave p : pending.values()) {
+                    final long remained = p.deadline - now;
+
+                    if (remained <= 0) {
+                        due = p;
+                        break;
+                    }
+
+                    nearest = Math.min(nearest, remained);
+                }
+
+                if (due == null) {
+                    try {
+                        changed.awaitNanos(nearest);
+                    } catch (InterruptedException ignored) {
+                        // Only close() stops this thread.
+                    }
+                    continue;
+                }
+
+                pending.remove(due.key);
+                inFlight = due;
+                changed.signalAll();
+
+                final PubspecManager manager = due.manager;
+                final PubspecSnapshot snapshot = due.snapshot;
+
+                lock.unlock();
+                try {
+                    manager.writeBehind(snapshot);
+                } catch (Throwable t) {
+                    // Keep writing other files, this failure is reported by flush() of the manager.
+                    manager.writeBehindFailed(t);
+                } finally {
+                    written.increment();
+                    lock.lock();
+                    inFlight = null;
+                    changed.signalAll();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void ensureOpen() {
+        if (closed) throw new IllegalStateException("Write-behind saver is closed");
+    }
+
+    @Nonnull
+    private static Path keyOf(@Nonnull PubspecManager manager) {
+        return manager.pubspecPath().toAbsolutePath().normalize();
+    }
+
+    /**
+     * A save which is waiting to be written. All fields are guarded by {@link #lock}.
+     */
+    private static final class PendingSave {
+        private final Path key;
+        private PubspecManager manager;
+        private PubspecSnapshot snapshot;
+        private long deadline;
+
+        private PendingSave(
+                @Nonnull Path key,
+                @Nonnull PubspecManager manager,
+                @Nonnull PubspecSnapshot snapshot,
+                long deadline
+        ) {
+            this.key = key;
+            this.manager = manager;
+            this.snapshot = snapshot;
+            this.deadline = deadline;
+        }
+    }
+}
@@ -0,0 +1,391 @@
+package xyz.rk0cc.willpub.pubspec.data;
+
+import xyz.rk0cc.willpub.pubspec.data.persistent.PersistentJson;
+import xyz.rk0cc.willpub.pubspec.data.persistent.PersistentOrderedMap;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.*;
+
+/**
+ * A {@link Map} which storing {@link Pubspec#additionalData() additional data} and allows the value is
+ * {@link DeferredAdditionalValue deferred}.
+ * <br/>
+ * Deferred value will be {@link DeferredAdditionalValue#decode() decoded} and validated when it is accessed first time
+ * via {@link #get(Object)} or iterating {@link #entrySet()}. Any operation which only affects keys like
+ * {@link #containsKey(Object)} and {@link #keySet()} will not decode the value.
+ * <br/>
+ * Entries are stored in a {@link PersistentOrderedMap} and every value is {@link PersistentJson#freeze(Object) frozen},
+ * so that copying this map for {@link PubspecSnapshot} shares the whole tree in constant time.
+ *
+ * @since 2.1.0
+ */
+public final class AdditionalDataMap extends AbstractMap<String, Object> implements Serializable {
+    private final Storage storage;
+    private final boolean unmodifiable;
+
+    /**
+     * Create a map which uses given {@link Storage} directly.
+     *
+     * @param storage Storage of this map.
+     * @param unmodifiable Forbid any modification in this object.
+     */
+    private AdditionalDataMap(@Nonnull Storage storage, boolean unmodifiable) {
+        this.storage = storage;
+        this.unmodifiable = unmodifiable;
+    }
+
+    /**
+     * Create new empty and modifiable map.
+     */
+    AdditionalDataMap() {
+        this(new Storage(PersistentOrderedMap.empty()), false);
+    }
+
+    /**
+     * Copy all entries from a {@link Map}.
+     * <br/>
+     * If <code>source</code> is {@link AdditionalDataMap}, it shares the same entries in constant time and any
+     * {@link DeferredAdditionalValue} will be copied without decoding. Otherwise, all values will be
+     * {@link PersistentJson#freeze(Object) frozen}.
+     *
+     * @param source Origin map.
+     * @param unmodifiable Forbid any modification in this object.
+     */
+    AdditionalDataMap(@Nonnull Map<String, ?> source, boolean unmodifiable) {
+        this(new Storage(source instanceof AdditionalDataMap adm ? adm.storage.values : freezeAll(source)), unmodifiable);
+    }
+
+    /**
+     * Freeze all values of a {@link Map} which is not {@link AdditionalDataMap}.
+     *
+     * @param source Origin map.
+     *
+     * @return A {@link PersistentOrderedMap} with frozen values.
+     */
+    @Nonnull
+    private static PersistentOrderedMap<String, Object> freezeAll(@Nonnull Map<String, ?> source) {
+        PersistentOrderedMap<String, Object> values = PersistentOrderedMap.empty();
+
+        for (Map.Entry<String, ?> e : source.entrySet()) {
+            assert isAcceptableRawValue(e.getValue());
+            values = values.put(e.getKey(), freezeIfDecoded(e.getValue()));
+        }
+
+        return values;
+    }
+
+    /**
+     * Get an unmodifiable view of this map which reflects any changes applied in this map.
+     *
+     * @return An unmodifiable {@link AdditionalDataMap} sharing same storage.
+     */
+    @Nonnull
+    AdditionalDataMap unmodifiableView() {
+        return unmodifiable ? this : new AdditionalDataMap(storage, true);
+    }
+
+    /**
+     * Determine it disallow modification or not.
+     *
+     * @return <code>true</code> if disallowed.
+     */
+    public boolean isUnmodifiable() {
+        return unmodifiable;
+    }
+
+    /**
+     * An assertion method to prevent applying modification if {@link #isUnmodifiable()} return <code>true</code>.
+     */
+    private void assertModifiable() {
+        if (unmodifiable) throw new UnsupportedOperationException("Unmodifiable mode enabled");
+    }
+
+    /**
+     * Get the stored value of given key without decoding.
+     *
+     * @param key Name of additional field.
+     *
+     * @return Stored value, which may be a {@link DeferredAdditionalValue}.
+     */
+    @Nullable
+    public Object rawValue(@Nonnull String key) {
+        return storage.values.get(key);
+    }
+
+    /**
+     * Determine the value of given key is a decoded Java object already.
+     *
+     * @param key Name of additional field.
+     *
+     * @return <code>false</code> if it is a {@link DeferredAdditionalValue} which has not been decoded yet.
+     */
+    public boolean isDecoded(@Nonnull String key) {
+        return !(storage.values.get(key) instanceof DeferredAdditionalValue dav) || dav.isDecoded();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Nonnegative
+    @Override
+    public int size() {
+        return storage.values.size();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean containsKey(Object key) {
+        return key instanceof String k && storage.values.containsKey(k);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <br/>
+     * If the value is {@link DeferredAdditionalValue}, it will be decoded.
+     */
+    @Nullable
+    @Override
+    public Object get(Object key) {
+        return key instanceof String k ? decodeIfDeferred(storage.values.get(k)) : null;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws UnsupportedOperationException If {@link #isUnmodifiable()} returns <code>true</code>.
+     */
+    @Nullable
+    @Override
+    public Object put(@Nonnull String key, @Nullable Object value) {
+        assertModifiable();
+        final Object old = storage.values.get(key);
+        storage.values = storage.values.put(key, PersistentJson.freeze(value));
+        return decodeIfDeferred(old);
+    }
+
+    /**
+     * Put a raw value which may be {@link DeferredAdditionalValue} without decoding.
+     *
+     * @param key Name of additional field.
+     * @param rawValue Value from {@link #rawValue(String)}.
+     */
+    void putRaw(@Nonnull String key, @Nullable Object rawValue) {
+        assertModifiable();
+        assert isAcceptableRawValue(rawValue);
+        storage.values = storage.values.put(key, freezeIfDecoded(rawValue));
+    }
+
+    /**
+     * Put a value which has been validated by caller already.
+     * <br/>
+     * Unlike {@link #put(String, Object)}, the replaced value will not be decoded and validated again.
+     *
+     * @param key Name of additional field.
+     * @param value A JSON liked value.
+     */
+    void putValidated(@Nonnull String key, @Nullable Object value) {
+        assertModifiable();
+        storage.values = storage.values.put(key, PersistentJson.freeze(value));
+    }
+
+    /**
+     * Replace all entries by entries of another {@link AdditionalDataMap} in constant time.
+     *
+     * @param source Origin map.
+     */
+    void restoreFrom(@Nonnull AdditionalDataMap source) {
+        assertModifiable();
+        storage.values = source.storage.values;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws UnsupportedOperationException If {@link #isUnmodifiable()} returns <code>true</code>.
+     */
+    @Nullable
+    @Override
+    public Object remove(Object key) {
+        assertModifiable();
+        if (!(key instanceof String k)) return null;
+
+        final Object old = storage.values.get(k);
+        storage.values = storage.values.remove(k);
+        return decodeIfDeferred(old);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws UnsupportedOperationException If {@link #isUnmodifiable()} returns <code>true</code>.
+     */
+    @Override
+    public void clear() {
+        assertModifiable();
+        storage.values = PersistentOrderedMap.empty();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Nonnull
+    @Override
+    public Set<String> keySet() {
+        return new AbstractSet<>() {
+            @Nonnull
+            @Override
+            public Iterator<String> iterator() {
+                return storage.values.keyIterator();
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                return containsKey(o);
+            }
+
+            @Override
+            public int size() {
+                return storage.values.size();
+            }
+        };
+    }
+
+    /**
+     * {@inheritDoc}
+     * <br/>
+     * The returned {@link Set} is unmodifiable and each {@link Map.Entry#getValue() entry's value} will be decoded
+     * when it called.
+     */
+    @Nonnull
+    @Override
+    public Set<Map.Entry<String, Object>> entrySet() {
+        return new AbstractSet<>() {
+            @Nonnull
+            @Override
+            public Iterator<Map.Entry<String, Object>> iterator() {
+                final Iterator<Map.Entry<String, Object>> rawIterator = storage.values.iterator();
+
+                return new Iterator<>() {
+                    @Override
+                    public boolean hasNext() {
+                        return rawIterator.hasNext();
+                    }
+
+                    @Override
+                    public Map.Entry<String, Object> next() {
+                        final Map.Entry<String, Object> raw = rawIterator.next();
+                        final String key = raw.getKey();
+
+                        return new Map.Entry<>() {
+                            @Override
+                            public String getKey() {
+                                return key;
+                            }
+
+                            @Override
+                            public Object getValue() {
+                                return decodeIfDeferred(raw.getValue());
+                            }
+
+                            @Override
+                            public Object setValue(Object value) {
+                                throw new UnsupportedOperationException("Entry is unmodifiable");
+                            }
+
+                            @Override
+                            public boolean equals(Object o) {
+                                return o instanceof Map.Entry<?, ?> e
+                                        && key.equals(e.getKey())
+                                        && Objects.equals(getValue(), e.getValue());
+                            }
+
+                            @Override
+                            public int hashCode() {
+                                return key.hashCode() ^ Objects.hashCode(getValue());
+                            }
+                        };
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return storage.values.size();
+            }
+        };
+    }
+
+    /**
+     * Replace this map to a decoded copy when serializing since {@link DeferredAdditionalValue} is not required to be
+     * {@link Serializable}.
+     *
+     * @return A copy of this map with all values decoded.
+     */
+    @Serial
+    private Object writeReplace() {
+        PersistentOrderedMap<String, Object> decoded = PersistentOrderedMap.empty();
+        for (Map.Entry<String, Object> e : storage.values)
+            decoded = decoded.put(e.getKey(), decodeIfDeferred(e.getValue()));
+        return new AdditionalDataMap(new Storage(decoded), unmodifiable);
+    }
+
+    /**
+     * Decode the value if it is {@link DeferredAdditionalValue}.
+     *
+     * @param value Stored value.
+     *
+     * @return Decoded value.
+     */
+    @Nullable
+    private static Object decodeIfDeferred(@Nullable Object value) {
+        if (!(value instanceof DeferredAdditionalValue dav)) return value;
+
+        final Object decoded = dav.decode();
+
+        assert PermitAdditionalMapValue.isJsonLiked(decoded);
+        return PersistentJson.freeze(decoded);
+    }
+
+    /**
+     * Freeze the value unless it is {@link DeferredAdditionalValue}, which will be frozen when it is decoded.
+     *
+     * @param rawValue Value which may be a {@link DeferredAdditionalValue}.
+     *
+     * @return Frozen value or the same {@link DeferredAdditionalValue}.
+     */
+    @Nullable
+    private static Object freezeIfDecoded(@Nullable Object rawValue) {
+        return rawValue instanceof DeferredAdditionalValue ? rawValue : PersistentJson.freeze(rawValue);
+    }
+
+    /**
+     * Check the raw value can be stored in this map.
+     *
+     * @param value Pending value to be stored.
+     *
+     * @return <code>true</code> if it is {@link DeferredAdditionalValue} or JSON liked.
+     */
+    private static boolean isAcceptableRawValue(@Nullable Object value) {
+        return value instanceof DeferredAdditionalValue || PermitAdditionalMapValue.isJsonLiked(value);
+    }
+
+    /**
+     * Current version of entries which shares between the map and its {@link #unmodifiableView() view}.
+     */
+    private static final class Storage implements Serializable {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private PersistentOrderedMap<String, Object> values;
+
+        private Storage(@Nonnull PersistentOrderedMap<String, Object> values) {
+            this.values = values;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package xyz.rk0cc.willpub.pubspec.data;
+
+import javax.annotation.Nullable;
+
+/**
+ * A value of {@link Pubspec#additionalData() additional data} which has not been converted to Java object yet.
+ * <br/>
+ * It usually comes from {@link xyz.rk0cc.willpub.pubspec.parser.PubspecParser parser} which keeps the origin content
+ * of the field until it is accessed. Once {@link #decode() decoded}, the result will be reused in every further call.
+ * The implementation must be safe to {@link #decode()} in different threads since it may be shared by {@link Pubspec}
+ * and any {@link PubspecSnapshot} taken from it.
+ *
+ * @since 2.1.0
+ */
+public interface DeferredAdditionalValue {
+    /**
+     * Convert this value to JSON liked Java object.
+     *
+     * @return Decoded value, which is either a JSON liked primitive type, {@link java.util.List},
+     *         {@link java.util.Map} or <code>null</code>. Collections should be
+     *         {@link xyz.rk0cc.willpub.pubspec.data.persistent.PersistentJson#freeze(Object) frozen}, otherwise
+     *         they will be frozen again in every access.
+     */
+    @Nullable
+    Object decode();
+
+    /**
+     * Determine {@link #decode()} has been called already.
+     *
+     * @return <code>true</code> if decoded.
+     */
+    boolean isDecoded();
+}
@@ -0,0 +1,154 @@
+package xyz.rk0cc.willpub.pubspec.data;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.*;
+
+/**
+ * A class to validate the incoming value is a JSON liked type in Java object.
+ *
+ * @since 1.0.0
+ */
+final class PermitAdditionalMapValue {
+    /**
+     * A {@link Set} of {@link Class} which can be assumed as primitive type in JSON.
+     */
+    private static final Set<Class<?>> JSON_LIKED_TYPE = Set.of(
+            Integer.class,
+            int.class,
+            Long.class,
+            long.class,
+            Float.class,
+            float.class,
+            Double.class,
+            double.class,
+            Byte.class,
+            byte.class,
+            Short.class,
+            short.class,
+            Boolean.class,
+            boolean.class,
+            Character.class,
+            char.class,
+            String.class
+    );
+
+    /**
+     * Cached result of {@link #JSON_LIKED_TYPE} for each {@link Class}, which can be read by multiple threads without
+     * locking.
+     */
+    private static final ClassValue<Boolean> JSON_LIKED_CLASS = new ClassValue<>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            return JSON_LIKED_TYPE.contains(type);
+        }
+    };
+
+    /**
+     * Depth of nested collections which starts tracking visiting collections, so that a self-referenced collection
+     * will be rejected instead of walking forever.
+     */
+    private static final int CYCLE_DETECTION_DEPTH = 64;
+
+    /**
+     * A useless constructor since it only contains static value and method only.
+     */
+    private PermitAdditionalMapValue() {}
+
+    /**
+     * Check the non-collection type is primitive for JSON.
+     *
+     * @param v Map's value that pending to set.
+     *
+     * @return <code>true</code> if one of the {@link #JSON_LIKED_TYPE} matched.
+     */
+    private static boolean isJsonLikedDataType(@Nullable Object v) {
+        return v == null || JSON_LIKED_CLASS.get(v.getClass());
+    }
+
+    /**
+     * Determine the value is a collection which requires validating its items.
+     *
+     * @param v Value that pending to set.
+     *
+     * @return <code>true</code> if it is a {@link List} or {@link Map}.
+     */
+    private static boolean isCollection(@Nullable Object v) {
+        return v instanceof List<?> || v instanceof Map<?, ?>;
+    }
+
+    /**
+     * Start validating items of a collection by pushing its {@link Iterator} into <code>iterators</code>.
+     * <br/>
+     * All keys of {@link Map} are validated immediately.
+     *
+     * @param collection A {@link List} or {@link Map}.
+     * @param path Collections which are visiting currently.
+     * @param iterators Items which pending to validate of each collection in <code>path</code>.
+     *
+     * @return <code>false</code> if <code>collection</code> is a {@link Map} with non-{@link String} key.
+     */
+    private static boolean enter(
+            @Nonnull Object collection,
+            @Nonnull ArrayDeque<Object> path,
+            @Nonnull ArrayDeque<Iterator<?>> iterators
+    ) {
+        final Iterator<?> items;
+
+        if (collection instanceof Map<?, ?> mv) {
+            for (Object k : mv.keySet()) if (!(k instanceof String)) return false;
+            items = mv.values().iterator();
+        } else items = ((List<?>) collection).iterator();
+
+        path.push(collection);
+        iterators.push(items);
+        return true;
+    }
+
+    /**
+     * Entry point of validation.
+     * <br/>
+     * Nested {@link List} and {@link Map} are walked with an explicit stack, so that the depth of value is not limited
+     * by thread's stack size.
+     *
+     * @param incomingValue An {@link Object} of {@link Map}'s value.
+     *
+     * @return <code>true</code> if the value is JSON liked.
+     */
+    static boolean isJsonLiked(@Nullable Object incomingValue) {
+        if (!isCollection(incomingValue)) return isJsonLikedDataType(incomingValue);
+
+        final ArrayDeque<Object> path = new ArrayDeque<>();
+        final ArrayDeque<Iterator<?>> iterators = new ArrayDeque<>();
+        Set<Object> visiting = null;
+
+        if (!enter(incomingValue, path, iterators)) return false;
+
+        while (!iterators.isEmpty()) {
+            final Iterator<?> items = iterators.peek();
+
+            if (!items.hasNext()) {
+                iterators.pop();
+                final Object visited = path.pop();
+                if (visiting != null) visiting.remove(visited);
+                continue;
+            }
+
+            final Object item = items.next();
+
+            if (!isCollection(item)) {
+                if (!isJsonLikedDataType(item)) return false;
+                continue;
+            }
+
+            if (visiting == null && path.size() >= CYCLE_DETECTION_DEPTH) {
+                visiting = Collections.newSetFromMap(new IdentityHashMap<>());
+                visiting.addAll(path);
+            }
+
+            if ((visiting != null && !visiting.add(item)) || !enter(item, path, iterators)) return false;
+        }
+
+        return true;
+    }
+}
\ No newline at end of file
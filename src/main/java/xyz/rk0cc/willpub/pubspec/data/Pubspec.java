@@ -3,6 +3,7 @@ package xyz.rk0cc.willpub.pubspec.data;
 import xyz.rk0cc.josev.*;
 import xyz.rk0cc.willpub.exceptions.pubspec.*;
 import xyz.rk0cc.willpub.pubspec.data.dependencies.*;
+import xyz.rk0cc.willpub.pubspec.data.persistent.PersistentJson;
 import xyz.rk0cc.willpub.pubspec.parser.PubspecParser;
 
 import javax.annotation.Nonnull;
@@ -11,7 +12,6 @@ import java.io.File;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.*;
-import java.util.function.Predicate;
 
 /**
  * A mutable object structure to match with <code>pubspec.yaml</code>.
@@ -39,7 +39,7 @@ public final class Pubspec implements PubspecStructure {
     private PubspecPlatforms platforms;
     private final ImportedReferenceSet dependencies, devDependencies;
     private final OverrideReferenceSet dependencyOverrides;
-    private final Map<String, Object> additionalData;
+    private final AdditionalDataMap additionalData;
 
     /**
      * Create {@link Pubspec} data with all field provides.
@@ -68,7 +68,8 @@ public final class Pubspec implements PubspecStructure {
      *                            will be applied in package's own pubspec.
      * @param platforms Specify which platform can be supported. (Apply <code>null</code> equals with all platforms
      *                  supported.)
-     * @param additionalData A {@link Map} containing fields which not mentioned in {@link Pubspec}.
+     * @param additionalData A {@link Map} containing fields which not mentioned in {@link Pubspec}. The value can be
+     *                       {@link DeferredAdditionalValue} which will be decoded when it accessed.
      *
      * @throws IllegalPubPackageNamingException If <code>name</code> does not meet requirement of
      *                                          {@link PubspecValueValidator#packageNaming(String) package naming}.
@@ -110,8 +111,9 @@ public final class Pubspec implements PubspecStructure {
             throw new IllegalArgumentException("Found illegal version constraint override dependency in the set.", e);
         }
         this.modifyPlatforms(platforms == null ? PubspecPlatforms.createAllSupported() : platforms);
-        assert additionalData == null || additionalData.values().stream().allMatch(Pubspec::isJsonLikedObject);
-        this.additionalData = additionalData == null ? new LinkedHashMap<>() : new LinkedHashMap<>(additionalData);
+        this.additionalData = additionalData == null
+                ? new AdditionalDataMap()
+                : new AdditionalDataMap(additionalData, false);
     }
 
     /**
@@ -316,9 +318,9 @@ public final class Pubspec implements PubspecStructure {
     public boolean appendAdditionalData(@Nonnull String key, @Nullable Object value) {
         if (PubspecParser.PUBSPEC_YAML_FIELD.contains(key))
             throw new IllegalArgumentException("'" + key + "' is not an additional field in pubspec");
-        assert isJsonLikedObject(value);
         if (additionalData.containsKey(key)) return false;
-        additionalData.putIfAbsent(key, value);
+        assert isJsonLikedObject(value);
+        additionalData.putValidated(key, value);
         return additionalData.containsKey(key);
     }
 
@@ -339,10 +341,68 @@ public final class Pubspec implements PubspecStructure {
         if (PubspecParser.PUBSPEC_YAML_FIELD.contains(key))
             throw new IllegalArgumentException("'" + key + "' is not an additional field in pubspec");
         assert isJsonLikedObject(value);
-        additionalData.put(key, value);
+        additionalData.putValidated(key, value);
+        return additionalData.containsKey(key);
+    }
+
+    /**
+     * Assign <code>value</code> into nested path of <code>key</code>.
+     * <br/>
+     * Since values of additional data are immutable, it stores a new version of the value which only copies
+     * collections along the <code>path</code>, and any {@link PubspecSnapshot} taken before still holds the origin one.
+     *
+     * @param key Additional field name.
+     * @param path A {@link List} of {@link String} field name or {@link Integer} index from the value of
+     *             <code>key</code>. It follows {@link PersistentJson#setIn(Object, List, Object)}.
+     * @param value Additional value which can be reference to JSON.
+     *
+     * @return <code>true</code> if modified.
+     *
+     * @throws IllegalArgumentException If <code>key</code> is referencing any provided field in {@link Pubspec}, or
+     *                                  <code>path</code> can not be applied on the value.
+     * @throws IndexOutOfBoundsException If the index in <code>path</code> is out of range.
+     *
+     * @see #modifyAdditionalData(String, Object)
+     *
+     * @since 2.1.0
+     */
+    public boolean modifyAdditionalDataAt(@Nonnull String key, @Nonnull List<?> path, @Nullable Object value) {
+        if (PubspecParser.PUBSPEC_YAML_FIELD.contains(key))
+            throw new IllegalArgumentException("'" + key + "' is not an additional field in pubspec");
+        assert isJsonLikedObject(value);
+        additionalData.putValidated(key, PersistentJson.setIn(additionalData.get(key), path, value));
         return additionalData.containsKey(key);
     }
 
+    /**
+     * Remove the value in nested path of <code>key</code>.
+     * <br/>
+     * Same as {@link #modifyAdditionalDataAt(String, List, Object)}, it stores a new version of the value and keeps
+     * the origin one untouched.
+     *
+     * @param key Additional field name.
+     * @param path A non-empty {@link List} of {@link String} field name or {@link Integer} index from the value of
+     *             <code>key</code>.
+     *
+     * @return <code>true</code> if removed.
+     *
+     * @throws IllegalArgumentException If <code>key</code> is referencing any provided field in {@link Pubspec}, or
+     *                                  <code>path</code> is empty.
+     *
+     * @since 2.1.0
+     */
+    public boolean removeAdditionalDataAt(@Nonnull String key, @Nonnull List<?> path) {
+        if (PubspecParser.PUBSPEC_YAML_FIELD.contains(key))
+            throw new IllegalArgumentException("'" + key + "' is not an additional field in pubspec");
+        if (!additionalData.containsKey(key)) return false;
+
+        final Object origin = additionalData.get(key), applied = PersistentJson.removeIn(origin, path);
+        if (applied == origin) return false;
+
+        additionalData.putValidated(key, applied);
+        return true;
+    }
+
     /**
      * Remove <code>key</code> from additional data field.
      *
@@ -534,6 +594,9 @@ public final class Pubspec implements PubspecStructure {
 
     /**
      * Return a value which comes form additional data.
+     * <br/>
+     * If the value is {@link DeferredAdditionalValue deferred} from parser, it will be decoded in the first call of
+     * this key.
      *
      * @param key Name of additional field.
      *
@@ -554,14 +617,28 @@ public final class Pubspec implements PubspecStructure {
      * Return entire {@link Map} of additional data applied in {@link Pubspec}.
      * <br/>
      * To prevent unexpected type applied directly via {@link Map}, the returned {@link Map} is
-     * {@link Collections#unmodifiableMap(Map) unmodifiable}.
+     * {@link AdditionalDataMap#isUnmodifiable() unmodifiable}. Each value will be decoded when it accessed only.
+     * <br/>
+     * Since 2.1.0, every {@link List} and {@link Map} in values are
+     * {@link PersistentJson#freeze(Object) frozen} when they are assigned, which can not be modified either.
      *
      * @return An unmodifiable map representing any data which does not provide setter and getter in {@link Pubspec}.
      */
     @Nonnull
     @Override
     public Map<String, Object> additionalData() {
-        return Collections.unmodifiableMap(additionalData);
+        return additionalData.unmodifiableView();
+    }
+
+    /**
+     * Replace all additional data from another {@link Map} without decoding any {@link DeferredAdditionalValue}.
+     *
+     * @param source A {@link Map} of additional data.
+     */
+    void restoreAdditionalData(@Nonnull Map<String, Object> source) {
+        additionalData.restoreFrom(
+                source instanceof AdditionalDataMap adm ? adm : new AdditionalDataMap(source, false)
+        );
     }
 
     /**
@@ -599,95 +676,3 @@ public final class Pubspec implements PubspecStructure {
         return pubspec.environment().flutter() != null || pubspec.additionalData.containsKey("flutter");
     }
 }
-
-/**
- * A class to validate the incoming value is a JSON liked type in Java object.
- *
- * @since 1.0.0
- */
-final class PermitAdditionalMapValue {
-    /**
-     * A {@link Set} of {@link Class} which can be assumed as primitive type in JSON.
-     */
-    private static final Set<Class<?>> JSON_LIKED_TYPE = Set.of(
-            Integer.class,
-            int.class,
-            Long.class,
-            long.class,
-            Float.class,
-            float.class,
-            Double.class,
-            double.class,
-            Byte.class,
-            byte.class,
-            Short.class,
-            short.class,
-            Boolean.class,
-            boolean.class,
-            Character.class,
-            char.class,
-            String.class
-    );
-
-    /**
-     * A useless constructor since it only contains static value and method only.
-     */
-    private PermitAdditionalMapValue() {}
-
-    /**
-     * A {@link Predicate} to isolate different validation approach if dealing with collections type.
-     */
-    private static final Predicate<Object> conditionDispatcher = i -> {
-        if (i instanceof List<?> nl)
-            return isJsonLikedArray(nl);
-        else if (i instanceof Map<?, ?> nm)
-            return isJsonLikedMap(nm);
-        return isJsonLikedDataType(i);
-    };
-
-    /**
-     * Check the non-collection type is primitive for JSON.
-     *
-     * @param v Map's value that pending to set.
-     *
-     * @return <code>true</code> if one of the {@link #JSON_LIKED_TYPE} matched.
-     */
-    private static synchronized boolean isJsonLikedDataType(@Nullable Object v) {
-        if (v == null) return true;
-        return JSON_LIKED_TYPE.stream().anyMatch(jlt -> jlt.equals(v.getClass()));
-    }
-
-    /**
-     * Validating all items in the {@link List} are valid.
-     *
-     * @param lv A {@link List} of map's value that pending to set.
-     *
-     * @return <code>true</code> if all items is followed.
-     */
-    private static boolean isJsonLikedArray(@Nonnull List<?> lv) {
-        return lv.stream().allMatch(conditionDispatcher);
-    }
-
-    /**
-     * Validating all items in the {@link Map} are valid.
-     *
-     * @param mv A {@link Map} which becomes nested of map's value that pending to set.
-     *
-     * @return <code>true</code> if all key are {@link String} all value is followed.
-     */
-    private static boolean isJsonLikedMap(@Nonnull Map<?, ?> mv) {
-        return mv.keySet().stream().allMatch(k -> k instanceof String)
-                && mv.values().stream().allMatch(conditionDispatcher);
-    }
-
-    /**
-     * Entry point of validation.
-     *
-     * @param incomingValue An {@link Object} of {@link Map}'s value.
-     *
-     * @return <code>true</code> if the value is JSON liked.
-     */
-    static boolean isJsonLiked(@Nullable Object incomingValue) {
-        return conditionDispatcher.test(incomingValue);
-    }
-}
\ No newline at end of file
@@ -6,6 +6,7 @@ import xyz.rk0cc.willpub.exceptions.pubspec.IllegalVersionConstraintException;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.io.Serializable;
+import java.util.Objects;
 
 /**
  * Giving a requirement preference which indicating required SDK versions constraint is supported.
@@ -102,4 +103,33 @@ public final class PubspecEnvironment implements Serializable {
             throw new AssertionError("Flutter does not affected with illegal version constraint exception", e);
         }
     }
+
+    /**
+     * Compare two {@link PubspecEnvironment} have the same SDK and Flutter constraint.
+     *
+     * @param o Another object.
+     *
+     * @return <code>true</code> if both constraints are equal.
+     *
+     * @since 2.1.0
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        PubspecEnvironment that = (PubspecEnvironment) o;
+        return sdk.equals(that.sdk) && Objects.equals(flutter, that.flutter);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @return Hashed SDK and Flutter constraint.
+     *
+     * @since 2.1.0
+     */
+    @Override
+    public int hashCode() {
+        return Objects.hash(sdk, flutter);
+    }
 }
@@ -9,7 +9,6 @@ import javax.annotation.Nullable;
 import java.io.File;
 import java.io.Serializable;
 import java.net.URL;
-import java.util.Collections;
 import java.util.Map;
 
 /**
@@ -35,7 +34,7 @@ public final class PubspecSnapshot implements PubspecStructure, Serializable {
     private final PubspecPlatforms platforms;
     private final ImportedReferenceSet dependencies, devDependencies;
     private final OverrideReferenceSet dependencyOverrides;
-    private final Map<String, Object> additionalData;
+    private final AdditionalDataMap additionalData;
 
     /**
      * Create snapshot from existing {@link Pubspec}.
@@ -56,7 +55,7 @@ public final class PubspecSnapshot implements PubspecStructure, Serializable {
      *
      * @see Pubspec#Pubspec(String, PubspecEnvironment, SemVer, String, String, URL, URL, URL, URL, ImportedReferenceSet, ImportedReferenceSet, OverrideReferenceSet, PubspecPlatforms, Map) Same structre but detailed parameter descriptions.
      */
-    private PubspecSnapshot(
+    PubspecSnapshot(
             @Nonnull String name,
             @Nonnull PubspecEnvironment environment,
             @Nullable SemVer version,
@@ -88,7 +87,7 @@ public final class PubspecSnapshot implements PubspecStructure, Serializable {
         this.devDependencies = devDependencies;
         this.dependencyOverrides = dependencyOverrides;
         this.platforms = platforms;
-        this.additionalData = Collections.unmodifiableMap(additionalData);
+        this.additionalData = new AdditionalDataMap(additionalData, true);
     }
 
     /**
@@ -236,6 +235,8 @@ public final class PubspecSnapshot implements PubspecStructure, Serializable {
 
     /**
      * An unmodifiable {@link Map} of additional data of this snapshot.
+     * <br/>
+     * Any {@link DeferredAdditionalValue} will be decoded when it accessed only.
      *
      * @return A {@link Map} of additional data.
      */
@@ -275,9 +276,7 @@ public final class PubspecSnapshot implements PubspecStructure, Serializable {
             devDep.addAll(devDependencies);
             depOr.addAll(dependencyOverrides);
 
-            pubspec.clearAllAdditionalData();
-
-            additionalData.forEach(pubspec::modifyAdditionalData);
+            pubspec.restoreAdditionalData(additionalData);
         } catch (IllegalPubspecConfigurationException e) {
             throw new AssertionError("Unexpected illegal pubspec configuration exception thrown", e);
         }
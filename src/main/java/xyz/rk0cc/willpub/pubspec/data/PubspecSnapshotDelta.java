@@ -0,0 +1,472 @@
+package xyz.rk0cc.willpub.pubspec.data;
+
+import xyz.rk0cc.josev.SemVer;
+import xyz.rk0cc.willpub.exceptions.pubspec.IllegalVersionConstraintException;
+import xyz.rk0cc.willpub.pubspec.data.dependencies.*;
+import xyz.rk0cc.willpub.pubspec.data.dependencies.type.DependencyReference;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.Serial;
+import java.io.Serializable;
+import java.net.URL;
+import java.util.*;
+
+/**
+ * Differences between two {@link PubspecSnapshot}, which only stores changed fields, dependencies and additional data.
+ * <br/>
+ * A delta is created by {@link #between(PubspecSnapshot, PubspecSnapshot)} and the target snapshot can be
+ * reconstructed by {@link #applyTo(PubspecSnapshot)} with the same base snapshot.
+ *
+ * @since 2.1.0
+ */
+public final class PubspecSnapshotDelta implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Approximated bytes uses for {@link #retainedBytes()} and {@link #estimateRetainedBytes(PubspecSnapshot)}.
+     */
+    private static final long OBJECT_BYTES = 16, REFERENCE_BYTES = 4, MAP_ENTRY_BYTES = 32, TREE_ENTRY_BYTES = 96;
+
+    private final EnumMap<Field, Object> changedValues;
+    private final KeyedDelta<DependencyReference> dependencies, devDependencies, dependencyOverrides;
+    private final KeyedDelta<Object> additionalData;
+
+    private PubspecSnapshotDelta(
+            @Nonnull EnumMap<Field, Object> changedValues,
+            @Nonnull KeyedDelta<DependencyReference> dependencies,
+            @Nonnull KeyedDelta<DependencyReference> devDependencies,
+            @Nonnull KeyedDelta<DependencyReference> dependencyOverrides,
+            @Nonnull KeyedDelta<Object> additionalData
+    ) {
+        this.changedValues = changedValues;
+        this.dependencies = dependencies;
+        this.devDependencies = devDependencies;
+        this.dependencyOverrides = dependencyOverrides;
+        this.additionalData = additionalData;
+    }
+
+    /**
+     * Fields of {@link PubspecSnapshot} which is compared as a single value.
+     */
+    public enum Field {
+        NAME, ENVIRONMENT, VERSION, PUBLISH_TO, DESCRIPTION,
+        HOMEPAGE, REPOSITORY, ISSUE_TRACKER, DOCUMENTATION, PLATFORMS
+    }
+
+    /**
+     * Changes of a keyed collection.
+     * <br/>
+     * Applying a {@link KeyedDelta} removes all {@link #removed()} keys first, then puts every {@link #upserted()}
+     * entries in order. If the order of remained keys can not be preserved by this way, all keys of the base will be
+     * {@link #removed()} and {@link #upserted()} contains entire target.
+     *
+     * @param removed Keys which removed.
+     * @param upserted Entries which added or updated.
+     * @param <V> Type of value.
+     */
+    public record KeyedDelta<V>(@Nonnull Set<String> removed, @Nonnull Map<String, V> upserted)
+            implements Serializable {
+        /**
+         * Determine nothing changed.
+         *
+         * @return <code>true</code> if no key removed or upserted.
+         */
+        public boolean isEmpty() {
+            return removed.isEmpty() && upserted.isEmpty();
+        }
+    }
+
+    /**
+     * Find differences from <code>base</code> to <code>target</code>.
+     *
+     * @param base Origin snapshot.
+     * @param target Modified snapshot.
+     *
+     * @return A {@link PubspecSnapshotDelta} which reconstruct <code>target</code> from <code>base</code>.
+     */
+    @Nonnull
+    public static PubspecSnapshotDelta between(@Nonnull PubspecSnapshot base, @Nonnull PubspecSnapshot target) {
+        final EnumMap<Field, Object> changed = new EnumMap<>(Field.class);
+
+        compareField(changed, Field.NAME, base.name(), target.name());
+        compareField(changed, Field.ENVIRONMENT, base.environment(), target.environment());
+        compareField(changed, Field.VERSION, base.version(), target.version());
+        compareField(changed, Field.PUBLISH_TO, base.publishTo(), target.publishTo());
+        compareField(changed, Field.DESCRIPTION, base.description(), target.description());
+        compareField(changed, Field.HOMEPAGE, base.homepage(), target.homepage());
+        compareField(changed, Field.REPOSITORY, base.repository(), target.repository());
+        compareField(changed, Field.ISSUE_TRACKER, base.issueTracker(), target.issueTracker());
+        compareField(changed, Field.DOCUMENTATION, base.documentation(), target.documentation());
+        compareField(changed, Field.PLATFORMS, base.platforms(), target.platforms());
+
+        return new PubspecSnapshotDelta(
+                changed,
+                compareDependencies(base.dependencies(), target.dependencies()),
+                compareDependencies(base.devDependencies(), target.devDependencies()),
+                compareDependencies(base.dependencyOverrides(), target.dependencyOverrides()),
+                compareAdditionalData(
+                        (AdditionalDataMap) base.additionalData(),
+                        (AdditionalDataMap) target.additionalData()
+                )
+        );
+    }
+
+    /**
+     * Fields which has difference value.
+     *
+     * @return An unmodifiable {@link Set} of changed {@link Field}.
+     */
+    @Nonnull
+    public Set<Field> changedFields() {
+        return Collections.unmodifiableSet(changedValues.keySet());
+    }
+
+    /**
+     * Changes of {@link PubspecSnapshot#dependencies()}.
+     *
+     * @return {@link KeyedDelta} of dependencies.
+     */
+    @Nonnull
+    public KeyedDelta<DependencyReference> dependencies() {
+        return dependencies;
+    }
+
+    /**
+     * Changes of {@link PubspecSnapshot#devDependencies()}.
+     *
+     * @return {@link KeyedDelta} of development dependencies.
+     */
+    @Nonnull
+    public KeyedDelta<DependencyReference> devDependencies() {
+        return devDependencies;
+    }
+
+    /**
+     * Changes of {@link PubspecSnapshot#dependencyOverrides()}.
+     *
+     * @return {@link KeyedDelta} of dependency overrides.
+     */
+    @Nonnull
+    public KeyedDelta<DependencyReference> dependencyOverrides() {
+        return dependencyOverrides;
+    }
+
+    /**
+     * Changes of {@link PubspecSnapshot#additionalData()}.
+     * <br/>
+     * {@link KeyedDelta#upserted()} is an {@link AdditionalDataMap} which will not decode unchanged
+     * {@link DeferredAdditionalValue}.
+     *
+     * @return {@link KeyedDelta} of additional data.
+     */
+    @Nonnull
+    public KeyedDelta<Object> additionalData() {
+        return additionalData;
+    }
+
+    /**
+     * Determine both snapshots are identical.
+     *
+     * @return <code>true</code> if nothing changed.
+     */
+    public boolean isEmpty() {
+        return changedValues.isEmpty()
+                && dependencies.isEmpty()
+                && devDependencies.isEmpty()
+                && dependencyOverrides.isEmpty()
+                && additionalData.isEmpty();
+    }
+
+    /**
+     * Reconstruct the target {@link PubspecSnapshot} with the same base snapshot which uses to create this delta.
+     *
+     * @param base The base snapshot given in {@link #between(PubspecSnapshot, PubspecSnapshot)}.
+     *
+     * @return Reconstructed {@link PubspecSnapshot}.
+     */
+    @Nonnull
+    public PubspecSnapshot applyTo(@Nonnull PubspecSnapshot base) {
+        final ImportedReferenceSet dep = new ImportedReferenceSet(base.dependencies(), false),
+                devDep = new ImportedReferenceSet(base.devDependencies(), false);
+        final OverrideReferenceSet depOr;
+
+        try {
+            depOr = new OverrideReferenceSet(base.dependencyOverrides(), false);
+        } catch (IllegalVersionConstraintException e) {
+            throw new AssertionError("Unexpected version constraint exception when cloning overrides", e);
+        }
+
+        applyDependencies(dependencies, dep);
+        applyDependencies(devDependencies, devDep);
+        applyDependencies(dependencyOverrides, depOr);
+
+        final AdditionalDataMap baseAD = (AdditionalDataMap) base.additionalData();
+        final LinkedHashMap<String, Object> ad = new LinkedHashMap<>();
+        for (String k : baseAD.keySet()) ad.put(k, baseAD.rawValue(k));
+
+        additionalData.removed().forEach(ad::remove);
+        final AdditionalDataMap upsertedAD = (AdditionalDataMap) additionalData.upserted();
+        for (String k : upsertedAD.keySet()) ad.put(k, upsertedAD.rawValue(k));
+
+        try {
+            return new PubspecSnapshot(
+                    valueOf(Field.NAME, base.name()),
+                    valueOf(Field.ENVIRONMENT, base.environment()),
+                    valueOf(Field.VERSION, base.version()),
+                    valueOf(Field.PUBLISH_TO, base.publishTo()),
+                    valueOf(Field.DESCRIPTION, base.description()),
+                    valueOf(Field.HOMEPAGE, base.homepage()),
+                    valueOf(Field.REPOSITORY, base.repository()),
+                    valueOf(Field.ISSUE_TRACKER, base.issueTracker()),
+                    valueOf(Field.DOCUMENTATION, base.documentation()),
+                    new ImportedReferenceSet(dep, true),
+                    new ImportedReferenceSet(devDep, true),
+                    new OverrideReferenceSet(depOr, true),
+                    valueOf(Field.PLATFORMS, base.platforms()),
+                    ad
+            );
+        } catch (IllegalVersionConstraintException e) {
+            throw new AssertionError("Unexpected version constraint exception when cloning overrides", e);
+        }
+    }
+
+    /**
+     * Estimated number of bytes retained by this delta.
+     *
+     * @return Estimated bytes.
+     *
+     * @see #estimateRetainedBytes(PubspecSnapshot)
+     */
+    @Nonnegative
+    public long retainedBytes() {
+        long bytes = OBJECT_BYTES * 6;
+
+        for (Object v : changedValues.values()) bytes += REFERENCE_BYTES + estimateBytes(v);
+
+        return bytes
+                + estimateKeyedDelta(dependencies)
+                + estimateKeyedDelta(devDependencies)
+                + estimateKeyedDelta(dependencyOverrides)
+                + estimateKeyedDelta(additionalData);
+    }
+
+    /**
+     * Estimated number of bytes retained by a {@link PubspecSnapshot} if it is the only owner of all data.
+     * <br/>
+     * The estimation only accounts strings and containers roughly. {@link DeferredAdditionalValue} which has not
+     * been decoded is counted as a wrapper only.
+     *
+     * @param snapshot A {@link PubspecSnapshot} to estimate.
+     *
+     * @return Estimated bytes.
+     */
+    @Nonnegative
+    public static long estimateRetainedBytes(@Nonnull PubspecSnapshot snapshot) {
+        long bytes = OBJECT_BYTES + REFERENCE_BYTES * 14;
+
+        bytes += estimateBytes(snapshot.name())
+                + estimateBytes(snapshot.environment())
+                + estimateBytes(snapshot.version())
+                + estimateBytes(snapshot.publishTo())
+                + estimateBytes(snapshot.description())
+                + estimateBytes(snapshot.homepage())
+                + estimateBytes(snapshot.repository())
+                + estimateBytes(snapshot.issueTracker())
+                + estimateBytes(snapshot.documentation())
+                + estimateBytes(snapshot.platforms());
+
+        for (DependenciesReferenceSet drs : List.of(
+                snapshot.dependencies(),
+                snapshot.devDependencies(),
+                snapshot.dependencyOverrides()
+        )) {
+            bytes += OBJECT_BYTES;
+            for (DependencyReference dr : drs) bytes += TREE_ENTRY_BYTES + estimateBytes(dr);
+        }
+
+        final AdditionalDataMap ad = (AdditionalDataMap) snapshot.additionalData();
+        bytes += OBJECT_BYTES;
+        for (String k : ad.keySet()) bytes += MAP_ENTRY_BYTES + estimateBytes(k) + estimateBytes(ad.rawValue(k));
+
+        return bytes;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Nullable
+    private <T> T valueOf(@Nonnull Field field, @Nullable T baseValue) {
+        return changedValues.containsKey(field) ? (T) changedValues.get(field) : baseValue;
+    }
+
+    private static void compareField(
+            @Nonnull EnumMap<Field, Object> changed,
+            @Nonnull Field field,
+            @Nullable Object base,
+            @Nullable Object target
+    ) {
+        if (!isSameValue(base, target)) changed.put(field, target);
+    }
+
+    /**
+     * Compare two values without resolving host of {@link URL}.
+     *
+     * @param a First value.
+     * @param b Second value.
+     *
+     * @return <code>true</code> if both are the same.
+     */
+    private static boolean isSameValue(@Nullable Object a, @Nullable Object b) {
+        if (a == b) return true;
+        else if (a instanceof URL ua && b instanceof URL ub) return ua.toExternalForm().equals(ub.toExternalForm());
+
+        return Objects.equals(a, b);
+    }
+
+    @Nonnull
+    private static KeyedDelta<DependencyReference> compareDependencies(
+            @Nonnull DependenciesReferenceSet base,
+            @Nonnull DependenciesReferenceSet target
+    ) {
+        final LinkedHashSet<String> removed = new LinkedHashSet<>();
+        final LinkedHashMap<String, DependencyReference> upserted = new LinkedHashMap<>();
+
+        for (String name : base.dependencyNames()) {
+            if (!target.contains(name)) removed.add(name);
+        }
+
+        final Iterator<String> remainedBase = base.dependencyNames().iterator();
+        boolean ordered = true, appending = false;
+
+        for (DependencyReference dr : target) {
+            final String name = dr.name();
+            final boolean existed = base.contains(name);
+
+            if (ordered) {
+                if (existed) {
+                    ordered = !appending && name.equals(nextRemained(remainedBase, removed));
+                } else appending = true;
+            }
+
+            if (!existed || !base.contains(dr)) upserted.put(name, dr);
+        }
+
+        if (!ordered) {
+            removed.clear();
+            removed.addAll(base.dependencyNames());
+            upserted.clear();
+            for (DependencyReference dr : target) upserted.put(dr.name(), dr);
+        }
+
+        return new KeyedDelta<>(Collections.unmodifiableSet(removed), Collections.unmodifiableMap(upserted));
+    }
+
+    @Nonnull
+    private static KeyedDelta<Object> compareAdditionalData(
+            @Nonnull AdditionalDataMap base,
+            @Nonnull AdditionalDataMap target
+    ) {
+        final LinkedHashSet<String> removed = new LinkedHashSet<>();
+        final AdditionalDataMap upserted = new AdditionalDataMap();
+
+        for (String k : base.keySet()) {
+            if (!target.containsKey(k)) removed.add(k);
+        }
+
+        final Iterator<String> remainedBase = base.keySet().iterator();
+        boolean ordered = true, appending = false;
+
+        for (String k : target.keySet()) {
+            final boolean existed = base.containsKey(k);
+
+            if (ordered) {
+                if (existed) ordered = !appending && k.equals(nextRemained(remainedBase, removed));
+                else appending = true;
+            }
+
+            if (!existed || !isSameValue(base.rawValue(k), target.rawValue(k))) upserted.putRaw(k, target.rawValue(k));
+        }
+
+        if (!ordered) {
+            removed.clear();
+            removed.addAll(base.keySet());
+            upserted.clear();
+            for (String k : target.keySet()) upserted.putRaw(k, target.rawValue(k));
+        }
+
+        return new KeyedDelta<>(Collections.unmodifiableSet(removed), upserted.unmodifiableView());
+    }
+
+    /**
+     * Get next key from base which is not removed in target.
+     *
+     * @param remainedBase Iterator of keys in base.
+     * @param removed Removed keys.
+     *
+     * @return Next remained key, or <code>null</code> if no more.
+     */
+    @Nullable
+    private static String nextRemained(@Nonnull Iterator<String> remainedBase, @Nonnull Set<String> removed) {
+        while (remainedBase.hasNext()) {
+            final String k = remainedBase.next();
+            if (!removed.contains(k)) return k;
+        }
+        return null;
+    }
+
+    private static void applyDependencies(
+            @Nonnull KeyedDelta<DependencyReference> delta,
+            @Nonnull DependenciesReferenceSet drs
+    ) {
+        for (String name : delta.removed()) drs.remove(name);
+
+        drs.setAll(delta.upserted().values());
+    }
+
+    private static long estimateKeyedDelta(@Nonnull KeyedDelta<?> delta) {
+        long bytes = OBJECT_BYTES * 3;
+
+        for (String k : delta.removed()) bytes += MAP_ENTRY_BYTES + estimateBytes(k);
+
+        final Map<String, ?> upserted = delta.upserted();
+        for (String k : upserted.keySet()) {
+            final Object v = upserted instanceof AdditionalDataMap adm ? adm.rawValue(k) : upserted.get(k);
+            bytes += MAP_ENTRY_BYTES + estimateBytes(k) + estimateBytes(v);
+        }
+
+        return bytes;
+    }
+
+    /**
+     * Roughly estimate bytes of a value in {@link PubspecSnapshot}.
+     *
+     * @param value A value to estimate.
+     *
+     * @return Estimated bytes.
+     */
+    private static long estimateBytes(@Nullable Object value) {
+        if (value == null) return 0;
+        else if (value instanceof String s) return OBJECT_BYTES + 24 + s.length();
+        else if (value instanceof Number || value instanceof Boolean) return OBJECT_BYTES + 8;
+        else if (value instanceof URL u) return OBJECT_BYTES * 8 + 2L * u.toExternalForm().length();
+        else if (value instanceof DependencyReference dr) return OBJECT_BYTES * 3 + dr.toString().length();
+        else if (value instanceof SemVer sv) return OBJECT_BYTES * 4 + sv.value().length();
+        else if (value instanceof PubspecPlatforms) return OBJECT_BYTES + 8;
+        else if (value instanceof PubspecEnvironment pe) return OBJECT_BYTES * 8 + pe.toString().length();
+        else if (value instanceof DeferredAdditionalValue dav)
+            return OBJECT_BYTES * 2 + (dav.isDecoded() ? estimateBytes(dav.decode()) : 0);
+        else if (value instanceof Map<?, ?> m) {
+            long bytes = OBJECT_BYTES * 3;
+            for (Map.Entry<?, ?> e : m.entrySet())
+                bytes += MAP_ENTRY_BYTES + estimateBytes(e.getKey()) + estimateBytes(e.getValue());
+            return bytes;
+        } else if (value instanceof Collection<?> c) {
+            long bytes = OBJECT_BYTES * 2;
+            for (Object e : c) bytes += REFERENCE_BYTES + estimateBytes(e);
+            return bytes;
+        }
+
+        return OBJECT_BYTES * 2;
+    }
+}
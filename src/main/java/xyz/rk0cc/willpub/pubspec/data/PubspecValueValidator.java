@@ -4,8 +4,10 @@ import xyz.rk0cc.willpub.exceptions.pubspec.IllegalPubPackageNamingException;
 
 import javax.annotation.Nonnull;
 import java.net.URL;
-import java.util.regex.Pattern;
-import java.util.stream.Stream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 
 /**
  * Validating incoming apply data of {@link Pubspec} are following the rules.
@@ -13,11 +15,70 @@ import java.util.stream.Stream;
  * @since 1.0.0
  */
 public final class PubspecValueValidator {
+    /**
+     * Reserve keyword from <a href="https://dart.dev/guides/language/language-tour#keywords">Dart's keywords table</a>
+     * which placed by {@link #keywordSlot(String)}.
+     */
+    private static final String[] KEYWORD_TABLE = new String[128];
+
+    static {
+        for (String keyword : new String[]{
+                "assert",
+                "break",
+                "case",
+                "catch",
+                "class",
+                "const",
+                "continue",
+                "default",
+                "do",
+                "else",
+                "enum",
+                "extends",
+                "false",
+                "final",
+                "finally",
+                "for",
+                "if",
+                "in",
+                "is",
+                "new",
+                "null",
+                "rethrow",
+                "return",
+                "super",
+                "switch",
+                "this",
+                "throw",
+                "true",
+                "try",
+                "var",
+                "void",
+                "while",
+                "with"
+        }) {
+            final int slot = keywordSlot(keyword);
+            if (KEYWORD_TABLE[slot] != null) throw new AssertionError("Keyword slot collision: " + keyword);
+            KEYWORD_TABLE[slot] = keyword;
+        }
+    }
+
     /**
      * You can not create {@link PubspecValueValidator}.
      */
     private PubspecValueValidator() {}
 
+    /**
+     * A perfect hash of keywords which every keyword has different slot in {@link #KEYWORD_TABLE}.
+     *
+     * @param name A non-empty name.
+     *
+     * @return Slot of {@link #KEYWORD_TABLE}.
+     */
+    private static int keywordSlot(@Nonnull String name) {
+        return (name.charAt(0) * 3 + name.charAt(name.length() - 1) * 58 + name.length()) & (KEYWORD_TABLE.length - 1);
+    }
+
     /**
      * Check the package naming is not reserve keyword using lowercase with number and underscore only.
      *
@@ -29,43 +90,40 @@ public final class PubspecValueValidator {
      * @see <a href="https://dart.dev/guides/language/language-tour#keywords">Dart's keywords table</a>
      */
     public static boolean packageNaming(@Nonnull String packageName) {
-        return Pattern.matches("^[a-z0-9_]+$", packageName)
-                && Stream.of( // Reserve keyword from https://dart.dev/guides/language/language-tour#keywords
-                        "assert",
-                        "break",
-                        "case",
-                        "catch",
-                        "class",
-                        "const",
-                        "continue",
-                        "default",
-                        "do",
-                        "else",
-                        "enum",
-                        "extends",
-                        "false",
-                        "final",
-                        "finally",
-                        "for",
-                        "if",
-                        "in",
-                        "is",
-                        "new",
-                        "null",
-                        "rethrow",
-                        "return",
-                        "super",
-                        "switch",
-                        "this",
-                        "throw",
-                        "true",
-                        "try",
-                        "var",
-                        "void",
-                        "while",
-                        "with"
-                )
-                .noneMatch(packageName::equals);
+        final int length = packageName.length();
+
+        if (length == 0) return false;
+
+        for (int i = 0; i < length; i++) {
+            final char c = packageName.charAt(i);
+
+            if (!((c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') || c == '_')) return false;
+        }
+
+        return !packageName.equals(KEYWORD_TABLE[keywordSlot(packageName)]);
+    }
+
+    /**
+     * Validate {@link #packageNaming(String) package naming} of all names.
+     *
+     * @param packageNames A {@link Collection} of package names.
+     *
+     * @return Names which not follow the naming in iteration order, or an empty {@link List} if all names follow.
+     *
+     * @since 2.1.0
+     */
+    @Nonnull
+    public static List<String> validateAll(@Nonnull Collection<String> packageNames) {
+        List<String> invalid = null;
+
+        for (String name : packageNames) {
+            if (packageNaming(name)) continue;
+
+            if (invalid == null) invalid = new ArrayList<>();
+            invalid.add(name);
+        }
+
+        return invalid == null ? List.of() : Collections.unmodifiableList(invalid);
     }
 
     /**
@@ -76,7 +134,8 @@ public final class PubspecValueValidator {
      * @return <code>true</code> is using <code>HTTP</code> or <code>HTTPS</code>.
      */
     public static boolean httpProtocolOnly(@Nonnull URL url) {
-        return Pattern.matches("^https?$", url.getProtocol());
+        final String protocol = url.getProtocol();
+        return protocol.equals("https") || protocol.equals("http");
     }
 
     /**
@@ -118,5 +177,21 @@ public final class PubspecValueValidator {
             if (!packageNaming(packageName))
                 throw new IllegalPubPackageNamingException(packageName, assertFailedMessage);
         }
+
+        /**
+         * Asserting package naming of all names.
+         *
+         * @param packageNames A {@link Collection} of package names.
+         *
+         * @throws IllegalPubPackageNamingException With the first name which
+         *                                          {@link PubspecValueValidator#packageNaming(String)} return
+         *                                          <code>false</code>.
+         *
+         * @since 2.1.0
+         */
+        public static void assertAllPackageNaming(@Nonnull Collection<String> packageNames)
+                throws IllegalPubPackageNamingException {
+            for (String name : packageNames) assertPackageNaming(name);
+        }
     }
 }
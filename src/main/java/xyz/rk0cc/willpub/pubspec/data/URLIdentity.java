@@ -0,0 +1,113 @@
+package xyz.rk0cc.willpub.pubspec.data;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.Locale;
+
+/**
+ * Compare {@link URL} by its canonical {@link URI} form.
+ * <br/>
+ * {@link URL#equals(Object)} and {@link URL#hashCode()} resolve the host name which may block when the network is
+ * unavailable. Every {@link URL} stored in {@link Pubspec} should be compared with this class instead, which never
+ * performs name resolution.
+ * <br/>
+ * The canonical form lowers case of scheme and host, removes default port and normalizes the path by
+ * {@link URI#normalize()}, which is similar to {@link URL#equals(Object)} but never resolves host name. Therefore,
+ * <code>HTTPS://Pub.Dev:443/</code> is the same with <code>https://pub.dev/</code>.
+ *
+ * @since 2.1.0
+ */
+public final class URLIdentity {
+    /**
+     * Computed {@link URI} of the same {@link URL} instance. Weak keys are compared by identity, so that it never
+     * calls {@link URL#equals(Object)} or {@link URL#hashCode()}.
+     */
+    private static final Cache<URL, URI> CANONICAL_CACHE = CacheBuilder.newBuilder().weakKeys().build();
+
+    private URLIdentity() {}
+
+    /**
+     * Convert {@link URL} to canonical {@link URI} for comparing.
+     *
+     * @param url A {@link URL} to be converted.
+     *
+     * @return Canonical {@link URI} of <code>url</code>.
+     */
+    @Nonnull
+    public static URI canonicalURI(@Nonnull URL url) {
+        URI canonical = CANONICAL_CACHE.getIfPresent(url);
+
+        if (canonical == null) {
+            canonical = computeCanonicalURI(url);
+            CANONICAL_CACHE.put(url, canonical);
+        }
+
+        return canonical;
+    }
+
+    @Nonnull
+    private static URI computeCanonicalURI(@Nonnull URL url) {
+        URI uri;
+
+        try {
+            uri = url.toURI();
+        } catch (URISyntaxException e) {
+            // Quote illegal characters which accepted by URL.
+            try {
+                uri = new URI(
+                        url.getProtocol(),
+                        url.getUserInfo(),
+                        url.getHost(),
+                        url.getPort(),
+                        url.getPath(),
+                        url.getQuery(),
+                        url.getRef()
+                );
+            } catch (URISyntaxException ue) {
+                throw new IllegalArgumentException("Unable to convert " + url.toExternalForm() + " to URI", ue);
+            }
+        }
+
+        if (uri.isOpaque() || uri.getRawAuthority() == null) return uri.normalize();
+
+        final StringBuilder canonical = new StringBuilder(url.toExternalForm().length())
+                .append(uri.getScheme().toLowerCase(Locale.ROOT))
+                .append("://");
+
+        if (uri.getRawUserInfo() != null) canonical.append(uri.getRawUserInfo()).append('@');
+
+        if (uri.getHost() == null) canonical.append(uri.getRawAuthority());
+        else {
+            canonical.append(uri.getHost().toLowerCase(Locale.ROOT));
+            if (uri.getPort() != -1 && uri.getPort() != url.getDefaultPort()) canonical.append(':').append(uri.getPort());
+        }
+
+        if (uri.getRawPath() != null) canonical.append(uri.getRawPath());
+        if (uri.getRawQuery() != null) canonical.append('?').append(uri.getRawQuery());
+        if (uri.getRawFragment() != null) canonical.append('#').append(uri.getRawFragment());
+
+        return URI.create(canonical.toString()).normalize();
+    }
+
+    /**
+     * Determine both {@link URL} are referring the same location without resolving host name.
+     *
+     * @param a First {@link URL}.
+     * @param b Second {@link URL}.
+     *
+     * @return <code>true</code> if both are <code>null</code> or have the same {@link #canonicalURI(URL)}.
+     */
+    public static boolean isSame(@Nullable URL a, @Nullable URL b) {
+        if (a == b) return true;
+        else if (a == null || b == null) return false;
+        else if (a.toExternalForm().equals(b.toExternalForm())) return true;
+
+        return canonicalURI(a).equals(canonicalURI(b));
+    }
+}
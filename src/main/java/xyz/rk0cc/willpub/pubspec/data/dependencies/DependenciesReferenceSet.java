@@ -4,9 +4,11 @@ import com.google.common.base.Joiner;
 import xyz.rk0cc.willpub.exceptions.pubspec.IllegalPubPackageNamingException;
 import xyz.rk0cc.willpub.pubspec.data.dependencies.type.DependencyReference;
 import xyz.rk0cc.willpub.pubspec.data.PubspecValueValidator;
+import xyz.rk0cc.willpub.pubspec.data.persistent.PersistentOrderedMap;
 
 import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.io.Serializable;
 import java.lang.reflect.Modifier;
 import java.util.*;
@@ -17,32 +19,35 @@ import java.util.stream.StreamSupport;
 /**
  * Contains multiple {@link DependencyReference} as a {@link Set}.
  * <br/>
- * It embedded {@link LinkedHashMap} to allows more convenience way to get {@link DependencyReference} which {@link Set}
- * can not.
+ * It embedded {@link PersistentOrderedMap} to allows more convenience way to get {@link DependencyReference} which
+ * {@link Set} can not. Since {@link PersistentOrderedMap} is immutable, copying a set only shares the same map, and
+ * each modification after copied only allocates <code>O(log n)</code> nodes instead of copying entire set.
  *
  * @since 1.0.0
  */
 public sealed abstract class DependenciesReferenceSet implements Set<DependencyReference>, Serializable, Cloneable
         permits ImportedReferenceSet, OverrideReferenceSet {
-    private final LinkedHashMap<String, DependencyReference> references;
+    private PersistentOrderedMap<String, DependencyReference> references;
     private final boolean unmodifiable;
 
     /**
      * Create new empty set.
      */
     DependenciesReferenceSet() {
-        this.references = new LinkedHashMap<>();
+        this.references = PersistentOrderedMap.empty();
         this.unmodifiable = false;
     }
 
     /**
      * Create new set with existed reference and allows modification or not.
+     * <br/>
+     * It costs constant time since both sets share the same {@link PersistentOrderedMap}.
      *
      * @param references Original references.
      * @param unmodifiable Forbid any modification in this object.
      */
     DependenciesReferenceSet(@Nonnull DependenciesReferenceSet references, boolean unmodifiable) {
-        this.references = new LinkedHashMap<>(references.references);
+        this.references = references.references;
         this.unmodifiable = unmodifiable;
     }
 
@@ -93,38 +98,53 @@ public sealed abstract class DependenciesReferenceSet implements Set<DependencyR
 
     /**
      * {@inheritDoc}
+     * <br/>
+     * Both {@link String} of package name and {@link DependencyReference} are resolved by a single lookup of the name.
      */
-    @SuppressWarnings("SuspiciousMethodCalls")
     @Override
     public final boolean contains(@Nonnull Object o) {
-        return o instanceof String s ? references.containsKey(s) : references.containsValue(o);
+        if (o instanceof String s) return references.containsKey(s);
+        else if (o instanceof DependencyReference dr) return dr.equals(references.get(dr.name()));
+
+        return false;
     }
 
     /**
      * {@inheritDoc}
+     * <br/>
+     * The iterator iterates the state of this set when it created, which never throws
+     * {@link ConcurrentModificationException} and it does not copy any {@link DependencyReference}. Any modification
+     * applied during iteration, including {@link Iterator#remove()}, will be reflected in this set but not in the
+     * iterator.
+     *
+     * @since 2.1.0 It iterates without copying.
      */
     @Nonnull
     @Override
     public final Iterator<DependencyReference> iterator() {
-        final DependenciesReferenceSet cIDR = clone();
+        final Iterator<DependencyReference> valuesIterator = references.valueIterator();
+
         return new Iterator<>() {
-            private int handleIdx = 0;
+            private DependencyReference lastReturned;
 
             @Override
             public boolean hasNext() {
-                return handleIdx < cIDR.size();
+                return valuesIterator.hasNext();
             }
 
             @Override
             public DependencyReference next() {
-                return cIDR.references.values().toArray(new DependencyReference[]{})[handleIdx++];
+                return lastReturned = valuesIterator.next();
             }
 
             @Override
             public void remove() {
-                String[] kSet = references.keySet().toArray(new String[]{});
-                assert kSet.length == size();
-                references.remove(kSet[handleIdx]);
+                assertModifiable();
+
+                if (lastReturned == null) throw new IllegalStateException();
+
+                references = references.remove(lastReturned.name());
+                lastReturned = null;
             }
         };
     }
@@ -135,17 +155,29 @@ public sealed abstract class DependenciesReferenceSet implements Set<DependencyR
     @Nonnull
     @Override
     public final Object[] toArray() {
-        return toNativeSet().toArray();
+        final Object[] array = new Object[references.size()];
+        final Iterator<DependencyReference> valuesIterator = references.valueIterator();
+
+        for (int i = 0; i < array.length; i++) array[i] = valuesIterator.next();
+
+        return array;
     }
 
     /**
      * {@inheritDoc}
      */
-    @SuppressWarnings("SuspiciousToArrayCall")
+    @SuppressWarnings("unchecked")
     @Nonnull
     @Override
     public final <T> T[] toArray(@Nonnull T[] a) {
-        return toNativeSet().toArray(a);
+        final Object[] array = toArray();
+
+        if (a.length < array.length) return (T[]) Arrays.copyOf(array, array.length, a.getClass());
+
+        System.arraycopy(array, 0, a, 0, array.length);
+        if (a.length > array.length) a[array.length] = null;
+
+        return a;
     }
 
     /**
@@ -158,19 +190,18 @@ public sealed abstract class DependenciesReferenceSet implements Set<DependencyR
     abstract boolean isAllowToAdd(@Nonnull DependencyReference dependencyReference);
 
     /**
-     * Mock {@link #add(DependencyReference)} operation to determine the reference can be appended.
+     * Determine all {@link DependencyReference} in the {@link Collection} are {@link #isAllowToAdd(DependencyReference)
+     * allowed to add}.
      *
-     * @param dependencyReference {@link DependencyReference} which pending to apply.
+     * @param c Pending {@link DependencyReference} to apply.
      *
-     * @return <code>true</code> if allows.
+     * @return <code>true</code> if all allowed.
      */
-    private boolean mockAddPassed(@Nonnull DependencyReference dependencyReference) {
-        if (!isAllowToAdd(dependencyReference)) return false;
-
-        HashMap<String, DependencyReference> dummy = new HashMap<>();
-        dummy.put(dependencyReference.name(), dependencyReference);
-
-        return dummy.containsKey(dependencyReference.name());
+    private boolean isAllowToAddAll(@Nonnull Collection<? extends DependencyReference> c) {
+        for (DependencyReference dr : c) {
+            if (!isAllowToAdd(dr)) return false;
+        }
+        return true;
     }
 
     /**
@@ -187,11 +218,10 @@ public sealed abstract class DependenciesReferenceSet implements Set<DependencyR
     public final boolean add(@Nonnull DependencyReference dependencyReference) {
         assertModifiable();
 
-        if (references.containsKey(dependencyReference.name())) return false;
-
-        if (mockAddPassed(dependencyReference)) references.putIfAbsent(dependencyReference.name(), dependencyReference);
+        if (!isAllowToAdd(dependencyReference) || references.containsKey(dependencyReference.name())) return false;
 
-        return references.containsKey(dependencyReference.name());
+        references = references.put(dependencyReference.name(), dependencyReference);
+        return true;
     }
 
     /**
@@ -200,16 +230,17 @@ public sealed abstract class DependenciesReferenceSet implements Set<DependencyR
      * @param dependencyReference A {@link DependencyReference} which going to apply or modify is
      *                            {@link DependencyReference#name() dependencies name} existed already.
      *
-     * @return <code>true</code> if set.
+     * @return <code>true</code> if set, or <code>false</code> if this set does not allow to apply this reference.
      *
      * @throws UnsupportedOperationException If {@link #isUnmodifiable()} returns <code>true</code>.
      */
     public final boolean set(@Nonnull DependencyReference dependencyReference) {
         assertModifiable();
 
-        if (mockAddPassed(dependencyReference)) references.put(dependencyReference.name(), dependencyReference);
+        if (!isAllowToAdd(dependencyReference)) return false;
 
-        return references.containsKey(dependencyReference.name());
+        references = references.put(dependencyReference.name(), dependencyReference);
+        return true;
     }
 
     /**
@@ -227,100 +258,243 @@ public sealed abstract class DependenciesReferenceSet implements Set<DependencyR
     public final boolean remove(@Nonnull Object o) {
         assertModifiable();
 
-        if (o instanceof DependencyReference drt) return references.remove(drt.name(), drt);
-        else if (o instanceof String s) return references.remove(s) != null;
+        final PersistentOrderedMap<String, DependencyReference> origin = references;
+
+        if (o instanceof DependencyReference drt) {
+            if (drt.equals(origin.get(drt.name()))) references = origin.remove(drt.name());
+        } else if (o instanceof String s) references = origin.remove(s);
         else throw new ClassCastException("'" + o.getClass().getName() + "' can not remove reference in this set");
+
+        return origin != references;
     }
 
     /**
      * {@inheritDoc}
+     * <br/>
+     * The {@link Collection} can be mixed with {@link String} of package name and {@link DependencyReference}, which
+     * follows the same rule of {@link #contains(Object)}.
      */
     @Override
     public final boolean containsAll(@Nonnull Collection<?> c) {
-        return c.stream().allMatch(ct -> {
-            final Stream<DependencyReference> streamType = toNativeSet().stream();
-
-            if (ct instanceof String s)
-                return streamType.allMatch(drts -> drts.name().equals(s));
-            else
-                return streamType.allMatch(ct::equals);
-        });
+        for (Object o : c) {
+            if (!contains(o)) return false;
+        }
+        return true;
     }
 
     /**
      * {@inheritDoc}
+     * <br/>
+     * All {@link DependencyReference} will be applied only if every of them are allowed to add in this set. Any
+     * {@link DependencyReference#name() name} which existed already will be skipped.
+     *
+     * @return <code>true</code> if this set changed as a result of the call.
+     *
+     * @throws UnsupportedOperationException If {@link #isUnmodifiable()} returns <code>true</code>.
      */
     @Override
     public final boolean addAll(@Nonnull Collection<? extends DependencyReference> c) {
         assertModifiable();
 
-        if (c.stream().allMatch(this::isAllowToAdd)) {
-            c.forEach(this::add);
-            return true;
+        if (!isAllowToAddAll(c)) return false;
+
+        final PersistentOrderedMap<String, DependencyReference> origin = references;
+        PersistentOrderedMap<String, DependencyReference> applied = origin;
+
+        for (DependencyReference dr : c) {
+            if (!applied.containsKey(dr.name())) applied = applied.put(dr.name(), dr);
         }
-        return false;
+
+        references = applied;
+        return origin != applied;
     }
 
     /**
      * Set all the elements and overwrite record if existed.
+     * <br/>
+     * All {@link DependencyReference} will be applied only if every of them are allowed to add in this set.
      *
      * @param c Collection that pending to overwrite if existed.
      *
      * @return <code>true</code> if this collection changed as a result of the call.
+     *
+     * @throws UnsupportedOperationException If {@link #isUnmodifiable()} returns <code>true</code>.
      */
     public final boolean setAll(@Nonnull Collection<? extends DependencyReference> c) {
         assertModifiable();
 
-        if (c.stream().allMatch(this::isAllowToAdd)) {
-            c.forEach(this::set);
-            return true;
+        if (!isAllowToAddAll(c)) return false;
+
+        boolean changed = false;
+        PersistentOrderedMap<String, DependencyReference> applied = references;
+
+        for (DependencyReference dr : c) {
+            changed |= !dr.equals(applied.get(dr.name()));
+            applied = applied.put(dr.name(), dr);
         }
-        return false;
+
+        references = applied;
+        return changed;
     }
 
     /**
      * {@inheritDoc}
      * <br/>
      * However, to reduce complication of retaining items, the {@link Collection} items must be {@link String} only.
+     * Use {@link #retainAllReferences(Collection)} for retaining by {@link DependencyReference}.
      */
     @Override
     public final boolean retainAll(@Nonnull Collection<?> c) {
         assertModifiable();
 
-        if (!allStringCollection(c))
-            throw new ClassCastException("Retain all only accept String as reference");
-        return removeIf(dr -> c.stream().noneMatch(rmN -> rmN.equals(dr.name())));
+        final Set<?> names = nameLookup(c, "Retain all only accept String as reference");
+        return removeWhere(dr -> !names.contains(dr.name()));
     }
 
     /**
      * {@inheritDoc}
      * <br/>
      * However, to reduce complication of retaining items, the {@link Collection} items must be {@link String} only.
+     * Use {@link #removeAllReferences(Collection)} for removing by {@link DependencyReference}.
      */
     @Override
     public final boolean removeAll(@Nonnull Collection<?> c) {
         assertModifiable();
 
-        if (!allStringCollection(c))
-            throw new ClassCastException("Remove all only accept String as reference");
-        return removeIf(dr -> c.stream().anyMatch(rmN -> rmN.equals(dr.name())));
+        final Set<?> names = nameLookup(c, "Remove all only accept String as reference");
+
+        if (names.size() < references.size()) {
+            final PersistentOrderedMap<String, DependencyReference> origin = references;
+            PersistentOrderedMap<String, DependencyReference> applied = origin;
+
+            for (Object n : names) applied = applied.remove((String) n);
+
+            references = applied;
+            return origin != applied;
+        }
+
+        return removeWhere(dr -> names.contains(dr.name()));
+    }
+
+    /**
+     * Retain {@link DependencyReference} which {@link Object#equals(Object) equals} to one of the element in the
+     * {@link Collection}.
+     *
+     * @param c A {@link Collection} of {@link DependencyReference} to be retained.
+     *
+     * @return <code>true</code> if this set changed as a result of the call.
+     *
+     * @throws UnsupportedOperationException If {@link #isUnmodifiable()} returns <code>true</code>.
+     *
+     * @since 2.1.0
+     */
+    public final boolean retainAllReferences(@Nonnull Collection<? extends DependencyReference> c) {
+        assertModifiable();
+
+        final HashMap<String, DependencyReference> retained = new HashMap<>(Math.max(16, c.size() * 4 / 3 + 1));
+        for (DependencyReference dr : c) retained.put(dr.name(), dr);
+
+        return removeWhere(dr -> !dr.equals(retained.get(dr.name())));
+    }
+
+    /**
+     * Remove {@link DependencyReference} which {@link Object#equals(Object) equals} to one of the element in the
+     * {@link Collection}.
+     * <br/>
+     * Unlike {@link #removeAll(Collection)}, the {@link DependencyReference} will be kept if it has the same name but
+     * difference content.
+     *
+     * @param c A {@link Collection} of {@link DependencyReference} to be removed.
+     *
+     * @return <code>true</code> if this set changed as a result of the call.
+     *
+     * @throws UnsupportedOperationException If {@link #isUnmodifiable()} returns <code>true</code>.
+     *
+     * @since 2.1.0
+     */
+    public final boolean removeAllReferences(@Nonnull Collection<? extends DependencyReference> c) {
+        assertModifiable();
+
+        final PersistentOrderedMap<String, DependencyReference> origin = references;
+        PersistentOrderedMap<String, DependencyReference> applied = origin;
+
+        for (DependencyReference dr : c) {
+            if (dr.equals(applied.get(dr.name()))) applied = applied.remove(dr.name());
+        }
+
+        references = applied;
+        return origin != applied;
     }
 
     /**
      * {@inheritDoc}
      */
     @Override
-    public final boolean removeIf(Predicate<? super DependencyReference> filter) {
+    public final boolean removeIf(@Nonnull Predicate<? super DependencyReference> filter) {
         assertModifiable();
 
-        boolean removed = false;
-        for (DependencyReference dr : this) {
-            if (filter.test(dr)) {
-                remove(dr);
-                removed = true;
-            }
+        return removeWhere(filter);
+    }
+
+    /**
+     * Remove all {@link DependencyReference} which matched the <code>filter</code> from the current state of this set.
+     *
+     * @param filter Condition of removing {@link DependencyReference}.
+     *
+     * @return <code>true</code> if any {@link DependencyReference} removed.
+     */
+    private boolean removeWhere(@Nonnull Predicate<? super DependencyReference> filter) {
+        final PersistentOrderedMap<String, DependencyReference> origin = references;
+        PersistentOrderedMap<String, DependencyReference> applied = origin;
+
+        for (Iterator<DependencyReference> it = origin.valueIterator(); it.hasNext();) {
+            final DependencyReference dr = it.next();
+            if (filter.test(dr)) applied = applied.remove(dr.name());
+        }
+
+        references = applied;
+        return origin != applied;
+    }
+
+    /**
+     * Replace every {@link DependencyReference} with the result of <code>operator</code> in a single pass and keeps
+     * their order.
+     * <br/>
+     * Returning the same instance from <code>operator</code> keeps the {@link DependencyReference} unchanged. If any
+     * replacement is invalid, nothing will be replaced.
+     *
+     * @param operator A function which returns replacement of given {@link DependencyReference} with the same
+     *                 {@link DependencyReference#name() name}.
+     *
+     * @return Number of replaced {@link DependencyReference}.
+     *
+     * @throws UnsupportedOperationException If {@link #isUnmodifiable()} returns <code>true</code>.
+     * @throws IllegalArgumentException If <code>operator</code> changed the name or returned a
+     *                                  {@link DependencyReference} which is not allowed in this set.
+     *
+     * @since 2.1.0
+     */
+    public final int replaceAll(@Nonnull UnaryOperator<DependencyReference> operator) {
+        assertModifiable();
+
+        PersistentOrderedMap<String, DependencyReference> applied = references;
+        int replaced = 0;
+
+        for (Iterator<DependencyReference> it = references.valueIterator(); it.hasNext();) {
+            final DependencyReference dr = it.next(), replacement = Objects.requireNonNull(operator.apply(dr));
+
+            if (replacement == dr) continue;
+            else if (!replacement.name().equals(dr.name()))
+                throw new IllegalArgumentException("Replacement of " + dr.name() + " has a different name.");
+            else if (!isAllowToAdd(replacement))
+                throw new IllegalArgumentException("Replacement of " + dr.name() + " is not allowed in this set.");
+
+            applied = applied.put(replacement.name(), replacement);
+            replaced++;
         }
-        return removed;
+
+        references = applied;
+        return replaced;
     }
 
     /**
@@ -335,8 +509,27 @@ public sealed abstract class DependenciesReferenceSet implements Set<DependencyR
      */
     @Nonnull
     public final DependencyReference get(@Nonnull String dependencyName) throws IllegalPubPackageNamingException {
+        final DependencyReference found = references.get(dependencyName);
+
+        // Names stored in this set are validated already.
+        if (found != null) return found;
+
         PubspecValueValidator.ValueAssertion.assertPackageNaming(dependencyName);
-        return Objects.requireNonNull(references.get(dependencyName));
+        throw new NullPointerException();
+    }
+
+    /**
+     * Find {@link DependencyReference} with given name without validating the name.
+     *
+     * @param dependencyName Dependency's name.
+     *
+     * @return Corresponded {@link DependencyReference}, or <code>null</code> if not found.
+     *
+     * @since 2.1.0
+     */
+    @Nullable
+    public final DependencyReference find(@Nonnull String dependencyName) {
+        return references.get(dependencyName);
     }
 
     /**
@@ -382,16 +575,26 @@ public sealed abstract class DependenciesReferenceSet implements Set<DependencyR
     public final void clear() {
         assertModifiable();
 
-        references.clear();
+        references = PersistentOrderedMap.empty();
     }
 
     /**
      * {@inheritDoc}
+     * <br/>
+     * The returned {@link Spliterator} reports {@link Spliterator#SIZED}, {@link Spliterator#DISTINCT},
+     * {@link Spliterator#ORDERED} and {@link Spliterator#NONNULL}, and it can be split for {@link #parallelStream()}.
+     * It iterates the state of this set when it created as same as {@link #iterator()}.
+     *
+     * @since 2.1.0 It reports known size and characteristics.
      */
     @Override
     @Nonnull
     public final Spliterator<DependencyReference> spliterator() {
-        return Spliterators.spliteratorUnknownSize(iterator(), 0);
+        return Spliterators.spliterator(
+                references.valueIterator(),
+                references.size(),
+                Spliterator.DISTINCT | Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.IMMUTABLE
+        );
     }
 
     /**
@@ -417,20 +620,92 @@ public sealed abstract class DependenciesReferenceSet implements Set<DependencyR
      */
     @Override
     public final void forEach(@Nonnull Consumer<? super DependencyReference> action) {
-        for (DependencyReference dependencyReference : this) {
-            action.accept(dependencyReference);
-        }
+        references.valueIterator().forEachRemaining(action);
     }
 
     /**
      * Convert it to a native {@link Set} which missing {@link #set(DependencyReference)} and {@link #get(String)}
      * features.
+     * <br/>
+     * It copies all {@link DependencyReference} into a new {@link Set}. If modification is not required, uses
+     * {@link #asUnmodifiableSet()} instead.
      *
      * @return {@link Set} with limited feature.
      */
     @Nonnull
     public final Set<DependencyReference> toNativeSet() {
-        return new LinkedHashSet<>(references.values());
+        final LinkedHashSet<DependencyReference> nativeSet = new LinkedHashSet<>(references.size() * 4 / 3 + 1);
+        forEach(nativeSet::add);
+
+        return nativeSet;
+    }
+
+    /**
+     * Get an unmodifiable {@link Set} view of this set without copying any {@link DependencyReference}.
+     * <br/>
+     * The view reflects any changes applied in this set later.
+     *
+     * @return An unmodifiable view of this set.
+     *
+     * @since 2.1.0
+     */
+    @Nonnull
+    public final Set<DependencyReference> asUnmodifiableSet() {
+        return new AbstractSet<>() {
+            @Nonnull
+            @Override
+            public Iterator<DependencyReference> iterator() {
+                return references.valueIterator();
+            }
+
+            @Nonnegative
+            @Override
+            public int size() {
+                return references.size();
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                return o instanceof DependencyReference && DependenciesReferenceSet.this.contains(o);
+            }
+
+            @Override
+            public Spliterator<DependencyReference> spliterator() {
+                return DependenciesReferenceSet.this.spliterator();
+            }
+        };
+    }
+
+    /**
+     * Get an unmodifiable {@link Set} view of all {@link DependencyReference#name() dependencies' name} in this set
+     * without copying.
+     * <br/>
+     * The view reflects any changes applied in this set later.
+     *
+     * @return An unmodifiable view of dependencies' name.
+     *
+     * @since 2.1.0
+     */
+    @Nonnull
+    public final Set<String> dependencyNames() {
+        return new AbstractSet<>() {
+            @Nonnull
+            @Override
+            public Iterator<String> iterator() {
+                return references.keyIterator();
+            }
+
+            @Nonnegative
+            @Override
+            public int size() {
+                return references.size();
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                return o instanceof String s && references.containsKey(s);
+            }
+        };
     }
 
     /**
@@ -444,11 +719,22 @@ public sealed abstract class DependenciesReferenceSet implements Set<DependencyR
     @Nonnull
     @Override
     public final String toString() {
-        return '[' + Joiner.on(",\n").join(references.values()) + ']';
+        return '[' + Joiner.on(",\n").join(references.valueIterator()) + ']';
     }
 
-    @SuppressWarnings("BooleanMethodIsAlwaysInverted")
-    private static boolean allStringCollection(@Nonnull Collection<?> c) {
-        return c.stream().allMatch(ci -> ci instanceof String);
+    /**
+     * Verify all items in {@link Collection} are {@link String} and return a {@link Set} for hash-based lookup.
+     *
+     * @param c A {@link Collection} of package name.
+     * @param message Message of {@link ClassCastException} if non-{@link String} item found.
+     *
+     * @return <code>c</code> itself if it is a {@link Set} already, or a {@link HashSet} copied from <code>c</code>.
+     */
+    @Nonnull
+    private static Set<?> nameLookup(@Nonnull Collection<?> c, @Nonnull String message) {
+        for (Object ci : c) {
+            if (!(ci instanceof String)) throw new ClassCastException(message);
+        }
+        return c instanceof Set<?> cs ? cs : new HashSet<>(c);
     }
 }
@@ -0,0 +1,308 @@
+package xyz.rk0cc.willpub.pubspec.data.dependencies;
+
+import xyz.rk0cc.willpub.exceptions.pubspec.IllegalPubPackageNamingException;
+import xyz.rk0cc.willpub.pubspec.data.Pubspec;
+import xyz.rk0cc.willpub.pubspec.data.URLIdentity;
+import xyz.rk0cc.willpub.pubspec.data.dependencies.type.DependencyReference;
+import xyz.rk0cc.willpub.pubspec.data.dependencies.type.HostedReference;
+import xyz.rk0cc.willpub.pubspec.data.dependencies.type.ThirdPartyHostedReference;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URL;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A registry of pub repositories which resolves default hosted URL once and rewrites hosted references to mirrors.
+ * <br/>
+ * Repository {@link URL} passing through this registry are deduplicated by {@link URLIdentity#canonicalURI(URL)}, so
+ * that references rewritten by the same registry share the same {@link URL} instance.
+ * <br/>
+ * It is safe to use in multiple threads.
+ *
+ * @since 2.1.0
+ */
+public final class HostedRepositoryRegistry {
+    /**
+     * Default pub repository if <code>PUB_HOSTED_URL</code> is not applied.
+     */
+    public static final String PUB_DEV = "https://pub.dev";
+
+    private static volatile HostedRepositoryRegistry defaultRegistry;
+
+    private final URL defaultHostedURL;
+    private final URI defaultHostedURI;
+    private final Map<URI, URL> interned = new ConcurrentHashMap<>();
+    private final Map<URI, URL> mirrors = new ConcurrentHashMap<>();
+    private final LongAdder rewrites = new LongAdder(), conversions = new LongAdder();
+
+    /**
+     * Create a registry with given default hosted repository.
+     *
+     * @param defaultHostedURL The {@link URL} of repository which {@link HostedReference} downloaded from.
+     */
+    public HostedRepositoryRegistry(@Nonnull URL defaultHostedURL) {
+        this.defaultHostedURI = URLIdentity.canonicalURI(defaultHostedURL);
+        this.defaultHostedURL = intern(defaultHostedURI, defaultHostedURL);
+    }
+
+    /**
+     * Create a registry which uses <code>PUB_HOSTED_URL</code> from environment variables, or {@link #PUB_DEV} if it is
+     * not applied.
+     *
+     * @return A new {@link HostedRepositoryRegistry}.
+     *
+     * @throws RuntimeException If <code>PUB_HOSTED_URL</code> is applied but not a URL.
+     */
+    @Nonnull
+    public static HostedRepositoryRegistry fromEnvironment() {
+        final String phu = System.getenv("PUB_HOSTED_URL");
+
+        try {
+            return new HostedRepositoryRegistry(new URL(phu == null ? PUB_DEV : phu));
+        } catch (MalformedURLException e) {
+            throw new RuntimeException("PUB_HOSTED_URL is applied but not a URL", e);
+        }
+    }
+
+    /**
+     * A shared {@link HostedRepositoryRegistry} which is created by {@link #fromEnvironment()} in the first call.
+     * <br/>
+     * It uses by {@link HostedReference#convertItAsThirdParty()}.
+     *
+     * @return Shared {@link HostedRepositoryRegistry}.
+     *
+     * @throws RuntimeException If <code>PUB_HOSTED_URL</code> is applied but not a URL.
+     */
+    @Nonnull
+    public static HostedRepositoryRegistry defaultRegistry() {
+        HostedRepositoryRegistry registry = defaultRegistry;
+
+        if (registry == null) {
+            synchronized (HostedRepositoryRegistry.class) {
+                registry = defaultRegistry;
+                if (registry == null) defaultRegistry = registry = fromEnvironment();
+            }
+        }
+
+        return registry;
+    }
+
+    /**
+     * Repository which {@link HostedReference} downloaded from.
+     *
+     * @return Default hosted {@link URL}.
+     */
+    @Nonnull
+    public URL defaultHostedURL() {
+        return defaultHostedURL;
+    }
+
+    /**
+     * Get a shared {@link URL} instance which refers the same location of given <code>url</code>.
+     *
+     * @param url A repository {@link URL}.
+     *
+     * @return The first {@link URL} with the same {@link URLIdentity#canonicalURI(URL)} passed into this registry.
+     */
+    @Nonnull
+    public URL intern(@Nonnull URL url) {
+        return intern(URLIdentity.canonicalURI(url), url);
+    }
+
+    @Nonnull
+    private URL intern(@Nonnull URI canonical, @Nonnull URL url) {
+        final URL existed = interned.putIfAbsent(canonical, url);
+        return existed == null ? url : existed;
+    }
+
+    /**
+     * Redirect all references from <code>origin</code> repository to <code>mirror</code> when
+     * {@link #rewrite(DependencyReference) rewriting}.
+     * <br/>
+     * Mirroring {@link #defaultHostedURL()} will convert {@link HostedReference} to {@link ThirdPartyHostedReference}
+     * when rewriting.
+     *
+     * @param origin Original repository.
+     * @param mirror Mirror repository.
+     *
+     * @return This registry.
+     */
+    @Nonnull
+    public HostedRepositoryRegistry addMirror(@Nonnull URL origin, @Nonnull URL mirror) {
+        final URI originURI = URLIdentity.canonicalURI(origin), mirrorURI = URLIdentity.canonicalURI(mirror);
+
+        if (!originURI.equals(mirrorURI)) mirrors.put(originURI, intern(mirrorURI, mirror));
+        else mirrors.remove(originURI);
+
+        return this;
+    }
+
+    /**
+     * Remove mirror of <code>origin</code> repository.
+     *
+     * @param origin Original repository.
+     *
+     * @return This registry.
+     */
+    @Nonnull
+    public HostedRepositoryRegistry removeMirror(@Nonnull URL origin) {
+        mirrors.remove(URLIdentity.canonicalURI(origin));
+        return this;
+    }
+
+    /**
+     * Find applied mirror of given repository.
+     *
+     * @param origin Original repository.
+     *
+     * @return Mirror repository, or <code>null</code> if no mirror applied.
+     */
+    @Nullable
+    public URL mirrorOf(@Nonnull URL origin) {
+        return mirrors.get(URLIdentity.canonicalURI(origin));
+    }
+
+    /**
+     * Convert {@link HostedReference} to {@link ThirdPartyHostedReference} with {@link #defaultHostedURL()}.
+     *
+     * @param reference A {@link HostedReference}.
+     *
+     * @return A {@link ThirdPartyHostedReference} with the same name and version constraint.
+     */
+    @Nonnull
+    public ThirdPartyHostedReference toThirdParty(@Nonnull HostedReference reference) {
+        conversions.increment();
+        return toThirdParty(reference, defaultHostedURL);
+    }
+
+    @Nonnull
+    private static ThirdPartyHostedReference toThirdParty(@Nonnull HostedReference reference, @Nonnull URL repository) {
+        try {
+            return new ThirdPartyHostedReference(reference.name(), repository, reference.versionConstraint());
+        } catch (IllegalPubPackageNamingException e) {
+            throw new AssertionError("False positive illegal package name caught.", e);
+        }
+    }
+
+    /**
+     * Apply mirror to given {@link DependencyReference}.
+     *
+     * @param reference A {@link DependencyReference} which may be rewritten.
+     *
+     * @return Rewritten {@link DependencyReference}, or the same instance if no mirror applied to it.
+     */
+    @Nonnull
+    public DependencyReference rewrite(@Nonnull DependencyReference reference) {
+        final DependencyReference rewritten = mirrored(reference);
+
+        if (rewritten != reference) rewrites.increment();
+        return rewritten;
+    }
+
+    /**
+     * Apply mirror to given {@link DependencyReference} without counting.
+     *
+     * @param reference A {@link DependencyReference} which may be rewritten.
+     *
+     * @return Rewritten {@link DependencyReference}, or the same instance if no mirror applied to it.
+     */
+    @Nonnull
+    private DependencyReference mirrored(@Nonnull DependencyReference reference) {
+        if (reference instanceof ThirdPartyHostedReference tphr) {
+            final URL mirror = mirrors.get(tphr.repositoryURI());
+            return mirror == null ? reference : tphr.changeRepositoryURL(mirror);
+        } else if (reference instanceof HostedReference hr) {
+            final URL mirror = mirrors.get(defaultHostedURI);
+            return mirror == null ? reference : toThirdParty(hr, mirror);
+        }
+
+        return reference;
+    }
+
+    /**
+     * {@link #rewrite(DependencyReference) Rewrite} all references in the set in a single pass.
+     *
+     * @param references A {@link DependenciesReferenceSet} to be rewritten.
+     *
+     * @return Number of rewritten references.
+     *
+     * @throws UnsupportedOperationException If the set is unmodifiable.
+     */
+    @Nonnegative
+    public int rewriteAll(@Nonnull DependenciesReferenceSet references) {
+        // Count after replaced, since nothing is applied if any replacement is rejected.
+        final int rewritten = references.replaceAll(this::mirrored);
+
+        rewrites.add(rewritten);
+        return rewritten;
+    }
+
+    /**
+     * {@link #rewrite(DependencyReference) Rewrite} all dependencies, dev dependencies and dependency overrides in the
+     * {@link Pubspec}.
+     *
+     * @param pubspec A {@link Pubspec} to be rewritten.
+     *
+     * @return Number of rewritten references.
+     */
+    @Nonnegative
+    public int rewriteAll(@Nonnull Pubspec pubspec) {
+        return rewriteAll(pubspec.dependencies())
+                + rewriteAll(pubspec.devDependencies())
+                + rewriteAll(pubspec.dependencyOverrides());
+    }
+
+    /**
+     * Convert all {@link HostedReference} in the set {@link #toThirdParty(HostedReference) to third party} in a single
+     * pass.
+     *
+     * @param references A {@link DependenciesReferenceSet} to be converted.
+     *
+     * @return Number of converted references.
+     *
+     * @throws UnsupportedOperationException If the set is unmodifiable.
+     */
+    @Nonnegative
+    public int convertAllAsThirdParty(@Nonnull DependenciesReferenceSet references) {
+        final int converted = references.replaceAll(
+                dr -> dr instanceof HostedReference hr ? toThirdParty(hr, defaultHostedURL) : dr
+        );
+
+        conversions.add(converted);
+        return converted;
+    }
+
+    /**
+     * Number of references rewritten to mirror by this registry.
+     *
+     * @return Rewritten count.
+     */
+    @Nonnegative
+    public long rewriteCount() {
+        return rewrites.sum();
+    }
+
+    /**
+     * Number of {@link HostedReference} converted to {@link ThirdPartyHostedReference} by this registry.
+     *
+     * @return Converted count.
+     */
+    @Nonnegative
+    public long conversionCount() {
+        return conversions.sum();
+    }
+
+    /**
+     * Reset {@link #rewriteCount()} and {@link #conversionCount()} to zero.
+     */
+    public void resetCounters() {
+        rewrites.reset();
+        conversions.reset();
+    }
+}
@@ -40,6 +40,7 @@ import java.util.Objects;
 public final class GitReference extends DependencyReference {
     private final GitRepositoryURL repositoryURL;
     private final String path, ref;
+    private transient int hash;
 
     /**
      * Create new Git reference dependency data.
@@ -176,10 +177,15 @@ public final class GitReference extends DependencyReference {
      *
      * @return Hashed {@link #repositoryURL()}, {@link #path()} and {@link #ref()} with origin
      * {@link DependencyReference#hashCode()} added.
+     * It is cached after the first call.
      */
     @Override
     public int hashCode() {
-        return super.hashCode() + Objects.hash(repositoryURL, path, ref);
+        int h = hash;
+
+        if (h == 0) hash = h = super.hashCode() + Objects.hash(repositoryURL, path, ref);
+
+        return h;
     }
 
     /**
@@ -3,10 +3,9 @@ package xyz.rk0cc.willpub.pubspec.data.dependencies.type;
 import xyz.rk0cc.josev.constraint.pub.PubSemVerConstraint;
 import xyz.rk0cc.willpub.exceptions.pubspec.IllegalPubPackageNamingException;
 import xyz.rk0cc.willpub.pubspec.data.Pubspec;
+import xyz.rk0cc.willpub.pubspec.data.dependencies.HostedRepositoryRegistry;
 
 import javax.annotation.Nonnull;
-import java.net.MalformedURLException;
-import java.net.URL;
 import java.util.Objects;
 
 /**
@@ -26,6 +25,7 @@ import java.util.Objects;
 public final class HostedReference extends DependencyReference
         implements VersionConstrainedDependency<HostedReference> {
     private final PubSemVerConstraint versionConstraint;
+    private transient int hash;
 
     /**
      * Create new dependency which grab from pub hosting URL.
@@ -74,24 +74,14 @@ public final class HostedReference extends DependencyReference
     /**
      * Convert it to a {@link ThirdPartyHostedReference} with declared {@link ThirdPartyHostedReference#repositoryURL()}
      * according to <code>PUB_HOSTED_URL</code>.
+     * <br/>
+     * Since 2.1.0, <code>PUB_HOSTED_URL</code> is resolved once by
+     * {@link HostedRepositoryRegistry#defaultRegistry()}.
      *
      * @return A {@link ThirdPartyHostedReference} with declared hosted URL from  <code>PUB_HOSTED_URL</code>.
      */
     public ThirdPartyHostedReference convertItAsThirdParty() {
-        URL pubRepo;
-
-        try {
-            String phu = System.getenv("PUB_HOSTED_URL");
-
-            // It uses pub.dev if environment is not applied
-            pubRepo = new URL(phu == null ? "https://pub.dev" : phu);
-        } catch (MalformedURLException e) {
-            throw new RuntimeException("PUB_HOSTED_URL is applied but not a URL", e);
-        }
-
-        return DependencyReference.modifyHandler(
-                () -> new ThirdPartyHostedReference(name(), pubRepo, versionConstraint)
-        );
+        return HostedRepositoryRegistry.defaultRegistry().toThirdParty(this);
     }
 
     /**
@@ -109,10 +99,15 @@ public final class HostedReference extends DependencyReference
      * {@inheritDoc}
      *
      * @return Hashed {@link #versionConstraint()} with {@link DependencyReference#hashCode()} added.
+     *         It is cached after the first call.
      */
     @Override
     public int hashCode() {
-        return super.hashCode() + Objects.hash(versionConstraint);
+        int h = hash;
+
+        if (h == 0) hash = h = super.hashCode() + Objects.hash(versionConstraint);
+
+        return h;
     }
 
     /**
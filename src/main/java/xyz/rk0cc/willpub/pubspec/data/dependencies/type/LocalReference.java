@@ -18,6 +18,7 @@ import java.util.Objects;
  */
 public final class LocalReference extends DependencyReference {
     private final Path path;
+    private transient int hash;
 
     /**
      * Create new {@link LocalReference} dependency info.
@@ -128,10 +129,15 @@ public final class LocalReference extends DependencyReference {
      * {@inheritDoc}
      *
      * @return Hashed {@link #path()} with {@link DependencyReference#hashCode()} added.
+     *         It is cached after the first call.
      */
     @Override
     public int hashCode() {
-        return super.hashCode() + Objects.hash(path);
+        int h = hash;
+
+        if (h == 0) hash = h = super.hashCode() + Objects.hash(path);
+
+        return h;
     }
 
     /**
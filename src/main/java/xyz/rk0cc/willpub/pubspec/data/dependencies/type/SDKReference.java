@@ -18,6 +18,7 @@ public final class SDKReference extends DependencyReference
         implements VersionConstrainedDependency<SDKReference> {
     private final String sdk;
     private final PubSemVerConstraint versionConstraint;
+    private transient int hash;
 
     /**
      * Create new {@link SDKReference} which come from SDK itself.
@@ -104,10 +105,15 @@ public final class SDKReference extends DependencyReference
      * {@inheritDoc}
      *
      * @return Hashed {@link #sdk()} and {@link #versionConstraint()} with {@link DependencyReference#hashCode()} added.
+     *         It is cached after the first call.
      */
     @Override
     public int hashCode() {
-        return super.hashCode() + Objects.hash(sdk, versionConstraint);
+        int h = hash;
+
+        if (h == 0) hash = h = super.hashCode() + Objects.hash(sdk, versionConstraint);
+
+        return h;
     }
 
     /**
@@ -2,14 +2,19 @@ package xyz.rk0cc.willpub.pubspec.data.dependencies.type;
 
 import xyz.rk0cc.josev.constraint.pub.PubSemVerConstraint;
 import xyz.rk0cc.willpub.exceptions.pubspec.IllegalPubPackageNamingException;
+import xyz.rk0cc.willpub.pubspec.data.URLIdentity;
 
 import javax.annotation.Nonnull;
 import java.net.MalformedURLException;
+import java.net.URI;
 import java.net.URL;
 import java.util.Objects;
 
 /**
  * Referencing the dependency that does not come from default pub server.
+ * <br/>
+ * Since 2.1.0, {@link #equals(Object)} and {@link #hashCode()} compares {@link #repositoryURI()} rather than
+ * {@link #repositoryURL()}, which does not resolve host name.
  *
  * @since 1.0.0
  *
@@ -18,8 +23,10 @@ import java.util.Objects;
 public final class ThirdPartyHostedReference extends DependencyReference
         implements VersionConstrainedDependency<ThirdPartyHostedReference> {
     private final URL repositoryURL;
+    private final URI repositoryURI;
     private final String hostedName;
     private final PubSemVerConstraint versionConstraint;
+    private transient int hash;
 
     /**
      * Create new dependency reference from other pub repository.
@@ -39,6 +46,7 @@ public final class ThirdPartyHostedReference extends DependencyReference
     ) throws IllegalPubPackageNamingException {
         super(name);
         this.repositoryURL = repositoryURL;
+        this.repositoryURI = URLIdentity.canonicalURI(repositoryURL);
         this.hostedName = hostedName;
         this.versionConstraint = versionConstraint;
     }
@@ -97,6 +105,19 @@ public final class ThirdPartyHostedReference extends DependencyReference
         return repositoryURL;
     }
 
+    /**
+     * Get canonical form of {@link #repositoryURL()} which uses for comparing.
+     *
+     * @return Canonical {@link URI} of pub repository.
+     *
+     * @see URLIdentity#canonicalURI(URL)
+     * @since 2.1.0
+     */
+    @Nonnull
+    public URI repositoryURI() {
+        return repositoryURI;
+    }
+
     /**
      * A package name on the hosted repository.
      *
@@ -188,8 +209,9 @@ public final class ThirdPartyHostedReference extends DependencyReference
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         ThirdPartyHostedReference that = (ThirdPartyHostedReference) o;
-        return name().equals(that.name())
-                && repositoryURL.equals(that.repositoryURL)
+        return hashCode() == that.hashCode()
+                && name().equals(that.name())
+                && repositoryURI.equals(that.repositoryURI)
                 && hostedName.equals(that.hostedName)
                 && versionConstraint.equals(that.versionConstraint);
     }
@@ -197,12 +219,16 @@ public final class ThirdPartyHostedReference extends DependencyReference
     /**
      * {@inheritDoc}
      *
-     * @return Hashed {@link #repositoryURL()}, {@link #hostedName()} and {@link #versionConstraint()} with
-     *         {@link DependencyReference#hashCode()} added.
+     * @return Hashed {@link #repositoryURI()}, {@link #hostedName()} and {@link #versionConstraint()} with
+     *         {@link DependencyReference#hashCode()} added, which is cached after the first call.
      */
     @Override
     public int hashCode() {
-        return super.hashCode() + Objects.hash(repositoryURL, hostedName, versionConstraint);
+        int h = hash;
+
+        if (h == 0) hash = h = super.hashCode() + Objects.hash(repositoryURI, hostedName, versionConstraint);
+
+        return h;
     }
 
     /**
@@ -0,0 +1,299 @@
+package xyz.rk0cc.willpub.pubspec.data.persistent;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.*;
+
+/**
+ * Convert and edit JSON liked Java object as an immutable tree of {@link PersistentJsonMap} and
+ * {@link PersistentJsonList}.
+ * <br/>
+ * Once a value is {@link #freeze(Object) frozen}, it can be shared by any number of owners without copying. Editing a
+ * nested value by {@link #setIn(Object, List, Object)} or {@link #removeIn(Object, List)} only copies the collections
+ * along the path and reuses everything else.
+ *
+ * @since 2.1.0
+ */
+public final class PersistentJson {
+    /**
+     * Depth of nested collections which starts tracking visiting collections, so that a self-referenced collection
+     * will be rejected instead of freezing forever.
+     */
+    private static final int CYCLE_DETECTION_DEPTH = 64;
+
+    private PersistentJson() {}
+
+    /**
+     * Determine the value is a mutable collection which required to be frozen.
+     *
+     * @param value Any value.
+     *
+     * @return <code>true</code> if it is a {@link List} or {@link Map} which is not persistent.
+     */
+    private static boolean isMutableCollection(@Nullable Object value) {
+        return (value instanceof List<?> && !(value instanceof PersistentJsonList))
+                || (value instanceof Map<?, ?> && !(value instanceof PersistentJsonMap));
+    }
+
+    /**
+     * Determine the value is frozen already, which can be shared directly.
+     *
+     * @param value Any value.
+     *
+     * @return <code>true</code> if it is not a collection, or it is a {@link PersistentJsonMap} or
+     *         {@link PersistentJsonList}.
+     */
+    public static boolean isFrozen(@Nullable Object value) {
+        return !isMutableCollection(value);
+    }
+
+    /**
+     * Get nesting levels of collections in the value, which helps to decide whether the value can be handled
+     * recursively.
+     * <br/>
+     * The depth of frozen collections is recorded when they are created, and it is not shrunk after removing or
+     * replacing the deepest child, therefore it may be larger than the actual depth.
+     *
+     * @param value A JSON liked value.
+     *
+     * @return <code>0</code> if it is not a collection, or the upper bound of nesting levels of the
+     *         {@link #freeze(Object) frozen} value.
+     *
+     * @throws IllegalArgumentException If <code>value</code> can not be frozen.
+     */
+    public static int depthOf(@Nullable Object value) {
+        if (value instanceof PersistentJsonList pjl) return pjl.depth();
+        else if (value instanceof PersistentJsonMap pjm) return pjm.depth();
+        else if (isMutableCollection(value)) return depthOf(freeze(value));
+
+        return 0;
+    }
+
+    /**
+     * Convert all {@link List} and {@link Map} in the value to {@link PersistentJsonList} and
+     * {@link PersistentJsonMap}.
+     * <br/>
+     * Any nested value which is frozen already will be reused without copying. Nested collections are walked with an
+     * explicit stack, so that the depth of value is not limited by thread's stack size.
+     *
+     * @param value A JSON liked value.
+     *
+     * @return Frozen value, or <code>value</code> itself if {@link #isFrozen(Object) frozen} already.
+     *
+     * @throws IllegalArgumentException If a {@link Map} has non-{@link String} key, or a collection contains itself.
+     */
+    @Nullable
+    public static Object freeze(@Nullable Object value) {
+        if (!isMutableCollection(value)) return value;
+
+        final ArrayDeque<FreezingFrame> frames = new ArrayDeque<>();
+        Set<Object> visiting = null;
+
+        frames.push(new FreezingFrame(value));
+
+        while (true) {
+            final FreezingFrame frame = frames.peek();
+
+            if (!frame.items.hasNext()) {
+                frames.pop();
+                if (visiting != null) visiting.remove(frame.source);
+
+                final Object frozen = frame.build();
+                if (frames.isEmpty()) return frozen;
+
+                frames.peek().accept(frozen);
+                continue;
+            }
+
+            final Object item = frame.next();
+
+            if (!isMutableCollection(item)) {
+                frame.accept(item);
+                continue;
+            }
+
+            if (visiting == null && frames.size() >= CYCLE_DETECTION_DEPTH) {
+                visiting = Collections.newSetFromMap(new IdentityHashMap<>());
+                for (FreezingFrame f : frames) visiting.add(f.source);
+            }
+
+            if (visiting != null && !visiting.add(item))
+                throw new IllegalArgumentException("A collection contains itself which can not be frozen");
+
+            frames.push(new FreezingFrame(item));
+        }
+    }
+
+    /**
+     * Return a new version of <code>root</code> which assigned <code>value</code> in <code>path</code>.
+     * <br/>
+     * Each item of <code>path</code> is either a {@link String} field name of {@link Map} or an {@link Integer} index
+     * of {@link List}. The index can be the size of the list for appending. Absent field in the middle of path will be
+     * created as an empty {@link PersistentJsonMap}.
+     *
+     * @param root A JSON liked value.
+     * @param path Path to the value to be assigned. If it is empty, <code>value</code> will be returned directly.
+     * @param value A JSON liked value.
+     *
+     * @return Frozen value of <code>root</code> with <code>value</code> assigned.
+     *
+     * @throws IllegalArgumentException If the path goes through a value which is not {@link Map} or {@link List}, or
+     *                                  the type of path item does not match the collection.
+     * @throws IndexOutOfBoundsException If the index is out of range.
+     */
+    @Nullable
+    public static Object setIn(@Nullable Object root, @Nonnull List<?> path, @Nullable Object value) {
+        final Object[] nodes = new Object[path.size()];
+        Object node = freeze(root);
+
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = node;
+            node = childOf(node, path.get(i));
+        }
+
+        Object applied = freeze(value);
+        for (int i = nodes.length - 1; i >= 0; i--) applied = withChild(nodes[i], path.get(i), applied);
+
+        return applied;
+    }
+
+    /**
+     * Return a new version of <code>root</code> which removed the value in <code>path</code>.
+     *
+     * @param root A JSON liked value.
+     * @param path Path to the value to be removed. It follows the same format of {@link #setIn(Object, List, Object)}.
+     *
+     * @return Frozen value of <code>root</code> without the value in <code>path</code>, which is the same object
+     *         of frozen <code>root</code> if the path does not exist.
+     *
+     * @throws IllegalArgumentException If <code>path</code> is empty.
+     */
+    @Nullable
+    public static Object removeIn(@Nullable Object root, @Nonnull List<?> path) {
+        if (path.isEmpty()) throw new IllegalArgumentException("Path must not be empty for removing");
+
+        final Object[] nodes = new Object[path.size()];
+        Object node = freeze(root);
+        final Object frozenRoot = node;
+
+        for (int i = 0; i < nodes.length - 1; i++) {
+            nodes[i] = node;
+            node = childOf(node, path.get(i));
+            if (node == null) return frozenRoot;
+        }
+
+        final int last = nodes.length - 1;
+        final Object segment = path.get(last);
+        nodes[last] = node;
+
+        Object applied;
+
+        if (node instanceof PersistentJsonMap pjm && segment instanceof String k) applied = pjm.without(k);
+        else if (node instanceof PersistentJsonList pjl && segment instanceof Integer idx) {
+            if (idx < 0 || idx >= pjl.size()) return frozenRoot;
+            applied = pjl.without(idx);
+        } else return frozenRoot;
+
+        if (applied == node) return frozenRoot;
+
+        for (int i = last - 1; i >= 0; i--) applied = withChild(nodes[i], path.get(i), applied);
+
+        return applied;
+    }
+
+    /**
+     * Get the child of a frozen node.
+     *
+     * @param node Frozen node, or <code>null</code> if absent.
+     * @param segment Field name or index.
+     *
+     * @return Value of the child, or <code>null</code> if absent.
+     */
+    @Nullable
+    private static Object childOf(@Nullable Object node, @Nonnull Object segment) {
+        if (node instanceof PersistentJsonMap pjm && segment instanceof String k) return pjm.get(k);
+        else if (node instanceof PersistentJsonList pjl && segment instanceof Integer idx)
+            return idx >= 0 && idx < pjl.size() ? pjl.get(idx) : null;
+
+        return null;
+    }
+
+    /**
+     * Copy the frozen node with replaced child.
+     *
+     * @param node Frozen node, or <code>null</code> if absent.
+     * @param segment Field name or index.
+     * @param child Frozen child.
+     *
+     * @return A copy of <code>node</code> with given child.
+     */
+    @Nonnull
+    private static Object withChild(@Nullable Object node, @Nonnull Object segment, @Nullable Object child) {
+        if (node == null && segment instanceof String k) return PersistentJsonMap.empty().with(k, child);
+        else if (node instanceof PersistentJsonMap pjm && segment instanceof String k) return pjm.with(k, child);
+        else if (node instanceof PersistentJsonList pjl && segment instanceof Integer idx)
+            return idx == pjl.size() ? pjl.append(child) : pjl.with(idx, child);
+
+        throw new IllegalArgumentException("Path item '" + segment + "' can not be applied on " + node);
+    }
+
+    /**
+     * A collection which is freezing by {@link #freeze(Object)}.
+     */
+    private static final class FreezingFrame {
+        private final Object source;
+        private final Iterator<?> items;
+        private final ArrayList<Object> frozenItems;
+        private PersistentOrderedMap<String, Object> frozenFields;
+        private String pendingKey;
+        private int childDepth;
+
+        private FreezingFrame(@Nonnull Object source) {
+            this.source = source;
+
+            if (source instanceof Map<?, ?> m) {
+                this.items = m.entrySet().iterator();
+                this.frozenItems = null;
+                this.frozenFields = PersistentOrderedMap.empty();
+            } else {
+                final List<?> l = (List<?>) source;
+                this.items = l.iterator();
+                this.frozenItems = new ArrayList<>(l.size());
+                this.frozenFields = null;
+            }
+        }
+
+        @Nullable
+        private Object next() {
+            final Object item = items.next();
+
+            if (frozenFields == null) return item;
+
+            final Map.Entry<?, ?> entry = (Map.Entry<?, ?>) item;
+            if (!(entry.getKey() instanceof String k))
+                throw new IllegalArgumentException("Field name must be a string but " + entry.getKey() + " found");
+
+            pendingKey = k;
+            return entry.getValue();
+        }
+
+        private void accept(@Nullable Object frozen) {
+            childDepth = Math.max(childDepth, depthOf(frozen));
+
+            if (frozenFields == null) frozenItems.add(frozen);
+            else frozenFields = frozenFields.put(pendingKey, frozen);
+        }
+
+        @Nonnull
+        private Object build() {
+            if (frozenFields == null)
+                return frozenItems.isEmpty()
+                        ? PersistentJsonList.empty()
+                        : new PersistentJsonList(frozenItems.toArray(), childDepth + 1);
+
+            return frozenFields.isEmpty()
+                    ? PersistentJsonMap.empty()
+                    : new PersistentJsonMap(frozenFields, childDepth + 1);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package xyz.rk0cc.willpub.pubspec.data.persistent;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+/**
+ * An immutable JSON array.
+ * <br/>
+ * Items are stored in a flat array which is copied when modified. Since arrays in pubspec are usually short, it only
+ * copies the references of items in the same level and shares every nested value with the origin one. Every mutating
+ * method of {@link java.util.List} throws {@link UnsupportedOperationException}.
+ *
+ * @see PersistentJson
+ *
+ * @since 2.1.0
+ */
+public final class PersistentJsonList extends AbstractList<Object> implements RandomAccess, Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private static final PersistentJsonList EMPTY = new PersistentJsonList(new Object[0], 1);
+
+    private final Object[] items;
+
+    /**
+     * Upper bound of {@link PersistentJson#depthOf(Object) depth}.
+     */
+    private final int depth;
+
+    PersistentJsonList(@Nonnull Object[] items, @Nonnegative int depth) {
+        this.items = items;
+        this.depth = depth;
+    }
+
+    /**
+     * Get an empty {@link PersistentJsonList}.
+     *
+     * @return Shared empty list.
+     */
+    @Nonnull
+    public static PersistentJsonList empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Return a list which replaced the item at <code>index</code>.
+     * <br/>
+     * The <code>item</code> will be {@link PersistentJson#freeze(Object) frozen} before storing.
+     *
+     * @param index Position of the item.
+     * @param item New item.
+     *
+     * @return A list with given item, or this list if the same item object applied in the position already.
+     *
+     * @throws IndexOutOfBoundsException If <code>index</code> is out of range.
+     * @throws IllegalArgumentException If <code>item</code> can not be frozen.
+     */
+    @Nonnull
+    public PersistentJsonList with(@Nonnegative int index, @Nullable Object item) {
+        final Object frozen = PersistentJson.freeze(item);
+        if (items[index] == frozen) return this;
+
+        final Object[] applied = items.clone();
+        applied[index] = frozen;
+        return new PersistentJsonList(applied, Math.max(depth, PersistentJson.depthOf(frozen) + 1));
+    }
+
+    /**
+     * Return a list which appended <code>item</code> at the end.
+     *
+     * @param item New item, which will be {@link PersistentJson#freeze(Object) frozen} before storing.
+     *
+     * @return A list with given item appended.
+     *
+     * @throws IllegalArgumentException If <code>item</code> can not be frozen.
+     */
+    @Nonnull
+    public PersistentJsonList append(@Nullable Object item) {
+        final Object frozen = PersistentJson.freeze(item);
+        final Object[] applied = Arrays.copyOf(items, items.length + 1);
+        applied[items.length] = frozen;
+        return new PersistentJsonList(applied, Math.max(depth, PersistentJson.depthOf(frozen) + 1));
+    }
+
+    /**
+     * Return a list without the item at <code>index</code>.
+     *
+     * @param index Position of the item.
+     *
+     * @return A list without given position.
+     *
+     * @throws IndexOutOfBoundsException If <code>index</code> is out of range.
+     */
+    @Nonnull
+    public PersistentJsonList without(@Nonnegative int index) {
+        if (index < 0 || index >= items.length) throw new IndexOutOfBoundsException(index);
+        else if (items.length == 1) return EMPTY;
+
+        final Object[] applied = new Object[items.length - 1];
+        System.arraycopy(items, 0, applied, 0, index);
+        System.arraycopy(items, index + 1, applied, index, applied.length - index);
+        return new PersistentJsonList(applied, depth);
+    }
+
+    /**
+     * Get the upper bound of nesting levels.
+     *
+     * @return Depth which may be larger than actual after removing or replacing the deepest item.
+     */
+    @Nonnegative
+    int depth() {
+        return depth;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Nullable
+    @Override
+    public Object get(int index) {
+        return items[index];
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Nonnegative
+    @Override
+    public int size() {
+        return items.length;
+    }
+}
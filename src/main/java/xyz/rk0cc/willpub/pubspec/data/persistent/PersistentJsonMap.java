@@ -0,0 +1,168 @@
+package xyz.rk0cc.willpub.pubspec.data.persistent;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.*;
+
+/**
+ * An immutable JSON object which preserves insertion order of fields.
+ * <br/>
+ * It is a {@link Map} view of {@link PersistentOrderedMap}, therefore {@link #with(String, Object)} and
+ * {@link #without(String)} share all unchanged fields with the origin one. Every mutating method of {@link Map} throws
+ * {@link UnsupportedOperationException}.
+ *
+ * @see PersistentJson
+ *
+ * @since 2.1.0
+ */
+public final class PersistentJsonMap extends AbstractMap<String, Object> implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private static final PersistentJsonMap EMPTY = new PersistentJsonMap(PersistentOrderedMap.empty(), 1);
+
+    private final PersistentOrderedMap<String, Object> fields;
+
+    /**
+     * Upper bound of {@link PersistentJson#depthOf(Object) depth}.
+     */
+    private final int depth;
+
+    /**
+     * Entries in insertion order which are flattened in the first iteration, since iterating the trees of
+     * {@link PersistentOrderedMap} requires allocating a stack each time.
+     */
+    private transient volatile Entry<String, Object>[] orderedEntries;
+
+    PersistentJsonMap(@Nonnull PersistentOrderedMap<String, Object> fields, @Nonnegative int depth) {
+        this.fields = fields;
+        this.depth = depth;
+    }
+
+    /**
+     * Get an empty {@link PersistentJsonMap}.
+     *
+     * @return Shared empty map.
+     */
+    @Nonnull
+    public static PersistentJsonMap empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Return a map with given field. If the field existed already, the position of it will not be changed.
+     * <br/>
+     * The <code>value</code> will be {@link PersistentJson#freeze(Object) frozen} before storing.
+     *
+     * @param key Field name.
+     * @param value Field value.
+     *
+     * @return A map with given field, or this map if the same value object applied in the field already.
+     *
+     * @throws IllegalArgumentException If <code>value</code> can not be frozen.
+     */
+    @Nonnull
+    public PersistentJsonMap with(@Nonnull String key, @Nullable Object value) {
+        final Object frozen = PersistentJson.freeze(value);
+        final PersistentOrderedMap<String, Object> applied = fields.put(key, frozen);
+        return applied == fields
+                ? this
+                : new PersistentJsonMap(applied, Math.max(depth, PersistentJson.depthOf(frozen) + 1));
+    }
+
+    /**
+     * Return a map without given field.
+     *
+     * @param key Field name.
+     *
+     * @return A map without given field, or this map if the field is absent.
+     */
+    @Nonnull
+    public PersistentJsonMap without(@Nonnull String key) {
+        final PersistentOrderedMap<String, Object> applied = fields.remove(key);
+        return applied == fields ? this : applied.isEmpty() ? EMPTY : new PersistentJsonMap(applied, depth);
+    }
+
+    /**
+     * Get the upper bound of nesting levels.
+     *
+     * @return Depth which may be larger than actual after removing or replacing the deepest field.
+     */
+    @Nonnegative
+    int depth() {
+        return depth;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Nonnegative
+    @Override
+    public int size() {
+        return fields.size();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean containsKey(Object key) {
+        return key instanceof String k && fields.containsKey(k);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Nullable
+    @Override
+    public Object get(Object key) {
+        return key instanceof String k ? fields.get(k) : null;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <br/>
+     * The returned {@link Set} is immutable.
+     */
+    @Nonnull
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        return new AbstractSet<>() {
+            @Nonnull
+            @Override
+            public Iterator<Entry<String, Object>> iterator() {
+                return Arrays.asList(orderedEntries()).iterator();
+            }
+
+            @Override
+            public int size() {
+                return fields.size();
+            }
+        };
+    }
+
+    /**
+     * Get all entries in insertion order.
+     *
+     * @return Flattened entries, which must not be modified.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    @Nonnull
+    private Entry<String, Object>[] orderedEntries() {
+        Entry<String, Object>[] entries = orderedEntries;
+
+        if (entries == null) {
+            entries = new Entry[fields.size()];
+
+            int i = 0;
+            for (Entry<String, Object> e : fields) entries[i++] = e;
+
+            orderedEntries = entries;
+        }
+
+        return entries;
+    }
+}
@@ -0,0 +1,433 @@
+package xyz.rk0cc.willpub.pubspec.data.persistent;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.*;
+
+/**
+ * An immutable map which preserves insertion order as same as {@link LinkedHashMap}.
+ * <br/>
+ * Every modification returns a new {@link PersistentOrderedMap} and leaves the origin one untouched. Both of them share
+ * all unchanged nodes, therefore keeping an old version of the map costs nothing and a modification only allocates
+ * <code>O(log n)</code> nodes.
+ * <br/>
+ * It is implemented with two AVL trees which contain the same entries. One is ordered by key for lookup, another one
+ * is ordered by the sequence of insertion for iteration. Updating the value of an existed key keeps its position,
+ * while removing and putting it again appends it to the end.
+ *
+ * @param <K> Type of key.
+ * @param <V> Type of value.
+ *
+ * @since 2.1.0
+ */
+public final class PersistentOrderedMap<K extends Comparable<? super K>, V>
+        implements Iterable<Map.Entry<K, V>>, Serializable {
+    @SuppressWarnings("rawtypes")
+    private static final PersistentOrderedMap EMPTY = new PersistentOrderedMap<>(null, null, 0L, 0);
+
+    private final transient Node<K, Slot<K, V>> byKey;
+    private final transient Node<Long, Slot<K, V>> byOrder;
+    private final transient long nextSequence;
+    private final transient int size;
+
+    private PersistentOrderedMap(
+            @Nullable Node<K, Slot<K, V>> byKey,
+            @Nullable Node<Long, Slot<K, V>> byOrder,
+            long nextSequence,
+            @Nonnegative int size
+    ) {
+        this.byKey = byKey;
+        this.byOrder = byOrder;
+        this.nextSequence = nextSequence;
+        this.size = size;
+    }
+
+    /**
+     * Get an empty {@link PersistentOrderedMap}.
+     *
+     * @param <K> Type of key.
+     * @param <V> Type of value.
+     *
+     * @return Shared empty map.
+     */
+    @SuppressWarnings("unchecked")
+    @Nonnull
+    public static <K extends Comparable<? super K>, V> PersistentOrderedMap<K, V> empty() {
+        return (PersistentOrderedMap<K, V>) EMPTY;
+    }
+
+    /**
+     * Number of entries in this map.
+     *
+     * @return Size of this map.
+     */
+    @Nonnegative
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Determine this map has no entry.
+     *
+     * @return <code>true</code> if empty.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Find the value of given key.
+     *
+     * @param key Key of the entry.
+     *
+     * @return Value of the key, or <code>null</code> if absent.
+     */
+    @Nullable
+    public V get(@Nonnull K key) {
+        final Slot<K, V> slot = find(byKey, key);
+        return slot == null ? null : slot.getValue();
+    }
+
+    /**
+     * Determine given key is existed in this map.
+     *
+     * @param key Key of the entry.
+     *
+     * @return <code>true</code> if existed.
+     */
+    public boolean containsKey(@Nonnull K key) {
+        return find(byKey, key) != null;
+    }
+
+    /**
+     * Return a map with given entry. If the key existed already, the value will be replaced and the position of this
+     * entry will not be changed.
+     *
+     * @param key Key of the entry.
+     * @param value Value of the entry.
+     *
+     * @return A map with given entry, or this map if the same value object applied in the key already.
+     */
+    @Nonnull
+    public PersistentOrderedMap<K, V> put(@Nonnull K key, V value) {
+        final Slot<K, V> old = find(byKey, key);
+
+        if (old != null && old.getValue() == value) return this;
+
+        final long sequence = old == null ? nextSequence : old.sequence;
+        final Slot<K, V> slot = new Slot<>(sequence, key, value);
+
+        return new PersistentOrderedMap<>(
+                insert(byKey, key, slot),
+                insert(byOrder, sequence, slot),
+                old == null ? nextSequence + 1 : nextSequence,
+                old == null ? size + 1 : size
+        );
+    }
+
+    /**
+     * Return a map without given key.
+     *
+     * @param key Key of the entry.
+     *
+     * @return A map without given key, or this map if the key is absent.
+     */
+    @Nonnull
+    public PersistentOrderedMap<K, V> remove(@Nonnull K key) {
+        final Slot<K, V> old = find(byKey, key);
+
+        if (old == null) return this;
+        else if (size == 1) return empty();
+
+        return new PersistentOrderedMap<>(
+                delete(byKey, key),
+                delete(byOrder, old.sequence),
+                nextSequence,
+                size - 1
+        );
+    }
+
+    /**
+     * Iterate all entries in insertion order.
+     * <br/>
+     * Since this map is immutable, the iterator never throws {@link ConcurrentModificationException} and does not
+     * support {@link Iterator#remove()}.
+     *
+     * @return An {@link Iterator} of all entries.
+     */
+    @Nonnull
+    @Override
+    public Iterator<Map.Entry<K, V>> iterator() {
+        return new InOrderIterator<>(byOrder) {
+            @Override
+            Map.Entry<K, V> map(@Nonnull Slot<K, V> slot) {
+                return slot;
+            }
+        };
+    }
+
+    /**
+     * Iterate all keys in insertion order.
+     *
+     * @return An {@link Iterator} of all keys.
+     */
+    @Nonnull
+    public Iterator<K> keyIterator() {
+        return new InOrderIterator<>(byOrder) {
+            @Override
+            K map(@Nonnull Slot<K, V> slot) {
+                return slot.getKey();
+            }
+        };
+    }
+
+    /**
+     * Iterate all values in insertion order.
+     *
+     * @return An {@link Iterator} of all values.
+     */
+    @Nonnull
+    public Iterator<V> valueIterator() {
+        return new InOrderIterator<>(byOrder) {
+            @Override
+            V map(@Nonnull Slot<K, V> slot) {
+                return slot.getValue();
+            }
+        };
+    }
+
+    @Nonnull
+    @Override
+    public Spliterator<Map.Entry<K, V>> spliterator() {
+        return Spliterators.spliterator(
+                iterator(),
+                size,
+                Spliterator.DISTINCT | Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.IMMUTABLE
+        );
+    }
+
+    @Nonnull
+    @Override
+    public String toString() {
+        final StringJoiner joiner = new StringJoiner(", ", "{", "}");
+        for (Map.Entry<K, V> e : this) joiner.add(e.getKey() + "=" + e.getValue());
+        return joiner.toString();
+    }
+
+    /**
+     * Serialize entries only instead of both trees.
+     *
+     * @return A {@link SerializationProxy} of this map.
+     */
+    @Serial
+    private Object writeReplace() {
+        return new SerializationProxy(this);
+    }
+
+    /**
+     * An entry stored in both trees with the sequence of insertion.
+     *
+     * @param <K> Type of key.
+     * @param <V> Type of value.
+     */
+    private static final class Slot<K, V> extends AbstractMap.SimpleImmutableEntry<K, V> {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private final long sequence;
+
+        private Slot(long sequence, @Nonnull K key, V value) {
+            super(key, value);
+            this.sequence = sequence;
+        }
+    }
+
+    /**
+     * Immutable node of AVL tree.
+     *
+     * @param <N> Type of key in this tree.
+     * @param <S> Type of stored value.
+     */
+    private static final class Node<N extends Comparable<? super N>, S> {
+        private final N key;
+        private final S value;
+        private final Node<N, S> left, right;
+        private final int height;
+
+        private Node(@Nonnull N key, S value, @Nullable Node<N, S> left, @Nullable Node<N, S> right) {
+            this.key = key;
+            this.value = value;
+            this.left = left;
+            this.right = right;
+            this.height = Math.max(height(left), height(right)) + 1;
+        }
+    }
+
+    private static int height(@Nullable Node<?, ?> node) {
+        return node == null ? 0 : node.height;
+    }
+
+    @Nullable
+    private static <N extends Comparable<? super N>, S> S find(@Nullable Node<N, S> node, @Nonnull N key) {
+        while (node != null) {
+            final int c = key.compareTo(node.key);
+
+            if (c == 0) return node.value;
+
+            node = c < 0 ? node.left : node.right;
+        }
+        return null;
+    }
+
+    @Nonnull
+    private static <N extends Comparable<? super N>, S> Node<N, S> insert(
+            @Nullable Node<N, S> node,
+            @Nonnull N key,
+            S value
+    ) {
+        if (node == null) return new Node<>(key, value, null, null);
+
+        final int c = key.compareTo(node.key);
+
+        if (c < 0) return balance(node.key, node.value, insert(node.left, key, value), node.right);
+        else if (c > 0) return balance(node.key, node.value, node.left, insert(node.right, key, value));
+
+        return new Node<>(key, value, node.left, node.right);
+    }
+
+    @Nullable
+    private static <N extends Comparable<? super N>, S> Node<N, S> delete(@Nullable Node<N, S> node, @Nonnull N key) {
+        if (node == null) return null;
+
+        final int c = key.compareTo(node.key);
+
+        if (c < 0) return balance(node.key, node.value, delete(node.left, key), node.right);
+        else if (c > 0) return balance(node.key, node.value, node.left, delete(node.right, key));
+        else if (node.left == null) return node.right;
+        else if (node.right == null) return node.left;
+
+        Node<N, S> min = node.right;
+        while (min.left != null) min = min.left;
+
+        return balance(min.key, min.value, node.left, deleteMin(node.right));
+    }
+
+    @Nullable
+    private static <N extends Comparable<? super N>, S> Node<N, S> deleteMin(@Nonnull Node<N, S> node) {
+        if (node.left == null) return node.right;
+
+        return balance(node.key, node.value, deleteMin(node.left), node.right);
+    }
+
+    @Nonnull
+    private static <N extends Comparable<? super N>, S> Node<N, S> balance(
+            @Nonnull N key,
+            S value,
+            @Nullable Node<N, S> left,
+            @Nullable Node<N, S> right
+    ) {
+        final int hl = height(left), hr = height(right);
+
+        if (hl > hr + 1) {
+            assert left != null;
+            if (height(left.left) >= height(left.right))
+                return new Node<>(left.key, left.value, left.left, new Node<>(key, value, left.right, right));
+
+            final Node<N, S> lr = left.right;
+            assert lr != null;
+            return new Node<>(
+                    lr.key,
+                    lr.value,
+                    new Node<>(left.key, left.value, left.left, lr.left),
+                    new Node<>(key, value, lr.right, right)
+            );
+        } else if (hr > hl + 1) {
+            assert right != null;
+            if (height(right.right) >= height(right.left))
+                return new Node<>(right.key, right.value, new Node<>(key, value, left, right.left), right.right);
+
+            final Node<N, S> rl = right.left;
+            assert rl != null;
+            return new Node<>(
+                    rl.key,
+                    rl.value,
+                    new Node<>(key, value, left, rl.left),
+                    new Node<>(right.key, right.value, rl.right, right.right)
+            );
+        }
+
+        return new Node<>(key, value, left, right);
+    }
+
+    /**
+     * Iterate a tree ordered by insertion sequence with an explicit stack.
+     *
+     * @param <K> Type of key.
+     * @param <V> Type of value.
+     * @param <T> Type of iterated item.
+     */
+    private static abstract class InOrderIterator<K, V, T> implements Iterator<T> {
+        private final ArrayDeque<Node<Long, Slot<K, V>>> stack = new ArrayDeque<>();
+
+        InOrderIterator(@Nullable Node<Long, Slot<K, V>> root) {
+            pushLeft(root);
+        }
+
+        private void pushLeft(@Nullable Node<Long, Slot<K, V>> node) {
+            while (node != null) {
+                stack.push(node);
+                node = node.left;
+            }
+        }
+
+        abstract T map(@Nonnull Slot<K, V> slot);
+
+        @Override
+        public final boolean hasNext() {
+            return !stack.isEmpty();
+        }
+
+        @Override
+        public final T next() {
+            if (stack.isEmpty()) throw new NoSuchElementException();
+
+            final Node<Long, Slot<K, V>> node = stack.pop();
+            pushLeft(node.right);
+
+            return map(node.value);
+        }
+    }
+
+    /**
+     * Serialized form of {@link PersistentOrderedMap} which stores entries in insertion order.
+     */
+    private static final class SerializationProxy implements Serializable {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private final Object[] keys, values;
+
+        private SerializationProxy(@Nonnull PersistentOrderedMap<?, ?> map) {
+            this.keys = new Object[map.size];
+            this.values = new Object[map.size];
+
+            int i = 0;
+            for (Map.Entry<?, ?> e : map) {
+                keys[i] = e.getKey();
+                values[i++] = e.getValue();
+            }
+        }
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        @Serial
+        private Object readResolve() {
+            PersistentOrderedMap map = empty();
+            for (int i = 0; i < keys.length; i++) map = map.put((Comparable) keys[i], values[i]);
+
+            return map;
+        }
+    }
+}
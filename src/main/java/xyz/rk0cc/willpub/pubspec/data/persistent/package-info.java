@@ -0,0 +1,7 @@
+/**
+ * Immutable collections which share structure among every modified version, so that taking a snapshot of data in
+ * {@link xyz.rk0cc.willpub.pubspec.data} costs constant time.
+ *
+ * @since 2.1.0
+ */
+package xyz.rk0cc.willpub.pubspec.data.persistent;
@@ -1,14 +1,17 @@
 /**
  * Java implemented Object for handling <code>pubspec.yaml</code>.
  * <br/>
- * This package only contains two object which namely {@link xyz.rk0cc.willpub.pubspec.PubspecArchiver} and
+ * This package mainly contains two object which namely {@link xyz.rk0cc.willpub.pubspec.PubspecArchiver} and
  * {@link xyz.rk0cc.willpub.pubspec.PubspecManager}. Both control data exchanges between the file and Java object and
- * implemented Memento patten for stacking up to 10 editing history.
+ * implemented Memento patten for stacking editing history, which is up to 10 by default and can be changed by
+ * {@link xyz.rk0cc.willpub.pubspec.PubspecManagerOptions}.
  * <br/>
- * In this package, it comes with 2 subpackages which under on this package:
+ * In this package, it comes with 4 subpackages which under on this package:
  * <ul>
  *     <li>{@link xyz.rk0cc.willpub.pubspec.data}</li>
  *     <li>{@link xyz.rk0cc.willpub.pubspec.parser}</li>
+ *     <li>{@link xyz.rk0cc.willpub.pubspec.watch}</li>
+ *     <li>{@link xyz.rk0cc.willpub.pubspec.workspace}</li>
  * </ul>
  *
  * @since 1.0.0
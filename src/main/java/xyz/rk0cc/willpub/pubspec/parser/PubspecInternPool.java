@@ -0,0 +1,317 @@
+package xyz.rk0cc.willpub.pubspec.parser;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+import xyz.rk0cc.jogu.GitRepositoryURL;
+import xyz.rk0cc.jogu.UnknownGitRepositoryURLTypeException;
+import xyz.rk0cc.josev.NonStandardSemVerException;
+import xyz.rk0cc.josev.SemVer;
+import xyz.rk0cc.josev.constraint.pub.PubSemVerConstraint;
+import xyz.rk0cc.willpub.exceptions.pubspec.IllegalVersionConstraintException;
+import xyz.rk0cc.willpub.pubspec.data.PubspecEnvironment;
+import xyz.rk0cc.willpub.pubspec.data.PubspecPlatforms;
+import xyz.rk0cc.willpub.pubspec.data.dependencies.type.DependencyReference;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A pool which shares parsed values among every {@link xyz.rk0cc.willpub.pubspec.data.Pubspec} read by the same
+ * {@link PubspecParserEngine#withInternPool(PubspecInternPool) engine}.
+ * <br/>
+ * Constraints, versions, Git repository URLs and environments are memoized by their raw {@link String} in bounded
+ * caches which values are weakly referenced, so that unused values can be collected. {@link DependencyReference} are
+ * deduplicated by a weak interner, and {@link PubspecPlatforms} are shared from all 64 combinations.
+ * <br/>
+ * It is safe to use in multiple threads and reports {@link #statistics(Kind) statistics} for each {@link Kind}.
+ *
+ * @since 2.1.0
+ */
+public final class PubspecInternPool {
+    /**
+     * Default maximum number of entries of each memoized {@link Kind}.
+     */
+    public static final int DEFAULT_MAXIMUM_SIZE = 4096;
+
+    private final Cache<String, PubSemVerConstraint> constraints;
+    private final Cache<String, SemVer> versions;
+    private final Cache<String, GitRepositoryURL> gitURLs;
+    private final Cache<String, PubspecEnvironment> environments;
+    private final Interner<DependencyReference> references = Interners.newWeakInterner();
+    private final PubspecPlatforms[] platforms = new PubspecPlatforms[1 << 6];
+    private final EnumMap<Kind, LongAdder[]> counters = new EnumMap<>(Kind.class);
+    private volatile PubSemVerConstraint anyConstraint = null;
+
+    /**
+     * Type of values shared in {@link PubspecInternPool}.
+     */
+    public enum Kind {
+        CONSTRAINT, VERSION, GIT_URL, ENVIRONMENT, PLATFORMS, REFERENCE
+    }
+
+    /**
+     * Number of hits and misses of a {@link Kind}.
+     *
+     * @param hitCount Number of values reused from the pool.
+     * @param missCount Number of values created and stored into the pool.
+     */
+    public record Statistics(@Nonnegative long hitCount, @Nonnegative long missCount) {
+        /**
+         * Ratio of hits among all requests.
+         *
+         * @return Hit rate from <code>0.0</code> to <code>1.0</code>, or <code>1.0</code> if nothing requested.
+         */
+        public double hitRate() {
+            final long total = hitCount + missCount;
+            return total == 0 ? 1.0 : (double) hitCount / total;
+        }
+    }
+
+    /**
+     * Create a pool with {@link #DEFAULT_MAXIMUM_SIZE}.
+     */
+    public PubspecInternPool() {
+        this(DEFAULT_MAXIMUM_SIZE);
+    }
+
+    /**
+     * Create a pool with given maximum size of each memoized {@link Kind}.
+     *
+     * @param maximumSize Maximum number of entries.
+     */
+    public PubspecInternPool(@Nonnegative int maximumSize) {
+        this.constraints = newCache(maximumSize);
+        this.versions = newCache(maximumSize);
+        this.gitURLs = newCache(maximumSize);
+        this.environments = newCache(maximumSize);
+
+        for (Kind k : Kind.values()) counters.put(k, new LongAdder[]{new LongAdder(), new LongAdder()});
+    }
+
+    @Nonnull
+    private static <V> Cache<String, V> newCache(@Nonnegative int maximumSize) {
+        return CacheBuilder.newBuilder().maximumSize(maximumSize).weakValues().build();
+    }
+
+    private void count(@Nonnull Kind kind, boolean hit) {
+        counters.get(kind)[hit ? 0 : 1].increment();
+    }
+
+    /**
+     * Parse or reuse {@link PubSemVerConstraint}.
+     *
+     * @param raw Raw constraint, or <code>null</code> for any version.
+     *
+     * @return Parsed {@link PubSemVerConstraint}.
+     */
+    @Nonnull
+    public PubSemVerConstraint constraint(@Nullable String raw) {
+        if (raw == null) {
+            PubSemVerConstraint any = anyConstraint;
+            count(Kind.CONSTRAINT, any != null);
+
+            if (any == null) anyConstraint = any = PubSemVerConstraint.parse(null);
+
+            return any;
+        }
+
+        PubSemVerConstraint cached = constraints.getIfPresent(raw);
+        count(Kind.CONSTRAINT, cached != null);
+
+        if (cached == null) {
+            cached = PubSemVerConstraint.parse(raw);
+            constraints.put(raw, cached);
+        }
+
+        return cached;
+    }
+
+    /**
+     * Parse or reuse {@link SemVer}.
+     *
+     * @param raw Raw version.
+     *
+     * @return Parsed {@link SemVer}.
+     *
+     * @throws NonStandardSemVerException If <code>raw</code> is not a valid version.
+     */
+    @Nonnull
+    public SemVer version(@Nonnull String raw) throws NonStandardSemVerException {
+        SemVer cached = versions.getIfPresent(raw);
+        count(Kind.VERSION, cached != null);
+
+        if (cached == null) {
+            cached = SemVer.parse(raw);
+            versions.put(raw, cached);
+        }
+
+        return cached;
+    }
+
+    /**
+     * Parse or reuse {@link GitRepositoryURL}.
+     *
+     * @param raw Raw URL of Git repository.
+     *
+     * @return Parsed {@link GitRepositoryURL}.
+     *
+     * @throws UnknownGitRepositoryURLTypeException If <code>raw</code> is not a valid Git repository URL.
+     */
+    @Nonnull
+    public GitRepositoryURL gitURL(@Nonnull String raw) throws UnknownGitRepositoryURLTypeException {
+        GitRepositoryURL cached = gitURLs.getIfPresent(raw);
+        count(Kind.GIT_URL, cached != null);
+
+        if (cached == null) {
+            cached = GitRepositoryURL.parse(raw);
+            gitURLs.put(raw, cached);
+        }
+
+        return cached;
+    }
+
+    /**
+     * Construct or reuse {@link PubspecEnvironment}.
+     *
+     * @param sdk Raw SDK constraint.
+     * @param flutter Raw Flutter constraint, or <code>null</code> if not applied.
+     *
+     * @return {@link PubspecEnvironment} of given constraints.
+     *
+     * @throws IllegalVersionConstraintException If <code>sdk</code> is not accepted by {@link PubspecEnvironment}.
+     */
+    @Nonnull
+    public PubspecEnvironment environment(@Nonnull String sdk, @Nullable String flutter)
+            throws IllegalVersionConstraintException {
+        // Line feed never appears in a constraint.
+        final String key = flutter == null ? sdk : sdk + '\n' + flutter;
+        PubspecEnvironment cached = environments.getIfPresent(key);
+        count(Kind.ENVIRONMENT, cached != null);
+
+        if (cached == null) {
+            cached = new PubspecEnvironment(constraint(sdk), flutter == null ? null : constraint(flutter));
+            environments.put(key, cached);
+        }
+
+        return cached;
+    }
+
+    /**
+     * Reuse {@link PubspecPlatforms} with the same supported platforms.
+     *
+     * @param platforms A {@link PubspecPlatforms}.
+     *
+     * @return Shared {@link PubspecPlatforms} which equals to <code>platforms</code>.
+     */
+    @Nonnull
+    public PubspecPlatforms platforms(@Nonnull PubspecPlatforms platforms) {
+        final int idx = (platforms.android() ? 1 : 0)
+                | (platforms.ios() ? 1 << 1 : 0)
+                | (platforms.linux() ? 1 << 2 : 0)
+                | (platforms.macos() ? 1 << 3 : 0)
+                | (platforms.web() ? 1 << 4 : 0)
+                | (platforms.windows() ? 1 << 5 : 0);
+
+        synchronized (this.platforms) {
+            final PubspecPlatforms cached = this.platforms[idx];
+            count(Kind.PLATFORMS, cached != null);
+
+            if (cached != null) return cached;
+
+            this.platforms[idx] = platforms;
+            return platforms;
+        }
+    }
+
+    /**
+     * Reuse {@link DependencyReference} which {@link DependencyReference#equals(Object) equals} to given one.
+     *
+     * @param reference A {@link DependencyReference}.
+     * @param <D> Type of {@link DependencyReference}.
+     *
+     * @return Shared {@link DependencyReference} which equals to <code>reference</code>.
+     */
+    @SuppressWarnings("unchecked")
+    @Nonnull
+    public <D extends DependencyReference> D reference(@Nonnull D reference) {
+        final DependencyReference interned = references.intern(reference);
+        count(Kind.REFERENCE, interned != reference);
+
+        return (D) interned;
+    }
+
+    /**
+     * Get {@link Statistics} of given {@link Kind}.
+     *
+     * @param kind Type of values.
+     *
+     * @return Current {@link Statistics}.
+     */
+    @Nonnull
+    public Statistics statistics(@Nonnull Kind kind) {
+        final LongAdder[] counter = counters.get(kind);
+        return new Statistics(counter[0].sum(), counter[1].sum());
+    }
+
+    /**
+     * Get {@link Statistics} of all {@link Kind}.
+     *
+     * @return A {@link Map} of {@link Statistics} for each {@link Kind}.
+     */
+    @Nonnull
+    public Map<Kind, Statistics> statistics() {
+        final EnumMap<Kind, Statistics> stats = new EnumMap<>(Kind.class);
+        for (Kind k : Kind.values()) stats.put(k, statistics(k));
+        return stats;
+    }
+
+    /**
+     * Parse constraint with <code>pool</code> if applied.
+     *
+     * @param pool Applied {@link PubspecInternPool}, or <code>null</code> if not applied.
+     * @param raw Raw constraint.
+     *
+     * @return Parsed {@link PubSemVerConstraint}.
+     */
+    @Nonnull
+    static PubSemVerConstraint constraint(@Nullable PubspecInternPool pool, @Nullable String raw) {
+        return pool == null ? PubSemVerConstraint.parse(raw) : pool.constraint(raw);
+    }
+
+    /**
+     * Parse version with <code>pool</code> if applied.
+     *
+     * @param pool Applied {@link PubspecInternPool}, or <code>null</code> if not applied.
+     * @param raw Raw version.
+     *
+     * @return Parsed {@link SemVer}.
+     *
+     * @throws NonStandardSemVerException If <code>raw</code> is not a valid version.
+     */
+    @Nonnull
+    static SemVer version(@Nullable PubspecInternPool pool, @Nonnull String raw) throws NonStandardSemVerException {
+        return pool == null ? SemVer.parse(raw) : pool.version(raw);
+    }
+
+    /**
+     * Parse Git repository URL with <code>pool</code> if applied.
+     *
+     * @param pool Applied {@link PubspecInternPool}, or <code>null</code> if not applied.
+     * @param raw Raw URL of Git repository.
+     *
+     * @return Parsed {@link GitRepositoryURL}.
+     *
+     * @throws UnknownGitRepositoryURLTypeException If <code>raw</code> is not a valid Git repository URL.
+     */
+    @Nonnull
+    static GitRepositoryURL gitURL(@Nullable PubspecInternPool pool, @Nonnull String raw)
+            throws UnknownGitRepositoryURLTypeException {
+        return pool == null ? GitRepositoryURL.parse(raw) : pool.gitURL(raw);
+    }
+}
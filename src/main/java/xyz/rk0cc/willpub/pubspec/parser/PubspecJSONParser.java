@@ -10,8 +10,13 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 public final class PubspecJSONParser {
     /**
      * Generate {@link ObjectMapper} with no factory implemented.
+     * <br/>
+     * It constructs a new {@link ObjectMapper} in every call. For reading and writing
+     * {@link xyz.rk0cc.willpub.pubspec.data.Pubspec} repeatedly, uses {@link PubspecParserEngine#json()} instead.
      *
      * @return {@link ObjectMapper} for resolving JSON format.
+     *
+     * @see PubspecParserEngine
      */
     public static ObjectMapper getParser() {
         return new ObjectMapper().registerModule(PubspecParser.pubsepcModule());
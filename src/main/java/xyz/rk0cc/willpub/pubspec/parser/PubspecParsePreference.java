@@ -5,7 +5,9 @@ import xyz.rk0cc.josev.SemVerRangeNode;
 import xyz.rk0cc.josev.constraint.pub.PubSemVerConstraint;
 
 import javax.annotation.Nonnull;
+import java.util.Collections;
 import java.util.EnumSet;
+import java.util.Set;
 import java.util.function.Predicate;
 
 /**
@@ -83,10 +85,14 @@ public enum PubspecParsePreference {
     }
 
     /**
-     * {@link EnumSet} which contains enabled preferences.
+     * An immutable {@link EnumSet} which contains enabled preferences.
+     * <br/>
+     * It will be replaced entirely when {@link #enable(PubspecParsePreference) enabling} or
+     * {@link #disable(PubspecParsePreference) disabling} preference, so that any thread which reading it will never
+     * get a partially modified set.
      */
-    private static final EnumSet<PubspecParsePreference> enabledPreference
-            = EnumSet.of(SUCCINCT_THIRD_PARTY_HOSTED_FORMAT);
+    private static volatile Set<PubspecParsePreference> enabledPreference
+            = Collections.unmodifiableSet(EnumSet.of(SUCCINCT_THIRD_PARTY_HOSTED_FORMAT));
 
     /**
      * Enable giving preference and apply it when meeting SDK constraint requirement.
@@ -95,8 +101,14 @@ public enum PubspecParsePreference {
      *
      * @return <code>true</code> if modified.
      */
-    public static boolean enable(@Nonnull PubspecParsePreference preference) {
-        return enabledPreference.add(preference);
+    public static synchronized boolean enable(@Nonnull PubspecParsePreference preference) {
+        if (enabledPreference.contains(preference)) return false;
+
+        final EnumSet<PubspecParsePreference> modified = EnumSet.noneOf(PubspecParsePreference.class);
+        modified.addAll(enabledPreference);
+        modified.add(preference);
+        enabledPreference = Collections.unmodifiableSet(modified);
+        return true;
     }
 
     /**
@@ -106,8 +118,14 @@ public enum PubspecParsePreference {
      *
      * @return <code>true</code> if modified.
      */
-    public static boolean disable(@Nonnull PubspecParsePreference preference) {
-        return enabledPreference.remove(preference);
+    public static synchronized boolean disable(@Nonnull PubspecParsePreference preference) {
+        if (!enabledPreference.contains(preference)) return false;
+
+        final EnumSet<PubspecParsePreference> modified = EnumSet.noneOf(PubspecParsePreference.class);
+        modified.addAll(enabledPreference);
+        modified.remove(preference);
+        enabledPreference = Collections.unmodifiableSet(modified);
+        return true;
     }
 
     /**
@@ -121,6 +139,21 @@ public enum PubspecParsePreference {
         return enabledPreference.contains(preference);
     }
 
+    /**
+     * Get a profile of all enabled preferences at the moment of calling this method.
+     * <br/>
+     * The returned {@link Set} is unmodifiable and will not reflect any later changes by
+     * {@link #enable(PubspecParsePreference)} or {@link #disable(PubspecParsePreference)}.
+     *
+     * @return An unmodifiable {@link Set} of enabled preferences.
+     *
+     * @since 2.1.0
+     */
+    @Nonnull
+    public static Set<PubspecParsePreference> currentProfile() {
+        return enabledPreference;
+    }
+
     /**
      * Giving targeted preference with Dart SDK constraint, to determine is eligible to using this preference or not.
      *
@@ -130,6 +163,24 @@ public enum PubspecParsePreference {
      * @return <code>true</code> if enabled and met the constraint requirement.
      */
     static boolean eligible(@Nonnull PubspecParsePreference preference, @Nonnull PubSemVerConstraint sdk) {
-        return isEnabled(preference) && preference.sdkCondition.test(sdk);
+        return eligible(enabledPreference, preference, sdk);
+    }
+
+    /**
+     * Giving targeted preference with Dart SDK constraint, to determine is eligible to using this preference under
+     * specified preference profile.
+     *
+     * @param profile A {@link Set} of enabled preferences.
+     * @param preference Scoped preference for incoming operation.
+     * @param sdk Dart SDK constant.
+     *
+     * @return <code>true</code> if enabled in <code>profile</code> and met the constraint requirement.
+     */
+    static boolean eligible(
+            @Nonnull Set<PubspecParsePreference> profile,
+            @Nonnull PubspecParsePreference preference,
+            @Nonnull PubSemVerConstraint sdk
+    ) {
+        return profile.contains(preference) && preference.sdkCondition.test(sdk);
     }
 }
@@ -1,12 +1,12 @@
 package xyz.rk0cc.willpub.pubspec.parser;
 
 import com.fasterxml.jackson.core.*;
-import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.*;
 import com.fasterxml.jackson.databind.module.SimpleModule;
 import com.fasterxml.jackson.databind.node.*;
 import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
 import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
 import xyz.rk0cc.jogu.GitRepositoryURL;
 import xyz.rk0cc.josev.NonStandardSemVerException;
 import xyz.rk0cc.josev.SemVer;
@@ -15,9 +15,12 @@ import xyz.rk0cc.josev.constraint.pub.PubSemVerConstraint;
 import xyz.rk0cc.willpub.pubspec.data.*;
 import xyz.rk0cc.willpub.pubspec.data.dependencies.*;
 import xyz.rk0cc.willpub.pubspec.data.dependencies.type.*;
+import xyz.rk0cc.willpub.pubspec.data.persistent.PersistentJson;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.URL;
 import java.nio.file.Paths;
 import java.util.*;
@@ -85,78 +88,66 @@ public final class PubspecParser {
 
         /**
          * {@inheritDoc}
+         * <br/>
+         * The document is consumed as a single pass of tokens. Known fields are assigned into {@link Pubspec}
+         * directly, and only the fields which will be stored into {@link Pubspec#additionalData()} are buffered.
          */
         @Nonnull
         @Override
         public Pubspec deserialize(JsonParser jsonParser, DeserializationContext deserializationContext)
                 throws IOException {
             try {
-                ObjectNode pubspecYAML = jsonParser.getCodec().readTree(jsonParser);
-                final String name = pubspecYAML.get("name").textValue();
-
-                ObjectNode pubspecEnv = (ObjectNode) pubspecYAML.get("environment");
-                final PubspecEnvironment environment = new PubspecEnvironment(
-                        PubSemVerConstraint.parse(pubspecEnv.get("sdk").textValue()),
-                        pubspecEnv.has("flutter")
-                                ? PubSemVerConstraint.parse(pubspecEnv.get("flutter").textValue())
-                                : null
-                );
+                if (!jsonParser.hasToken(JsonToken.START_OBJECT) && jsonParser.nextToken() != JsonToken.START_OBJECT)
+                    throw new IOException("pubspec.yaml must be an object");
 
-                final SemVer version = SemVer.parse(pubspecYAML.get("version").textValue());
-
-                final String description = pubspecYAML.has("description")
-                        ? pubspecYAML.get("description").textValue()
-                        : null;
-
-                final String publishTo = pubspecYAML.has("publish_to")
-                        ? pubspecYAML.get("publish_to").textValue()
-                        : null;
-
-                final URL homepage = pubspecYAML.has("homepage")
-                                ? new URL(pubspecYAML.get("homepage").textValue())
-                                : null,
-                        repository = pubspecYAML.has("repository")
-                                ? new URL(pubspecYAML.get("repository").textValue())
-                                : null,
-                        issueTracker = pubspecYAML.has("issue_tracker")
-                                ? new URL(pubspecYAML.get("issue_tracker").textValue())
-                                : null,
-                        documentation = pubspecYAML.has("documentation")
-                                ? new URL(pubspecYAML.get("documentation").textValue())
-                                : null;
+                String name = null, description = null, publishTo = null;
+                SemVer version = null;
+                PubspecEnvironment environment = null;
+                URL homepage = null, repository = null, issueTracker = null, documentation = null;
+                PubspecPlatforms platforms = PubspecPlatforms.createAllSupported();
 
                 final ImportedReferenceSet dependencies = new ImportedReferenceSet(),
                         devDependencies = new ImportedReferenceSet();
 
                 final OverrideReferenceSet dependencyOverrides = new OverrideReferenceSet();
 
-                JsonNode depNode = pubspecYAML.get("dependencies"),
-                         devDepNode = pubspecYAML.get("devDependencies"),
-                         depOverrideNode = pubspecYAML.get("dependencyOverrides");
-
-                if (depNode != null && depNode.isObject())
-                    assignDRFromNode((ObjectNode) depNode, dependencies);
+                final LinkedHashMap<String, Object> additionalData = new LinkedHashMap<>();
 
-                if (devDepNode != null && devDepNode.isObject())
-                    assignDRFromNode((ObjectNode) devDepNode, devDependencies);
+                final PubspecInternPool pool = (PubspecInternPool) deserializationContext.getAttribute(
+                        PubspecParserEngine.INTERN_POOL_ATTRIBUTE
+                );
 
-                if (depOverrideNode != null && depOverrideNode.isObject())
-                    assignDRFromNode((ObjectNode) depOverrideNode, dependencyOverrides);
+                for (String field = jsonParser.nextFieldName(); field != null; field = jsonParser.nextFieldName()) {
+                    jsonParser.nextToken();
+
+                    switch (field) {
+                        case "name" -> name = readText(jsonParser);
+                        case "environment" -> environment = readEnvironment(jsonParser, pool);
+                        case "version" -> {
+                            String v = readText(jsonParser);
+                            version = v == null ? null : PubspecInternPool.version(pool, v);
+                        }
+                        case "description" -> description = readText(jsonParser);
+                        case "publish_to" -> publishTo = readText(jsonParser);
+                        case "homepage" -> homepage = readURL(jsonParser);
+                        case "repository" -> repository = readURL(jsonParser);
+                        case "issue_tracker" -> issueTracker = readURL(jsonParser);
+                        case "documentation" -> documentation = readURL(jsonParser);
+                        case "dependencies" ->
+                                assignDRFromParser(jsonParser, deserializationContext, pool, dependencies);
+                        case "dev_dependencies" ->
+                                assignDRFromParser(jsonParser, deserializationContext, pool, devDependencies);
+                        case "dependency_overrides" ->
+                                assignDRFromParser(jsonParser, deserializationContext, pool, dependencyOverrides);
+                        case "platforms" -> platforms = readPlatforms(jsonParser);
+                        default -> additionalData.put(field, readAdditionalValue(jsonParser, deserializationContext));
+                    }
+                }
 
-                PubspecPlatforms platforms;
+                if (name == null) throw new IOException("Field 'name' is mandatory");
+                else if (environment == null) throw new IOException("Field 'environment' is mandatory");
 
-                if (pubspecYAML.has("platforms")) {
-                    ObjectNode node = (ObjectNode) pubspecYAML.get("platforms");
-                    platforms = new PubspecPlatforms(
-                            node.has("android"),
-                            node.has("ios"),
-                            node.has("linux"),
-                            node.has("macos"),
-                            node.has("web"),
-                            node.has("windows")
-                    );
-                } else
-                    platforms = PubspecPlatforms.createAllSupported();
+                if (pool != null) platforms = pool.platforms(platforms);
 
                 return new Pubspec(
                         name,
@@ -172,7 +163,7 @@ public final class PubspecParser {
                         devDependencies,
                         dependencyOverrides,
                         platforms,
-                        jsonNodeAFParser(pubspecYAML)
+                        additionalData
                 );
             } catch (Exception e) {
                 throw new IOException("At least one exceptions throws when parsing pubspec.yaml", e);
@@ -180,40 +171,243 @@ public final class PubspecParser {
         }
 
         /**
-         * Handling conversion between {@link ObjectNode} and {@link DependenciesReferenceSet}.
+         * Read a value which will be stored in {@link Pubspec#additionalData()}.
+         * <br/>
+         * Scalar value will be resolved immediately. For object and array, it only buffers tokens as
+         * {@link BufferedAdditionalValue} which will be decoded when it accessed.
+         *
+         * @param jsonParser A parser which pointing to the value.
+         * @param deserializationContext Context of current deserialization.
+         *
+         * @return Resolved scalar value or {@link BufferedAdditionalValue}.
+         *
+         * @throws IOException If unable to read the value.
+         */
+        @Nullable
+        private static Object readAdditionalValue(
+                @Nonnull JsonParser jsonParser,
+                @Nonnull DeserializationContext deserializationContext
+        ) throws IOException {
+            if (!jsonParser.isExpectedStartObjectToken() && !jsonParser.isExpectedStartArrayToken())
+                return deserializationContext.readValue(jsonParser, Object.class);
+
+            return new BufferedAdditionalValue(
+                    deserializationContext.bufferAsCopyOfValue(jsonParser),
+                    jsonParser.getCodec()
+            );
+        }
+
+        /**
+         * Read <code>environment</code> field from current object of {@link JsonParser}.
+         *
+         * @param jsonParser A parser which pointing to the start of <code>environment</code> object.
+         * @param pool Applied {@link PubspecInternPool}, or <code>null</code> if not applied.
+         *
+         * @return Parsed {@link PubspecEnvironment}.
+         *
+         * @throws Exception Any exception thrown during parsing environment.
+         */
+        @Nonnull
+        private static PubspecEnvironment readEnvironment(
+                @Nonnull JsonParser jsonParser,
+                @Nullable PubspecInternPool pool
+        ) throws Exception {
+            if (!jsonParser.hasToken(JsonToken.START_OBJECT))
+                throw new IOException("Field 'environment' must be an object");
+
+            String sdk = null, flutter = null;
+
+            for (String field = jsonParser.nextFieldName(); field != null; field = jsonParser.nextFieldName()) {
+                jsonParser.nextToken();
+
+                switch (field) {
+                    case "sdk" -> sdk = readText(jsonParser);
+                    case "flutter" -> flutter = readText(jsonParser);
+                    default -> jsonParser.skipChildren();
+                }
+            }
+
+            Objects.requireNonNull(sdk, "SDK constraint is mandatory");
+
+            if (pool != null) return pool.environment(sdk, flutter);
+
+            return new PubspecEnvironment(
+                    PubSemVerConstraint.parse(sdk),
+                    flutter == null ? null : PubSemVerConstraint.parse(flutter)
+            );
+        }
+
+        /**
+         * Read current value of {@link JsonParser} as {@link URL}.
+         *
+         * @param jsonParser A parser which pointing to the value.
+         *
+         * @return {@link URL} of the value, or <code>null</code> if the value is <code>null</code>.
+         *
+         * @throws IOException If the value is not a valid {@link URL}.
+         */
+        @Nullable
+        private static URL readURL(@Nonnull JsonParser jsonParser) throws IOException {
+            String url = readText(jsonParser);
+
+            return url == null ? null : new URL(url);
+        }
+
+        /**
+         * Read a scalar field as {@link String}.
+         * <br/>
+         * If the field is an object or array, the whole value will be skipped and <code>null</code> will be
+         * returned, so that the parser still pointing to the end of this field.
+         *
+         * @param jsonParser A parser which pointing to the value.
+         *
+         * @return Text of the value, or <code>null</code> if the value is null, object or array.
+         *
+         * @throws IOException If unable to read or skip the value.
+         */
+        @Nullable
+        private static String readText(@Nonnull JsonParser jsonParser) throws IOException {
+            if (jsonParser.isExpectedStartObjectToken() || jsonParser.isExpectedStartArrayToken()) {
+                jsonParser.skipChildren();
+                return null;
+            }
+
+            return jsonParser.getValueAsString();
+        }
+
+        /**
+         * Read <code>platforms</code> field from current object of {@link JsonParser}.
+         *
+         * @param jsonParser A parser which pointing to the start of <code>platforms</code> object.
+         *
+         * @return Parsed {@link PubspecPlatforms}.
+         *
+         * @throws IOException If unable to read the object.
+         */
+        @Nonnull
+        private static PubspecPlatforms readPlatforms(@Nonnull JsonParser jsonParser) throws IOException {
+            if (!jsonParser.hasToken(JsonToken.START_OBJECT)) {
+                jsonParser.skipChildren();
+                return PubspecPlatforms.createAllSupported();
+            }
+
+            boolean android = false, ios = false, linux = false, macos = false, web = false, windows = false;
+
+            for (String field = jsonParser.nextFieldName(); field != null; field = jsonParser.nextFieldName()) {
+                jsonParser.nextToken();
+                jsonParser.skipChildren();
+
+                switch (field) {
+                    case "android" -> android = true;
+                    case "ios" -> ios = true;
+                    case "linux" -> linux = true;
+                    case "macos" -> macos = true;
+                    case "web" -> web = true;
+                    case "windows" -> windows = true;
+                }
+            }
+
+            return new PubspecPlatforms(android, ios, linux, macos, web, windows);
+        }
+
+        /**
+         * Handling conversion between dependencies object in {@link JsonParser} and {@link DependenciesReferenceSet}.
+         * <br/>
+         * Only a single dependency will be buffered as {@link JsonNode} at the same time.
          *
-         * @param dependenciesNode A node representing entire dependencies field.
+         * @param jsonParser A parser which pointing to the start of dependencies object.
+         * @param deserializationContext Context of current deserialization.
+         * @param pool Applied {@link PubspecInternPool}, or <code>null</code> if not applied.
          * @param drs A {@link DependenciesReferenceSet} pending to applied.
          *
          * @throws Exception Any exception thrown during applying dependencies.
          */
-        private static void assignDRFromNode(
-                @Nonnull ObjectNode dependenciesNode,
+        private static void assignDRFromParser(
+                @Nonnull JsonParser jsonParser,
+                @Nonnull DeserializationContext deserializationContext,
+                @Nullable PubspecInternPool pool,
                 @Nonnull DependenciesReferenceSet drs
         ) throws Exception {
-            final Iterator<Map.Entry<String, JsonNode>> fields = dependenciesNode.fields();
+            if (!jsonParser.hasToken(JsonToken.START_OBJECT)) {
+                jsonParser.skipChildren();
+                return;
+            }
+
+            for (String field = jsonParser.nextFieldName(); field != null; field = jsonParser.nextFieldName()) {
+                jsonParser.nextToken();
+
+                JsonNode node = deserializationContext.readTree(jsonParser);
 
-            while (fields.hasNext()) {
-                Map.Entry<String, JsonNode> entry = fields.next();
+                DependencyReference dr = DependencyReferenceDictionary.detectReference(node)
+                        .jsonToRef(Map.entry(field, node), pool);
 
-                drs.add(DependencyReferenceDictionary.detectReference(entry.getValue()).jsonToRef(entry));
+                drs.add(pool == null ? dr : pool.reference(dr));
             }
         }
+    }
+
+    /**
+     * A {@link DeferredAdditionalValue} which holding parsed tokens of an object or array in a {@link TokenBuffer}.
+     *
+     * @since 2.1.0
+     */
+    private static final class BufferedAdditionalValue implements DeferredAdditionalValue {
+        private final TokenBuffer buffer;
+        private final ObjectCodec codec;
+        private volatile boolean decoded;
+        private Object decodedValue;
 
         /**
-         * Apply remaining fields in <code>pubspec.yaml</code> which does not declared in {@link Pubspec}.
-         *
-         * @param node Entire <code>pubspec.yaml</code>'s {@link ObjectNode}.
+         * Hold the buffer until it is decoded.
          *
-         * @return A {@link LinkedHashMap} which filtered out existed field in {@link Pubspec}.
+         * @param buffer Copied tokens of the value.
+         * @param codec An {@link ObjectCodec} which uses for decoding.
          */
-        @Nonnull
-        private static LinkedHashMap<String, Object> jsonNodeAFParser(@Nonnull ObjectNode node) {
-            ObjectNode dcn = node.deepCopy();
+        BufferedAdditionalValue(@Nonnull TokenBuffer buffer, @Nonnull ObjectCodec codec) {
+            this.buffer = buffer;
+            this.codec = codec;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Nullable
+        @Override
+        public Object decode() {
+            if (!decoded) {
+                synchronized (this) {
+                    if (!decoded) {
+                        try (JsonParser bp = buffer.asParser(codec)) {
+                            bp.nextToken();
+                            decodedValue = PersistentJson.freeze(codec.readValue(bp, Object.class));
+                        } catch (IOException e) {
+                            throw new UncheckedIOException("Unable to decode buffered additional data", e);
+                        }
+                        decoded = true;
+                    }
+                }
+            }
 
-            dcn.remove(PUBSPEC_YAML_FIELD);
+            return decodedValue;
+        }
 
-            return new LinkedHashMap<>(new ObjectMapper().convertValue(dcn, new TypeReference<Map<String, Object>>(){}));
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean isDecoded() {
+            return decoded;
+        }
+
+        /**
+         * Write buffered tokens into {@link JsonGenerator} without decoding.
+         *
+         * @param jsonGenerator Destination of the tokens.
+         *
+         * @throws IOException If unable to write.
+         */
+        void writeTo(@Nonnull JsonGenerator jsonGenerator) throws IOException {
+            buffer.serialize(jsonGenerator);
         }
     }
 
@@ -223,6 +417,12 @@ public final class PubspecParser {
      * @since 1.0.0
      */
     private static final class PubspecToYAML extends StdSerializer<Pubspec> {
+        /**
+         * Maximum {@link PersistentJson#depthOf(Object) depth} of additional data which is written by
+         * {@link JsonGenerator#writeObject(Object)} recursively.
+         */
+        private static final int RECURSIVE_WRITE_DEPTH = 256;
+
         /**
          * Construct parser without class declared.
          */
@@ -249,6 +449,7 @@ public final class PubspecParser {
             // Take a snapshot to prevent modification from provider
             PubspecSnapshot snapshot = PubspecSnapshot.getSnapshotOfCurrentPubspec(pubspec);
             PubSemVerConstraint sdk = snapshot.environment().sdk();
+            Set<PubspecParsePreference> profile = preferenceProfile(serializerProvider);
 
             assert snapshot.additionalData().keySet().stream().noneMatch(PUBSPEC_YAML_FIELD::contains);
 
@@ -288,19 +489,19 @@ public final class PubspecParser {
 
             if (snapshot.dependencies().size() > 0) {
                 jsonGenerator.writeObjectFieldStart("dependencies");
-                writeDRSInJson(snapshot.dependencies(), jsonGenerator, sdk);
+                writeDRSInJson(snapshot.dependencies(), jsonGenerator, sdk, profile);
                 jsonGenerator.writeEndObject();
             }
 
             if (snapshot.devDependencies().size() > 0) {
                 jsonGenerator.writeObjectFieldStart("dev_dependencies");
-                writeDRSInJson(snapshot.devDependencies(), jsonGenerator, sdk);
+                writeDRSInJson(snapshot.devDependencies(), jsonGenerator, sdk, profile);
                 jsonGenerator.writeEndObject();
             }
 
             if (snapshot.dependencyOverrides().size() > 0) {
                 jsonGenerator.writeObjectFieldStart("dependency_overrides");
-                writeDRSInJson(snapshot.dependencyOverrides(), jsonGenerator, sdk);
+                writeDRSInJson(snapshot.dependencyOverrides(), jsonGenerator, sdk, profile);
                 jsonGenerator.writeEndObject();
             }
 
@@ -317,6 +518,7 @@ public final class PubspecParser {
             // Display supported platform when Dart 2.16 or later
             if (dart216) {
                 boolean forceShowPlatforms = PubspecParsePreference.eligible(
+                        profile,
                         PubspecParsePreference.SHOW_PLATFORMS_ENTRY_WHEN_ALL_PLATFORM_SUPPORTED,
                         snapshot.environment().sdk()
                 );
@@ -337,15 +539,77 @@ public final class PubspecParser {
                 }
             }
 
-            // Append remaining additional field
-            for (Map.Entry<String, Object> adE : snapshot.additionalData().entrySet()) {
-                jsonGenerator.writeFieldName(adE.getKey());
-                jsonGenerator.writeObject(adE.getValue());
+            // Append remaining additional field, write buffered tokens directly if it has never been decoded
+            final AdditionalDataMap additionalData = (AdditionalDataMap) snapshot.additionalData();
+            for (String adK : additionalData.keySet()) {
+                jsonGenerator.writeFieldName(adK);
+
+                if (additionalData.rawValue(adK) instanceof BufferedAdditionalValue bav && !bav.isDecoded()) {
+                    bav.writeTo(jsonGenerator);
+                    continue;
+                }
+
+                final Object value = additionalData.get(adK);
+                if (PersistentJson.depthOf(value) > RECURSIVE_WRITE_DEPTH)
+                    writeDeepAdditionalValue(jsonGenerator, value);
+                else
+                    jsonGenerator.writeObject(value);
             }
 
             jsonGenerator.writeEndObject();
         }
 
+        /**
+         * Write a decoded value of {@link Pubspec#additionalData()} which is too deep for
+         * {@link JsonGenerator#writeObject(Object)}.
+         * <br/>
+         * Nested collections are walked with an explicit stack, so that any value accepted by
+         * {@link PersistentJson#freeze(Object)} can be written regardless of its depth. It is slower than
+         * {@link JsonGenerator#writeObject(Object)}, therefore it only applies to the value deeper than
+         * {@link #RECURSIVE_WRITE_DEPTH}.
+         *
+         * @param jsonGenerator Destination of the value.
+         * @param value A JSON liked value.
+         *
+         * @throws IOException If unable to write.
+         */
+        private static void writeDeepAdditionalValue(
+                @Nonnull JsonGenerator jsonGenerator,
+                @Nullable Object value
+        ) throws IOException {
+            final ArrayDeque<Iterator<?>> opened = new ArrayDeque<>();
+            Object current = value;
+
+            while (true) {
+                if (current instanceof List<?> l) {
+                    jsonGenerator.writeStartArray(l, l.size());
+                    opened.push(l.iterator());
+                } else if (current instanceof Map<?, ?> m) {
+                    jsonGenerator.writeStartObject(m, m.size());
+                    opened.push(m.entrySet().iterator());
+                } else if (current == null) jsonGenerator.writeNull();
+                else if (current instanceof String str) jsonGenerator.writeString(str);
+                else if (current instanceof Boolean b) jsonGenerator.writeBoolean(b);
+                else if (current instanceof Integer i) jsonGenerator.writeNumber(i);
+                else jsonGenerator.writeObject(current);
+
+                Iterator<?> items;
+                while ((items = opened.peek()) != null && !items.hasNext()) {
+                    opened.pop();
+                    if (jsonGenerator.getOutputContext().inArray()) jsonGenerator.writeEndArray();
+                    else jsonGenerator.writeEndObject();
+                }
+
+                if (items == null) return;
+
+                final Object next = items.next();
+                if (next instanceof Map.Entry<?, ?> e && jsonGenerator.getOutputContext().inObject()) {
+                    jsonGenerator.writeFieldName((String) e.getKey());
+                    current = e.getValue();
+                } else current = next;
+            }
+        }
+
         /**
          * Writing {@link DependenciesReferenceSet} with given {@link JsonGenerator}.
          *
@@ -353,19 +617,39 @@ public final class PubspecParser {
          * @param jg {@link JsonGenerator} which come from
          *           {@link StdSerializer#serialize(Object, JsonGenerator, SerializerProvider)}.
          * @param sdk Version constraint of Dart SDK to determine is
-         *            {@link PubspecParsePreference#eligible(PubspecParsePreference, PubSemVerConstraint)}.
+         *            {@link PubspecParsePreference#eligible(Set, PubspecParsePreference, PubSemVerConstraint)}.
+         * @param profile Enabled {@link PubspecParsePreference} when writing.
          *
          * @throws IOException Encounter problem when writing dependencies to {@link JsonGenerator}.
          */
         private static void writeDRSInJson(
                 @Nonnull DependenciesReferenceSet drs,
                 @Nonnull JsonGenerator jg,
-                @Nonnull PubSemVerConstraint sdk
+                @Nonnull PubSemVerConstraint sdk,
+                @Nonnull Set<PubspecParsePreference> profile
         ) throws IOException {
             assert drs.size() > 0;
 
             for (DependencyReference dr : drs)
-                DependencyReferenceDictionary.detectReference(dr).refToJson(dr, jg, sdk);
+                DependencyReferenceDictionary.detectReference(dr).refToJson(dr, jg, sdk, profile);
+        }
+
+        /**
+         * Resolve which {@link PubspecParsePreference preferences} should be applied in this serialization.
+         *
+         * @param serializerProvider Provider which may carry a preference profile from {@link PubspecParserEngine}.
+         *
+         * @return Attached profile from {@link PubspecParserEngine#writer(Set)}, or
+         *         {@link PubspecParsePreference#currentProfile() current profile} if not attached.
+         */
+        @SuppressWarnings("unchecked")
+        @Nonnull
+        private static Set<PubspecParsePreference> preferenceProfile(@Nonnull SerializerProvider serializerProvider) {
+            Object attached = serializerProvider.getAttribute(PubspecParserEngine.PREFERENCE_PROFILE_ATTRIBUTE);
+
+            return attached instanceof Set<?> p
+                    ? (Set<PubspecParsePreference>) p
+                    : PubspecParsePreference.currentProfile();
         }
     }
 }
@@ -401,13 +685,14 @@ interface DependencyDefinition<D extends DependencyReference> {
      *
      * @param name Dependency name.
      * @param node Node of this dependency.
+     * @param pool Applied {@link PubspecInternPool} for parsing values, or <code>null</code> if not applied.
      *
      * @return Object {@link D} which ready to {@link DependenciesReferenceSet#add(DependencyReference)}.
      *
      * @throws Exception When encounter problem during parse.
      */
     @Nonnull
-    D jsonToDR(@Nonnull String name, @Nonnull JsonNode node) throws Exception;
+    D jsonToDR(@Nonnull String name, @Nonnull JsonNode node, @Nullable PubspecInternPool pool) throws Exception;
 
     /**
      * Writing {@link DependencyReference} to a file.
@@ -415,13 +700,15 @@ interface DependencyDefinition<D extends DependencyReference> {
      * @param dependencyJsonNode {@link JsonGenerator} that is using to write dependency info.
      * @param ref Dependency reference.
      * @param sdkVC SDK version constraint.
+     * @param profile Enabled {@link PubspecParsePreference} when writing.
      *
      * @throws IOException Encounter problem when writing.
      */
     void drToJson(
             @Nonnull JsonGenerator dependencyJsonNode,
             @Nonnull DependencyReference ref,
-            @Nonnull PubSemVerConstraint sdkVC
+            @Nonnull PubSemVerConstraint sdkVC,
+            @Nonnull Set<PubspecParsePreference> profile
     ) throws IOException;
 }
 
@@ -447,15 +734,20 @@ enum DependencyReferenceDictionary {
 
         @Nonnull
         @Override
-        public HostedReference jsonToDR(@Nonnull String name, @Nonnull JsonNode node) throws Exception {
-            return new HostedReference(name, PubSemVerConstraint.parse(node.textValue()));
+        public HostedReference jsonToDR(
+                @Nonnull String name,
+                @Nonnull JsonNode node,
+                @Nullable PubspecInternPool pool
+        ) throws Exception {
+            return new HostedReference(name, PubspecInternPool.constraint(pool, node.textValue()));
         }
 
         @Override
         public void drToJson(
                 @Nonnull JsonGenerator dependencyJsonNode,
                 @Nonnull DependencyReference ref,
-                @Nonnull PubSemVerConstraint sdkVC
+                @Nonnull PubSemVerConstraint sdkVC,
+                @Nonnull Set<PubspecParsePreference> profile
         ) throws IOException {
             String vc = ((HostedReference) ref).versionConstraint().rawConstraint();
 
@@ -480,7 +772,11 @@ enum DependencyReferenceDictionary {
 
         @Nonnull
         @Override
-        public LocalReference jsonToDR(@Nonnull String name, @Nonnull JsonNode node) throws Exception {
+        public LocalReference jsonToDR(
+                @Nonnull String name,
+                @Nonnull JsonNode node,
+                @Nullable PubspecInternPool pool
+        ) throws Exception {
             return new LocalReference(name, Paths.get(node.get("path").textValue()));
         }
 
@@ -488,7 +784,8 @@ enum DependencyReferenceDictionary {
         public void drToJson(
                 @Nonnull JsonGenerator dependencyJsonNode,
                 @Nonnull DependencyReference ref,
-                @Nonnull PubSemVerConstraint sdkVC
+                @Nonnull PubSemVerConstraint sdkVC,
+                @Nonnull Set<PubspecParsePreference> profile
         ) throws IOException {
             String path = ((LocalReference) ref).path().toString();
 
@@ -520,14 +817,18 @@ enum DependencyReferenceDictionary {
 
         @Nonnull
         @Override
-        public GitReference jsonToDR(@Nonnull String name, @Nonnull JsonNode node) throws Exception {
+        public GitReference jsonToDR(
+                @Nonnull String name,
+                @Nonnull JsonNode node,
+                @Nullable PubspecInternPool pool
+        ) throws Exception {
             JsonNode git = node.get("git");
 
             return git.isTextual()
-                    ? new GitReference(name, GitRepositoryURL.parse(git.textValue()))
+                    ? new GitReference(name, PubspecInternPool.gitURL(pool, git.textValue()))
                     : new GitReference(
                             name,
-                            GitRepositoryURL.parse(git.get("url").textValue()),
+                            PubspecInternPool.gitURL(pool, git.get("url").textValue()),
                             git.get("path") == null ? null : git.get("path").textValue(),
                             git.get("ref") == null ? null : git.get("ref").textValue()
                     );
@@ -537,7 +838,8 @@ enum DependencyReferenceDictionary {
         public void drToJson(
                 @Nonnull JsonGenerator dependencyJsonNode,
                 @Nonnull DependencyReference ref,
-                @Nonnull PubSemVerConstraint sdkVC
+                @Nonnull PubSemVerConstraint sdkVC,
+                @Nonnull Set<PubspecParsePreference> profile
         ) throws IOException {
             GitReference gref = (GitReference) ref;
             String url = gref.repositoryURL().assembleURL(),
@@ -585,7 +887,11 @@ enum DependencyReferenceDictionary {
 
         @Nonnull
         @Override
-        public ThirdPartyHostedReference jsonToDR(@Nonnull String name, @Nonnull JsonNode node) throws Exception {
+        public ThirdPartyHostedReference jsonToDR(
+                @Nonnull String name,
+                @Nonnull JsonNode node,
+                @Nullable PubspecInternPool pool
+        ) throws Exception {
             JsonNode hosted = node.get("hosted");
 
             if (hosted.isTextual()) return new ThirdPartyHostedReference(name, new URL(hosted.textValue()));
@@ -595,7 +901,7 @@ enum DependencyReferenceDictionary {
                             name,
                             new URL(hosted.get("url").textValue()),
                             hosted.get("name").textValue(),
-                            PubSemVerConstraint.parse(node.get("version").textValue()))
+                            PubspecInternPool.constraint(pool, node.get("version").textValue()))
                     : new ThirdPartyHostedReference(
                             name,
                             new URL(hosted.get("url").textValue()),
@@ -607,11 +913,13 @@ enum DependencyReferenceDictionary {
         public void drToJson(
                 @Nonnull JsonGenerator dependencyJsonNode,
                 @Nonnull DependencyReference ref,
-                @Nonnull PubSemVerConstraint sdkVC
+                @Nonnull PubSemVerConstraint sdkVC,
+                @Nonnull Set<PubspecParsePreference> profile
         ) throws IOException {
             ThirdPartyHostedReference tphref = (ThirdPartyHostedReference) ref;
 
             final boolean useSuccinct = PubspecParsePreference.eligible(
+                    profile,
                     PubspecParsePreference.SUCCINCT_THIRD_PARTY_HOSTED_FORMAT,
                     sdkVC
             ) && tphref.name().equals(tphref.hostedName());
@@ -619,7 +927,7 @@ enum DependencyReferenceDictionary {
             dependencyJsonNode.writeObjectFieldStart(ref.name());
 
             if (useSuccinct)
-                dependencyJsonNode.writeStringField("hosted", tphref.hostedName());
+                dependencyJsonNode.writeStringField("hosted", tphref.repositoryURL().toString());
             else {
                 dependencyJsonNode.writeObjectFieldStart("hosted");
                 dependencyJsonNode.writeStringField("name", tphref.hostedName());
@@ -649,19 +957,28 @@ enum DependencyReferenceDictionary {
 
         @Nonnull
         @Override
-        public SDKReference jsonToDR(@Nonnull String name, @Nonnull JsonNode node) throws Exception {
+        public SDKReference jsonToDR(
+                @Nonnull String name,
+                @Nonnull JsonNode node,
+                @Nullable PubspecInternPool pool
+        ) throws Exception {
             JsonNode ver = node.get("version");
 
             return ver == null
                     ? new SDKReference(name, node.get("sdk").textValue())
-                    : new SDKReference(name, node.get("sdk").textValue(), PubSemVerConstraint.parse(ver.textValue()));
+                    : new SDKReference(
+                            name,
+                            node.get("sdk").textValue(),
+                            PubspecInternPool.constraint(pool, ver.textValue())
+                    );
         }
 
         @Override
         public void drToJson(
                 @Nonnull JsonGenerator dependencyJsonNode,
                 @Nonnull DependencyReference ref,
-                @Nonnull PubSemVerConstraint sdkVC
+                @Nonnull PubSemVerConstraint sdkVC,
+                @Nonnull Set<PubspecParsePreference> profile
         ) throws IOException {
             SDKReference sref = (SDKReference) ref;
 
@@ -693,14 +1010,18 @@ enum DependencyReferenceDictionary {
      * Convert to {@link DependencyReference} by {@link Map.Entry} which come from {@link JsonNode#fields()}.
      *
      * @param jsonNodeEntry An {@link Map.Entry} from {@link JsonNode#fields()}.
+     * @param pool Applied {@link PubspecInternPool} for parsing values, or <code>null</code> if not applied.
      *
      * @return Corresponded {@link DependencyReference}.
      *
      * @throws Exception When any {@link Exception} thrown during conversion.
      */
     @Nonnull
-    public DependencyReference jsonToRef(@Nonnull Map.Entry<String, JsonNode> jsonNodeEntry) throws Exception {
-        return definition.jsonToDR(jsonNodeEntry.getKey(), jsonNodeEntry.getValue());
+    public DependencyReference jsonToRef(
+            @Nonnull Map.Entry<String, JsonNode> jsonNodeEntry,
+            @Nullable PubspecInternPool pool
+    ) throws Exception {
+        return definition.jsonToDR(jsonNodeEntry.getKey(), jsonNodeEntry.getValue(), pool);
     }
 
     /**
@@ -710,37 +1031,86 @@ enum DependencyReferenceDictionary {
      * @param jsonWriter {@link JsonGenerator} which bundled with
      *                   {@link StdSerializer#serialize(Object, JsonGenerator, SerializerProvider)}.
      * @param sdk Dart SDK version constraint.
+     * @param profile Enabled {@link PubspecParsePreference} when writing.
      *
      * @throws IOException Error encountered when writing to JSON.
      */
     public void refToJson(
             @Nonnull DependencyReference ref,
             @Nonnull JsonGenerator jsonWriter,
-            @Nonnull PubSemVerConstraint sdk
+            @Nonnull PubSemVerConstraint sdk,
+            @Nonnull Set<PubspecParsePreference> profile
     ) throws IOException {
-        definition.drToJson(jsonWriter, ref, sdk);
+        definition.drToJson(jsonWriter, ref, sdk, profile);
     }
 
     /**
-     * Giving an {@link Object}, and return {@link DependencyReferenceDictionary}'s value depending on what items
-     * contain.
+     * A table to find corresponded {@link DependencyReferenceDictionary} by the {@link Class} of
+     * {@link DependencyReference}.
+     * <br/>
+     * Since every permitted subclasses of {@link DependencyReference} are <code>final</code>, {@link Object#getClass()}
+     * is sufficient to be a key of the table.
+     */
+    private static final Map<Class<? extends DependencyReference>, DependencyReferenceDictionary> BY_TYPE = Map.of(
+            HostedReference.class, HOSTED,
+            LocalReference.class, LOCAL,
+            GitReference.class, GIT,
+            ThirdPartyHostedReference.class, THIRD_PARTY,
+            SDKReference.class, SDK
+    );
+
+    /**
+     * Giving a {@link JsonNode} of a dependency, and return {@link DependencyReferenceDictionary}'s value depending on
+     * what items contain.
+     * <br/>
+     * Scalar or <code>null</code> node is always {@link #HOSTED}. Otherwise, it only finds the first field which is
+     * distinguishable for a type in a single pass, then confirm with
+     * {@link DependencyDefinition#relatedJsonStructure(JsonNode)} of that type only.
      *
-     * @param detect An {@link Object} to identify type of {@link DependencyReferenceDictionary}.
+     * @param detect A {@link JsonNode} to identify type of {@link DependencyReferenceDictionary}.
      *
      * @return A {@link DependencyReferenceDictionary} that pointing to the eligible value.
+     *
+     * @throws IllegalArgumentException If the node does not match any structure of {@link DependencyReference}.
      */
     @Nonnull
-    static DependencyReferenceDictionary detectReference(Object detect) {
-        List<DependencyReferenceDictionary> drt = Arrays.stream(DependencyReferenceDictionary.values())
-                .filter(dr -> {
-                    if (detect instanceof JsonNode jn) return dr.definition.relatedJsonStructure(jn);
-                    else if (detect instanceof DependencyReference dro) return dr.definition.isCorrespondedType(dro);
-                    return false;
-                })
-                .toList();
-
-        assert drt.size() == 1;
-
-        return drt.get(0);
+    static DependencyReferenceDictionary detectReference(@Nonnull JsonNode detect) {
+        DependencyReferenceDictionary matched = null;
+
+        if (detect.isNull() || detect.isTextual()) matched = HOSTED;
+        else if (detect.isObject()) {
+            final Iterator<String> fields = detect.fieldNames();
+
+            while (matched == null && fields.hasNext()) {
+                matched = switch (fields.next()) {
+                    case "path" -> LOCAL;
+                    case "git" -> GIT;
+                    case "hosted" -> THIRD_PARTY;
+                    case "sdk" -> SDK;
+                    default -> null;
+                };
+            }
+        }
+
+        if (matched == null || !matched.definition.relatedJsonStructure(detect))
+            throw new IllegalArgumentException("Unknown dependency structure: " + detect);
+
+        return matched;
+    }
+
+    /**
+     * Giving a {@link DependencyReference}, and return corresponded {@link DependencyReferenceDictionary}'s value.
+     *
+     * @param detect A {@link DependencyReference} to identify type of {@link DependencyReferenceDictionary}.
+     *
+     * @return A {@link DependencyReferenceDictionary} that pointing to the eligible value.
+     */
+    @Nonnull
+    static DependencyReferenceDictionary detectReference(@Nonnull DependencyReference detect) {
+        final DependencyReferenceDictionary matched = BY_TYPE.get(detect.getClass());
+
+        assert matched != null && matched.definition.isCorrespondedType(detect);
+
+        return matched;
     }
 }
@@ -0,0 +1,494 @@
+package xyz.rk0cc.willpub.pubspec.parser;
+
+import com.fasterxml.jackson.databind.*;
+import xyz.rk0cc.jogu.GitRepositoryURL;
+import xyz.rk0cc.josev.constraint.pub.PubSemVerConstraint;
+import xyz.rk0cc.willpub.pubspec.data.*;
+import xyz.rk0cc.willpub.pubspec.data.dependencies.type.*;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.*;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A shared and thread-safe engine for reading and writing {@link Pubspec}.
+ * <br/>
+ * Unlike {@link PubspecYAMLParser#getParser()} and {@link PubspecJSONParser#getParser()} which construct a new
+ * {@link ObjectMapper} in every call, {@link PubspecParserEngine} builds the {@link ObjectMapper} once and holds
+ * immutable {@link ObjectReader} and {@link ObjectWriter} from it. Therefore, serializers and deserializers which
+ * resolved by Jackson will be cached and reused among every read and write operation.
+ * <br/>
+ * Since {@link PubspecParsePreference} affects the output, an {@link ObjectWriter} is created for each profile of
+ * {@link PubspecParsePreference#currentProfile() enabled preferences} and reused when the same profile applied again.
+ * <br/>
+ * Values parsed by the engine can be shared among every {@link Pubspec} by applying
+ * {@link #withInternPool(PubspecInternPool) intern pool}, which is disabled by default.
+ *
+ * @since 2.1.0
+ */
+public final class PubspecParserEngine {
+    /**
+     * Attribute key of {@link ObjectWriter#withAttribute(Object, Object)} which storing a {@link Set} of
+     * {@link PubspecParsePreference} during serialization.
+     */
+    static final Object PREFERENCE_PROFILE_ATTRIBUTE = PubspecParsePreference.class;
+
+    /**
+     * Attribute key of {@link ObjectReader#withAttribute(Object, Object)} which storing applied
+     * {@link PubspecInternPool} during deserialization.
+     */
+    static final Object INTERN_POOL_ATTRIBUTE = PubspecInternPool.class;
+
+    /**
+     * Minimum size of file which is memory-mapped by {@link #read(Path)} instead of reading into heap.
+     */
+    static final long MAPPED_READ_THRESHOLD = 1L << 20;
+
+    private final ObjectMapper mapper;
+    private final ObjectReader reader;
+    private final ConcurrentHashMap<Set<PubspecParsePreference>, ObjectWriter> writers;
+    private final PubspecInternPool internPool;
+
+    /**
+     * Build an engine with a fully configured {@link ObjectMapper}.
+     *
+     * @param mapper An {@link ObjectMapper} which registered {@link PubspecParser#pubsepcModule()} already. It must not
+     *               be modified after passed to engine.
+     */
+    private PubspecParserEngine(@Nonnull ObjectMapper mapper) {
+        this.mapper = mapper;
+        this.reader = mapper.readerFor(Pubspec.class);
+        this.writers = new ConcurrentHashMap<>();
+        this.internPool = null;
+    }
+
+    /**
+     * Derive an engine which shares {@link ObjectMapper} and {@link ObjectWriter} from <code>origin</code>, but reads
+     * with given {@link PubspecInternPool}.
+     *
+     * @param origin Original engine.
+     * @param internPool Applied {@link PubspecInternPool}.
+     */
+    private PubspecParserEngine(@Nonnull PubspecParserEngine origin, @Nonnull PubspecInternPool internPool) {
+        this.mapper = origin.mapper;
+        this.reader = origin.reader.withAttribute(INTERN_POOL_ATTRIBUTE, internPool);
+        this.writers = origin.writers;
+        this.internPool = internPool;
+    }
+
+    /**
+     * Get a shared engine for handling YAML format.
+     * <br/>
+     * Using YAML engine required package <code>jackson-dataformat-yaml</code>.
+     *
+     * @return Shared {@link PubspecParserEngine} for resolving <code>pubspec.yaml</code>.
+     */
+    @Nonnull
+    public static PubspecParserEngine yaml() {
+        return YAMLEngineHolder.ENGINE;
+    }
+
+    /**
+     * Get a shared engine for handling JSON format.
+     *
+     * @return Shared {@link PubspecParserEngine} for resolving JSON format.
+     */
+    @Nonnull
+    public static PubspecParserEngine json() {
+        return JSONEngineHolder.ENGINE;
+    }
+
+    /**
+     * Create an engine which reads with the same format of this engine and shares parsed values in
+     * <code>internPool</code>.
+     * <br/>
+     * The same {@link PubspecInternPool} can be applied into multiple engines.
+     *
+     * @param internPool A {@link PubspecInternPool} which shares parsed values.
+     *
+     * @return A new {@link PubspecParserEngine} with applied {@link PubspecInternPool}.
+     */
+    @Nonnull
+    public PubspecParserEngine withInternPool(@Nonnull PubspecInternPool internPool) {
+        return new PubspecParserEngine(this, Objects.requireNonNull(internPool));
+    }
+
+    /**
+     * Get applied {@link PubspecInternPool} of this engine.
+     *
+     * @return Applied {@link PubspecInternPool}, or <code>null</code> if disabled.
+     */
+    @Nullable
+    public PubspecInternPool internPool() {
+        return internPool;
+    }
+
+    /**
+     * An {@link ObjectReader} which uses for reading {@link Pubspec}.
+     *
+     * @return Immutable {@link ObjectReader} of this engine.
+     */
+    @Nonnull
+    public ObjectReader reader() {
+        return reader;
+    }
+
+    /**
+     * An {@link ObjectWriter} which applied {@link PubspecParsePreference#currentProfile() current preferences}.
+     *
+     * @return Immutable {@link ObjectWriter} of current preferences.
+     */
+    @Nonnull
+    public ObjectWriter writer() {
+        return writer(PubspecParsePreference.currentProfile());
+    }
+
+    /**
+     * An {@link ObjectWriter} which applied given preferences no matter which preferences are
+     * {@link PubspecParsePreference#isEnabled(PubspecParsePreference) enabled} globally.
+     *
+     * @param profile A {@link Set} of {@link PubspecParsePreference} which should be enabled in writer.
+     *
+     * @return Immutable {@link ObjectWriter} of giving preferences.
+     */
+    @Nonnull
+    public ObjectWriter writer(@Nonnull Set<PubspecParsePreference> profile) {
+        ObjectWriter cached = writers.get(profile);
+
+        if (cached != null) return cached;
+
+        final EnumSet<PubspecParsePreference> copied = EnumSet.noneOf(PubspecParsePreference.class);
+        copied.addAll(profile);
+        final Set<PubspecParsePreference> key = Collections.unmodifiableSet(copied);
+
+        return writers.computeIfAbsent(
+                key,
+                k -> mapper.writerFor(Pubspec.class).withAttribute(PREFERENCE_PROFILE_ATTRIBUTE, k)
+        );
+    }
+
+    /**
+     * Read a {@link Pubspec} from {@link File}.
+     *
+     * @param file Source file.
+     *
+     * @return Parsed {@link Pubspec}.
+     *
+     * @throws IOException If unable to read or parse the file.
+     */
+    @Nonnull
+    public Pubspec read(@Nonnull File file) throws IOException {
+        return reader.readValue(file);
+    }
+
+    /**
+     * Read a {@link Pubspec} from {@link Path} of any {@link java.nio.file.FileSystem}.
+     * <br/>
+     * Large file will be memory-mapped if the {@link java.nio.file.FileSystem} supports it, otherwise the entire file is
+     * read into heap once.
+     *
+     * @param path Source file.
+     *
+     * @return Parsed {@link Pubspec}.
+     *
+     * @throws IOException If unable to read or parse the file.
+     *
+     * @see #MAPPED_READ_THRESHOLD
+     */
+    @Nonnull
+    public Pubspec read(@Nonnull Path path) throws IOException {
+        if (Files.size(path) >= MAPPED_READ_THRESHOLD) {
+            try (FileChannel channel = FileChannel.open(path)) {
+                return read(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+            } catch (UnsupportedOperationException ignored) {
+                // File system does not support mapping.
+            }
+        }
+
+        return read(Files.readAllBytes(path));
+    }
+
+    /**
+     * Read a {@link Pubspec} from entire <code>content</code>.
+     *
+     * @param content Encoded content of <code>pubspec.yaml</code>.
+     *
+     * @return Parsed {@link Pubspec}.
+     *
+     * @throws IOException If unable to parse the content.
+     */
+    @Nonnull
+    public Pubspec read(@Nonnull byte[] content) throws IOException {
+        return reader.readValue(content);
+    }
+
+    /**
+     * Read a {@link Pubspec} from a range of <code>content</code>.
+     *
+     * @param content Encoded content of <code>pubspec.yaml</code>.
+     * @param offset Index of the first byte.
+     * @param length Number of bytes.
+     *
+     * @return Parsed {@link Pubspec}.
+     *
+     * @throws IOException If unable to parse the content.
+     */
+    @Nonnull
+    public Pubspec read(@Nonnull byte[] content, int offset, int length) throws IOException {
+        Objects.checkFromIndexSize(offset, length, content.length);
+        return reader.readValue(content, offset, length);
+    }
+
+    /**
+     * Read a {@link Pubspec} from remaining bytes of {@link ByteBuffer}. The position of <code>buffer</code> will not be
+     * changed.
+     * <br/>
+     * Heap buffer is parsed from its backing array without copying.
+     *
+     * @param buffer Source buffer.
+     *
+     * @return Parsed {@link Pubspec}.
+     *
+     * @throws IOException If unable to parse the content.
+     */
+    @Nonnull
+    public Pubspec read(@Nonnull ByteBuffer buffer) throws IOException {
+        if (buffer.hasArray())
+            return reader.readValue(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+
+        return reader.readValue(new ByteBufferInputStream(buffer.duplicate()));
+    }
+
+    /**
+     * Read a {@link Pubspec} from {@link ReadableByteChannel} until end of stream. The channel will not be closed.
+     *
+     * @param channel Source channel.
+     *
+     * @return Parsed {@link Pubspec}.
+     *
+     * @throws IOException If unable to read or parse the content.
+     */
+    @Nonnull
+    public Pubspec read(@Nonnull ReadableByteChannel channel) throws IOException {
+        // Stream from Channels is not closed here, which closes the channel also.
+        return read(Channels.newInputStream(channel).readAllBytes());
+    }
+
+    /**
+     * Read a {@link Pubspec} from {@link URL}.
+     *
+     * @param url Source location.
+     *
+     * @return Parsed {@link Pubspec}.
+     *
+     * @throws IOException If unable to read or parse the content.
+     */
+    @Nonnull
+    public Pubspec read(@Nonnull URL url) throws IOException {
+        return reader.readValue(url);
+    }
+
+    /**
+     * Read a {@link Pubspec} from {@link InputStream}. The stream will not be closed.
+     *
+     * @param inputStream Source stream.
+     *
+     * @return Parsed {@link Pubspec}.
+     *
+     * @throws IOException If unable to read or parse the content.
+     */
+    @Nonnull
+    public Pubspec read(@Nonnull InputStream inputStream) throws IOException {
+        return reader.readValue(inputStream);
+    }
+
+    /**
+     * Read a {@link Pubspec} from {@link String} content.
+     *
+     * @param content Entire content of <code>pubspec.yaml</code>.
+     *
+     * @return Parsed {@link Pubspec}.
+     *
+     * @throws IOException If unable to parse the content.
+     */
+    @Nonnull
+    public Pubspec read(@Nonnull String content) throws IOException {
+        return reader.readValue(content);
+    }
+
+    /**
+     * Write {@link Pubspec} into a {@link File} with current preferences.
+     *
+     * @param file Destination file.
+     * @param pubspec Written {@link Pubspec}.
+     *
+     * @throws IOException If unable to write to the file.
+     */
+    public void write(@Nonnull File file, @Nonnull Pubspec pubspec) throws IOException {
+        writer().writeValue(file, pubspec);
+    }
+
+    /**
+     * Write {@link Pubspec} into a {@link Path} of any {@link java.nio.file.FileSystem} with current preferences.
+     *
+     * @param path Destination file, which will be created or truncated.
+     * @param pubspec Written {@link Pubspec}.
+     *
+     * @throws IOException If unable to write to the file.
+     */
+    public void write(@Nonnull Path path, @Nonnull Pubspec pubspec) throws IOException {
+        Files.write(path, writeAsBytes(pubspec));
+    }
+
+    /**
+     * Write {@link Pubspec} into a {@link WritableByteChannel} with current preferences. The channel will not be
+     * closed.
+     *
+     * @param channel Destination channel.
+     * @param pubspec Written {@link Pubspec}.
+     *
+     * @throws IOException If unable to write to the channel.
+     */
+    public void write(@Nonnull WritableByteChannel channel, @Nonnull Pubspec pubspec) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.wrap(writeAsBytes(pubspec));
+        while (buffer.hasRemaining()) channel.write(buffer);
+    }
+
+    /**
+     * Write {@link Pubspec} into an {@link OutputStream} with current preferences. The stream will not be closed.
+     *
+     * @param outputStream Destination stream.
+     * @param pubspec Written {@link Pubspec}.
+     *
+     * @throws IOException If unable to write to the stream.
+     */
+    public void write(@Nonnull OutputStream outputStream, @Nonnull Pubspec pubspec) throws IOException {
+        writer().writeValue(outputStream, pubspec);
+    }
+
+    /**
+     * Write {@link Pubspec} as a {@link String} with current preferences.
+     *
+     * @param pubspec Written {@link Pubspec}.
+     *
+     * @return Content of {@link Pubspec}.
+     *
+     * @throws IOException If unable to serialize {@link Pubspec}.
+     */
+    @Nonnull
+    public String writeAsString(@Nonnull Pubspec pubspec) throws IOException {
+        return writer().writeValueAsString(pubspec);
+    }
+
+    /**
+     * Write {@link Pubspec} as encoded bytes with current preferences.
+     *
+     * @param pubspec Written {@link Pubspec}.
+     *
+     * @return Content of {@link Pubspec} in UTF-8.
+     *
+     * @throws IOException If unable to serialize {@link Pubspec}.
+     */
+    @Nonnull
+    public byte[] writeAsBytes(@Nonnull Pubspec pubspec) throws IOException {
+        return writer().writeValueAsBytes(pubspec);
+    }
+
+    /**
+     * Run a complete round trip of a sample {@link Pubspec} which contains all types of
+     * {@link DependencyReference}, so that all classes, serializers and deserializers are resolved before the first
+     * actual operation.
+     *
+     * @return This engine.
+     *
+     * @throws IOException If the round trip failed.
+     */
+    @Nonnull
+    public PubspecParserEngine warmUp() throws IOException {
+        final Pubspec sample;
+
+        try {
+            sample = new Pubspec("warm_up", new PubspecEnvironment(PubSemVerConstraint.parse(">=2.16.0 <3.0.0")));
+            sample.modifyVersion("1.0.0");
+            sample.dependencies().add(new HostedReference("hosted_dep", PubSemVerConstraint.parse("^1.0.0")));
+            sample.dependencies().add(new SDKReference("sdk_dep", "flutter"));
+            sample.dependencies().add(new LocalReference("local_dep", Paths.get("local_dep")));
+            sample.dependencies().add(new GitReference(
+                    "git_dep",
+                    GitRepositoryURL.parse("https://github.com/example/git_dep.git"),
+                    "packages/git_dep",
+                    "main"
+            ));
+            sample.devDependencies().add(new ThirdPartyHostedReference(
+                    "third_party_dep",
+                    new URL("https://example.com"),
+                    PubSemVerConstraint.parse("^1.0.0")
+            ));
+            sample.modifyAdditionalData("flutter", Map.of("uses-material-design", true));
+        } catch (Exception e) {
+            throw new IOException("Unable to construct warm up sample", e);
+        }
+
+        read(writeAsString(sample));
+
+        return this;
+    }
+
+    /**
+     * Lazy holder of YAML engine, which prevents loading YAML classes until {@link #yaml()} called.
+     */
+    private static final class YAMLEngineHolder {
+        private static final PubspecParserEngine ENGINE = new PubspecParserEngine(PubspecYAMLParser.getParser());
+    }
+
+    /**
+     * Lazy holder of JSON engine.
+     */
+    private static final class JSONEngineHolder {
+        private static final PubspecParserEngine ENGINE = new PubspecParserEngine(PubspecJSONParser.getParser());
+    }
+
+    /**
+     * An {@link InputStream} reads remaining bytes of a {@link ByteBuffer} which has no accessible array.
+     */
+    private static final class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        private ByteBufferInputStream(@Nonnull ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(@Nonnull byte[] b, int off, int len) {
+            Objects.checkFromIndexSize(off, len, b.length);
+
+            if (len == 0) return 0;
+            else if (!buffer.hasRemaining()) return -1;
+
+            final int n = Math.min(len, buffer.remaining());
+            buffer.get(b, off, n);
+            return n;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
@@ -13,8 +13,13 @@ import com.fasterxml.jackson.dataformat.yaml.*;
 public final class PubspecYAMLParser {
     /**
      * Generate {@link ObjectMapper} which implemented {@link YAMLFactory}.
+     * <br/>
+     * It constructs a new {@link ObjectMapper} in every call. For reading and writing
+     * {@link xyz.rk0cc.willpub.pubspec.data.Pubspec} repeatedly, uses {@link PubspecParserEngine#yaml()} instead.
      *
      * @return {@link ObjectMapper} for resolving YAML format.
+     *
+     * @see PubspecParserEngine
      */
     public static ObjectMapper getParser() {
         return new ObjectMapper(new YAMLFactory()
@@ -0,0 +1,125 @@
+package xyz.rk0cc.willpub.pubspec.watch;
+
+import xyz.rk0cc.willpub.pubspec.data.PubspecSnapshot;
+import xyz.rk0cc.willpub.pubspec.data.PubspecSnapshotDelta;
+import xyz.rk0cc.willpub.pubspec.data.dependencies.type.DependencyReference;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.nio.file.Path;
+
+/**
+ * A single change of <code>pubspec.yaml</code> found by {@link PubspecWatcher}.
+ *
+ * @since 2.1.0
+ */
+public sealed interface PubspecChangeEvent {
+    /**
+     * Project directory which contains changed <code>pubspec.yaml</code>.
+     *
+     * @return Absolute {@link Path} of the project.
+     */
+    @Nonnull
+    Path projectPath();
+
+    /**
+     * Which set of {@link DependencyReference} is changed.
+     */
+    enum DependencyScope {
+        DEPENDENCIES, DEV_DEPENDENCIES, DEPENDENCY_OVERRIDES
+    }
+
+    /**
+     * <code>pubspec.yaml</code> is created in a watched project.
+     *
+     * @param projectPath Project directory.
+     * @param snapshot Loaded {@link PubspecSnapshot}.
+     */
+    record Created(@Nonnull Path projectPath, @Nonnull PubspecSnapshot snapshot) implements PubspecChangeEvent {}
+
+    /**
+     * <code>pubspec.yaml</code> is deleted from a watched project.
+     *
+     * @param projectPath Project directory.
+     */
+    record Deleted(@Nonnull Path projectPath) implements PubspecChangeEvent {}
+
+    /**
+     * A {@link PubspecSnapshotDelta.Field field} has different value.
+     *
+     * @param projectPath Project directory.
+     * @param field Changed field.
+     * @param oldValue Previous value.
+     * @param newValue Current value.
+     */
+    record FieldChanged(
+            @Nonnull Path projectPath,
+            @Nonnull PubspecSnapshotDelta.Field field,
+            @Nullable Object oldValue,
+            @Nullable Object newValue
+    ) implements PubspecChangeEvent {}
+
+    /**
+     * A dependency is added.
+     *
+     * @param projectPath Project directory.
+     * @param scope Where the dependency is added.
+     * @param reference Added {@link DependencyReference}.
+     */
+    record DependencyAdded(
+            @Nonnull Path projectPath,
+            @Nonnull DependencyScope scope,
+            @Nonnull DependencyReference reference
+    ) implements PubspecChangeEvent {}
+
+    /**
+     * A dependency is removed.
+     *
+     * @param projectPath Project directory.
+     * @param scope Where the dependency is removed.
+     * @param reference Removed {@link DependencyReference}.
+     */
+    record DependencyRemoved(
+            @Nonnull Path projectPath,
+            @Nonnull DependencyScope scope,
+            @Nonnull DependencyReference reference
+    ) implements PubspecChangeEvent {}
+
+    /**
+     * A dependency with the same name is changed.
+     *
+     * @param projectPath Project directory.
+     * @param scope Where the dependency is changed.
+     * @param oldReference Previous {@link DependencyReference}.
+     * @param newReference Current {@link DependencyReference}.
+     */
+    record DependencyChanged(
+            @Nonnull Path projectPath,
+            @Nonnull DependencyScope scope,
+            @Nonnull DependencyReference oldReference,
+            @Nonnull DependencyReference newReference
+    ) implements PubspecChangeEvent {}
+
+    /**
+     * A field of {@link PubspecSnapshot#additionalData() additional data} is added, removed or changed.
+     *
+     * @param projectPath Project directory.
+     * @param key Field name.
+     * @param oldValue Previous value, or <code>null</code> if added.
+     * @param newValue Current value, or <code>null</code> if removed.
+     */
+    record AdditionalDataChanged(
+            @Nonnull Path projectPath,
+            @Nonnull String key,
+            @Nullable Object oldValue,
+            @Nullable Object newValue
+    ) implements PubspecChangeEvent {}
+
+    /**
+     * <code>pubspec.yaml</code> is changed but it can not be loaded. The previous snapshot is kept.
+     *
+     * @param projectPath Project directory.
+     * @param cause Thrown exception when loading.
+     */
+    record ReloadFailed(@Nonnull Path projectPath, @Nonnull Exception cause) implements PubspecChangeEvent {}
+}
@@ -0,0 +1,38 @@
+package xyz.rk0cc.willpub.pubspec.watch;
+
+import xyz.rk0cc.willpub.pubspec.data.PubspecSnapshot;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * All {@link PubspecChangeEvent} found from a single reload of <code>pubspec.yaml</code>.
+ *
+ * @param projectPath Project directory which contains changed <code>pubspec.yaml</code>.
+ * @param previous {@link PubspecSnapshot} before reloading, or <code>null</code> if the file did not exist.
+ * @param current {@link PubspecSnapshot} after reloading, or <code>null</code> if the file is deleted.
+ * @param events Unmodifiable {@link List} of changes.
+ *
+ * @since 2.1.0
+ */
+public record PubspecChangeSet(
+        @Nonnull Path projectPath,
+        @Nullable PubspecSnapshot previous,
+        @Nullable PubspecSnapshot current,
+        @Nonnull List<PubspecChangeEvent> events
+) {
+    /**
+     * Find all events in given type.
+     *
+     * @param type Type of {@link PubspecChangeEvent}.
+     * @param <E> Type of {@link PubspecChangeEvent}.
+     *
+     * @return A {@link List} of events which is an instance of <code>type</code>.
+     */
+    @Nonnull
+    public <E extends PubspecChangeEvent> List<E> eventsOf(@Nonnull Class<E> type) {
+        return events.stream().filter(type::isInstance).map(type::cast).toList();
+    }
+}
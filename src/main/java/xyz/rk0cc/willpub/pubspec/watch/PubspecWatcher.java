@@ -0,0 +1,564 @@
+package xyz.rk0cc.willpub.pubspec.watch;
+
+import xyz.rk0cc.willpub.pubspec.PubspecRepository;
+import xyz.rk0cc.willpub.pubspec.data.PubspecSnapshot;
+import xyz.rk0cc.willpub.pubspec.data.PubspecSnapshotDelta;
+import xyz.rk0cc.willpub.pubspec.data.dependencies.DependenciesReferenceSet;
+import xyz.rk0cc.willpub.pubspec.data.dependencies.type.DependencyReference;
+import xyz.rk0cc.willpub.pubspec.parser.PubspecParserEngine;
+import xyz.rk0cc.willpub.pubspec.watch.PubspecChangeEvent.*;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.*;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * Watch <code>pubspec.yaml</code> of multiple projects by {@link WatchService} and publish {@link PubspecChangeSet} to
+ * {@link Subscription subscribers} when they are edited.
+ * <br/>
+ * Every project directory is registered into the same {@link WatchService} which is polled by a single daemon thread.
+ * Once <code>pubspec.yaml</code> is touched, it waits until no further event of the same project arrives within the
+ * debounce period, or the maximum wait is elapsed since the first event for a file which is written continuously, then
+ * reloads it by {@link PubspecRepository}, which parses the file only if the content is changed.
+ * The reloaded {@link PubspecSnapshot} is compared with the previous one and differences are published as
+ * {@link PubspecChangeEvent}.
+ * <br/>
+ * Each {@link Subscription} holds a bounded queue. If the queue is full, the {@link PubspecChangeSet} will be dropped
+ * for this subscriber and counted in {@link Subscription#droppedCount()}, so that a slow subscriber never blocks the
+ * watcher. The subscriber can resynchronize with {@link #snapshot(Path)}. Once the subscription or the watcher is
+ * closed, waiting subscribers are woken after all pending {@link PubspecChangeSet} are retrieved.
+ *
+ * @since 2.1.0
+ */
+public final class PubspecWatcher implements Closeable {
+    /**
+     * Default period of waiting further writes before reloading.
+     */
+    public static final Duration DEFAULT_DEBOUNCE = Duration.ofMillis(200);
+
+    /**
+     * Default maximum period between the first write and reloading, even further writes are still arriving.
+     */
+    public static final Duration DEFAULT_MAX_WAIT = Duration.ofSeconds(2);
+
+    /**
+     * Default capacity of queue in each {@link Subscription}.
+     */
+    public static final int DEFAULT_QUEUE_CAPACITY = 1024;
+
+    private static final String PUBSPEC_YAML = "pubspec.yaml";
+
+    private final WatchService watchService;
+    private final PubspecParserEngine engine;
+    private final PubspecRepository repository;
+    private final long debounceNanos, maxWaitNanos;
+    private final ConcurrentHashMap<Path, WatchedProject> projects = new ConcurrentHashMap<>();
+    private final CopyOnWriteArrayList<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    private final Thread worker;
+
+    /**
+     * Create a watcher with {@link #DEFAULT_DEBOUNCE} and a private {@link PubspecRepository}.
+     *
+     * @param engine A {@link PubspecParserEngine} for parsing <code>pubspec.yaml</code>.
+     *
+     * @throws IOException If unable to create {@link WatchService}.
+     */
+    public PubspecWatcher(@Nonnull PubspecParserEngine engine) throws IOException {
+        this(engine, new PubspecRepository(), DEFAULT_DEBOUNCE);
+    }
+
+    /**
+     * Create a watcher with maximum wait which is the longer one of <code>debounce</code> and
+     * {@link #DEFAULT_MAX_WAIT}.
+     *
+     * @param engine A {@link PubspecParserEngine} for parsing <code>pubspec.yaml</code>.
+     * @param repository A {@link PubspecRepository} for loading <code>pubspec.yaml</code>.
+     * @param debounce Period of waiting further writes before reloading.
+     *
+     * @throws IOException If unable to create {@link WatchService}.
+     */
+    public PubspecWatcher(
+            @Nonnull PubspecParserEngine engine,
+            @Nonnull PubspecRepository repository,
+            @Nonnull Duration debounce
+    ) throws IOException {
+        this(engine, repository, debounce, debounce.compareTo(DEFAULT_MAX_WAIT) > 0 ? debounce : DEFAULT_MAX_WAIT);
+    }
+
+    /**
+     * Create a watcher.
+     *
+     * @param engine A {@link PubspecParserEngine} for parsing <code>pubspec.yaml</code>.
+     * @param repository A {@link PubspecRepository} for loading <code>pubspec.yaml</code>.
+     * @param debounce Period of waiting further writes before reloading.
+     * @param maxWait Maximum period between the first write and reloading.
+     *
+     * @throws IOException If unable to create {@link WatchService}.
+     * @throws IllegalArgumentException If <code>debounce</code> is negative or longer than <code>maxWait</code>.
+     */
+    public PubspecWatcher(
+            @Nonnull PubspecParserEngine engine,
+            @Nonnull PubspecRepository repository,
+            @Nonnull Duration debounce,
+            @Nonnull Duration maxWait
+    ) throws IOException {
+        if (debounce.isNegative()) throw new IllegalArgumentException("Debounce period must not be negative");
+        else if (maxWait.compareTo(debounce) < 0)
+            throw new IllegalArgumentException("Maximum wait must not be shorter than debounce period");
+
+        this.watchService = FileSystems.getDefault().newWatchService();
+        this.engine = engine;
+        this.repository = repository;
+        this.debounceNanos = debounce.toNanos();
+        this.maxWaitNanos = maxWait.toNanos();
+        this.worker = new Thread(this::pollLoop, "pubspec-watcher");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /**
+     * Start watching <code>pubspec.yaml</code> in given project directory.
+     *
+     * @param projectPath Project directory.
+     *
+     * @return Current {@link PubspecSnapshot}, or <code>null</code> if <code>pubspec.yaml</code> does not exist.
+     *
+     * @throws IOException If unable to register the directory or load <code>pubspec.yaml</code>.
+     */
+    @Nullable
+    public PubspecSnapshot watch(@Nonnull Path projectPath) throws IOException {
+        final Path dir = projectPath.toAbsolutePath().normalize();
+        final WatchedProject project = new WatchedProject();
+        final WatchedProject existed = projects.putIfAbsent(dir, project);
+
+        if (existed != null) return existed.snapshot;
+
+        // Put into projects before registering, so that any write after registering will be reloaded.
+        synchronized (project) {
+            try {
+                project.key = dir.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+
+                final Path file = dir.resolve(PUBSPEC_YAML);
+                project.snapshot = Files.exists(file) ? repository.load(file, engine) : null;
+            } catch (IOException | RuntimeException e) {
+                projects.remove(dir, project);
+                if (project.key != null) project.key.cancel();
+                throw e;
+            }
+        }
+
+        return project.snapshot;
+    }
+
+    /**
+     * Stop watching given project directory.
+     *
+     * @param projectPath Project directory.
+     *
+     * @return <code>true</code> if it was watched.
+     */
+    public boolean unwatch(@Nonnull Path projectPath) {
+        final WatchedProject project = projects.remove(projectPath.toAbsolutePath().normalize());
+
+        if (project == null) return false;
+
+        synchronized (project) {
+            if (project.key != null) project.key.cancel();
+        }
+        return true;
+    }
+
+    /**
+     * Latest loaded {@link PubspecSnapshot} of the project.
+     *
+     * @param projectPath Project directory.
+     *
+     * @return Latest {@link PubspecSnapshot}, or <code>null</code> if not watched or <code>pubspec.yaml</code> does not
+     *         exist.
+     */
+    @Nullable
+    public PubspecSnapshot snapshot(@Nonnull Path projectPath) {
+        final WatchedProject project = projects.get(projectPath.toAbsolutePath().normalize());
+        return project == null ? null : project.snapshot;
+    }
+
+    /**
+     * Subscribe {@link PubspecChangeSet} with {@link #DEFAULT_QUEUE_CAPACITY}.
+     *
+     * @return A new {@link Subscription}.
+     */
+    @Nonnull
+    public Subscription subscribe() {
+        return subscribe(DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * Subscribe {@link PubspecChangeSet} with given capacity of queue.
+     *
+     * @param capacity Maximum number of pending {@link PubspecChangeSet}.
+     *
+     * @return A new {@link Subscription}.
+     */
+    @Nonnull
+    public Subscription subscribe(@Nonnegative int capacity) {
+        final Subscription subscription = new Subscription(capacity);
+        subscriptions.add(subscription);
+        return subscription;
+    }
+
+    /**
+     * Stop watching all projects and close all {@link Subscription}, which wakes subscribers waiting in
+     * {@link Subscription#take()} or {@link Subscription#poll(long, TimeUnit)}.
+     *
+     * @throws IOException If unable to close {@link WatchService}.
+     */
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+        worker.interrupt();
+
+        try {
+            worker.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        projects.clear();
+        for (Subscription s : subscriptions) s.close();
+    }
+
+    /**
+     * Main loop of {@link #worker}.
+     */
+    private void pollLoop() {
+        // Deadline of reloading each project which is extended when new event arrives.
+        final HashMap<Path, PendingReload> pending = new HashMap<>();
+
+        try {
+            while (true) {
+                final long now = System.nanoTime();
+                final WatchKey key;
+
+                if (pending.isEmpty()) key = watchService.take();
+                else {
+                    long nearest = Long.MAX_VALUE;
+                    for (PendingReload p : pending.values()) nearest = Math.min(nearest, p.deadline - now);
+
+                    key = nearest > 0 ? watchService.poll(nearest, TimeUnit.NANOSECONDS) : watchService.poll();
+                }
+
+                for (WatchKey k = key; k != null; k = watchService.poll()) collect(k, pending);
+
+                final long deadline = System.nanoTime();
+                final Iterator<Map.Entry<Path, PendingReload>> due = pending.entrySet().iterator();
+
+                while (due.hasNext()) {
+                    final Map.Entry<Path, PendingReload> p = due.next();
+
+                    if (p.getValue().deadline - deadline <= 0) {
+                        due.remove();
+                        reload(p.getKey());
+                    }
+                }
+            }
+        } catch (ClosedWatchServiceException | InterruptedException ignored) {
+            // Closed by close()
+        }
+    }
+
+    /**
+     * Collect events from {@link WatchKey} and extend deadline of changed project, but never later than the maximum
+     * wait since the first event.
+     *
+     * @param key A signalled {@link WatchKey}.
+     * @param pending Deadline of projects.
+     */
+    private void collect(@Nonnull WatchKey key, @Nonnull Map<Path, PendingReload> pending) {
+        final Path dir = (Path) key.watchable();
+        boolean touched = false;
+
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == OVERFLOW || PUBSPEC_YAML.equals(event.context().toString())) touched = true;
+        }
+
+        if (!key.reset()) projects.remove(dir);
+        else if (touched && projects.containsKey(dir)) {
+            final long now = System.nanoTime();
+            final PendingReload p = pending.computeIfAbsent(dir, d -> new PendingReload(now + maxWaitNanos));
+
+            p.deadline = p.latest - (now + debounceNanos) < 0 ? p.latest : now + debounceNanos;
+        }
+    }
+
+    /**
+     * Reload <code>pubspec.yaml</code> of the project and publish the differences.
+     *
+     * @param dir Project directory.
+     */
+    private void reload(@Nonnull Path dir) {
+        final WatchedProject project = projects.get(dir);
+        if (project == null) return;
+
+        final Path file = dir.resolve(PUBSPEC_YAML);
+        final PubspecSnapshot previous, current;
+
+        // Wait for initial loading of watch().
+        synchronized (project) {
+            if (project.key == null || !project.key.isValid()) return;
+
+            previous = project.snapshot;
+
+            try {
+                current = Files.exists(file) ? repository.load(file, engine) : null;
+            } catch (IOException | RuntimeException e) {
+                publish(new PubspecChangeSet(dir, previous, previous, List.of(new ReloadFailed(dir, e))));
+                return;
+            }
+
+            if (current == previous) return;
+
+            project.snapshot = current;
+        }
+
+        final List<PubspecChangeEvent> events;
+
+        if (previous == null) events = List.of(new Created(dir, current));
+        else if (current == null) {
+            repository.invalidate(file);
+            events = List.of(new Deleted(dir));
+        } else events = compare(dir, previous, current);
+
+        if (!events.isEmpty()) publish(new PubspecChangeSet(dir, previous, current, events));
+    }
+
+    /**
+     * Offer {@link PubspecChangeSet} to all {@link Subscription}.
+     *
+     * @param changeSet Published {@link PubspecChangeSet}.
+     */
+    private void publish(@Nonnull PubspecChangeSet changeSet) {
+        for (Subscription s : subscriptions) {
+            // Only this thread adds items, so that checking size first keeps a slot for END.
+            if (s.closed || s.queue.size() >= s.capacity || !s.queue.offer(changeSet)) s.dropped.increment();
+        }
+    }
+
+    /**
+     * Find all {@link PubspecChangeEvent} between two {@link PubspecSnapshot}.
+     *
+     * @param projectPath Project directory.
+     * @param previous Previous {@link PubspecSnapshot}.
+     * @param current Current {@link PubspecSnapshot}.
+     *
+     * @return An unmodifiable {@link List} of {@link PubspecChangeEvent}.
+     */
+    @Nonnull
+    static List<PubspecChangeEvent> compare(
+            @Nonnull Path projectPath,
+            @Nonnull PubspecSnapshot previous,
+            @Nonnull PubspecSnapshot current
+    ) {
+        final ArrayList<PubspecChangeEvent> events = new ArrayList<>();
+
+        for (PubspecSnapshotDelta.Field f : PubspecSnapshotDelta.between(previous, current).changedFields())
+            events.add(new FieldChanged(projectPath, f, fieldValue(previous, f), fieldValue(current, f)));
+
+        compareDependencies(
+                events, projectPath, DependencyScope.DEPENDENCIES,
+                previous.dependencies(), current.dependencies()
+        );
+        compareDependencies(
+                events, projectPath, DependencyScope.DEV_DEPENDENCIES,
+                previous.devDependencies(), current.devDependencies()
+        );
+        compareDependencies(
+                events, projectPath, DependencyScope.DEPENDENCY_OVERRIDES,
+                previous.dependencyOverrides(), current.dependencyOverrides()
+        );
+
+        final Map<String, Object> pad = previous.additionalData(), cad = current.additionalData();
+
+        for (String k : pad.keySet()) {
+            if (!cad.containsKey(k)) events.add(new AdditionalDataChanged(projectPath, k, pad.get(k), null));
+        }
+
+        for (String k : cad.keySet()) {
+            final Object pv = pad.get(k), cv = cad.get(k);
+            if (!pad.containsKey(k) || !Objects.equals(pv, cv))
+                events.add(new AdditionalDataChanged(projectPath, k, pv, cv));
+        }
+
+        return Collections.unmodifiableList(events);
+    }
+
+    private static void compareDependencies(
+            @Nonnull List<PubspecChangeEvent> events,
+            @Nonnull Path projectPath,
+            @Nonnull DependencyScope scope,
+            @Nonnull DependenciesReferenceSet previous,
+            @Nonnull DependenciesReferenceSet current
+    ) {
+        for (DependencyReference pdr : previous) {
+            if (current.find(pdr.name()) == null) events.add(new DependencyRemoved(projectPath, scope, pdr));
+        }
+
+        for (DependencyReference cdr : current) {
+            final DependencyReference pdr = previous.find(cdr.name());
+
+            if (pdr == null) events.add(new DependencyAdded(projectPath, scope, cdr));
+            else if (!pdr.equals(cdr)) events.add(new DependencyChanged(projectPath, scope, pdr, cdr));
+        }
+    }
+
+    @Nullable
+    private static Object fieldValue(@Nonnull PubspecSnapshot snapshot, @Nonnull PubspecSnapshotDelta.Field field) {
+        return switch (field) {
+            case NAME -> snapshot.name();
+            case ENVIRONMENT -> snapshot.environment();
+            case VERSION -> snapshot.version();
+            case PUBLISH_TO -> snapshot.publishTo();
+            case DESCRIPTION -> snapshot.description();
+            case HOMEPAGE -> snapshot.homepage();
+            case REPOSITORY -> snapshot.repository();
+            case ISSUE_TRACKER -> snapshot.issueTracker();
+            case DOCUMENTATION -> snapshot.documentation();
+            case PLATFORMS -> snapshot.platforms();
+        };
+    }
+
+    /**
+     * Registered project.
+     */
+    private static final class WatchedProject {
+        /**
+         * Registered {@link WatchKey}, which is assigned in {@link #watch(Path)} when holding the lock of this project.
+         */
+        private WatchKey key;
+        private volatile PubspecSnapshot snapshot;
+    }
+
+    /**
+     * Deadline of reloading a touched project.
+     */
+    private static final class PendingReload {
+        /**
+         * Deadline limited by maximum wait since the first event.
+         */
+        private final long latest;
+        private long deadline;
+
+        private PendingReload(long latest) {
+            this.latest = latest;
+        }
+    }
+
+    /**
+     * A subscriber of {@link PubspecWatcher} with a bounded queue of {@link PubspecChangeSet}.
+     */
+    public final class Subscription implements Closeable {
+        /**
+         * Marks the end of queue once closed, which is left in the queue for waking other waiters.
+         */
+        private static final Object END = new Object();
+
+        private final int capacity;
+        private final ArrayBlockingQueue<Object> queue;
+        private final LongAdder dropped = new LongAdder();
+        private volatile boolean closed;
+
+        private Subscription(@Nonnegative int capacity) {
+            if (capacity < 1)
+                throw new IllegalArgumentException("Capacity must be at least 1, but " + capacity + " given.");
+
+            this.capacity = capacity;
+            // One more slot reserved for END.
+            this.queue = new ArrayBlockingQueue<>(capacity + 1);
+        }
+
+        /**
+         * Retrieve next {@link PubspecChangeSet}, waiting if necessary.
+         *
+         * @param timeout Maximum time to wait.
+         * @param unit {@link TimeUnit} of <code>timeout</code>.
+         *
+         * @return Next {@link PubspecChangeSet}, or <code>null</code> if timed out or closed with no pending item.
+         *
+         * @throws InterruptedException If interrupted while waiting.
+         */
+        @Nullable
+        public PubspecChangeSet poll(long timeout, @Nonnull TimeUnit unit) throws InterruptedException {
+            final Object item = queue.poll(timeout, unit);
+
+            if (item == END) {
+                queue.offer(END);
+                return null;
+            }
+
+            return (PubspecChangeSet) item;
+        }
+
+        /**
+         * Retrieve next {@link PubspecChangeSet}, waiting until it is available.
+         *
+         * @return Next {@link PubspecChangeSet}.
+         *
+         * @throws InterruptedException If interrupted while waiting.
+         * @throws ClosedWatchServiceException If this subscription or the watcher is closed and no pending item
+         *                                     remained.
+         */
+        @Nonnull
+        public PubspecChangeSet take() throws InterruptedException {
+            final Object item = queue.take();
+
+            if (item == END) {
+                queue.offer(END);
+                throw new ClosedWatchServiceException();
+            }
+
+            return (PubspecChangeSet) item;
+        }
+
+        /**
+         * Determine this subscription is closed by itself or the watcher.
+         *
+         * @return <code>true</code> if closed.
+         */
+        public boolean isClosed() {
+            return closed;
+        }
+
+        /**
+         * Number of {@link PubspecChangeSet} dropped because the queue is full.
+         *
+         * @return Dropped count.
+         */
+        @Nonnegative
+        public long droppedCount() {
+            return dropped.sum();
+        }
+
+        /**
+         * Stop receiving {@link PubspecChangeSet}. Pending items can be still retrieved, then waiting subscribers are
+         * woken.
+         */
+        @Override
+        public void close() {
+            synchronized (this) {
+                if (closed) return;
+                closed = true;
+            }
+
+            subscriptions.remove(this);
+            queue.offer(END);
+        }
+    }
+}
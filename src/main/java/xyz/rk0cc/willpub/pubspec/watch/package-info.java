@@ -0,0 +1,7 @@
+/**
+ * A package that watching <code>pubspec.yaml</code> of multiple projects and publishing the differences when they are
+ * edited.
+ *
+ * @since 2.1.0
+ */
+package xyz.rk0cc.willpub.pubspec.watch;
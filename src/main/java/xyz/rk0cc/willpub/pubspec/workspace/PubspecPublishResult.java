@@ -0,0 +1,39 @@
+package xyz.rk0cc.willpub.pubspec.workspace;
+
+import xyz.rk0cc.willpub.pubspec.data.PubspecSnapshot;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Outcome of a single document delivered by {@link PubspecSnapshotPublisher#withErrors()}, which failures are
+ * delivered as items rather than terminating the stream.
+ *
+ * @since 2.1.0
+ */
+public sealed interface PubspecPublishResult {
+    /**
+     * Where the document comes from, which is the absolute path of <code>pubspec.yaml</code> for directory tree,
+     * <code>document #n</code> for a stream of documents, or <code>path:n</code> for a line of NDJSON file. Both
+     * <code>n</code> start from 1.
+     *
+     * @return Origin of the document.
+     */
+    @Nonnull
+    String origin();
+
+    /**
+     * The document is parsed successfully.
+     *
+     * @param origin Origin of the document.
+     * @param snapshot Parsed {@link PubspecSnapshot}.
+     */
+    record Published(@Nonnull String origin, @Nonnull PubspecSnapshot snapshot) implements PubspecPublishResult {}
+
+    /**
+     * The document can not be read or parsed.
+     *
+     * @param origin Origin of the document.
+     * @param cause Thrown exception when parsing.
+     */
+    record Failed(@Nonnull String origin, @Nonnull Exception cause) implements PubspecPublishResult {}
+}
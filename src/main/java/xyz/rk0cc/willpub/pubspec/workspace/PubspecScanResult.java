@@ -0,0 +1,43 @@
+package xyz.rk0cc.willpub.pubspec.workspace;
+
+import xyz.rk0cc.willpub.pubspec.data.Pubspec;
+
+import javax.annotation.Nonnull;
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Outcome of loading a single <code>pubspec.yaml</code> found by {@link PubspecWorkspaceScanner}.
+ *
+ * @since 2.1.0
+ */
+public sealed interface PubspecScanResult {
+    /**
+     * Project directory which contains <code>pubspec.yaml</code>.
+     *
+     * @return Absolute {@link Path} of the project.
+     */
+    @Nonnull
+    Path projectPath();
+
+    /**
+     * <code>pubspec.yaml</code> is loaded successfully.
+     *
+     * @param projectPath Project directory.
+     * @param pubspec Loaded {@link Pubspec}.
+     * @param loadTime Time spent on reading and parsing the file.
+     */
+    record Loaded(
+            @Nonnull Path projectPath,
+            @Nonnull Pubspec pubspec,
+            @Nonnull Duration loadTime
+    ) implements PubspecScanResult {}
+
+    /**
+     * <code>pubspec.yaml</code> can not be loaded.
+     *
+     * @param projectPath Project directory.
+     * @param cause Thrown exception when loading.
+     */
+    record Failed(@Nonnull Path projectPath, @Nonnull Exception cause) implements PubspecScanResult {}
+}
@@ -0,0 +1,43 @@
+package xyz.rk0cc.willpub.pubspec.workspace;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import java.time.Duration;
+
+/**
+ * Counters and timing of a {@link PubspecWorkspaceScanner#scan(java.nio.file.Path, java.util.function.Consumer) scan}.
+ * <br/>
+ * Since walking and loading are run at the same time, {@link #walkTime()} and {@link #loadTime()} are summed from every
+ * worker thread and may exceed {@link #elapsedTime()}.
+ *
+ * @param directoryCount Number of visited directories, excluding pruned one.
+ * @param prunedCount Number of directories skipped by exclusion.
+ * @param unreadableCount Number of directories which can not be listed.
+ * @param loadedCount Number of {@link PubspecScanResult.Loaded}.
+ * @param failedCount Number of {@link PubspecScanResult.Failed}.
+ * @param walkTime Total time spent on listing directories.
+ * @param loadTime Total time spent on reading and parsing <code>pubspec.yaml</code>.
+ * @param elapsedTime Wall-clock time of entire scan.
+ *
+ * @since 2.1.0
+ */
+public record PubspecScanStatistics(
+        @Nonnegative long directoryCount,
+        @Nonnegative long prunedCount,
+        @Nonnegative long unreadableCount,
+        @Nonnegative long loadedCount,
+        @Nonnegative long failedCount,
+        @Nonnull Duration walkTime,
+        @Nonnull Duration loadTime,
+        @Nonnull Duration elapsedTime
+) {
+    /**
+     * Number of found <code>pubspec.yaml</code>.
+     *
+     * @return Sum of {@link #loadedCount()} and {@link #failedCount()}.
+     */
+    @Nonnegative
+    public long pubspecCount() {
+        return loadedCount + failedCount;
+    }
+}
@@ -0,0 +1,548 @@
+package xyz.rk0cc.willpub.pubspec.workspace;
+
+import xyz.rk0cc.willpub.pubspec.PubspecAsyncExecutors;
+import xyz.rk0cc.willpub.pubspec.PubspecRepository;
+import xyz.rk0cc.willpub.pubspec.data.PubspecSnapshot;
+import xyz.rk0cc.willpub.pubspec.parser.PubspecParserEngine;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.LongFunction;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * A {@link Flow.Publisher} of {@link PubspecSnapshot} parsed from a directory tree or a stream of documents.
+ * <br/>
+ * Every subscriber gets its own pass over the source, and a document is read and parsed only when the subscriber
+ * {@link Flow.Subscription#request(long) requested} it. Therefore, only the current document and the walking state
+ * (one open directory per level) are held in memory no matter how large the corpus is, and a slow subscriber simply
+ * slows down parsing.
+ * <br/>
+ * Documents are delivered in order of the source from a single task of {@link #executor()} at a time, which yields the
+ * thread after every 64 documents. Failure of a document terminates the subscription with
+ * {@link Flow.Subscriber#onError(Throwable)}; uses {@link #withErrors()} to receive failures as
+ * {@link PubspecPublishResult.Failed} and continue. Failure of the source itself, e.g. the root is not a directory,
+ * always terminates the subscription.
+ *
+ * @since 2.1.0
+ */
+public final class PubspecSnapshotPublisher implements Flow.Publisher<PubspecSnapshot> {
+    /**
+     * Number of documents delivered before yielding the thread of {@link #executor()}.
+     */
+    private static final int BATCH = 64;
+
+    private final Supplier<Source> sourceFactory;
+    private final Executor executor;
+
+    private PubspecSnapshotPublisher(@Nonnull Supplier<Source> sourceFactory, @Nonnull Executor executor) {
+        this.sourceFactory = sourceFactory;
+        this.executor = executor;
+    }
+
+    /**
+     * Publish every <code>pubspec.yaml</code> under <code>root</code> in depth-first order.
+     * <br/>
+     * Directories are pruned and files are loaded by {@link PubspecWorkspaceScanOptions} in the same way of
+     * {@link PubspecWorkspaceScanner}, except {@link PubspecWorkspaceScanOptions#parallelism()} which is not applied.
+     * Directories which can not be listed are skipped.
+     *
+     * @param root Root directory of the workspace.
+     * @param options Applied {@link PubspecWorkspaceScanOptions}.
+     *
+     * @return A {@link PubspecSnapshotPublisher} runs in {@link PubspecAsyncExecutors#io() shared I/O executor}.
+     *
+     * @throws IllegalArgumentException If any {@link PubspecWorkspaceScanOptions#excludes()} is not a valid glob.
+     */
+    @Nonnull
+    public static PubspecSnapshotPublisher ofDirectory(
+            @Nonnull Path root,
+            @Nonnull PubspecWorkspaceScanOptions options
+    ) {
+        final Path absRoot = root.toAbsolutePath().normalize();
+        final List<PathMatcher> excludes =
+                PubspecWorkspaceScanner.compileExcludes(absRoot.getFileSystem(), options.excludes());
+
+        return new PubspecSnapshotPublisher(
+                () -> new DirectorySource(absRoot, excludes, options),
+                PubspecAsyncExecutors.shared().io()
+        );
+    }
+
+    /**
+     * Publish each document of a {@link Stream} of {@link String}.
+     * <br/>
+     * <code>documents</code> is called once per subscriber, and the returned {@link Stream} is closed when the
+     * subscription is terminated or cancelled.
+     *
+     * @param documents Opener of the document {@link Stream}.
+     * @param engine A {@link PubspecParserEngine} which parses each document.
+     *
+     * @return A {@link PubspecSnapshotPublisher} runs in {@link PubspecAsyncExecutors#io() shared I/O executor}.
+     */
+    @Nonnull
+    public static PubspecSnapshotPublisher ofDocuments(
+            @Nonnull Supplier<? extends Stream<String>> documents,
+            @Nonnull PubspecParserEngine engine
+    ) {
+        Objects.requireNonNull(documents);
+        Objects.requireNonNull(engine);
+
+        return new PubspecSnapshotPublisher(
+                () -> new DocumentSource(documents.get(), engine, n -> "document #" + n),
+                PubspecAsyncExecutors.shared().io()
+        );
+    }
+
+    /**
+     * Publish each line of a newline-delimited JSON file, which is parsed by {@link PubspecParserEngine#json()}. Blank
+     * lines are skipped.
+     *
+     * @param ndjson Path of the file encoded in UTF-8.
+     *
+     * @return A {@link PubspecSnapshotPublisher} runs in {@link PubspecAsyncExecutors#io() shared I/O executor}.
+     */
+    @Nonnull
+    public static PubspecSnapshotPublisher ofNdjson(@Nonnull Path ndjson) {
+        final String origin = ndjson.toAbsolutePath().normalize() + ":";
+
+        return new PubspecSnapshotPublisher(() -> {
+            final Stream<String> lines;
+
+            try {
+                lines = Files.lines(ndjson, StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+
+            return new DocumentSource(lines, PubspecParserEngine.json(), n -> origin + n) {
+                @Override
+                boolean skip(@Nonnull String document) {
+                    return document.isBlank();
+                }
+            };
+        }, PubspecAsyncExecutors.shared().io());
+    }
+
+    /**
+     * Get an {@link Executor} which reads and delivers documents.
+     *
+     * @return Applied {@link Executor}.
+     */
+    @Nonnull
+    public Executor executor() {
+        return executor;
+    }
+
+    /**
+     * Create a publisher of the same source which runs in another {@link Executor}.
+     *
+     * @param executor An {@link Executor} which reads and delivers documents. Each subscription occupies at most one
+     *                 thread at a time.
+     *
+     * @return A new {@link PubspecSnapshotPublisher}.
+     */
+    @Nonnull
+    public PubspecSnapshotPublisher withExecutor(@Nonnull Executor executor) {
+        return new PubspecSnapshotPublisher(sourceFactory, Objects.requireNonNull(executor));
+    }
+
+    /**
+     * A {@link Flow.Publisher} of the same source which delivers failed documents as
+     * {@link PubspecPublishResult.Failed} instead of terminating the subscription.
+     *
+     * @return Error-channel variant of this publisher.
+     */
+    @Nonnull
+    public Flow.Publisher<PubspecPublishResult> withErrors() {
+        return subscriber -> subscribe(subscriber, Function.identity(), false);
+    }
+
+    @Override
+    public void subscribe(@Nonnull Flow.Subscriber<? super PubspecSnapshot> subscriber) {
+        subscribe(subscriber, r -> ((PubspecPublishResult.Published) r).snapshot(), true);
+    }
+
+    private <T> void subscribe(
+            @Nonnull Flow.Subscriber<? super T> subscriber,
+            @Nonnull Function<PubspecPublishResult, T> mapper,
+            boolean failFast
+    ) {
+        Objects.requireNonNull(subscriber);
+
+        final DrainSubscription<T> subscription = new DrainSubscription<>(subscriber, mapper, failFast);
+
+        try {
+            subscriber.onSubscribe(subscription);
+        } catch (RuntimeException e) {
+            subscription.cancel();
+        }
+    }
+
+    /**
+     * A pass over documents, which is only accessed by the draining task.
+     */
+    private interface Source extends Closeable {
+        /**
+         * Read and parse the next document.
+         *
+         * @return {@link PubspecPublishResult} of next document, or <code>null</code> if no more document.
+         *
+         * @throws IOException If the source itself failed.
+         */
+        @Nullable
+        PubspecPublishResult next() throws IOException;
+    }
+
+    /**
+     * Walk a directory tree with one open {@link DirectoryStream} per level.
+     */
+    private static final class DirectorySource implements Source {
+        private final Path root;
+        private final List<PathMatcher> excludes;
+        private final PubspecWorkspaceScanOptions options;
+        private final ArrayDeque<DirectoryStream<Path>> streams = new ArrayDeque<>();
+        private final ArrayDeque<Iterator<Path>> iterators = new ArrayDeque<>();
+        private boolean started;
+
+        private DirectorySource(
+                @Nonnull Path root,
+                @Nonnull List<PathMatcher> excludes,
+                @Nonnull PubspecWorkspaceScanOptions options
+        ) {
+            this.root = root;
+            this.excludes = excludes;
+            this.options = options;
+        }
+
+        @Nullable
+        @Override
+        public PubspecPublishResult next() throws IOException {
+            if (!started) {
+                started = true;
+                if (!Files.isDirectory(root)) throw new NotDirectoryException(root.toString());
+                push(Files.newDirectoryStream(root));
+            }
+
+            while (!iterators.isEmpty()) {
+                final Path p;
+
+                try {
+                    if (!iterators.peek().hasNext()) {
+                        iterators.pop();
+                        streams.pop().close();
+                        continue;
+                    }
+
+                    p = iterators.peek().next();
+                } catch (DirectoryIteratorException e) {
+                    // Unable to continue listing the directory.
+                    iterators.pop();
+                    streams.pop().close();
+                    continue;
+                }
+
+                final BasicFileAttributes attrs;
+
+                try {
+                    attrs = Files.readAttributes(p, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                } catch (IOException e) {
+                    // Removed after listed.
+                    continue;
+                }
+
+                if (attrs.isDirectory()) {
+                    if (PubspecWorkspaceScanner.isExcluded(root, excludes, p)) continue;
+
+                    try {
+                        push(Files.newDirectoryStream(p));
+                    } catch (IOException e) {
+                        // Unreadable directory is skipped.
+                    }
+                } else if (attrs.isRegularFile()
+                        && PubspecWorkspaceScanner.PUBSPEC_YAML.equals(p.getFileName().toString())) {
+                    return load(p);
+                }
+            }
+
+            return null;
+        }
+
+        private void push(@Nonnull DirectoryStream<Path> stream) {
+            streams.push(stream);
+            iterators.push(stream.iterator());
+        }
+
+        @Nonnull
+        private PubspecPublishResult load(@Nonnull Path file) {
+            final String origin = file.toString();
+
+            try {
+                final PubspecRepository repository = options.repository();
+                final PubspecSnapshot snapshot = repository == null
+                        ? PubspecSnapshot.getSnapshotOfCurrentPubspec(options.engine().read(file))
+                        : repository.load(file, options.engine());
+
+                return new PubspecPublishResult.Published(origin, snapshot);
+            } catch (IOException | RuntimeException e) {
+                return new PubspecPublishResult.Failed(origin, e);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            IOException thrown = null;
+
+            while (!streams.isEmpty()) {
+                try {
+                    streams.pop().close();
+                } catch (IOException e) {
+                    if (thrown == null) thrown = e;
+                    else thrown.addSuppressed(e);
+                }
+            }
+            iterators.clear();
+
+            if (thrown != null) throw thrown;
+        }
+    }
+
+    /**
+     * Parse each {@link String} of a {@link Stream}.
+     */
+    private static class DocumentSource implements Source {
+        private final Stream<String> documents;
+        private final Iterator<String> iterator;
+        private final PubspecParserEngine engine;
+        private final LongFunction<String> origin;
+        private long position;
+
+        private DocumentSource(
+                @Nonnull Stream<String> documents,
+                @Nonnull PubspecParserEngine engine,
+                @Nonnull LongFunction<String> origin
+        ) {
+            this.documents = documents;
+            this.iterator = documents.iterator();
+            this.engine = engine;
+            this.origin = origin;
+        }
+
+        /**
+         * Determine the document should not be published, which still counts the position.
+         *
+         * @param document A document from the stream.
+         *
+         * @return <code>true</code> if skipped.
+         */
+        boolean skip(@Nonnull String document) {
+            return false;
+        }
+
+        @Nullable
+        @Override
+        public PubspecPublishResult next() throws IOException {
+            try {
+                while (iterator.hasNext()) {
+                    final String document = iterator.next();
+                    position++;
+
+                    if (skip(document)) continue;
+
+                    try {
+                        return new PubspecPublishResult.Published(
+                                origin.apply(position),
+                                PubspecSnapshot.getSnapshotOfCurrentPubspec(engine.read(document))
+                        );
+                    } catch (IOException | RuntimeException e) {
+                        return new PubspecPublishResult.Failed(origin.apply(position), e);
+                    }
+                }
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+
+            return null;
+        }
+
+        @Override
+        public void close() {
+            documents.close();
+        }
+    }
+
+    /**
+     * A {@link Flow.Subscription} which reads documents only when demanded. All signals to the subscriber are sent
+     * from a single draining task, which is scheduled in {@link #executor} whenever demand or cancellation changed.
+     *
+     * @param <T> Type of delivered item.
+     */
+    private final class DrainSubscription<T> implements Flow.Subscription, Runnable {
+        private final Flow.Subscriber<? super T> subscriber;
+        private final Function<PubspecPublishResult, T> mapper;
+        private final boolean failFast;
+        private final AtomicLong demand = new AtomicLong();
+        private final AtomicInteger pendingSignals = new AtomicInteger();
+        private volatile boolean cancelled;
+        private volatile Throwable invalidRequest;
+
+        /**
+         * Only accessed by draining task.
+         */
+        private Source source;
+
+        /**
+         * Set once by the first terminal signal or cancellation, so that nothing follows it.
+         */
+        private final AtomicBoolean terminated = new AtomicBoolean();
+
+        private DrainSubscription(
+                @Nonnull Flow.Subscriber<? super T> subscriber,
+                @Nonnull Function<PubspecPublishResult, T> mapper,
+                boolean failFast
+        ) {
+            this.subscriber = subscriber;
+            this.mapper = mapper;
+            this.failFast = failFast;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) invalidRequest = new IllegalArgumentException("Requested " + n + " which must be positive");
+            else demand.getAndAccumulate(n, (current, added) -> current + added < 0 ? Long.MAX_VALUE : current + added);
+
+            schedule();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            schedule();
+        }
+
+        private void schedule() {
+            if (pendingSignals.getAndIncrement() != 0) return;
+
+            try {
+                executor.execute(this);
+            } catch (RejectedExecutionException e) {
+                // The draining task can not be run, so terminates in current thread unless it is terminated already.
+                final boolean signal = !cancelled;
+                cancelled = true;
+                terminate(e, signal);
+            }
+        }
+
+        @Override
+        public void run() {
+            int missed = 1;
+            int delivered = 0;
+
+            do {
+                while (!terminated.get()) {
+                    if (cancelled) {
+                        terminate(null, false);
+                        break;
+                    }
+
+                    if (invalidRequest != null) {
+                        terminate(invalidRequest, true);
+                        break;
+                    }
+
+                    final long requested = demand.get();
+                    if (requested == 0) break;
+
+                    if (delivered == BATCH) {
+                        // Yield the thread, pending signals keep this subscription scheduled.
+                        try {
+                            executor.execute(this);
+                            return;
+                        } catch (RejectedExecutionException e) {
+                            delivered = 0;
+                        }
+                    }
+
+                    final PubspecPublishResult result;
+
+                    try {
+                        if (source == null) source = sourceFactory.get();
+                        result = source.next();
+                    } catch (IOException | RuntimeException e) {
+                        terminate(e instanceof UncheckedIOException uioe ? uioe.getCause() : e, true);
+                        break;
+                    }
+
+                    if (result == null) {
+                        terminate(null, true);
+                        break;
+                    } else if (failFast && result instanceof PubspecPublishResult.Failed f) {
+                        terminate(f.cause(), true);
+                        break;
+                    }
+
+                    if (requested != Long.MAX_VALUE) demand.decrementAndGet();
+                    delivered++;
+
+                    try {
+                        subscriber.onNext(mapper.apply(result));
+                    } catch (RuntimeException e) {
+                        cancelled = true;
+                        terminate(e, true);
+                        break;
+                    }
+                }
+
+                missed = pendingSignals.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        /**
+         * Release the source and send terminal signal once.
+         *
+         * @param error Error to be signalled, or <code>null</code> for completion.
+         * @param signal <code>false</code> if terminated by cancellation which no signal is sent.
+         */
+        private void terminate(@Nullable Throwable error, boolean signal) {
+            if (!terminated.compareAndSet(false, true)) return;
+
+            closeSource();
+
+            if (!signal) return;
+
+            try {
+                if (error == null) subscriber.onComplete();
+                else subscriber.onError(error);
+            } catch (RuntimeException ignored) {
+                // Subscriber must not throw from terminal signals.
+            }
+        }
+
+        private void closeSource() {
+            if (source == null) return;
+
+            try {
+                source.close();
+            } catch (IOException | RuntimeException ignored) {
+                // Nothing can be reported after terminated.
+            } finally {
+                source = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package xyz.rk0cc.willpub.pubspec.workspace;
+
+import xyz.rk0cc.willpub.pubspec.PubspecRepository;
+import xyz.rk0cc.willpub.pubspec.parser.PubspecParserEngine;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Options applied when constructing {@link PubspecWorkspaceScanner}.
+ *
+ * @param engine A {@link PubspecParserEngine} uses for loading <code>pubspec.yaml</code>.
+ * @param parallelism Maximum number of threads for walking and loading.
+ * @param excludes Glob patterns of directories which will not be visited. Each pattern is matched with both directory
+ *                 name and the path relative to the scanned root.
+ * @param repository A {@link PubspecRepository} which caches loaded <code>pubspec.yaml</code>, or <code>null</code> if
+ *                   every file is parsed.
+ *
+ * @since 2.1.0
+ */
+public record PubspecWorkspaceScanOptions(
+        @Nonnull PubspecParserEngine engine,
+        @Nonnegative int parallelism,
+        @Nonnull List<String> excludes,
+        @Nullable PubspecRepository repository
+) {
+    /**
+     * Directories excluded by {@link #defaultOptions()}, which are generated by Dart tools or version control.
+     */
+    public static final List<String> DEFAULT_EXCLUDES = List.of(".dart_tool", "build", ".git");
+
+    /**
+     * Validate options.
+     *
+     * @throws IllegalArgumentException If <code>parallelism</code> is less than 1.
+     */
+    public PubspecWorkspaceScanOptions {
+        Objects.requireNonNull(engine);
+        excludes = List.copyOf(excludes);
+
+        if (parallelism < 1)
+            throw new IllegalArgumentException("Parallelism must be at least 1, but " + parallelism + " given.");
+    }
+
+    /**
+     * Default options which uses {@link PubspecParserEngine#yaml() shared YAML engine} with all available processors,
+     * excludes {@link #DEFAULT_EXCLUDES} and parses without {@link PubspecRepository}.
+     *
+     * @return Default {@link PubspecWorkspaceScanOptions}.
+     */
+    @Nonnull
+    public static PubspecWorkspaceScanOptions defaultOptions() {
+        return new PubspecWorkspaceScanOptions(
+                PubspecParserEngine.yaml(),
+                Runtime.getRuntime().availableProcessors(),
+                DEFAULT_EXCLUDES,
+                null
+        );
+    }
+
+    /**
+     * Apply {@link PubspecParserEngine} for loading <code>pubspec.yaml</code>.
+     *
+     * @param engine New {@link PubspecParserEngine}.
+     *
+     * @return A copy of options with given <code>engine</code>.
+     */
+    @Nonnull
+    public PubspecWorkspaceScanOptions modifyEngine(@Nonnull PubspecParserEngine engine) {
+        return new PubspecWorkspaceScanOptions(engine, parallelism, excludes, repository);
+    }
+
+    /**
+     * Define maximum number of threads for walking and loading.
+     *
+     * @param parallelism New parallelism.
+     *
+     * @return A copy of options with given <code>parallelism</code>.
+     *
+     * @throws IllegalArgumentException If <code>parallelism</code> is less than 1.
+     */
+    @Nonnull
+    public PubspecWorkspaceScanOptions modifyParallelism(@Nonnegative int parallelism) {
+        return new PubspecWorkspaceScanOptions(engine, parallelism, excludes, repository);
+    }
+
+    /**
+     * Replace glob patterns of directories which will not be visited.
+     *
+     * @param excludes New glob patterns, which are matched with both directory name and the path relative to the
+     *                 scanned root.
+     *
+     * @return A copy of options with given <code>excludes</code>.
+     */
+    @Nonnull
+    public PubspecWorkspaceScanOptions modifyExcludes(@Nonnull List<String> excludes) {
+        return new PubspecWorkspaceScanOptions(engine, parallelism, excludes, repository);
+    }
+
+    /**
+     * Apply {@link PubspecRepository} for caching loaded <code>pubspec.yaml</code>.
+     *
+     * @param repository New {@link PubspecRepository}, or <code>null</code> if every file is parsed.
+     *
+     * @return A copy of options with given <code>repository</code>.
+     */
+    @Nonnull
+    public PubspecWorkspaceScanOptions modifyRepository(@Nullable PubspecRepository repository) {
+        return new PubspecWorkspaceScanOptions(engine, parallelism, excludes, repository);
+    }
+}
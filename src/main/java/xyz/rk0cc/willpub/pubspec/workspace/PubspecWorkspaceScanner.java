@@ -0,0 +1,299 @@
+package xyz.rk0cc.willpub.pubspec.workspace;
+
+import xyz.rk0cc.willpub.pubspec.PubspecRepository;
+import xyz.rk0cc.willpub.pubspec.data.Pubspec;
+import xyz.rk0cc.willpub.pubspec.data.PubspecSnapshot;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Find and load every <code>pubspec.yaml</code> under a workspace, which is usually a monorepo contains many Dart
+ * packages.
+ * <br/>
+ * Each directory is listed in a separated task of a {@link ForkJoinPool} bounded by
+ * {@link PubspecWorkspaceScanOptions#parallelism()}, and every found <code>pubspec.yaml</code> is loaded in the same
+ * pool once it is found, so loading starts before walking is finished. Directories matched
+ * {@link PubspecWorkspaceScanOptions#excludes()} are pruned, and symbolic links are never followed. The root can be
+ * in any {@link FileSystem}, such as a zip file system.
+ * <br/>
+ * Since a Dart package may contain another package (e.g. <code>example</code>), directories which contain
+ * <code>pubspec.yaml</code> are still visited.
+ *
+ * @since 2.1.0
+ */
+public final class PubspecWorkspaceScanner {
+    static final String PUBSPEC_YAML = "pubspec.yaml";
+
+    private final PubspecWorkspaceScanOptions options;
+
+    /**
+     * Create a scanner with {@link PubspecWorkspaceScanOptions#defaultOptions() default options}.
+     */
+    public PubspecWorkspaceScanner() {
+        this(PubspecWorkspaceScanOptions.defaultOptions());
+    }
+
+    /**
+     * Create a scanner with given options.
+     *
+     * @param options Applied {@link PubspecWorkspaceScanOptions}.
+     *
+     * @throws IllegalArgumentException If any {@link PubspecWorkspaceScanOptions#excludes()} is not a valid glob.
+     */
+    public PubspecWorkspaceScanner(@Nonnull PubspecWorkspaceScanOptions options) {
+        compileExcludes(FileSystems.getDefault(), options.excludes());
+        this.options = options;
+    }
+
+    /**
+     * Get applied options of this scanner.
+     *
+     * @return Applied {@link PubspecWorkspaceScanOptions}.
+     */
+    @Nonnull
+    public PubspecWorkspaceScanOptions options() {
+        return options;
+    }
+
+    /**
+     * Scan the workspace and deliver each {@link PubspecScanResult} to <code>consumer</code> as soon as the file is
+     * loaded.
+     * <br/>
+     * The <code>consumer</code> is called from worker threads concurrently in no particular order, therefore it must be
+     * thread-safe. Any exception thrown by <code>consumer</code> will be rethrown from this method.
+     *
+     * @param root Root directory of the workspace.
+     * @param consumer Receiver of {@link PubspecScanResult}.
+     *
+     * @return {@link PubspecScanStatistics} of this scan.
+     *
+     * @throws IOException If <code>root</code> is not a directory or unable to be listed.
+     */
+    @Nonnull
+    public PubspecScanStatistics scan(@Nonnull Path root, @Nonnull Consumer<? super PubspecScanResult> consumer)
+            throws IOException {
+        final Path absRoot = root.toAbsolutePath().normalize();
+
+        if (!Files.isDirectory(absRoot)) throw new NotDirectoryException(absRoot.toString());
+
+        final Scan scan = new Scan(absRoot, compileExcludes(absRoot.getFileSystem(), options.excludes()), consumer);
+        final long start = System.nanoTime();
+        final ForkJoinPool pool = new ForkJoinPool(options.parallelism());
+
+        try {
+            pool.invoke(new DirectoryTask(scan, absRoot));
+        } finally {
+            pool.shutdown();
+        }
+
+        if (scan.rootException != null) throw scan.rootException;
+
+        return new PubspecScanStatistics(
+                scan.directories.sum(),
+                scan.pruned.sum(),
+                scan.unreadable.sum(),
+                scan.loaded.sum(),
+                scan.failed.sum(),
+                Duration.ofNanos(scan.walkNanos.sum()),
+                Duration.ofNanos(scan.loadNanos.sum()),
+                Duration.ofNanos(System.nanoTime() - start)
+        );
+    }
+
+    /**
+     * Scan the workspace and collect all {@link PubspecScanResult}.
+     *
+     * @param root Root directory of the workspace.
+     *
+     * @return A {@link List} of {@link PubspecScanResult} sorted by {@link PubspecScanResult#projectPath()}.
+     *
+     * @throws IOException If <code>root</code> is not a directory or unable to be listed.
+     */
+    @Nonnull
+    public List<PubspecScanResult> scanAll(@Nonnull Path root) throws IOException {
+        final ArrayList<PubspecScanResult> results = new ArrayList<>();
+
+        scan(root, r -> {
+            synchronized (results) {
+                results.add(r);
+            }
+        });
+
+        results.sort((a, b) -> a.projectPath().compareTo(b.projectPath()));
+        return results;
+    }
+
+    /**
+     * Compile glob patterns in the {@link FileSystem} of scanned root.
+     *
+     * @param fs {@link FileSystem} of scanned root.
+     * @param globs Glob patterns.
+     *
+     * @return A {@link List} of {@link PathMatcher}.
+     *
+     * @throws IllegalArgumentException If any pattern is not a valid glob.
+     */
+    @Nonnull
+    static List<PathMatcher> compileExcludes(@Nonnull FileSystem fs, @Nonnull List<String> globs) {
+        return globs.stream().map(g -> fs.getPathMatcher("glob:" + g)).toList();
+    }
+
+    /**
+     * Determine the directory should not be visited.
+     *
+     * @param root Absolute path of scanned root.
+     * @param excludes Compiled exclusions.
+     * @param dir Subdirectory.
+     *
+     * @return <code>true</code> if any exclusion matched.
+     */
+    static boolean isExcluded(@Nonnull Path root, @Nonnull List<PathMatcher> excludes, @Nonnull Path dir) {
+        final Path name = dir.getFileName(), relative = root.relativize(dir);
+
+        for (PathMatcher m : excludes) {
+            if (m.matches(name) || m.matches(relative)) return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Load <code>pubspec.yaml</code>.
+     *
+     * @param file Path of <code>pubspec.yaml</code>.
+     *
+     * @return Loaded {@link Pubspec}.
+     *
+     * @throws IOException If unable to read or parse the file.
+     */
+    @Nonnull
+    private Pubspec load(@Nonnull Path file) throws IOException {
+        final PubspecRepository repository = options.repository();
+
+        if (repository == null) return options.engine().read(file);
+
+        return PubspecSnapshot.getMutableFromSnapshot(repository.load(file, options.engine()));
+    }
+
+    /**
+     * States of a running scan.
+     */
+    private static final class Scan {
+        private final Path root;
+        private final List<PathMatcher> excludes;
+        private final Consumer<? super PubspecScanResult> consumer;
+        private final LongAdder directories = new LongAdder(),
+                pruned = new LongAdder(),
+                unreadable = new LongAdder(),
+                loaded = new LongAdder(),
+                failed = new LongAdder(),
+                walkNanos = new LongAdder(),
+                loadNanos = new LongAdder();
+        private volatile IOException rootException;
+
+        private Scan(
+                @Nonnull Path root,
+                @Nonnull List<PathMatcher> excludes,
+                @Nonnull Consumer<? super PubspecScanResult> consumer
+        ) {
+            this.root = root;
+            this.excludes = excludes;
+            this.consumer = consumer;
+        }
+    }
+
+    /**
+     * List a directory, then visit subdirectories and load <code>pubspec.yaml</code> in parallel.
+     */
+    private final class DirectoryTask extends RecursiveAction {
+        private final Scan scan;
+        private final Path dir;
+
+        private DirectoryTask(@Nonnull Scan scan, @Nonnull Path dir) {
+            this.scan = scan;
+            this.dir = dir;
+        }
+
+        @Override
+        protected void compute() {
+            final long start = System.nanoTime();
+            final ArrayList<ForkJoinTask<?>> subtasks = new ArrayList<>();
+
+            scan.directories.increment();
+
+            try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir)) {
+                for (Path p : entries) {
+                    final BasicFileAttributes attrs;
+
+                    try {
+                        attrs = Files.readAttributes(p, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                    } catch (IOException e) {
+                        // Removed after listed.
+                        continue;
+                    }
+
+                    if (attrs.isDirectory()) {
+                        if (isExcluded(scan.root, scan.excludes, p)) scan.pruned.increment();
+                        else subtasks.add(new DirectoryTask(scan, p));
+                    } else if (attrs.isRegularFile() && PUBSPEC_YAML.equals(p.getFileName().toString())) {
+                        subtasks.add(new LoadTask(scan, p));
+                    }
+                }
+            } catch (IOException | DirectoryIteratorException e) {
+                if (dir.equals(scan.root))
+                    scan.rootException = e instanceof DirectoryIteratorException die ? die.getCause() : (IOException) e;
+                scan.unreadable.increment();
+            } finally {
+                scan.walkNanos.add(System.nanoTime() - start);
+            }
+
+            invokeAll(subtasks);
+        }
+    }
+
+    /**
+     * Load a <code>pubspec.yaml</code> and deliver {@link PubspecScanResult}.
+     */
+    private final class LoadTask extends RecursiveAction {
+        private final Scan scan;
+        private final Path file;
+
+        private LoadTask(@Nonnull Scan scan, @Nonnull Path file) {
+            this.scan = scan;
+            this.file = file;
+        }
+
+        @Override
+        protected void compute() {
+            final Path projectPath = file.getParent();
+            final long start = System.nanoTime();
+            PubspecScanResult result;
+
+            try {
+                final Pubspec pubspec = load(file);
+                final long elapsed = System.nanoTime() - start;
+
+                scan.loadNanos.add(elapsed);
+                scan.loaded.increment();
+                result = new PubspecScanResult.Loaded(projectPath, pubspec, Duration.ofNanos(elapsed));
+            } catch (IOException | RuntimeException e) {
+                scan.loadNanos.add(System.nanoTime() - start);
+                scan.failed.increment();
+                result = new PubspecScanResult.Failed(projectPath, e);
+            }
+
+            scan.consumer.accept(result);
+        }
+    }
+}
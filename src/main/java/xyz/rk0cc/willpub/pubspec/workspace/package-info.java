@@ -0,0 +1,7 @@
+/**
+ * A package that discovering and loading every <code>pubspec.yaml</code> under a workspace in parallel, or streaming
+ * them to {@link java.util.concurrent.Flow.Subscriber} by demand.
+ *
+ * @since 2.1.0
+ */
+package xyz.rk0cc.willpub.pubspec.workspace;
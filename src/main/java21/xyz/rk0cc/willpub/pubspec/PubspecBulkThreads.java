@@ -0,0 +1,53 @@
+package xyz.rk0cc.willpub.pubspec;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Threads which run each file of {@link PubspecBulkIO}.
+ * <br/>
+ * This is the Java 21 layer of multi-release JAR, which runs every file in its own virtual thread. The number of files
+ * handled at the same time is still bounded by {@link PubspecBulkIO#concurrency()}.
+ *
+ * @since 2.1.0
+ */
+final class PubspecBulkThreads {
+    private PubspecBulkThreads() {}
+
+    /**
+     * Name of threading mode for {@link PubspecBulkIO#threadingMode()}.
+     * <br/>
+     * It is a method rather than constant, so that it is not inlined into classes which are not versioned.
+     *
+     * @return <code>virtual</code>
+     */
+    @Nonnull
+    static String mode() {
+        return "virtual";
+    }
+
+    /**
+     * Default number of files handled at the same time, which limits opened files rather than threads.
+     *
+     * @return Default concurrency.
+     */
+    @Nonnegative
+    static int defaultConcurrency() {
+        return 256;
+    }
+
+    /**
+     * Create an {@link ExecutorService} for a single bulk operation, which will be shut down once finished.
+     *
+     * @param concurrency Maximum number of files handled at the same time, which is not used since virtual threads
+     *                    are not pooled.
+     *
+     * @return A new {@link ExecutorService}.
+     */
+    @Nonnull
+    static ExecutorService newExecutor(@Nonnegative int concurrency) {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("pubspec-bulk-", 0).factory());
+    }
+}
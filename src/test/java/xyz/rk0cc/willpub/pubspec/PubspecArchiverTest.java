@@ -0,0 +1,250 @@
+package xyz.rk0cc.willpub.pubspec;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import xyz.rk0cc.josev.constraint.pub.PubSemVerConstraint;
+import xyz.rk0cc.willpub.pubspec.data.*;
+import xyz.rk0cc.willpub.pubspec.data.dependencies.type.*;
+import xyz.rk0cc.willpub.pubspec.parser.PubspecParserEngine;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.*;
+import java.time.*;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+final class PubspecArchiverTest {
+    private static Pubspec createPubspec() throws Exception {
+        return new Pubspec("archive_test", new PubspecEnvironment(PubSemVerConstraint.parse(">=2.16.0 <3.0.0")));
+    }
+
+    private static PubspecArchiver createArchiver(int capacity, PubspecArchiveMode mode) {
+        return new PubspecArchiver(Paths.get("").toAbsolutePath(), capacity, mode);
+    }
+
+    @DisplayName("Evict earliest archive when full")
+    @Test
+    void testCapacity() throws Exception {
+        for (PubspecArchiveMode mode : PubspecArchiveMode.values()) {
+            PubspecArchiver archiver = createArchiver(3, mode);
+            Pubspec pubspec = createPubspec();
+
+            for (int v = 0; v < 5; v++) {
+                pubspec.modifyVersion("1.0." + v);
+                archiver.archivePubspec(pubspec);
+            }
+
+            assertEquals(3, archiver.size());
+            assertEquals("1.0.4", archiver.recentSnapshot().version().value());
+
+            archiver.undoArchive(10);
+            assertEquals(1, archiver.size());
+            assertEquals("1.0.2", archiver.recentSnapshot().version().value());
+            assertThrows(IndexOutOfBoundsException.class, archiver::undoArchive);
+        }
+    }
+
+    @DisplayName("Find and undo archive by time")
+    @Test
+    void testTimeIndex() throws Exception {
+        for (PubspecArchiveMode mode : PubspecArchiveMode.values()) {
+            PubspecArchiver archiver = createArchiver(5, mode);
+            Pubspec pubspec = createPubspec();
+            ZonedDateTime beforeAll = ZonedDateTime.now(ZoneId.of("UTC")).minusSeconds(1);
+
+            for (int v = 0; v < 3; v++) {
+                pubspec.modifyVersion("2.0." + v);
+                archiver.archivePubspec(pubspec);
+            }
+
+            ZonedDateTime recent = archiver.recentArchiveAtUTC();
+
+            assertNull(archiver.archivedSnapshotAt(beforeAll));
+            assertEquals("2.0.2", archiver.archivedSnapshotAt(recent).version().value());
+
+            archiver.undoArchive(beforeAll);
+            assertEquals(1, archiver.size());
+
+            archiver.clearOlderArchive();
+            assertEquals("2.0.0", archiver.recentSnapshot().version().value());
+        }
+    }
+
+    @DisplayName("Reconstruct archives from deltas")
+    @Test
+    void testDelta() throws Exception {
+        PubspecArchiver archiver = createArchiver(10, PubspecArchiveMode.DELTA),
+                fullArchiver = createArchiver(10, PubspecArchiveMode.SNAPSHOT);
+        Pubspec pubspec = createPubspec();
+        List<String> expected = new ArrayList<>();
+
+        for (int d = 0; d < 200; d++)
+            pubspec.dependencies().add(new HostedReference("dep_" + d, PubSemVerConstraint.parse("^1.0.0")));
+        pubspec.modifyAdditionalData("flutter", Map.of("uses-material-design", true));
+
+        for (int e = 0; e < 5; e++) {
+            if (e == 2) pubspec.dependencies().remove("dep_0");
+            if (e == 3) pubspec.dependencies().add(new HostedReference("dep_0", PubSemVerConstraint.parse("^2.0.0")));
+            if (e == 4) pubspec.modifyAdditionalData("flutter", Map.of("uses-material-design", false));
+            pubspec.dependencies().set(new HostedReference("dep_1", PubSemVerConstraint.parse("^1.0." + e)));
+            archiver.archivePubspec(pubspec);
+            fullArchiver.archivePubspec(pubspec);
+            expected.add(pubspec.dependencies().toString() + pubspec.additionalData());
+        }
+
+        assertTrue(archiver.retainedBytes() * 2 < fullArchiver.retainedBytes());
+
+        for (int e = 4; e >= 0; e--) {
+            PubspecSnapshot snapshot = archiver.recentSnapshot();
+            assertEquals(expected.get(e), snapshot.dependencies().toString() + snapshot.additionalData());
+            if (e > 0) archiver.undoArchive();
+        }
+    }
+
+    @DisplayName("Restore archives from journal")
+    @Test
+    void testJournal(@TempDir Path journalDir) throws Exception {
+        for (PubspecArchiveMode mode : PubspecArchiveMode.values()) {
+            Path dir = journalDir.resolve(mode.name());
+            PubspecArchiver archiver = createArchiver(5, mode);
+            Pubspec pubspec = createPubspec();
+
+            // Small segment for triggering compaction.
+            try (PubspecArchiveJournal journal = new PubspecArchiveJournal(dir, PubspecParserEngine.json(), 4096)) {
+                archiver.attachJournal(journal);
+
+                for (int v = 0; v < 30; v++) {
+                    pubspec.modifyVersion("3.0." + v);
+                    pubspec.dependencies().set(new HostedReference("dep_" + v % 3, PubSemVerConstraint.parse("^1.0.0")));
+                    archiver.archivePubspec(pubspec);
+                }
+
+                archiver.undoArchive(2);
+            }
+
+            Files.createFile(dir.resolve("archive-0.journal.tmp"));
+
+            PubspecArchiver restored = createArchiver(5, mode);
+            try (PubspecArchiveJournal journal = new PubspecArchiveJournal(dir, PubspecParserEngine.json(), 4096)) {
+                restored.attachJournal(journal);
+
+                assertEquals(archiver.size(), restored.size());
+                assertEquals(archiver.recentArchiveAtUTC(), restored.recentArchiveAtUTC());
+                assertEquals("3.0.27", restored.recentSnapshot().version().value());
+                assertEquals(
+                        archiver.recentSnapshot().dependencies().toString(),
+                        restored.recentSnapshot().dependencies().toString()
+                );
+
+                restored.clearOlderArchive();
+            }
+
+            try (var files = Files.list(dir)) {
+                assertEquals(1, files.count());
+            }
+
+            PubspecArchiver cleared = createArchiver(5, mode);
+            try (PubspecArchiveJournal journal = new PubspecArchiveJournal(dir, PubspecParserEngine.json(), 4096)) {
+                cleared.attachJournal(journal);
+                assertEquals(1, cleared.size());
+                assertEquals("3.0.27", cleared.recentSnapshot().version().value());
+            }
+        }
+    }
+
+    @DisplayName("Keep archives unchanged when journal can not be written")
+    @Test
+    void testJournalFailure(@TempDir Path journalDir) throws Exception {
+        final PubspecArchiver archiver = createArchiver(5, PubspecArchiveMode.DELTA);
+        final Pubspec pubspec = createPubspec();
+
+        try (PubspecArchiveJournal journal = new PubspecArchiveJournal(journalDir, PubspecParserEngine.json(), 4096)) {
+            archiver.attachJournal(journal);
+
+            // Occupy the path of compacted segment, so that compaction must fail.
+            Files.createDirectory(journalDir.resolve("archive-1.journal.tmp"));
+
+            UncheckedIOException thrown = null;
+            int v = 0;
+
+            while (thrown == null) {
+                final int size = archiver.size();
+                final ZonedDateTime recentAt = size == 0 ? null : archiver.recentArchiveAtUTC();
+                pubspec.modifyVersion("1.0." + v++);
+
+                try {
+                    archiver.archivePubspec(pubspec);
+                } catch (UncheckedIOException e) {
+                    thrown = e;
+                    assertEquals(size, archiver.size());
+                    assertEquals(recentAt, archiver.recentArchiveAtUTC());
+                    assertEquals("1.0." + (v - 2), archiver.recentSnapshot().version().value());
+                }
+            }
+        }
+
+        final PubspecArchiver restored = createArchiver(5, PubspecArchiveMode.DELTA);
+        try (PubspecArchiveJournal journal = new PubspecArchiveJournal(journalDir, PubspecParserEngine.json(), 4096)) {
+            restored.attachJournal(journal);
+            assertEquals(archiver.size(), restored.size());
+            assertEquals(archiver.recentSnapshot().version(), restored.recentSnapshot().version());
+        }
+    }
+
+    @DisplayName("Fail constructing manager with corrupted journal")
+    @Test
+    void testCorruptedJournal(@TempDir Path project) throws Exception {
+        Files.writeString(project.resolve("pubspec.yaml"), "name: corrupted\nenvironment:\n  sdk: '>=2.12.0 <3.0.0'\n");
+        final Path journalDir = project.resolve(".journal");
+
+        try (PubspecArchiveJournal journal = new PubspecArchiveJournal(journalDir, PubspecParserEngine.json(), 4096)) {
+            journal.appendArchive(ZonedDateTime.now(ZoneId.of("UTC")), "{not json".getBytes());
+        }
+
+        assertThrows(IOException.class, () -> new PubspecManager(
+                project,
+                PubspecManagerOptions.defaultOptions().modifyArchiveJournalDirectory(Paths.get(".journal"))
+        ));
+    }
+
+    @DisplayName("Separate shared journal directory by project and lock it")
+    @Test
+    void testSharedJournalDirectory(@TempDir Path root) throws Exception {
+        final Path shared = root.resolve("journals");
+        final PubspecManagerOptions options = PubspecManagerOptions.defaultOptions()
+                .modifyArchiveJournalDirectory(shared);
+        final Path[] projects = new Path[2];
+
+        for (int p = 0; p < projects.length; p++) {
+            projects[p] = Files.createDirectories(root.resolve("project_" + p));
+            Files.writeString(
+                    projects[p].resolve("pubspec.yaml"),
+                    "name: project_" + p + "\nversion: 1.0." + p + "\nenvironment:\n  sdk: '>=2.12.0 <3.0.0'\n"
+            );
+        }
+
+        try (PubspecManager first = new PubspecManager(projects[0], options);
+             PubspecManager second = new PubspecManager(projects[1], options)) {
+            first.archiver().archivePubspec(first.loadPubspec());
+            second.archiver().archivePubspec(second.loadPubspec());
+
+            try (var dirs = Files.list(shared)) {
+                assertEquals(2, dirs.count());
+            }
+
+            assertThrows(IOException.class, () -> new PubspecManager(projects[0], options));
+            assertThrows(IOException.class, () -> new PubspecManager(
+                    projects[0].resolve("..").resolve(projects[0].getFileName()),
+                    options
+            ));
+        }
+
+        try (PubspecManager first = new PubspecManager(projects[0], options);
+             PubspecManager second = new PubspecManager(projects[1], options)) {
+            assertEquals("1.0.0", first.archiver().recentSnapshot().version().value());
+            assertEquals("1.0.1", second.archiver().recentSnapshot().version().value());
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package xyz.rk0cc.willpub.pubspec;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import xyz.rk0cc.willpub.pubspec.data.Pubspec;
+
+import java.nio.file.*;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Run by failsafe against the packaged multi-release jar when it is built with JDK 21.
+ */
+final class PubspecBulkIOIT {
+    @DisplayName("Use virtual threads from multi-release jar")
+    @Test
+    void testVirtualThreads(@TempDir Path dir) throws Exception {
+        Assumptions.assumeTrue(Runtime.version().feature() >= 21, "Virtual threads require Java 21");
+
+        final String location = PubspecBulkIO.class.getProtectionDomain().getCodeSource().getLocation().getPath();
+        assertTrue(location.endsWith(".jar"), "Not loaded from packaged jar: " + location);
+
+        assertEquals("virtual", PubspecBulkIO.threadingMode());
+        assertEquals(256, PubspecBulkIO.defaultConcurrency());
+
+        final ArrayList<PubspecManager> managers = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            final Path project = Files.createDirectories(dir.resolve("pkg_" + i));
+            Files.writeString(
+                    project.resolve("pubspec.yaml"),
+                    "name: pkg_" + i + "\nversion: 1.0.0\nenvironment:\n  sdk: '>=2.12.0 <3.0.0'\n"
+            );
+            managers.add(new PubspecManager(project));
+        }
+
+        final List<PubspecBulkIO.Result<Pubspec>> loaded = new PubspecBulkIO().loadAll(managers);
+        for (int i = 0; i < 20; i++) {
+            assertTrue(loaded.get(i).isSuccess());
+            assertEquals("pkg_" + i, loaded.get(i).value().name());
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package xyz.rk0cc.willpub.pubspec;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import xyz.rk0cc.willpub.pubspec.data.Pubspec;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+final class PubspecBulkIOTest {
+    @DisplayName("Load and save many pubspec.yaml in order with failures isolated")
+    @Test
+    void testBulk(@TempDir Path dir) throws Exception {
+        final ArrayList<PubspecManager> managers = new ArrayList<>();
+
+        for (int i = 0; i < 40; i++) {
+            final Path project = Files.createDirectories(dir.resolve("pkg_" + i));
+            Files.writeString(
+                    project.resolve("pubspec.yaml"),
+                    i == 7 ? "name: [" : "name: pkg_" + i + "\nversion: 1.0.0\nenvironment:\n  sdk: '>=2.12.0 <3.0.0'\n"
+            );
+            managers.add(new PubspecManager(project));
+        }
+
+        final PubspecBulkIO bulk = new PubspecBulkIO(4);
+        final List<PubspecBulkIO.Result<Pubspec>> loaded = bulk.loadAll(managers);
+
+        assertEquals(40, loaded.size());
+        assertFalse(loaded.get(7).isSuccess());
+        assertInstanceOf(IOException.class, loaded.get(7).cause());
+
+        final LinkedHashMap<PubspecManager, Pubspec> edited = new LinkedHashMap<>();
+        for (int i = 0; i < 40; i++) {
+            final PubspecBulkIO.Result<Pubspec> r = loaded.get(i);
+            assertSame(managers.get(i), r.manager());
+            if (i == 7) continue;
+
+            assertTrue(r.isSuccess());
+            assertEquals("pkg_" + i, r.value().name());
+            r.value().modifyVersion("1.0." + i);
+            edited.put(r.manager(), r.value());
+        }
+
+        final List<PubspecBulkIO.Result<Void>> saved = bulk.saveAll(edited);
+        assertEquals(39, saved.size());
+        assertTrue(saved.stream().allMatch(PubspecBulkIO.Result::isSuccess));
+
+        final List<PubspecBulkIO.Result<Pubspec>> reloaded = new PubspecBulkIO().loadAll(edited.keySet());
+        for (PubspecBulkIO.Result<Pubspec> r : reloaded)
+            assertEquals(edited.get(r.manager()).version(), r.value().version());
+
+        assertTrue(bulk.loadAll(List.of()).isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> new PubspecBulkIO(0));
+    }
+}
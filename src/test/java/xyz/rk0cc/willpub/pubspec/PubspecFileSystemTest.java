@@ -0,0 +1,42 @@
+package xyz.rk0cc.willpub.pubspec;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import xyz.rk0cc.willpub.pubspec.data.Pubspec;
+import xyz.rk0cc.willpub.pubspec.workspace.PubspecScanResult;
+import xyz.rk0cc.willpub.pubspec.workspace.PubspecWorkspaceScanner;
+
+import java.net.URI;
+import java.nio.file.*;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+final class PubspecFileSystemTest {
+    @DisplayName("Load and save pubspec.yaml inside a zip file system")
+    @Test
+    void testZipFileSystem(@TempDir Path dir) throws Exception {
+        final URI zip = URI.create("jar:" + dir.resolve("workspace.zip").toUri());
+
+        try (FileSystem fs = FileSystems.newFileSystem(zip, Map.of("create", "true"))) {
+            final Path project = Files.createDirectories(fs.getPath("/packages/zipped"));
+            Files.writeString(
+                    project.resolve("pubspec.yaml"),
+                    "name: zipped\nversion: 1.0.0\nenvironment:\n  sdk: '>=2.12.0 <3.0.0'\n"
+            );
+
+            final PubspecManager mgr = new PubspecManager(project, PubspecManagerOptions.defaultOptions()
+                    .modifyRepository(new PubspecRepository()));
+            assertThrows(UnsupportedOperationException.class, mgr::pubspecYAML);
+
+            final Pubspec pubspec = mgr.loadPubspec();
+            pubspec.modifyVersion("1.1.0");
+            mgr.savePubspec(pubspec);
+            assertEquals("1.1.0", mgr.loadPubspec().version().value());
+
+            final List<PubspecScanResult> results = new PubspecWorkspaceScanner().scanAll(fs.getPath("/"));
+            assertEquals(1, results.size());
+            assertEquals(project, results.get(0).projectPath());
+        }
+    }
+}
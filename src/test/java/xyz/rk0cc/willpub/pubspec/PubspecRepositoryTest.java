@@ -0,0 +1,112 @@
+package xyz.rk0cc.willpub.pubspec;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import xyz.rk0cc.willpub.pubspec.data.*;
+import xyz.rk0cc.willpub.pubspec.parser.PubspecParserEngine;
+
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+final class PubspecRepositoryTest {
+    private static Path writePubspec(Path dir, String version, Instant modified) throws Exception {
+        Files.createDirectories(dir);
+        Path file = dir.resolve("pubspec.yaml");
+        Files.writeString(file, "name: repo_test\nversion: " + version + "\nenvironment:\n  sdk: '>=2.12.0 <3.0.0'\n");
+        Files.setLastModifiedTime(file, FileTime.from(modified));
+        return file;
+    }
+
+    @DisplayName("Validate cached snapshot by file attributes and content")
+    @Test
+    void testValidation(@TempDir Path dir) throws Exception {
+        final PubspecRepository repository = new PubspecRepository();
+        final PubspecParserEngine engine = PubspecParserEngine.yaml();
+        final Instant past = Instant.now().minusSeconds(60);
+        Path file = writePubspec(dir, "1.0.0", past);
+
+        PubspecSnapshot first = repository.load(file, engine);
+        assertSame(first, repository.load(dir.resolve(".").resolve("pubspec.yaml"), engine));
+        assertEquals(new PubspecRepository.Statistics(1, 1, 0, 0, 0), repository.statistics());
+
+        Files.setLastModifiedTime(file, FileTime.from(past.plusSeconds(1)));
+        assertSame(first, repository.load(file, engine));
+        assertEquals(1, repository.statistics().revalidationCount());
+
+        writePubspec(dir, "1.0.1", past.plusSeconds(2));
+        assertEquals("1.0.1", repository.load(file, engine).version().value());
+        assertEquals(2, repository.statistics().missCount());
+
+        // Same size and modified time but modified recently.
+        final Instant now = Instant.now();
+        writePubspec(dir, "1.0.2", now);
+        assertEquals("1.0.2", repository.load(file, engine).version().value());
+        writePubspec(dir, "1.0.3", now);
+        assertEquals("1.0.3", repository.load(file, engine).version().value());
+
+        repository.invalidate(file);
+        assertEquals(0, repository.size());
+    }
+
+    @DisplayName("Load the same file once in concurrent")
+    @Test
+    void testSingleFlight(@TempDir Path dir) throws Exception {
+        final PubspecRepository repository = new PubspecRepository();
+        final Path file = writePubspec(dir, "2.0.0", Instant.now().minusSeconds(60));
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        try {
+            List<Future<PubspecSnapshot>> results = new ArrayList<>();
+            for (int t = 0; t < 32; t++) results.add(executor.submit(
+                    () -> repository.load(file, PubspecParserEngine.yaml())
+            ));
+
+            Set<PubspecSnapshot> loaded = Collections.newSetFromMap(new IdentityHashMap<>());
+            for (Future<PubspecSnapshot> r : results) loaded.add(r.get());
+
+            assertEquals(1, loaded.size());
+            assertEquals(1, repository.statistics().missCount());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @DisplayName("Evict least recently used file")
+    @Test
+    void testEviction(@TempDir Path dir) throws Exception {
+        final PubspecRepository repository = new PubspecRepository(2);
+        final Instant past = Instant.now().minusSeconds(60);
+
+        for (int p = 0; p < 3; p++)
+            repository.load(writePubspec(dir.resolve("p" + p), "1.0." + p, past), PubspecParserEngine.yaml());
+
+        assertEquals(2, repository.size());
+        assertEquals(1, repository.statistics().evictionCount());
+    }
+
+    @DisplayName("Load pubspec from repository in manager")
+    @Test
+    void testManager(@TempDir Path dir) throws Exception {
+        final PubspecRepository repository = new PubspecRepository();
+        writePubspec(dir, "3.0.0", Instant.now().minusSeconds(60));
+
+        try (PubspecManager mgr = new PubspecManager(
+                dir,
+                PubspecManagerOptions.defaultOptions().modifyRepository(repository)
+        )) {
+            Pubspec pubspec = mgr.loadPubspec();
+            mgr.loadPubspec().modifyVersion("9.9.9");
+            assertEquals("3.0.0", mgr.loadPubspec().version().value());
+            assertEquals(2, repository.statistics().hitCount());
+
+            pubspec.modifyVersion("3.0.1");
+            mgr.savePubspec(pubspec);
+            assertEquals("3.0.1", mgr.loadPubspec().version().value());
+        }
+    }
+}
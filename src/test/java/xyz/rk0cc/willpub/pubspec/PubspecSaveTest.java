@@ -0,0 +1,236 @@
+package xyz.rk0cc.willpub.pubspec;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import xyz.rk0cc.willpub.pubspec.data.Pubspec;
+import xyz.rk0cc.willpub.pubspec.data.PubspecSnapshot;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+final class PubspecSaveTest {
+    @DisplayName("Skip unchanged save and replace changed file atomically")
+    @Test
+    void testWriteIfChanged(@TempDir Path dir) throws Exception {
+        final Path project = Files.createDirectories(dir.resolve("project")), file = project.resolve("pubspec.yaml");
+        Files.writeString(file, "name: save_test\nversion: 1.0.0\nenvironment:\n  sdk: '>=2.12.0 <3.0.0'\n");
+
+        final PubspecManager mgr = new PubspecManager(project, PubspecManagerOptions.defaultOptions()
+                .modifySyncPolicy(PubspecSyncPolicy.FILE_AND_DIRECTORY));
+        final Pubspec pubspec = mgr.loadPubspec();
+
+        final FileTime past = FileTime.from(Instant.now().minusSeconds(60));
+        Files.setLastModifiedTime(file, past);
+        final boolean posix = FileSystems.getDefault().supportedFileAttributeViews().contains("posix");
+        if (posix) Files.setPosixFilePermissions(file, PosixFilePermissions.fromString("rw-r-----"));
+
+        mgr.savePubspec(pubspec);
+        assertEquals(past, Files.getLastModifiedTime(file));
+        assertEquals(new PubspecManager.SaveStatistics(0, 1), mgr.saveStatistics());
+
+        pubspec.modifyVersion("1.0.1");
+        mgr.savePubspec(pubspec);
+        assertEquals("1.0.1", mgr.loadPubspec().version().value());
+        assertEquals(new PubspecManager.SaveStatistics(1, 1), mgr.saveStatistics());
+        if (posix) assertEquals("rw-r-----", PosixFilePermissions.toString(Files.getPosixFilePermissions(file)));
+
+        try (Stream<Path> files = Files.list(project)) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @DisplayName("Replace linked file instead of symbolic link")
+    @Test
+    void testSymbolicLink(@TempDir Path dir) throws Exception {
+        final Path shared = dir.resolve("shared.yaml"), project = Files.createDirectories(dir.resolve("project"));
+        Files.writeString(shared, "name: linked\nversion: 1.0.0\nenvironment:\n  sdk: '>=2.12.0 <3.0.0'\n");
+
+        try {
+            Files.createSymbolicLink(project.resolve("pubspec.yaml"), shared);
+        } catch (UnsupportedOperationException | IOException e) {
+            Assumptions.assumeTrue(false, "Symbolic link is not supported");
+        }
+
+        final PubspecManager mgr = new PubspecManager(project);
+        final Pubspec pubspec = mgr.loadPubspec();
+        pubspec.modifyVersion("2.0.0");
+        mgr.savePubspec(pubspec);
+
+        assertTrue(Files.isSymbolicLink(project.resolve("pubspec.yaml")));
+        assertTrue(Files.readString(shared).contains("2.0.0"));
+    }
+
+    @DisplayName("Coalesce saves in write-behind mode")
+    @Test
+    void testWriteBehind(@TempDir Path dir) throws Exception {
+        final Path first = Files.createDirectories(dir.resolve("first")),
+                second = Files.createDirectories(dir.resolve("second"));
+        for (Path p : List.of(first, second)) {
+            Files.writeString(
+                    p.resolve("pubspec.yaml"),
+                    "name: behind\nversion: 1.0.0\nenvironment:\n  sdk: '>=2.12.0 <3.0.0'\n"
+            );
+        }
+
+        try (PubspecWriteBehindSaver saver = new PubspecWriteBehindSaver(Duration.ofSeconds(30), 1)) {
+            final PubspecManagerOptions options = PubspecManagerOptions.defaultOptions().modifyWriteBehind(saver);
+            final PubspecManager mgr = new PubspecManager(first, options);
+            final Pubspec pubspec = mgr.loadPubspec();
+
+            for (int i = 1; i <= 50; i++) {
+                pubspec.modifyVersion("1.0." + i);
+                mgr.archiver().archivePubspec(pubspec);
+                mgr.savePubspec(pubspec);
+            }
+            assertTrue(Files.readString(first.resolve("pubspec.yaml")).contains("1.0.0"));
+            assertEquals(1, saver.pendingCount());
+
+            // Reaching capacity blocks until the other file is written.
+            final PubspecManager other = new PubspecManager(second, options);
+            final Pubspec otherPubspec = other.loadPubspec();
+            otherPubspec.modifyVersion("2.0.0");
+            final Thread blocked = new Thread(() -> assertDoesNotThrow(() -> other.savePubspec(otherPubspec)));
+            blocked.start();
+            while (saver.statistics().blockedCount() == 0) Thread.onSpinWait();
+            mgr.flush();
+            blocked.join();
+            other.flush();
+            assertEquals("2.0.0", other.loadPubspec().version().value());
+
+            assertEquals("1.0.50", mgr.loadPubspec().version().value());
+            assertEquals(new PubspecManager.SaveStatistics(1, 0), mgr.saveStatistics());
+
+            pubspec.modifyVersion("9.9.9");
+            mgr.savePubspec(pubspec);
+            mgr.archiver().archivePubspec(pubspec);
+            pubspec.modifyVersion("1.0.0");
+            mgr.archiver().archivePubspec(pubspec);
+            mgr.savePubspecFromLatestArchive();
+            mgr.close();
+            assertEquals("1.0.0", mgr.loadPubspec().version().value());
+
+            other.close();
+            assertEquals(new PubspecWriteBehindSaver.Statistics(53, 50, 3, 1), saver.statistics());
+        }
+    }
+
+    @DisplayName("Keep write-behind worker alive after error")
+    @Test
+    void testWriteBehindError(@TempDir Path dir) throws Exception {
+        final Path broken = Files.createDirectories(dir.resolve("broken")),
+                healthy = Files.createDirectories(dir.resolve("healthy"));
+        for (Path p : List.of(broken, healthy)) {
+            Files.writeString(
+                    p.resolve("pubspec.yaml"),
+                    "name: behind\nversion: 1.0.0\nenvironment:\n  sdk: '>=2.12.0 <3.0.0'\n"
+            );
+        }
+
+        try (PubspecWriteBehindSaver saver = new PubspecWriteBehindSaver(Duration.ofSeconds(30), 4)) {
+            final PubspecManagerOptions options = PubspecManagerOptions.defaultOptions().modifyWriteBehind(saver);
+            final PubspecManager failing = new PubspecManager(broken, options) {
+                @Override
+                void writeBehind(@Nonnull PubspecSnapshot snapshot) {
+                    throw new AssertionError("Simulated error");
+                }
+            };
+            final Pubspec pubspec = failing.loadPubspec();
+            pubspec.modifyVersion("1.0.1");
+            failing.savePubspec(pubspec);
+
+            final IOException failure = assertThrows(IOException.class, failing::flush);
+            assertInstanceOf(AssertionError.class, failure.getCause());
+            assertDoesNotThrow(failing::flush);
+
+            final PubspecManager mgr = new PubspecManager(healthy, options);
+            final Pubspec healthyPubspec = mgr.loadPubspec();
+            healthyPubspec.modifyVersion("2.0.0");
+            mgr.savePubspec(healthyPubspec);
+            saver.flushAll();
+            assertEquals("2.0.0", mgr.loadPubspec().version().value());
+        }
+    }
+
+    @DisplayName("Save asynchronously in order with cancellation")
+    @Test
+    void testAsync(@TempDir Path dir) throws Exception {
+        Files.writeString(
+                dir.resolve("pubspec.yaml"),
+                "name: async_test\nversion: 1.0.0\nenvironment:\n  sdk: '>=2.12.0 <3.0.0'\n"
+        );
+
+        final ExecutorService io = Executors.newSingleThreadExecutor();
+        try {
+            final PubspecManager mgr = new PubspecManager(dir, PubspecManagerOptions.defaultOptions()
+                    .modifyAsyncExecutors(new PubspecAsyncExecutors(io, ForkJoinPool.commonPool())));
+            final Pubspec pubspec = mgr.loadPubspecAsync().get(10, TimeUnit.SECONDS);
+            assertEquals("1.0.0", pubspec.version().value());
+
+            // Hold I/O thread until all saves are queued.
+            final CountDownLatch hold = new CountDownLatch(1);
+            io.execute(() -> assertDoesNotThrow(() -> hold.await()));
+
+            final List<CompletableFuture<Void>> saves = new ArrayList<>();
+            for (int i = 1; i <= 20; i++) {
+                pubspec.modifyVersion("1.0." + i);
+                saves.add(mgr.savePubspecAsync(pubspec));
+            }
+            final CompletableFuture<Pubspec> loaded = mgr.loadPubspecAsync();
+            assertTrue(saves.get(19).cancel(false));
+            hold.countDown();
+
+            assertEquals("1.0.19", loaded.get(10, TimeUnit.SECONDS).version().value());
+            for (int i = 0; i < 19; i++) saves.get(i).get(10, TimeUnit.SECONDS);
+            assertEquals(new PubspecManager.SaveStatistics(19, 0), mgr.saveStatistics());
+
+            Files.delete(dir.resolve("pubspec.yaml"));
+            final ExecutionException e = assertThrows(
+                    ExecutionException.class,
+                    () -> mgr.loadPubspecAsync().get(10, TimeUnit.SECONDS)
+            );
+            assertInstanceOf(NoSuchFileException.class, e.getCause());
+        } finally {
+            io.shutdown();
+        }
+    }
+
+    @DisplayName("Complete exceptionally when executor rejects asynchronous save")
+    @Test
+    void testAsyncRejected(@TempDir Path dir) throws Exception {
+        Files.writeString(
+                dir.resolve("pubspec.yaml"),
+                "name: async_test\nversion: 1.0.0\nenvironment:\n  sdk: '>=2.12.0 <3.0.0'\n"
+        );
+
+        final ExecutorService cpu = Executors.newSingleThreadExecutor(), io = Executors.newSingleThreadExecutor();
+        cpu.shutdown();
+        try {
+            final PubspecManager mgr = new PubspecManager(dir, PubspecManagerOptions.defaultOptions()
+                    .modifyAsyncExecutors(new PubspecAsyncExecutors(io, cpu)));
+            final Pubspec pubspec = mgr.loadPubspec();
+            pubspec.modifyVersion("1.0.1");
+
+            final CompletableFuture<Void> save = assertDoesNotThrow(() -> mgr.savePubspecAsync(pubspec));
+            final ExecutionException e = assertThrows(ExecutionException.class, () -> save.get(10, TimeUnit.SECONDS));
+            assertInstanceOf(RejectedExecutionException.class, e.getCause());
+
+            // Later saves are not blocked by the rejected one.
+            pubspec.modifyVersion("1.0.2");
+            mgr.savePubspec(pubspec);
+            assertEquals("1.0.2", mgr.loadPubspec().version().value());
+        } finally {
+            io.shutdown();
+        }
+    }
+}
@@ -5,9 +5,8 @@ import xyz.rk0cc.josev.SemVer;
 import xyz.rk0cc.josev.constraint.pub.PubSemVerConstraint;
 
 import java.time.ZonedDateTime;
-import java.util.LinkedHashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
+import java.util.concurrent.*;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -91,4 +90,48 @@ final class JsonLikeDataTypeTest {
 
         assertTrue(PermitAdditionalMapValue.isJsonLiked(mockJson));
     }
+
+    @DisplayName("Deep and self-referenced value")
+    @Test
+    void testDeepValue() {
+        Object deep = "leaf";
+        for (int d = 0; d < 100_000; d++) deep = d % 2 == 0 ? List.of(deep) : Map.of("d", deep);
+        assertTrue(PermitAdditionalMapValue.isJsonLiked(deep));
+
+        Object invalidDeep = new SemVer(1);
+        for (int d = 0; d < 100_000; d++) invalidDeep = List.of(1, invalidDeep);
+        assertFalse(PermitAdditionalMapValue.isJsonLiked(invalidDeep));
+
+        List<Object> shared = List.of("a", 1);
+        assertTrue(PermitAdditionalMapValue.isJsonLiked(List.of(shared, shared, Map.of("s", shared))));
+
+        List<Object> cyclic = new ArrayList<>();
+        Object wrapped = cyclic;
+        for (int d = 0; d < 100; d++) wrapped = Map.of("c", wrapped);
+        cyclic.add(wrapped);
+        assertFalse(PermitAdditionalMapValue.isJsonLiked(cyclic));
+    }
+
+    @DisplayName("Validate in multiple threads")
+    @Test
+    void testConcurrentValidation() throws Exception {
+        final Map<String, Object> json = Map.of(
+                "flutter", Map.of("uses-material-design", true, "assets", List.of("a.png", "b.png")),
+                "version", 2.0d
+        );
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int t = 0; t < 16; t++) results.add(executor.submit(() -> {
+                boolean valid = true;
+                for (int i = 0; i < 1000; i++) valid &= PermitAdditionalMapValue.isJsonLiked(json);
+                return valid;
+            }));
+
+            for (Future<Boolean> r : results) assertTrue(r.get());
+        } finally {
+            executor.shutdown();
+        }
+    }
 }
@@ -7,7 +7,8 @@ import xyz.rk0cc.josev.constraint.pub.PubSemVerConstraint;
 import xyz.rk0cc.willpub.exceptions.pubspec.*;
 import xyz.rk0cc.willpub.pubspec.data.dependencies.type.*;
 
-import java.util.Map;
+import java.util.*;
+import java.util.regex.Pattern;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -94,4 +95,59 @@ final class PubspecAssignmentTest {
                 () -> mockPubspec.appendAdditionalData("name", "foo")
         );
     }
+
+    @DisplayName("Validate package naming")
+    @Test
+    void testPackageNaming() {
+        Set<String> keywords = Set.of(
+                "assert", "break", "case", "catch", "class", "const", "continue", "default", "do", "else", "enum",
+                "extends", "false", "final", "finally", "for", "if", "in", "is", "new", "null", "rethrow", "return",
+                "super", "switch", "this", "throw", "true", "try", "var", "void", "while", "with"
+        );
+        Pattern legacy = Pattern.compile("^[a-z0-9_]+$");
+        Random random = new Random(20221017L);
+        String alphabet = "abcdefghijklmnopqrstuvwxyz0123456789_-A .";
+
+        for (String keyword : keywords) {
+            assertFalse(PubspecValueValidator.packageNaming(keyword));
+            assertTrue(PubspecValueValidator.packageNaming(keyword + "_"));
+        }
+
+        for (int i = 0; i < 10000; i++) {
+            StringBuilder sb = new StringBuilder();
+            for (int c = random.nextInt(10); c > 0; c--) sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            String name = sb.toString();
+
+            assertEquals(
+                    legacy.matcher(name).matches() && !keywords.contains(name),
+                    PubspecValueValidator.packageNaming(name),
+                    name
+            );
+        }
+
+        assertEquals(List.of("Foo", "class"), PubspecValueValidator.validateAll(List.of("foo", "Foo", "class", "bar")));
+        assertTrue(PubspecValueValidator.validateAll(List.of("foo", "bar")).isEmpty());
+    }
+
+    @DisplayName("Share additional data with snapshot")
+    @Test
+    void testAdditionalDataSharing() {
+        List<Object> assets = new ArrayList<>(List.of("a.png"));
+        mockPubspec.modifyAdditionalData("flutter", Map.of("assets", assets));
+        assets.add("leaked.png");
+
+        PubspecSnapshot snapshot = PubspecSnapshot.getSnapshotOfCurrentPubspec(mockPubspec);
+        assertSame(mockPubspec.additionalDataValue("flutter"), snapshot.additionalData().get("flutter"));
+
+        assertTrue(mockPubspec.modifyAdditionalDataAt("flutter", List.of("assets", 1), "b.png"));
+        assertTrue(mockPubspec.removeAdditionalDataAt("flutter", List.of("assets", 0)));
+        assertFalse(mockPubspec.removeAdditionalDataAt("flutter", List.of("fonts")));
+        assertThrows(
+                UnsupportedOperationException.class,
+                () -> ((List<Object>) ((Map<?, ?>) mockPubspec.additionalDataValue("flutter")).get("assets")).add("c")
+        );
+
+        assertEquals(Map.of("assets", List.of("b.png")), mockPubspec.additionalDataValue("flutter"));
+        assertEquals(Map.of("assets", List.of("a.png")), snapshot.additionalData().get("flutter"));
+    }
 }
@@ -9,6 +9,7 @@ import xyz.rk0cc.willpub.pubspec.data.dependencies.type.*;
 
 import javax.annotation.Nonnull;
 
+import java.net.*;
 import java.util.*;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -86,4 +87,144 @@ final class DependenciesReferenceTest {
             fail(e);
         }
     }
+
+    @DisplayName("Iterate and split dependencies")
+    @Test
+    void testIterate() {
+        try {
+            DependenciesReferenceSet drs = createSampleSet();
+            Spliterator<DependencyReference> spliterator = drs.spliterator();
+            assertEquals(drs.size(), spliterator.getExactSizeIfKnown());
+            assertTrue(spliterator.hasCharacteristics(Spliterator.DISTINCT | Spliterator.ORDERED));
+            assertEquals(
+                    List.of("path", "flutter", "url_launcher", "sembast", "window_size"),
+                    drs.stream().map(DependencyReference::name).toList()
+            );
+
+            Iterator<DependencyReference> iterator = drs.iterator();
+            iterator.next();
+            iterator.remove();
+            assertFalse(drs.contains("path"));
+
+            Set<DependencyReference> view = drs.asUnmodifiableSet();
+            assertThrows(UnsupportedOperationException.class, view::clear);
+            drs.remove("flutter");
+            assertEquals(drs.size(), view.size());
+            assertEquals(drs.size(), drs.dependencyNames().size());
+
+            DependenciesReferenceSet snapshot = new ImportedReferenceSet(drs, true);
+            for (DependencyReference dr : drs) drs.remove(dr);
+            assertTrue(drs.isEmpty());
+            assertEquals(3, snapshot.size());
+            assertTrue(snapshot.contains("url_launcher"));
+        } catch (IllegalPubspecConfigurationException | UnknownGitRepositoryURLTypeException e) {
+            fail(e);
+        }
+    }
+
+    @DisplayName("Bulk operations by name and reference")
+    @Test
+    void testBulkReferences() {
+        try {
+            DependenciesReferenceSet drs = createSampleSet();
+            HostedReference path = new HostedReference("path", PubSemVerConstraint.parse("^1.8.0"));
+            HostedReference newerPath = new HostedReference("path", PubSemVerConstraint.parse("^1.8.1"));
+
+            assertTrue(drs.containsAll(List.of("flutter", path)));
+            assertFalse(drs.containsAll(List.of("flutter", newerPath)));
+            assertFalse(drs.addAll(List.of(path)));
+            assertFalse(drs.removeAllReferences(List.of(newerPath)));
+            assertTrue(drs.setAll(List.of(newerPath)));
+            assertFalse(drs.setAll(List.of(newerPath)));
+            assertTrue(drs.retainAllReferences(List.of(newerPath, new SDKReference("flutter", "flutter"))));
+            assertEquals(Set.of("path", "flutter"), drs.dependencyNames());
+            assertTrue(drs.removeAllReferences(List.of(newerPath)));
+            assertEquals(1, drs.size());
+            assertThrows(ClassCastException.class, () -> drs.removeAll(List.of(path)));
+        } catch (IllegalPubspecConfigurationException | UnknownGitRepositoryURLTypeException e) {
+            fail(e);
+        }
+    }
+
+    @DisplayName("Compare third party hosted reference without resolving host")
+    @Test
+    void testThirdPartyIdentity() throws Exception {
+        final int[] resolved = {0};
+        URLStreamHandler handler = new URLStreamHandler() {
+            @Override
+            protected URLConnection openConnection(URL u) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            protected int getDefaultPort() {
+                return 443;
+            }
+
+            @Override
+            protected synchronized InetAddress getHostAddress(URL u) {
+                resolved[0]++;
+                return null;
+            }
+        };
+
+        URL url = new URL("https", "Pub.Example.com", 443, "/", handler),
+                sameURL = new URL("https", "pub.example.com", -1, "/", handler);
+        url.hashCode();
+        assertTrue(resolved[0] > 0);
+        resolved[0] = 0;
+
+        ThirdPartyHostedReference a = new ThirdPartyHostedReference("foo", url),
+                b = new ThirdPartyHostedReference("foo", sameURL);
+        DependenciesReferenceSet drs = createEmptySet();
+        drs.add(a);
+
+        assertEquals(a, b);
+        assertEquals(a.hashCode(), b.hashCode());
+        assertTrue(drs.contains(b));
+        assertTrue(new HashSet<>(List.of(a)).contains(b));
+        assertNotEquals(a, b.changeRepositoryURL(new URL("https", "pub.example.com", 8443, "/", handler)));
+        assertTrue(drs.remove(b));
+        assertEquals(0, resolved[0]);
+    }
+
+    @DisplayName("Rewrite hosted references to mirror")
+    @Test
+    void testHostedRepositoryRegistry() throws Exception {
+        HostedRepositoryRegistry registry = new HostedRepositoryRegistry(new URL("https://pub.dev"))
+                .addMirror(new URL("https://pub.dev"), new URL("https://pub.mirror.example"));
+        DependenciesReferenceSet drs = createSampleSet();
+        drs.add(new ThirdPartyHostedReference("foo", new URL("https://PUB.dev:443")));
+        drs.add(new ThirdPartyHostedReference("bar", new URL("https://other.example")));
+        List<String> order = new ArrayList<>(drs.dependencyNames());
+
+        assertEquals(4, registry.rewriteAll(drs));
+        assertEquals(4, registry.rewriteCount());
+        assertEquals(order, new ArrayList<>(drs.dependencyNames()));
+        assertEquals("https://pub.mirror.example", drs.get("path", ThirdPartyHostedReference.class).repositoryURL().toString());
+        assertSame(
+                drs.get("path", ThirdPartyHostedReference.class).repositoryURL(),
+                drs.get("foo", ThirdPartyHostedReference.class).repositoryURL()
+        );
+        assertInstanceOf(SDKReference.class, drs.get("flutter"));
+        assertEquals("https://other.example", drs.get("bar", ThirdPartyHostedReference.class).repositoryURL().toString());
+        assertEquals(0, registry.rewriteAll(drs));
+        assertEquals(4, registry.rewriteCount());
+
+        DependenciesReferenceSet locked = new ImportedReferenceSet(createSampleSet(), true);
+        assertThrows(UnsupportedOperationException.class, () -> registry.rewriteAll(locked));
+        assertEquals(4, registry.rewriteCount());
+
+        DependenciesReferenceSet converting = createSampleSet();
+        assertEquals(3, registry.convertAllAsThirdParty(converting));
+        assertEquals(3, registry.conversionCount());
+        assertEquals(0, registry.convertAllAsThirdParty(converting));
+        assertEquals(3, registry.conversionCount());
+        assertSame(converting.get("flutter"), registry.rewrite(converting.get("flutter")));
+        assertEquals(4, registry.rewriteCount());
+
+        SDKReference renamed = new SDKReference("renamed", "flutter");
+        assertThrows(IllegalArgumentException.class, () -> drs.replaceAll(dr -> renamed));
+        assertInstanceOf(SDKReference.class, drs.get("flutter"));
+    }
 }
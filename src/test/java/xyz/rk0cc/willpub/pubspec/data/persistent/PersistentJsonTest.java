@@ -0,0 +1,96 @@
+package xyz.rk0cc.willpub.pubspec.data.persistent;
+
+import org.junit.jupiter.api.*;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+final class PersistentJsonTest {
+    private static Map<String, Object> mockFlutter() {
+        LinkedHashMap<String, Object> flutter = new LinkedHashMap<>();
+        flutter.put("uses-material-design", true);
+        flutter.put("assets", new ArrayList<>(List.of("a.png", "b.png")));
+        flutter.put("fonts", List.of(Map.of("family", "Roboto")));
+        return flutter;
+    }
+
+    @DisplayName("Freeze mutable collections")
+    @Test
+    void testFreeze() {
+        Map<String, Object> origin = mockFlutter();
+        Object frozen = PersistentJson.freeze(origin);
+
+        assertInstanceOf(PersistentJsonMap.class, frozen);
+        assertEquals(origin, frozen);
+        assertEquals(origin.toString(), frozen.toString());
+        assertSame(frozen, PersistentJson.freeze(frozen));
+        assertTrue(PersistentJson.isFrozen(frozen));
+        assertSame("foo", PersistentJson.freeze("foo"));
+
+        Map<?, ?> frozenMap = (Map<?, ?>) frozen;
+        assertThrows(UnsupportedOperationException.class, () -> ((Map<String, Object>) frozenMap).put("foo", 1));
+        assertThrows(UnsupportedOperationException.class, () -> ((List<?>) frozenMap.get("assets")).clear());
+
+        ((List<Object>) origin.get("assets")).add("c.png");
+        assertEquals(2, ((List<?>) frozenMap.get("assets")).size());
+
+        Object deep = "leaf";
+        for (int d = 0; d < 100_000; d++) deep = List.of(deep);
+        Object frozenDeep = PersistentJson.freeze(deep);
+        for (int d = 0; d < 100_000; d++) frozenDeep = ((PersistentJsonList) frozenDeep).get(0);
+        assertEquals("leaf", frozenDeep);
+
+        List<Object> cyclic = new ArrayList<>();
+        Object wrapped = cyclic;
+        for (int d = 0; d < 100; d++) wrapped = List.of(wrapped);
+        cyclic.add(wrapped);
+        assertThrows(IllegalArgumentException.class, () -> PersistentJson.freeze(cyclic));
+        assertThrows(IllegalArgumentException.class, () -> PersistentJson.freeze(Map.of(1, "one")));
+    }
+
+    @DisplayName("Edit by path copying")
+    @Test
+    void testPathCopy() {
+        PersistentJsonMap origin = (PersistentJsonMap) PersistentJson.freeze(mockFlutter());
+
+        PersistentJsonMap appended = (PersistentJsonMap) PersistentJson.setIn(origin, List.of("assets", 2), "c.png");
+        assertEquals(List.of("a.png", "b.png", "c.png"), appended.get("assets"));
+        assertEquals(List.of("a.png", "b.png"), origin.get("assets"));
+        assertSame(origin.get("fonts"), appended.get("fonts"));
+        assertEquals(new ArrayList<>(origin.keySet()), new ArrayList<>(appended.keySet()));
+
+        PersistentJsonMap created = (PersistentJsonMap) PersistentJson.setIn(origin, List.of("module", "name"), "m");
+        assertEquals(Map.of("name", "m"), created.get("module"));
+
+        assertSame(origin, PersistentJson.setIn(origin, List.of("uses-material-design"), true));
+        assertThrows(IllegalArgumentException.class, () -> PersistentJson.setIn(origin, List.of("assets", "x"), 1));
+        assertThrows(IndexOutOfBoundsException.class, () -> PersistentJson.setIn(origin, List.of("assets", 5), 1));
+
+        PersistentJsonMap removed = (PersistentJsonMap) PersistentJson.removeIn(origin, List.of("fonts", 0, "family"));
+        assertEquals(List.of(Map.of()), removed.get("fonts"));
+        assertSame(origin.get("assets"), removed.get("assets"));
+        assertSame(origin, PersistentJson.removeIn(origin, List.of("missing", 0)));
+        assertSame(origin, PersistentJson.removeIn(origin, List.of("assets", 9)));
+        assertThrows(IllegalArgumentException.class, () -> PersistentJson.removeIn(origin, List.of()));
+    }
+
+    @DisplayName("Freeze value when modify persistent collection directly")
+    @Test
+    void testDirectModification() {
+        ArrayList<Object> assets = new ArrayList<>(List.of("a.png"));
+
+        PersistentJsonMap map = PersistentJsonMap.empty().with("assets", assets);
+        assertInstanceOf(PersistentJsonList.class, map.get("assets"));
+        assertSame(map, map.with("assets", map.get("assets")));
+
+        PersistentJsonList list = PersistentJsonList.empty().append(assets).with(0, assets).append(Map.of("k", 1));
+        assertInstanceOf(PersistentJsonList.class, list.get(0));
+        assertInstanceOf(PersistentJsonMap.class, list.get(1));
+        assertSame(list, list.with(1, list.get(1)));
+
+        assets.add("b.png");
+        assertEquals(List.of("a.png"), map.get("assets"));
+        assertEquals(List.of("a.png"), list.get(0));
+    }
+}
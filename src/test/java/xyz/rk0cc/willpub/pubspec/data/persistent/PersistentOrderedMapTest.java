@@ -0,0 +1,82 @@
+package xyz.rk0cc.willpub.pubspec.data.persistent;
+
+import org.junit.jupiter.api.*;
+
+import java.io.*;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+final class PersistentOrderedMapTest {
+    private static void assertSameOrder(
+            LinkedHashMap<String, Integer> expected,
+            PersistentOrderedMap<String, Integer> actual
+    ) {
+        assertEquals(expected.size(), actual.size());
+        assertEquals(new ArrayList<>(expected.entrySet()), listOf(actual.iterator()));
+        assertEquals(new ArrayList<>(expected.keySet()), listOf(actual.keyIterator()));
+    }
+
+    private static <T> List<T> listOf(Iterator<T> iterator) {
+        List<T> l = new ArrayList<>();
+        iterator.forEachRemaining(l::add);
+        return l;
+    }
+
+    @DisplayName("Behave as same as LinkedHashMap")
+    @Test
+    void testAgainstLinkedHashMap() {
+        final Random random = new Random(20221017L);
+        final LinkedHashMap<String, Integer> expected = new LinkedHashMap<>();
+        PersistentOrderedMap<String, Integer> actual = PersistentOrderedMap.empty();
+
+        for (int i = 0; i < 5000; i++) {
+            String key = "k" + random.nextInt(300);
+            if (random.nextInt(3) == 0) {
+                expected.remove(key);
+                actual = actual.remove(key);
+            } else {
+                expected.put(key, i);
+                actual = actual.put(key, i);
+            }
+            assertEquals(expected.get(key), actual.get(key));
+        }
+
+        assertSameOrder(expected, actual);
+    }
+
+    @DisplayName("Keep previous version untouched")
+    @Test
+    void testPersistence() {
+        PersistentOrderedMap<String, Integer> origin = PersistentOrderedMap.<String, Integer>empty()
+                .put("a", 1)
+                .put("b", 2);
+        PersistentOrderedMap<String, Integer> modified = origin.put("a", 3).remove("b").put("c", 4);
+
+        assertEquals(List.of("a", "b"), listOf(origin.keyIterator()));
+        assertEquals(1, origin.get("a"));
+        assertEquals(List.of("a", "c"), listOf(modified.keyIterator()));
+        assertEquals(3, modified.get("a"));
+        assertSame(origin, origin.remove("z"));
+    }
+
+    @DisplayName("Serialize entries in order")
+    @Test
+    void testSerialize() throws IOException, ClassNotFoundException {
+        PersistentOrderedMap<String, Integer> origin = PersistentOrderedMap.<String, Integer>empty()
+                .put("z", 1)
+                .put("a", 2);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        try (ObjectOutputStream oos = new ObjectOutputStream(bytes)) {
+            oos.writeObject(origin);
+        }
+
+        try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            @SuppressWarnings("unchecked")
+            PersistentOrderedMap<String, Integer> restored = (PersistentOrderedMap<String, Integer>) ois.readObject();
+            assertEquals(List.of("z", "a"), listOf(restored.keyIterator()));
+            assertEquals(2, restored.get("a"));
+        }
+    }
+}
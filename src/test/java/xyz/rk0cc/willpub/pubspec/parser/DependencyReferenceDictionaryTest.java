@@ -0,0 +1,111 @@
+package xyz.rk0cc.willpub.pubspec.parser;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.*;
+import xyz.rk0cc.jogu.GitRepositoryURL;
+import xyz.rk0cc.josev.constraint.pub.PubSemVerConstraint;
+import xyz.rk0cc.willpub.pubspec.data.dependencies.type.*;
+
+import java.net.URL;
+import java.nio.file.Paths;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+final class DependencyReferenceDictionaryTest {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static DependencyReferenceDictionary detect(String json) throws Exception {
+        return DependencyReferenceDictionary.detectReference(MAPPER.readTree(json));
+    }
+
+    @DisplayName("Detect hosted dependency")
+    @Test
+    void testHosted() throws Exception {
+        assertEquals(DependencyReferenceDictionary.HOSTED, detect("null"));
+        assertEquals(DependencyReferenceDictionary.HOSTED, detect("\"^1.8.0\""));
+        assertEquals(
+                DependencyReferenceDictionary.HOSTED,
+                DependencyReferenceDictionary.detectReference(new HostedReference("path"))
+        );
+    }
+
+    @DisplayName("Detect local dependency")
+    @Test
+    void testLocal() throws Exception {
+        assertEquals(DependencyReferenceDictionary.LOCAL, detect("{\"path\": \"../path\"}"));
+        assertEquals(
+                DependencyReferenceDictionary.LOCAL,
+                DependencyReferenceDictionary.detectReference(new LocalReference("path", Paths.get("../path")))
+        );
+    }
+
+    @DisplayName("Detect git dependency")
+    @Test
+    void testGit() throws Exception {
+        assertEquals(DependencyReferenceDictionary.GIT, detect("{\"git\": \"git@example.com:dart_path.git\"}"));
+        assertEquals(
+                DependencyReferenceDictionary.GIT,
+                detect("{\"git\": {\"url\": \"git@example.com:dart_path.git\", \"ref\": \"main\"}}")
+        );
+        assertEquals(
+                DependencyReferenceDictionary.GIT,
+                DependencyReferenceDictionary.detectReference(
+                        new GitReference("path", GitRepositoryURL.parse("git@example.com:dart_path.git"))
+                )
+        );
+    }
+
+    @DisplayName("Detect third party hosted dependency")
+    @Test
+    void testThirdParty() throws Exception {
+        assertEquals(
+                DependencyReferenceDictionary.THIRD_PARTY,
+                detect("{\"hosted\": \"https://pub.example.com\", \"version\": \"^1.0.0\"}")
+        );
+        assertEquals(
+                DependencyReferenceDictionary.THIRD_PARTY,
+                detect("{\"version\": \"^1.0.0\", \"hosted\": {\"name\": \"foo\", \"url\": \"https://example.com\"}}")
+        );
+        assertEquals(
+                DependencyReferenceDictionary.THIRD_PARTY,
+                DependencyReferenceDictionary.detectReference(
+                        new ThirdPartyHostedReference("foo", new URL("https://pub.example.com"))
+                )
+        );
+    }
+
+    @DisplayName("Detect SDK dependency")
+    @Test
+    void testSDK() throws Exception {
+        assertEquals(DependencyReferenceDictionary.SDK, detect("{\"sdk\": \"flutter\"}"));
+        assertEquals(DependencyReferenceDictionary.SDK, detect("{\"version\": \"^1.0.0\", \"sdk\": \"flutter\"}"));
+        assertEquals(
+                DependencyReferenceDictionary.SDK,
+                DependencyReferenceDictionary.detectReference(
+                        new SDKReference("flutter_test", "flutter", PubSemVerConstraint.parse(null))
+                )
+        );
+    }
+
+    @DisplayName("Reject unknown dependency structure")
+    @Test
+    void testUnknown() throws Exception {
+        for (String unknown : new String[]{
+                "{}",
+                "{\"version\": \"^1.0.0\"}",
+                "{\"path\": 1}",
+                "{\"git\": {\"ref\": \"main\"}}",
+                "{\"hosted\": {\"name\": \"foo\"}}",
+                "[\"^1.0.0\"]",
+                "1"
+        }) {
+            JsonNode node = MAPPER.readTree(unknown);
+            assertThrows(
+                    IllegalArgumentException.class,
+                    () -> DependencyReferenceDictionary.detectReference(node),
+                    unknown
+            );
+        }
+    }
+}
@@ -6,14 +6,21 @@ import xyz.rk0cc.josev.constraint.pub.PubConstraintPattern;
 import xyz.rk0cc.josev.constraint.pub.PubSemVerConstraint;
 import xyz.rk0cc.willpub.exceptions.pubspec.IllegalPubspecConfigurationException;
 import xyz.rk0cc.willpub.pubspec.DoNotRemoveAutogenFile;
+import xyz.rk0cc.willpub.pubspec.data.AdditionalDataMap;
+import xyz.rk0cc.willpub.pubspec.data.DeferredAdditionalValue;
 import xyz.rk0cc.willpub.pubspec.data.Pubspec;
 import xyz.rk0cc.willpub.pubspec.data.PubspecEnvironment;
+import xyz.rk0cc.willpub.pubspec.data.PubspecSnapshot;
 import xyz.rk0cc.willpub.pubspec.data.dependencies.type.*;
 
-import java.io.File;
-import java.io.IOException;
+import java.io.*;
 import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
 import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -104,6 +111,194 @@ final class PubspecParserTest {
         }
     }
 
+    @DisplayName("Test shared engine")
+    @Order(4)
+    @Test
+    void testEngine() {
+        try {
+            PubspecParserEngine engine = PubspecParserEngine.yaml().warmUp();
+            assertSame(engine, PubspecParserEngine.yaml());
+            assertSame(engine.writer(), engine.writer(PubspecParsePreference.currentProfile()));
+
+            Pubspec py2 = engine.read(getClass().getResource("2.yaml"));
+            Pubspec reparsed = engine.read(engine.writeAsString(py2));
+            assertEquals(py2.name(), reparsed.name());
+            assertEquals(py2.dependencies().size(), reparsed.dependencies().size());
+            assertTrue(reparsed.containsKeyInAdditionalData("flutter"));
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    @DisplayName("Test intern pool")
+    @Order(5)
+    @Test
+    void testInternPool() {
+        try {
+            PubspecInternPool pool = new PubspecInternPool();
+            PubspecParserEngine engine = PubspecParserEngine.yaml().withInternPool(pool);
+            assertSame(pool, engine.internPool());
+            assertNull(PubspecParserEngine.yaml().internPool());
+
+            Pubspec first = engine.read(getClass().getResource("2.yaml")),
+                    second = engine.read(getClass().getResource("2.yaml")),
+                    unpooled = PubspecParserEngine.yaml().read(getClass().getResource("2.yaml"));
+
+            assertSame(first.environment(), second.environment());
+            assertSame(first.version(), second.version());
+            assertSame(first.platforms(), second.platforms());
+            assertSame(first.dependencies().get("flutter"), second.dependencies().get("flutter"));
+            assertEquals(unpooled.dependencies().toString(), second.dependencies().toString());
+            assertEquals(unpooled.dependencies().toNativeSet(), second.dependencies().toNativeSet());
+
+            PubspecInternPool.Statistics refStats = pool.statistics(PubspecInternPool.Kind.REFERENCE);
+            assertEquals(refStats.hitCount(), refStats.missCount());
+            assertEquals(0.5, refStats.hitRate());
+            assertTrue(pool.statistics(PubspecInternPool.Kind.ENVIRONMENT).hitCount() > 0);
+        } catch (Exception e) {
+            fail(e);
+        }
+    }
+
+    @DisplayName("Test byte-oriented sources")
+    @Order(6)
+    @Test
+    void testByteSources() {
+        try {
+            PubspecParserEngine engine = PubspecParserEngine.yaml();
+            byte[] content = engine.writeAsBytes(engine.read(getClass().getResource("2.yaml")));
+
+            ByteBuffer direct = ByteBuffer.allocateDirect(content.length + 4);
+            direct.putInt(0).put(content).flip().position(4);
+            assertFalse(engine.read(direct).dependencies().isEmpty());
+            assertEquals(4, direct.position());
+
+            byte[] padded = new byte[content.length + 8];
+            System.arraycopy(content, 0, padded, 8, content.length);
+            assertEquals(
+                    engine.read(content).dependencies().toNativeSet(),
+                    engine.read(ByteBuffer.wrap(padded, 8, content.length).slice()).dependencies().toNativeSet()
+            );
+            assertEquals(engine.read(content).name(), engine.read(padded, 8, content.length).name());
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            try (WritableByteChannel channel = Channels.newChannel(out)) {
+                engine.write(channel, engine.read(Channels.newChannel(new ByteArrayInputStream(content))));
+            }
+            assertArrayEquals(content, out.toByteArray());
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    @DisplayName("Test 3.yaml")
+    @Order(8)
+    @Test
+    void testDependenciesSections() {
+        try {
+            Pubspec py3 = PubspecParserEngine.yaml().read(getClass().getResource("3.yaml"));
+            assertEquals(py3.dependencies().size(), 2);
+            assertEquals(py3.devDependencies().size(), 2);
+            assertEquals(py3.devDependencies().get("test", HostedReference.class).versionConstraint().rawConstraint(),
+                    "^1.21.0");
+            assertNull(py3.devDependencies().get("lints", HostedReference.class).versionConstraint().rawConstraint());
+            assertEquals(py3.dependencyOverrides().size(), 1);
+            assertEquals(py3.dependencyOverrides().get("path", LocalReference.class).path(), Paths.get("../path"));
+        } catch (IOException | IllegalPubspecConfigurationException e) {
+            fail(e);
+        }
+    }
+
+    @DisplayName("Test round trip of succinct third party hosted format")
+    @Order(9)
+    @Test
+    void testSuccinctThirdPartyHosted() {
+        try {
+            PubspecParserEngine engine = PubspecParserEngine.yaml();
+            Pubspec py3 = engine.read(getClass().getResource("3.yaml"));
+            ThirdPartyHostedReference origin = py3.dependencies()
+                    .get("mock_private_package", ThirdPartyHostedReference.class);
+            assertEquals(origin.repositoryURL().toString(), "https://pub.example.com");
+            assertEquals(origin.hostedName(), "mock_private_package");
+
+            String written = engine.writeAsString(py3);
+            assertTrue(written.contains("hosted: \"https://pub.example.com\"")
+                    || written.contains("hosted: https://pub.example.com"), written);
+
+            Pubspec reparsed = engine.read(written);
+            ThirdPartyHostedReference roundTrip = reparsed.dependencies()
+                    .get("mock_private_package", ThirdPartyHostedReference.class);
+            assertEquals(origin.repositoryURL(), roundTrip.repositoryURL());
+            assertEquals(origin.hostedName(), roundTrip.hostedName());
+            assertEquals(origin.versionConstraint().rawConstraint(), roundTrip.versionConstraint().rawConstraint());
+            assertEquals(py3.devDependencies().toNativeSet(), reparsed.devDependencies().toNativeSet());
+            assertEquals(py3.dependencyOverrides().toNativeSet(), reparsed.dependencyOverrides().toNativeSet());
+        } catch (IOException | IllegalPubspecConfigurationException e) {
+            fail(e);
+        }
+    }
+
+    @DisplayName("Test deferring decode of additional data")
+    @Order(10)
+    @Test
+    void testDeferredAdditionalData() {
+        try {
+            PubspecParserEngine engine = PubspecParserEngine.yaml();
+            Pubspec py3 = engine.read(getClass().getResource("3.yaml"));
+            AdditionalDataMap additionalData = (AdditionalDataMap) py3.additionalData();
+
+            assertTrue(additionalData.containsKey("flutter"));
+            assertFalse(additionalData.isDecoded("flutter"));
+            assertInstanceOf(DeferredAdditionalValue.class, additionalData.rawValue("flutter"));
+
+            AdditionalDataMap snapshotData = (AdditionalDataMap) PubspecSnapshot.getSnapshotOfCurrentPubspec(py3)
+                    .additionalData();
+            assertSame(additionalData.rawValue("flutter"), snapshotData.rawValue("flutter"));
+            assertFalse(snapshotData.isDecoded("flutter"));
+
+            String undecodedWritten = engine.writeAsString(py3);
+            assertFalse(additionalData.isDecoded("flutter"));
+            assertTrue(undecodedWritten.contains("uses-material-design: true"), undecodedWritten);
+            assertTrue(undecodedWritten.contains("- \"assets/b.png\"")
+                    || undecodedWritten.contains("- assets/b.png"), undecodedWritten);
+
+            Map<?, ?> flutter = (Map<?, ?>) additionalData.get("flutter");
+            assertTrue(additionalData.isDecoded("flutter"));
+            assertTrue(snapshotData.isDecoded("flutter"));
+            assertEquals(List.of("assets/a.png", "assets/b.png"), flutter.get("assets"));
+            assertEquals(undecodedWritten, engine.writeAsString(py3));
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    @DisplayName("Test writing deeply nested additional data")
+    @Order(7)
+    @Test
+    void testDeepAdditionalData() {
+        try {
+            Object deep = "leaf";
+            for (int d = 0; d < 100_000; d++) deep = d % 2 == 0 ? List.of(deep) : Map.of("k", deep);
+
+            Pubspec p = new Pubspec("deep_pubspec", new PubspecEnvironment(
+                    PubSemVerConstraint.parse(">=2.15.0 <3.0.0")
+            ));
+            p.modifyAdditionalData("deep", deep);
+
+            String json = PubspecParserEngine.json().writeAsString(p);
+            assertTrue(json.contains("[{\"k\":[{\"k\":"));
+            assertTrue(json.contains("[\"leaf\"]"));
+
+            // Indentation of YAML grows quadratically, only verify it beyond recursive writing depth
+            Object yamlDeep = "leaf";
+            for (int d = 0; d < 2_000; d++) yamlDeep = List.of(yamlDeep);
+            p.modifyAdditionalData("deep", yamlDeep);
+            assertTrue(PubspecParserEngine.yaml().writeAsString(p).contains("- leaf"));
+        } catch (IllegalPubspecConfigurationException | IOException e) {
+            fail(e);
+        }
+    }
+
     @AfterAll
     static void cleanAutogenFile() {
         Set<String> autoGenFileName = Set.of(
@@ -119,4 +314,36 @@ final class PubspecParserTest {
             }
         }
     }
+
+    @DisplayName("Test non-scalar value of scalar fields")
+    @Order(11)
+    @Test
+    void testNonScalarField() {
+        try {
+            Pubspec p = PubspecParserEngine.yaml().read(String.join("\n",
+                    "name: non_scalar",
+                    "environment:",
+                    "  sdk: \">=2.15.0 <3.0.0\"",
+                    "  flutter: [a, b]",
+                    "version: 1.0.0",
+                    "description: [a, b]",
+                    "homepage: {url: \"https://example.com\"}",
+                    "dependencies: {path: ^1.8.0}",
+                    "flutter: {uses-material-design: true}",
+                    ""
+            ));
+            assertNull(p.description());
+            assertNull(p.homepage());
+            assertNull(p.environment().flutter());
+            assertEquals(p.version().value(), "1.0.0");
+            assertEquals(p.dependencies().size(), 1);
+            assertEquals(
+                    p.dependencies().get("path", HostedReference.class).versionConstraint().rawConstraint(),
+                    "^1.8.0"
+            );
+            assertEquals(p.additionalData().get("flutter"), Map.of("uses-material-design", true));
+        } catch (IOException | IllegalPubspecConfigurationException e) {
+            fail(e);
+        }
+    }
 }
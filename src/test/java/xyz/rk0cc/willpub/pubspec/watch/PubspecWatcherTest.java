@@ -0,0 +1,117 @@
+package xyz.rk0cc.willpub.pubspec.watch;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import xyz.rk0cc.willpub.pubspec.PubspecRepository;
+import xyz.rk0cc.willpub.pubspec.data.PubspecSnapshotDelta;
+import xyz.rk0cc.willpub.pubspec.parser.PubspecParserEngine;
+import xyz.rk0cc.willpub.pubspec.watch.PubspecChangeEvent.*;
+
+import java.nio.file.*;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+final class PubspecWatcherTest {
+    private static void writePubspec(Path dir, String version, String dependencies) throws Exception {
+        Files.writeString(
+                dir.resolve("pubspec.yaml"),
+                "name: watch_test\nversion: " + version + "\nenvironment:\n  sdk: '>=2.12.0 <3.0.0'\n"
+                        + "dependencies:\n" + dependencies
+        );
+    }
+
+    @DisplayName("Publish differences when pubspec.yaml is edited")
+    @Test
+    void testWatch(@TempDir Path dir) throws Exception {
+        writePubspec(dir, "1.0.0", "  path: ^1.8.0\n");
+
+        try (PubspecWatcher watcher = new PubspecWatcher(
+                PubspecParserEngine.yaml(),
+                new PubspecRepository(),
+                Duration.ofMillis(50)
+        )) {
+            assertEquals("1.0.0", watcher.watch(dir).version().value());
+            final PubspecWatcher.Subscription subscription = watcher.subscribe();
+
+            writePubspec(dir, "1.0.1", "  path: ^1.8.1\n  meta: ^1.7.0\n");
+            PubspecChangeSet changeSet = subscription.poll(10, TimeUnit.SECONDS);
+            assertNotNull(changeSet);
+            assertEquals("1.0.1", changeSet.current().version().value());
+            assertSame(changeSet.current(), watcher.snapshot(dir));
+
+            FieldChanged version = changeSet.eventsOf(FieldChanged.class).get(0);
+            assertEquals(PubspecSnapshotDelta.Field.VERSION, version.field());
+            assertEquals("meta", changeSet.eventsOf(DependencyAdded.class).get(0).reference().name());
+            assertEquals("path", changeSet.eventsOf(DependencyChanged.class).get(0).newReference().name());
+
+            Files.delete(dir.resolve("pubspec.yaml"));
+            changeSet = subscription.poll(10, TimeUnit.SECONDS);
+            assertNotNull(changeSet);
+            assertInstanceOf(Deleted.class, changeSet.events().get(0));
+            assertNull(watcher.snapshot(dir));
+
+            writePubspec(dir, "2.0.0", "  path: ^1.8.1\n");
+            changeSet = subscription.poll(10, TimeUnit.SECONDS);
+            assertNotNull(changeSet);
+            assertInstanceOf(Created.class, changeSet.events().get(0));
+            assertEquals(0, subscription.droppedCount());
+        }
+    }
+
+    @DisplayName("Reload continuously written file within maximum wait")
+    @Test
+    void testMaxWait(@TempDir Path dir) throws Exception {
+        writePubspec(dir, "1.0.0", "  path: ^1.8.0\n");
+
+        try (PubspecWatcher watcher = new PubspecWatcher(
+                PubspecParserEngine.yaml(),
+                new PubspecRepository(),
+                Duration.ofMillis(300),
+                Duration.ofMillis(600)
+        )) {
+            watcher.watch(dir);
+            final PubspecWatcher.Subscription subscription = watcher.subscribe();
+            final long start = System.nanoTime();
+            PubspecChangeSet changeSet = null;
+
+            // Write faster than debounce period, which would never be reloaded without maximum wait.
+            for (int v = 1; changeSet == null && System.nanoTime() - start < TimeUnit.SECONDS.toNanos(10); v++) {
+                writePubspec(dir, "1.0." + v, "  path: ^1.8.0\n");
+                changeSet = subscription.poll(100, TimeUnit.MILLISECONDS);
+            }
+
+            assertNotNull(changeSet);
+        }
+    }
+
+    @DisplayName("Wake waiting subscribers when closed")
+    @Test
+    void testClose(@TempDir Path dir) throws Exception {
+        final PubspecWatcher watcher = new PubspecWatcher(PubspecParserEngine.yaml());
+        final PubspecWatcher.Subscription subscription = watcher.subscribe(), closedOne = watcher.subscribe();
+        final CompletableFuture<Throwable> waiting = CompletableFuture.supplyAsync(() -> {
+            try {
+                subscription.take();
+                return null;
+            } catch (Throwable t) {
+                return t;
+            }
+        });
+
+        closedOne.close();
+        assertNull(closedOne.poll(10, TimeUnit.SECONDS));
+        assertThrows(ClosedWatchServiceException.class, closedOne::take);
+
+        Files.writeString(dir.resolve("pubspec.yaml"), "name: [");
+        assertThrows(Exception.class, () -> watcher.watch(dir));
+        assertNull(watcher.snapshot(dir));
+
+        watcher.close();
+        assertInstanceOf(ClosedWatchServiceException.class, waiting.get(10, TimeUnit.SECONDS));
+        assertTrue(subscription.isClosed());
+        assertNull(subscription.poll(1, TimeUnit.SECONDS));
+    }
+}
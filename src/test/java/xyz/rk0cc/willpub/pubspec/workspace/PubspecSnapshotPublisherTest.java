@@ -0,0 +1,182 @@
+package xyz.rk0cc.willpub.pubspec.workspace;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import xyz.rk0cc.willpub.pubspec.data.PubspecSnapshot;
+import xyz.rk0cc.willpub.pubspec.parser.PubspecParserEngine;
+
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+final class PubspecSnapshotPublisherTest {
+    private static String yaml(String name) {
+        return "name: " + name + "\nversion: 1.0.0\nenvironment:\n  sdk: '>=2.12.0 <3.0.0'\n";
+    }
+
+    /**
+     * Records every signal and requests only when asked.
+     */
+    private static final class RecordingSubscriber<T> implements Flow.Subscriber<T> {
+        private final LinkedBlockingQueue<Object> signals = new LinkedBlockingQueue<>();
+        private volatile Flow.Subscription subscription;
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(T item) {
+            signals.add(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            signals.add(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            signals.add("complete");
+        }
+
+        private Object take() throws InterruptedException {
+            final Object signal = signals.poll(10, TimeUnit.SECONDS);
+            assertNotNull(signal, "No signal received");
+            return signal;
+        }
+    }
+
+    @DisplayName("Parse documents only when requested")
+    @Test
+    void testDemand() throws Exception {
+        final ConcurrentLinkedQueue<Integer> pulled = new ConcurrentLinkedQueue<>();
+        final PubspecSnapshotPublisher publisher = PubspecSnapshotPublisher.ofDocuments(
+                () -> IntStream.range(0, 1000).peek(pulled::add).mapToObj(i -> yaml("pkg_" + i)),
+                PubspecParserEngine.yaml()
+        );
+        final RecordingSubscriber<PubspecSnapshot> subscriber = new RecordingSubscriber<>();
+
+        publisher.subscribe(subscriber);
+        subscriber.subscription.request(2);
+        assertEquals("pkg_0", ((PubspecSnapshot) subscriber.take()).name());
+        assertEquals("pkg_1", ((PubspecSnapshot) subscriber.take()).name());
+        assertNull(subscriber.signals.poll(200, TimeUnit.MILLISECONDS));
+        assertEquals(2, pulled.size());
+
+        subscriber.subscription.request(1);
+        assertEquals("pkg_2", ((PubspecSnapshot) subscriber.take()).name());
+
+        subscriber.subscription.cancel();
+        subscriber.subscription.request(5);
+        assertNull(subscriber.signals.poll(200, TimeUnit.MILLISECONDS));
+        assertEquals(3, pulled.size());
+
+        final RecordingSubscriber<PubspecSnapshot> invalid = new RecordingSubscriber<>();
+        publisher.subscribe(invalid);
+        invalid.subscription.request(0);
+        assertInstanceOf(IllegalArgumentException.class, invalid.take());
+    }
+
+    @DisplayName("Deliver failures in error channel or terminate")
+    @Test
+    void testDirectory(@TempDir Path root) throws Exception {
+        for (String name : List.of("alpha", "beta", "gamma")) {
+            Files.createDirectories(root.resolve(name));
+            Files.writeString(root.resolve(name).resolve("pubspec.yaml"), yaml(name));
+        }
+        Files.createDirectories(root.resolve("beta/.dart_tool/cached"));
+        Files.writeString(root.resolve("beta/.dart_tool/cached/pubspec.yaml"), yaml("cached"));
+        Files.createDirectories(root.resolve("broken"));
+        Files.writeString(root.resolve("broken/pubspec.yaml"), "name: [");
+
+        final PubspecSnapshotPublisher publisher =
+                PubspecSnapshotPublisher.ofDirectory(root, PubspecWorkspaceScanOptions.defaultOptions());
+
+        final RecordingSubscriber<PubspecPublishResult> results = new RecordingSubscriber<>();
+        publisher.withErrors().subscribe(results);
+        results.subscription.request(Long.MAX_VALUE);
+
+        final TreeSet<String> names = new TreeSet<>();
+        int failed = 0;
+        Object signal;
+        while (!"complete".equals(signal = results.take())) {
+            if (signal instanceof PubspecPublishResult.Published p) names.add(p.snapshot().name());
+            else if (signal instanceof PubspecPublishResult.Failed f && f.origin().contains("broken")) failed++;
+            else fail("Unexpected signal: " + signal);
+        }
+        assertEquals(Set.of("alpha", "beta", "gamma"), names);
+        assertEquals(1, failed);
+
+        final RecordingSubscriber<PubspecSnapshot> snapshots = new RecordingSubscriber<>();
+        publisher.subscribe(snapshots);
+        snapshots.subscription.request(Long.MAX_VALUE);
+        while (!((signal = snapshots.take()) instanceof Throwable)) assertInstanceOf(PubspecSnapshot.class, signal);
+
+        final RecordingSubscriber<PubspecSnapshot> missing = new RecordingSubscriber<>();
+        PubspecSnapshotPublisher.ofDirectory(root.resolve("missing"), PubspecWorkspaceScanOptions.defaultOptions())
+                .withExecutor(Runnable::run)
+                .subscribe(missing);
+        missing.subscription.request(1);
+        assertInstanceOf(NotDirectoryException.class, missing.take());
+    }
+
+    @DisplayName("Send nothing after terminated when executor rejects")
+    @Test
+    void testRejectedAfterTerminated() throws Exception {
+        final AtomicBoolean accepting = new AtomicBoolean(true);
+        final PubspecSnapshotPublisher publisher = PubspecSnapshotPublisher
+                .ofDocuments(() -> Stream.of(yaml("only")), PubspecParserEngine.yaml())
+                .withExecutor(task -> {
+                    if (!accepting.get()) throw new RejectedExecutionException("Shut down");
+                    task.run();
+                });
+
+        final RecordingSubscriber<PubspecSnapshot> completed = new RecordingSubscriber<>();
+        publisher.subscribe(completed);
+        completed.subscription.request(Long.MAX_VALUE);
+        assertEquals("only", ((PubspecSnapshot) completed.take()).name());
+        assertEquals("complete", completed.take());
+
+        final RecordingSubscriber<PubspecSnapshot> rejected = new RecordingSubscriber<>();
+        publisher.subscribe(rejected);
+        accepting.set(false);
+
+        completed.subscription.request(1);
+        completed.subscription.cancel();
+        assertNull(completed.signals.poll(200, TimeUnit.MILLISECONDS));
+
+        rejected.subscription.request(1);
+        assertInstanceOf(RejectedExecutionException.class, rejected.take());
+        rejected.subscription.request(1);
+        rejected.subscription.cancel();
+        assertNull(rejected.signals.poll(200, TimeUnit.MILLISECONDS));
+    }
+
+    @DisplayName("Skip blank lines of NDJSON")
+    @Test
+    void testNdjson(@TempDir Path dir) throws Exception {
+        final Path file = dir.resolve("dump.ndjson");
+        Files.writeString(file, String.join("\n",
+                "{\"name\":\"one\",\"version\":\"1.0.0\",\"environment\":{\"sdk\":\">=2.12.0 <3.0.0\"}}",
+                "",
+                "{\"name\":\"two\",\"version\":\"1.0.0\",\"environment\":{\"sdk\":\">=2.12.0 <3.0.0\"}}"
+        ));
+
+        final RecordingSubscriber<PubspecPublishResult> subscriber = new RecordingSubscriber<>();
+        PubspecSnapshotPublisher.ofNdjson(file).withErrors().subscribe(subscriber);
+        subscriber.subscription.request(3);
+
+        assertEquals("one", ((PubspecPublishResult.Published) subscriber.take()).snapshot().name());
+        final PubspecPublishResult.Published second = (PubspecPublishResult.Published) subscriber.take();
+        assertEquals("two", second.snapshot().name());
+        assertTrue(second.origin().endsWith(":3"));
+        assertEquals("complete", subscriber.take());
+    }
+}
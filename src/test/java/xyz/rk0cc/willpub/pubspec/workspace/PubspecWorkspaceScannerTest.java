@@ -0,0 +1,57 @@
+package xyz.rk0cc.willpub.pubspec.workspace;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.*;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+final class PubspecWorkspaceScannerTest {
+    private static void writePubspec(Path dir, String name) throws Exception {
+        Files.createDirectories(dir);
+        Files.writeString(
+                dir.resolve("pubspec.yaml"),
+                "name: " + name + "\nversion: 1.0.0\nenvironment:\n  sdk: '>=2.12.0 <3.0.0'\n"
+        );
+    }
+
+    @DisplayName("Find and load pubspec.yaml with pruning")
+    @Test
+    void testScan(@TempDir Path root) throws Exception {
+        writePubspec(root.resolve("packages/alpha"), "alpha");
+        writePubspec(root.resolve("packages/alpha/example"), "alpha_example");
+        writePubspec(root.resolve("packages/beta"), "beta");
+        writePubspec(root.resolve("packages/beta/.dart_tool/cached"), "cached");
+        writePubspec(root.resolve("packages/beta/build/out"), "out");
+        writePubspec(root.resolve("tools/node_modules/dep"), "dep");
+        Files.createDirectories(root.resolve("broken"));
+        Files.writeString(root.resolve("broken/pubspec.yaml"), "name: [");
+
+        final PubspecWorkspaceScanOptions options = PubspecWorkspaceScanOptions.defaultOptions()
+                .modifyParallelism(4);
+        final List<String> excludes = new ArrayList<>(options.excludes());
+        excludes.add("tools/node_modules");
+
+        final PubspecWorkspaceScanner scanner = new PubspecWorkspaceScanner(options.modifyExcludes(excludes));
+        final List<PubspecScanResult> results = scanner.scanAll(root);
+
+        assertEquals(4, results.size());
+        assertInstanceOf(PubspecScanResult.Failed.class, results.get(0));
+        assertEquals(
+                List.of("alpha", "alpha_example", "beta"),
+                results.stream()
+                        .filter(PubspecScanResult.Loaded.class::isInstance)
+                        .map(r -> ((PubspecScanResult.Loaded) r).pubspec().name())
+                        .toList()
+        );
+
+        final PubspecScanStatistics stats = scanner.scan(root, r -> {});
+        assertEquals(3, stats.loadedCount());
+        assertEquals(1, stats.failedCount());
+        assertEquals(3, stats.prunedCount());
+
+        assertThrows(NotDirectoryException.class, () -> scanner.scan(root.resolve("broken/pubspec.yaml"), r -> {}));
+    }
+}